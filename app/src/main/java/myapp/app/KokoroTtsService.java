@@ -0,0 +1,258 @@
+package myapp.app;
+
+import android.media.AudioFormat;
+import android.speech.tts.SynthesisCallback;
+import android.speech.tts.SynthesisRequest;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.TextToSpeechService;
+import android.speech.tts.Voice;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.concurrent.TimeUnit;
+
+import myapp.app.log.Logger;
+import myapp.app.metrics.Metrics;
+import myapp.app.tts.KokoroSynthesizer;
+import myapp.app.tts.PcmConversion;
+import myapp.app.tts.SsmlParser;
+import myapp.app.tts.StyleLoaderJava;
+
+/**
+ * Kokoro as a system TTS engine (Settings > Text-to-speech), so other apps speak through the same
+ * warm {@link SpeechEngine} our own screens use instead of each loading a model of their own.
+ *
+ * Requests are split into segments (sentences of plain text; the elements of SSML, see
+ * {@link SsmlParser}) and each is handed to {@link SynthesisCallback#audioAvailable} as soon as it
+ * is synthesized, while the framework plays the previous one. Audio is 24 kHz mono PCM16 at unity
+ * gain; the framework resamples and mixes it.
+ *
+ * Voices are the installed voices_NAME.bin tables, named "kokoro-NAME"; NAMEs starting with 'b' are
+ * British English, the rest American. Speech rate maps onto the model's speed (0.5..2); pitch is
+ * not supported.
+ */
+public final class KokoroTtsService extends TextToSpeechService {
+
+  private static final String VOICE_PREFIX   = "kokoro-";
+  private static final long   LOAD_TIMEOUT_S = 60;
+  private static final float  MIN_SPEED      = 0.5f;
+  private static final float  MAX_SPEED      = 2.0f;
+
+  private          Logger       log      = Logger.NONE;
+  private          SpeechEngine engine   ;
+  private volatile boolean      stopped  ;
+  private volatile String[]     language = { "eng", "USA", "" };
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    log    = SpeechEngine.log(this);
+    engine = SpeechEngine.acquire(this);
+  }
+
+  @Override
+  public void onDestroy() {
+    super.onDestroy();
+    SpeechEngine.release();
+  }
+
+  // ======== LANGUAGES AND VOICES ========
+
+  @Override
+  protected int onIsLanguageAvailable(String lang, String country, String variant) {
+    if (!"eng".equals(iso3Language(lang))) return TextToSpeech.LANG_NOT_SUPPORTED;
+    String c = iso3Country(country);
+    return ("USA".equals(c) || "GBR".equals(c)) ? TextToSpeech.LANG_COUNTRY_AVAILABLE : TextToSpeech.LANG_AVAILABLE;
+  }
+
+  @Override
+  protected String[] onGetLanguage() {
+    return language.clone();
+  }
+
+  @Override
+  protected int onLoadLanguage(String lang, String country, String variant) {
+    int result = onIsLanguageAvailable(lang, country, variant);
+    if (result == TextToSpeech.LANG_COUNTRY_AVAILABLE) language = new String[] { "eng", iso3Country(country), "" };
+    else if (result == TextToSpeech.LANG_AVAILABLE)    language = new String[] { "eng", "", "" };
+    return result;
+  }
+
+  @Override
+  public List<Voice> onGetVoices() {
+    List<Voice> voices = new ArrayList<>();
+    for (String name : installedVoices()) {
+      voices.add(new Voice(VOICE_PREFIX + name, locale(name), Voice.QUALITY_HIGH, Voice.LATENCY_NORMAL, false, Collections.emptySet()));
+    }
+    return voices;
+  }
+
+  @Override
+  public int onIsValidVoiceName(String voiceName) {
+    return voiceFile(voiceName) != null ? TextToSpeech.SUCCESS : TextToSpeech.ERROR;
+  }
+
+  @Override
+  public int onLoadVoice(String voiceName) {
+    return onIsValidVoiceName(voiceName);
+  }
+
+  @Override
+  public String onGetDefaultVoiceNameFor(String lang, String country, String variant) {
+    if (onIsLanguageAvailable(lang, country, variant) < TextToSpeech.LANG_AVAILABLE) return null;
+    return VOICE_PREFIX + defaultVoiceFile(iso3Country(country));
+  }
+
+  // ======== SYNTHESIS ========
+
+  @Override
+  protected void onStop() {
+    stopped = true;
+  }
+
+  @Override
+  protected void onSynthesizeText(SynthesisRequest request, SynthesisCallback callback) {
+    stopped = false;
+    long t0 = System.nanoTime();
+    TTS tts = awaitTts();
+    if (tts == null) {
+      callback.error(TextToSpeech.ERROR_NOT_INSTALLED_YET);
+      return;
+    }
+    KokoroSynthesizer synth = tts.synthesizer();
+
+    CharSequence cs    = request.getCharSequenceText();   // set on every request since API 21
+    String       voice = voiceFile(request.getVoiceName());
+    if (voice == null) voice = defaultVoiceFile(iso3Country(request.getCountry()));
+    float speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, request.getSpeechRate() / 100f));
+
+    synthesize((cs != null) ? cs.toString() : "", voice, speed, t0,
+               (text, name, index, rate) -> synth.synthesize(text, name, index, rate, null), callback);
+    engine.governor().enforce();
+  }
+
+  /** Synthesizes one segment: {@link KokoroSynthesizer#synthesize} in the service, a fake in tests. */
+  interface SegmentSynthesizer {
+    float[] synthesize(String text, String voiceName, int voiceIndex, float speed) throws IOException;
+  }
+
+  /**
+   * Streams {@code text} (plain or SSML) into {@code callback} segment by segment, then ends the
+   * request with done(), or error() if every segment failed. Ends it with neither when stopped or
+   * when the callback refuses audio. {@code t0} is when the request arrived, for "tts_service.first_audio".
+   */
+  void synthesize(String text, String voice, float speed, long t0, SegmentSynthesizer synth, SynthesisCallback callback) {
+    if (callback.start(KokoroSynthesizer.SAMPLE_RATE, AudioFormat.ENCODING_PCM_16BIT, 1) != TextToSpeech.SUCCESS) return;
+    Metrics.counter("tts_service.requests").incrementAndGet();
+
+    SsmlParser parser = new SsmlParser(SsmlParser.isSsml(text) ? text : sentences(text), voice, KokoroSynthesizer.DEFAULT_VOICE_INDEX, speed);
+    int     sent = 0, failed = 0;
+    boolean aborted = false;   // stopped, or the callback refused audio
+    SsmlParser.Segment seg;
+    while (!aborted && !stopped && (seg = parser.next()) != null) {
+      float[] audio;
+      if (seg.isBreak()) {
+        audio = new float[(int) ((long) seg.breakMs * KokoroSynthesizer.SAMPLE_RATE / 1000)];
+      } else {
+        try {
+          audio = synth.synthesize(seg.text, seg.voiceName, seg.voiceIndex, seg.speed);
+        } catch (IOException e) {
+          log.w("KokoroTtsService: segment failed: " + e.getMessage());
+          failed++;
+          continue;
+        }
+      }
+      if (!send(callback, PcmConversion.toPcm16Le(audio, 1f))) {
+        aborted = true;
+        break;
+      }
+      if (sent++ == 0) Metrics.latency("tts_service.first_audio").record((System.nanoTime() - t0) / 1000);
+    }
+    if (!aborted && !stopped) {
+      if (sent == 0 && failed > 0) callback.error(TextToSpeech.ERROR_SYNTHESIS);
+      else                         callback.done();
+    }
+  }
+
+  /** Hands {@code pcm} over in pieces the callback accepts; false once the request is stopped. */
+  private boolean send(SynthesisCallback callback, byte[] pcm) {
+    int max = callback.getMaxBufferSize();
+    for (int off = 0; off < pcm.length; off += max) {
+      if (stopped) return false;
+      if (callback.audioAvailable(pcm, off, Math.min(max, pcm.length - off)) != TextToSpeech.SUCCESS) return false;
+    }
+    return true;
+  }
+
+  // ======== HELPERS ========
+
+  /** The loaded TTS, waiting for the engine if it is still loading; null if it failed. */
+  private TTS awaitTts() {
+    try {
+      return engine.ready().get(LOAD_TIMEOUT_S, TimeUnit.SECONDS).tts();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (Exception e) {
+      log.w("KokoroTtsService: engine not available: " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Voice tables in the models directory. Read from disk rather than from the engine so the voice
+   * queries, which the framework makes on its binder threads, never wait for the model to load.
+   */
+  private List<String> installedVoices() {
+    return StyleLoaderJava.installedVoices(SpeechEngine.modelsDir(this));
+  }
+
+  /** NAME of an installed "kokoro-NAME" voice, or null. */
+  private String voiceFile(String voiceName) {
+    if (voiceName == null || !voiceName.startsWith(VOICE_PREFIX)) return null;
+    String name = voiceName.substring(VOICE_PREFIX.length());
+    return installedVoices().contains(name) ? name : null;
+  }
+
+  /** A British voice for GBR if one is installed, else the synthesizer's default. */
+  private String defaultVoiceFile(String country) {
+    if ("GBR".equals(country)) {
+      for (String name : installedVoices()) if (name.startsWith("b")) return name;
+    }
+    return KokoroSynthesizer.DEFAULT_VOICE_NAME;
+  }
+
+  private static Locale locale(String voiceFile) {
+    return voiceFile.startsWith("b") ? Locale.UK : Locale.US;
+  }
+
+  /** Plain text as SSML with one {@code <s>} per sentence, so each can be sent as soon as it is ready. */
+  static String sentences(String text) {
+    StringBuilder sb = new StringBuilder("<speak>");
+    for (String s : text.trim().split("(?<=[.!?])\\s+")) {
+      if (s.isEmpty()) continue;
+      sb.append("<s>").append(s.replace("&", "&amp;").replace("<", "&lt;")).append("</s>");
+    }
+    return sb.append("</speak>").toString();
+  }
+
+  private static String iso3Language(String lang) {
+    try {
+      return (lang == null) ? "" : new Locale(lang).getISO3Language();
+    } catch (MissingResourceException e) {
+      return lang;
+    }
+  }
+
+  private static String iso3Country(String country) {
+    try {
+      return (country == null || country.isEmpty()) ? "" : new Locale("", country).getISO3Country();
+    } catch (MissingResourceException e) {
+      return country;
+    }
+  }
+}
@@ -2,20 +2,28 @@ package myapp.app;
 
 import android.Manifest;
 import android.app.Activity;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
+import android.graphics.Typeface;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Log;
+import android.os.IBinder;
+import android.util.TypedValue;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.TextView;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import myapp.app.utils.ModelDownloader;
+import myapp.app.log.LogSink;
 
 public class MainActivity extends Activity {
 
@@ -24,13 +32,38 @@ public class MainActivity extends Activity {
   private Button     readTextButton;
   private Button     toTextButton  ;
   private Button     liveButton    ;
+  private TextView   telemetryText ;
   private TextView   liveText      ;
   private ScrollView liveScroll    ;
   private TextView   statusText    ;
   private ScrollView statusScroll  ;
 
-  private STT stt;
-  private TTS tts;
+  private LogSink       log    ;
+  private SpeechService speech ;   // null until bound
+  private boolean       bound  ;
+
+  private final AtomicReference<CharSequence> pendingStatus = new AtomicReference<>();
+
+  private final STT.Ui liveUi = new STT.Ui() {
+    @Override public void onLiveText   (String transcript) { setLiveText(transcript); }
+    @Override public void onTelemetry  (String overlay   ) { setTelemetryText(overlay); }
+    @Override public void onLiveStopped()                  { setLiveButtonText("Start Live Transcription"); }
+  };
+
+  private final ServiceConnection connection = new ServiceConnection() {
+    @Override
+    public void onServiceConnected(ComponentName name, IBinder binder) {
+      speech = ((SpeechService.LocalBinder) binder).service();
+      print("(onServiceConnected) engine " + (speech.engine().isReady() ? "warm" : "loading"));
+      speech.ready().whenComplete((engine, error) -> runOnUiThread(() -> onEngineReady(engine)));
+    }
+
+    @Override
+    public void onServiceDisconnected(ComponentName name) {
+      speech = null;
+      enableButtons(false, false);
+    }
+  };
 
   private static final int PERMISSION_REQUEST_CODE = 200;
 
@@ -61,6 +94,12 @@ public class MainActivity extends Activity {
     liveButton.setText("Start Live Transcription");
     layout    .addView(liveButton);
 
+    telemetryText = new TextView(this);
+    telemetryText.setTypeface   (Typeface.MONOSPACE);
+    telemetryText.setTextSize   (TypedValue.COMPLEX_UNIT_SP, 10);
+    telemetryText.setMaxLines   (2);
+    layout       .addView       (telemetryText);
+
     liveText = new TextView       (this);
     liveText  .setLayoutParams    (new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
     liveText  .setTextIsSelectable(true);
@@ -78,7 +117,7 @@ public class MainActivity extends Activity {
     statusText  .setLayoutParams    (new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
     statusText  .setTextIsSelectable(true);
     statusText  .setSingleLine      (false);
-    statusText  .setMaxLines        (Integer.MAX_VALUE);
+    statusText  .setMaxLines        (Integer.MAX_VALUE);  // content is bounded by the LogSink ring
     statusText  .setText            ("");
     statusScroll = new ScrollView   (this);
     statusScroll.setFillViewport    (true);
@@ -87,7 +126,7 @@ public class MainActivity extends Activity {
     layout.addView(statusScroll);
 
     setContentView(layout);
-
+    log = SpeechEngine.log(this).setDisplay(this::showStatus);
 
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
       if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
@@ -96,86 +135,87 @@ public class MainActivity extends Activity {
     }
 
     recordButton.setOnClickListener(v -> {
+      STT stt = stt();
+      if (stt == null) return;
       if (!stt.isRecording()) stt.startRecording(); else stt.stopRecording();
     });
 
     playButton.setOnClickListener(v -> {
+      STT stt = stt();
+      if (stt == null) return;
       if (!stt.isPlaying  ()) stt.startPlayback (); else stt.stopPlayback ();
     });
 
     readTextButton.setOnClickListener(v -> {
-      print("Read Text button pressed â€” NEW VERSION");
-      if (tts != null) {
-        tts.speak("This is an example text being read out loud.");
+      print("Read Text button pressed");
+      if (speech != null) {
+        speech.speak("This is an example text being read out loud.");
       } else {
-        print("TTS object is null â€” cannot speak");
+        print("Speech service not bound - cannot speak");
       }
     });
 
     toTextButton.setOnClickListener(v -> {
-      stt.toText();
+      if (speech != null) speech.transcribe(liveUi);
     });
 
     liveButton.setOnClickListener(v -> {
-      if (!stt.isLive()) stt.startLiveTranscription(); else stt.stopLiveTranscription();
+      STT stt = stt();
+      if (stt == null) return;
+      if (!stt.isLive()) speech.startLiveTranscription(liveUi); else speech.stopLiveTranscription();
     });
 
-    recordButton  .setEnabled(false);
-    playButton    .setEnabled(false);
-    readTextButton.setEnabled(false);
-    toTextButton  .setEnabled(false);
-    liveButton    .setEnabled(false);
-
-    new Thread(() -> {
-      print("(onCreateThread) Creating ModelDownloader");
-      ModelDownloader md = new ModelDownloader(this);
-      print("(onCreateThread) Starting ModelDownloader");
-      md.start();
-      while (!md.done) { try { Thread.sleep(200); } catch (InterruptedException ignore) {} }
-      print("(onCreateThread) Model download complete, creating Model and STT");
-      try {
-        /*
-        java.io.File   modelDir = new java.io  .File (getFilesDir(), myapp.app.utils.ModelDownloader.VOSK_MODEL_NAME);
-        print("(onCreateThread) modelDir created");
-        org.vosk.Model model    = new org .vosk.Model(modelDir.getAbsolutePath());
-        print("(onCreateThread) model created");
-        stt = new STT(this);
-        print("(onCreateThread) STT created");
-        stt.setModel(model);
-        print("(onCreateThread) STT.Model set");
-        */
-        java.io.File voiceFile = new java.io.File(getFilesDir(), "cmu_us_slt.flitevox");
-        print("(onCreateThread) voiceFile created");
-        if (voiceFile.exists()) {
-          print("Voice file found at: " + voiceFile.getAbsolutePath() + " (size: " + voiceFile.length() + ")");
-          try { Thread.sleep(1000); } catch (InterruptedException e) { e.printStackTrace(); }
-          tts = new TTS(this, voiceFile.getAbsolutePath());
-        } else {
-          print("Voice file missing at: " + voiceFile.getAbsolutePath());
-          try { Thread.sleep(1000); } catch (InterruptedException e) { e.printStackTrace(); }
-        }
-        tts = new TTS(this, "/sdcard/Android/data/myapp.app/files/models/kokoro.onnx");
-        runOnUiThread(() -> {
-//          recordButton  .setEnabled(true );
-//          playButton    .setEnabled(true );
-          readTextButton.setEnabled(true );
-//          toTextButton  .setEnabled(true );
-//          liveButton    .setEnabled(true );
-        });
-        print("(onCreateThread) DONE");
-      } catch (Exception e) {
-        print("EXCEPTION(onCreateThread) (Model load): " + e);
-      }
-    }).start();
-    print("(onCreate) Thread started and DONE");
+    enableButtons(false, false);
+    bound = bindService(new Intent(this, SpeechService.class), connection, Context.BIND_AUTO_CREATE);
+    print("(onCreate) DONE");
+  }
+
+  @Override
+  protected void onDestroy() {
+    STT stt = stt();
+    if (stt != null) stt.setUi(null);
+    if (bound) unbindService(connection);
+    bound  = false;
+    speech = null;
+    log.setDisplay(null);
+    super.onDestroy();
+  }
+
+  private void onEngineReady(SpeechEngine engine) {
+    if (isDestroyed()) return;
+    if (engine == null) {
+      print("Speech engine failed to load; see the log above");
+      return;
+    }
+    STT stt = engine.stt();
+    if (stt != null) stt.setUi(liveUi);
+    enableButtons(engine.tts() != null, stt != null);
+  }
+
+  private void enableButtons(boolean tts, boolean stt) {
+    recordButton  .setEnabled(stt);
+    playButton    .setEnabled(stt);
+    readTextButton.setEnabled(tts);
+    toTextButton  .setEnabled(stt);
+    liveButton    .setEnabled(stt);
+  }
+
+  private STT stt() {
+    SpeechService s = speech;
+    return (s != null) ? s.engine().stt() : null;
   }
 
   public void print(String msg) {
-      runOnUiThread(() -> {
-          statusText.append(msg + "\n");
-          statusScroll.post(() -> statusScroll.fullScroll(ScrollView.FOCUS_DOWN));
-          Log.d("main", msg);
-      });
+    log.i(msg);
+  }
+
+  /** Called by the log thread at most once per frame; only the newest pending text is posted. */
+  private void showStatus(CharSequence text) {
+    if (pendingStatus.getAndSet(text) != null) return;
+    runOnUiThread(() -> {
+      statusText  .setText(pendingStatus.getAndSet(null));
+      statusScroll.post   (() -> statusScroll.fullScroll(ScrollView.FOCUS_DOWN));
+    });
   }
 
 
@@ -186,6 +226,10 @@ public class MainActivity extends Activity {
     });
   }
 
+  public void setTelemetryText(String text) {
+    runOnUiThread(() -> telemetryText.setText(text));
+  }
+
   public void setLiveButtonText(String text) {
     runOnUiThread(() -> liveButton.setText(text));
   }
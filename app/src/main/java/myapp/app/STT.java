@@ -1,321 +1,462 @@
 package myapp.app;
 
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.AudioTrack;
-import android.media.AudioManager;
+import android.content.Context;
+import android.media.AudioAttributes;
 import android.media.MediaRecorder;
+import android.media.audiofx.AcousticEchoCanceler;
+
+import myapp.app.audio.AudioCaptureEngine;
+import myapp.app.audio.AudioRecordSource;
+import myapp.app.audio.AudioSource;
+import myapp.app.audio.AudioTrackSink;
+import myapp.app.audio.EchoReference;
+import myapp.app.audio.ResamplingSource;
+import myapp.app.audio.TimeStretchSink;
+import myapp.app.audio.RecordingReader;
+import myapp.app.audio.RecordingWriter;
+import myapp.app.log.LogSink;
+import myapp.app.metrics.Metrics;
+import myapp.app.stt.BargeInDetector;
+import myapp.app.stt.LiveRecognizer;
+import myapp.app.stt.RecognitionLoop;
+import myapp.app.utils.ModelAssetManager;
+import myapp.app.utils.ModelAssets;
+import myapp.app.utils.ResourceGovernor;
 
 import org.vosk.Model;
 import org.vosk.Recognizer;
-import org.json.JSONObject;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Recording, playback and Vosk transcription (file and live) for the app.
+ *
+ * As a {@link ResourceGovernor} resource ("stt.model") the Vosk model is closed at the SESSIONS
+ * tier while nothing uses it and reloaded from its directory on the next transcription.
+ */
+public class STT implements ResourceGovernor.Resource {
+
+  /**
+   * Where transcripts go, live ones and {@link #toText()}'s; called on the recognizer or transcription
+   * thread, so implementations hand off to the UI.
+   */
+  public interface Ui {
+    default void onLiveText   (String transcript) {}
+    default void onTelemetry  (String overlay   ) {}
+    default void onLiveStopped()                   {}
+  }
+
+  private static final Ui NO_UI = new Ui() {};
+
+  private final Context      context   ;
+  private final LogSink      log       ;
+  private volatile Model      model     ;
+  private volatile Recognizer recognizer;
+  private       File         modelDir  ;   // set by loadModel; lets trim() drop the model
+  private       long         modelBytes;
 
-public class STT {
+  private static final int    FRAME_BYTES     = 3200;  // 100 ms of 16 kHz mono PCM16
+  private static final int    NATIVE_RATE     = 48000; // live capture runs here when it is the mixer rate
+  private static final int    RING_FRAMES     =   64;
+  private static final int    KEEP_RECORDINGS =   10;  // older ones are deleted when a recording ends
 
-  private final MainActivity main      ;
-  private       Model        model     ;
-  private       Recognizer   recognizer;
+  private static final String METRICS_FILE = "metrics/stt.json";
 
-  private final int          sampleRate       = 16000;
-  private final byte[]       recordedData     = new byte[sampleRate * 2 * 60 * 15];
-  private       int          recordedBytes    = 0;
-  private       int          playbackPosition = 0;
+  private final    int             sampleRate       = 16000;
+  private final    File            recordingsDir    ;
+  private volatile File            currentRecording ;
+  private volatile long            playbackPosition = 0;   // in samples
+  private volatile float           playbackSpeed    = 1f;
+  private volatile TimeStretchSink playbackSink     ;
+  private volatile Thread          playbackThread   ;   // the current playback; a stopped one ends on its own
+  private final    Object          playbackLock     = new Object();   // not `this`: a model reload holds that
 
-  private boolean isRecording = false;
-  private boolean isPlaying   = false;
-  private boolean isLive      = false;
+  private volatile boolean isRecording = false;
+  private volatile boolean isPlaying   = false;
+  private volatile boolean isLive      = false;   // from start until the recognizer has flushed
+  private volatile boolean isDecoding  = false;   // toText() running
 
-  private       AudioRecord   recorder    ;
-  private       AudioTrack    player      ;
-  private       AudioRecord   liveRecorder;
-  private       Thread        liveThread  ;
-  private final Object        lock       = new Object       ();
-  private       StringBuilder liveBuffer = new StringBuilder();
+  private          AudioCaptureEngine recordEngine;
+  private volatile LiveRecognizer     live        ;
+  private volatile TTS                duplexTts   ;   // barge-in target while live, or null
+  private volatile Ui                 ui          = NO_UI;
 
-  public STT(MainActivity main) {
-    this.main = main;
-    main.print("(STT) created");
+  public STT(Context context, LogSink log) {
+    this.context          = context.getApplicationContext();
+    this.log              = log;
+    this.recordingsDir    = new File(context.getFilesDir(), "recordings");
+    this.currentRecording = latestRecording();
+    log.i("(STT) created" + (currentRecording != null ? "; last recording " + currentRecording.getName() : ""));
   }
 
-  public void setModel(Model model) {
+  /** Attaches the screen showing live results; null detaches it (results are then only logged). */
+  public void setUi(Ui ui) {
+    this.ui = (ui != null) ? ui : NO_UI;
+  }
+
+  public synchronized void setModel(Model model) {
     this.model = model;
     try {
       recognizer = new Recognizer(model, 16000.0f);
-      main.print("(STT) Model and recognizer initialized");
+      log.i("(STT) Model and recognizer initialized");
     } catch (Exception e) {
-      main.print("EXCEPTION(STT init): " + e);
+      log.i("EXCEPTION(STT init): " + e);
+    }
+  }
+
+  /** Waits for the Vosk model in the asset manifest and loads it. */
+  public void loadModel(ModelAssetManager assets) throws IOException {
+    File dir = assets.await(ModelAssets.VOSK);
+    synchronized (this) {
+      setModel(new Model(dir.getAbsolutePath()));
+      modelDir   = dir;
+      modelBytes = sizeOf(dir);
     }
   }
 
+  /** Reloads the model if {@link #trim} released it; false if there is none. */
+  private synchronized boolean ensureModel() {
+    if (model != null && recognizer != null) return true;
+    if (modelDir == null) return false;
+    log.i("(STT) reloading model from " + modelDir);
+    try {
+      setModel(new Model(modelDir.getAbsolutePath()));
+    } catch (IOException e) {
+      log.i("EXCEPTION(STT reload): " + e);
+    }
+    return recognizer != null;
+  }
+
+  @Override
+  public String name() { return "stt.model"; }
+
+  /** The model directory's size while it is loaded (Vosk reads its graphs into memory). */
+  @Override
+  public long footprintBytes() { return (model != null) ? modelBytes : 0; }
+
+  @Override
+  public synchronized void trim(int tier) {
+    if (tier < ResourceGovernor.SESSIONS || model == null || modelDir == null) return;
+    if (isLive || isRecording || isDecoding) {
+      log.i("(STT) model in use, not released");
+      return;
+    }
+    log.i("(STT) releasing model (memory pressure)");
+    recognizer.close();
+    model     .close();
+    recognizer = null;
+    model      = null;
+  }
+
+  private static long sizeOf(File f) {
+    File[] children = f.listFiles();
+    if (children == null) return f.length();
+    long sum = 0;
+    for (File c : children) sum += sizeOf(c);
+    return sum;
+  }
+
   public boolean isRecording() { return isRecording; }
   public boolean isPlaying  () { return isPlaying  ; }
   public boolean isLive     () { return isLive     ; }
 
   public void startRecording() {
-    main.print("(STT:startRecording) called");
+    log.i("(STT:startRecording) called");
     try {
-      int min  = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
-      recorder = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, Math.max(min, 8192));
-      recorder.startRecording();
-      isRecording = true;
-      new Thread(() -> {
-        int   offset;
-        synchronized (lock) { offset = recordedBytes; }
-        int   chunkSize   = 8192;
-        float seconds     =   -1;
-        float lastSeconds =    0;
-        int   read        =   -1;
-        while (isRecording && (offset < recordedData.length)) {
-          read = recorder.read(recordedData, offset, Math.min(chunkSize, recordedData.length - offset));
-          if (read > 0) {
-            offset += read;
-            synchronized (lock) { recordedBytes = offset; }
-            seconds = ((float) offset / (sampleRate * 2));
-            if((seconds - lastSeconds) >= 2.0) {
-//              main.print(String.format("RECORD: read=%d offset=%d dur=%.2fs rms=%.1f dBFS", read, offset, seconds, rmsDb(recordedData, offset - read, read)));
-              main.print(String.format("RECORDED %.2f sec; ", seconds));
-              lastSeconds = seconds;
-            }
+      String                   stamp  = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+      final File               file   = new File(recordingsDir, "rec_" + stamp + RecordingWriter.EXTENSION);
+      final RecordingWriter    writer = new RecordingWriter(file, sampleRate);
+      final AudioCaptureEngine engine = new AudioCaptureEngine("STT-record", new AudioRecordSource(MediaRecorder.AudioSource.MIC, sampleRate, 8192), FRAME_BYTES, RING_FRAMES);
+      engine.attach("recorder", new AudioCaptureEngine.Consumer() {
+        float   seconds     =    -1;
+        float   lastSeconds =     0;
+        boolean failed      = false;
+
+        @Override
+        public void onFrame(byte[] data, int length) {
+          if (failed) return;
+          try {
+            writer.write(data, 0, length);
+          } catch (IOException e) {
+            failed = true;
+            log.i("EXCEPTION(RECORD write): " + e);
+            return;
+          }
+          seconds = ((float) writer.samples() / sampleRate);
+          if ((seconds - lastSeconds) >= 2.0) {
+            log.i(String.format("RECORDED %.2f sec; ", seconds));
+            lastSeconds = seconds;
           }
         }
-        main.print(String.format("RECORDED %.2f sec; DONE; ", seconds));
-//        main.print(String.format("RECORD: read=%d offset=%d dur=%.2fs rms=%.1f dBFS", read, offset, seconds, rmsDb(recordedData, offset - read, read)));
-      }).start();
+
+        @Override
+        public void onStopped() {
+          try {
+            writer.close();
+          } catch (IOException e) {
+            log.i("EXCEPTION(RECORD close): " + e);
+          }
+          log.i(String.format("RECORDED %.2f sec; DONE; %s (%d KiB) overruns=%d readErrors=%d", seconds, file.getName(), file.length() / 1024, engine.overruns(), engine.readErrors()));
+          pruneRecordings();
+        }
+      });
+      currentRecording = file;
+      playbackPosition = 0;
+      isRecording      = true;
+      recordEngine     = engine;
+      engine.start();
     } catch (Exception e) {
-      main.print("EXCEPTION(RECORD): " + e);
+      log.i("EXCEPTION(RECORD): " + e);
     }
   }
 
   public void stopRecording() {
-    main.print("(STT:stopRecording) called");
+    log.i("(STT:stopRecording) called");
     try {
       isRecording = false;
-      if (recorder != null) {
-        recorder.stop   ();
-        recorder.release();
-        recorder = null;
+      if (recordEngine != null) {
+        recordEngine.stop();
+        if (recordEngine.startError() != null) log.i("EXCEPTION(RECORD): " + recordEngine.startError());
+        recordEngine = null;
       }
     } catch (Exception e) {
-      main.print("EXCEPTION(stopRecording): " + e);
+      log.i("EXCEPTION(stopRecording): " + e);
     }
   }
 
   public void startPlayback() {
-    main.print("(STT:startPlayback) called");
-    try {
-      synchronized (lock) { if (playbackPosition >= recordedBytes) playbackPosition = 0; }
-      int bufferSize = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
-      player         = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT, bufferSize, AudioTrack.MODE_STREAM);
-      player.play();
-      isPlaying = true;
-      new Thread(() -> {
-        int   chunkSize     =  1024;
-        int   localPosition = -   1;
-        synchronized (lock) { localPosition = playbackPosition; }
-        while (isPlaying) {
-          int toWrite;
-          synchronized (lock) { toWrite = Math.min(chunkSize, recordedBytes - localPosition); }
-          if (toWrite <= 0) break;
-          player.write(recordedData, localPosition, toWrite);
-          localPosition += toWrite;
-          synchronized (lock) { playbackPosition = localPosition; }
-        }
-        stopPlayback();
-      }).start();
-    } catch (Exception e) {
-      main.print("EXCEPTION(PLAY): " + e);
+    log.i("(STT:startPlayback) called");
+    final File file = currentRecording;
+    if (file == null) {
+      log.i("Cannot play: nothing recorded yet");
+      return;
+    }
+    synchronized (playbackLock) {
+      if (isPlaying) {
+        log.i("Playback already running");
+        return;
+      }
+      isPlaying      = true;
+      playbackThread = new Thread(() -> play(file), "STT-playback");
+      playbackThread.start();
     }
   }
 
-  public void stopPlayback() {
-    main.print("(STT:stopPlayback) called");
-    try {
-      isPlaying = false;
-      if (player != null) {
-        player.stop   ();
-        player.release();
-        player = null;
+  /**
+   * Body of the playback thread. A playback that was stopped may still be finishing its chunk when
+   * the next one starts, so each checks that it is still {@link #playbackThread} before touching
+   * the shared state.
+   */
+  private void play(File file) {
+    final Thread me = Thread.currentThread();
+    TimeStretchSink sink = new TimeStretchSink(new AudioTrackSink(sampleRate, AudioAttributes.CONTENT_TYPE_SPEECH, 0), playbackSpeed);
+    if (playbackThread == me) playbackSink = sink;
+    try (RecordingReader reader = new RecordingReader(file)) {
+      sink.start();
+      if (playbackPosition >= reader.totalSamples()) playbackPosition = 0;
+      reader.seek(playbackPosition);
+      byte[] chunk = new byte[1024];
+      while (isPlaying && playbackThread == me) {
+        int toWrite = reader.read(chunk, 0, chunk.length);
+        if (toWrite < 0 && isRecording && file == currentRecording) {
+          reader.refresh();
+          toWrite = reader.read(chunk, 0, chunk.length);
+        }
+        if (toWrite <= 0) {
+          sink.drain();
+          break;
+        }
+        if (sink.write(chunk, 0, toWrite) < 0) break;
+        if (playbackThread == me) playbackPosition = reader.position();
       }
-    } catch (Exception e) {
-      main.print("EXCEPTION(stopPlayback): " + e);
+    } catch (IOException e) {
+      log.i("EXCEPTION(PLAY): " + e);
+    } finally {
+      sink.stop();
+    }
+    synchronized (playbackLock) {
+      if (playbackThread != me) return;
+      playbackThread = null;
+      playbackSink   = null;
     }
+    stopPlayback();
+  }
+
+  /** Recording playback speed (0.5..2, pitch unchanged); also changes a playback in progress. */
+  public void setPlaybackSpeed(float speed) {
+    playbackSpeed = speed;
+    TimeStretchSink sink = playbackSink;
+    if (sink != null) sink.setTempo(speed);
+  }
+
+  /** The playback thread notices within one chunk (~32 ms) and releases the track itself. */
+  public void stopPlayback() {
+    log.i("(STT:stopPlayback) called");
+    isPlaying = false;
+  }
+
+  /**
+   * Duplex mode: while live transcription runs, {@code tts} plays through the capture's audio session
+   * with echo cancellation, our own speech is kept out of the transcript, and talking over it stops
+   * it (barge-in). Takes effect at the next {@link #startLiveTranscription()}; null turns it off.
+   */
+  public void setDuplex(TTS tts) {
+    this.duplexTts = tts;
   }
 
   public void startLiveTranscription() {
-    main.print("(STT:startLiveTranscription) called");
-    try {
-      if (model == null || recognizer == null) {
-        main.print("Cannot start live transcription: model not loaded");
+    log.i("(STT:startLiveTranscription) called");
+    synchronized (this) {   // so trim() cannot release the model before isLive is set
+      if (isLive) {
+        log.i("Live transcription already running");
+        return;
+      }
+      if (!ensureModel()) {
+        log.i("Cannot start live transcription: model not loaded");
         return;
       }
-      int bufferSize = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
-      liveRecorder   = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, bufferSize);
-      main.print("LIVE: recorder state=" + liveRecorder.getState());
-      liveRecorder.startRecording();
       isLive = true;
-      main.print("LIVE: started");
-      liveBuffer.setLength(0);
-      liveThread = new Thread(() -> {
-        byte[] buf            = new byte[bufferSize];
-        float  lastPartialLog = nowSec();
-        long   totalRead      = 0;
+    }
+    try {
+      startLive(duplexTts);
+    } catch (RuntimeException e) {   // nothing was started, so onStopped will not come
+      log.i("EXCEPTION(startLive): " + e);
+      TTS tts = duplexTts;
+      if (tts != null) tts.setDuplex(null, null);
+      isLive = false;
+    }
+  }
+
+  private void startLive(final TTS tts) {
+    AudioRecordSource mic = liveMic(tts != null ? MediaRecorder.AudioSource.VOICE_COMMUNICATION : MediaRecorder.AudioSource.MIC);
+    AudioSource       src = (mic.sampleRate() == sampleRate) ? mic : new ResamplingSource(mic, sampleRate);
+    live = new LiveRecognizer(recognizer, src, log, new LiveRecognizer.Listener() {
+      @Override public void onText     (String transcript) { ui.onLiveText(transcript); }
+      @Override public void onTelemetry(String overlay   ) { ui.onTelemetry(overlay); }
+
+      @Override
+      public void onStopped(String transcript) {
+        isLive = false;   // only now: until here the recognizer still uses the model
         try {
-          main.print("LIVE: started loop");
-          while (isLive) {
-            int read = liveRecorder.read(buf, 0, buf.length);
-            if (read <= 0) {
-              main.print("LIVE: read=" + read);
-              continue;
-            }
-            totalRead += read;
-            boolean hasFinal = recognizer.acceptWaveForm(buf, read);
-            if (hasFinal) {
-              String j   = recognizer.getResult();
-              String fin = extractTextJson(j, false);
-              main.print("LIVE: acceptWaveForm=true bytes=" + read + " rms=" + String.format("%.1f", rmsDb(buf, 0, read)) + " finalJson=" + trimForLog(j));
-              if (!fin.isEmpty()) {
-                if (liveBuffer.length() > 0) liveBuffer.append(' ');
-                liveBuffer.append(fin);
-                main.setLiveText(liveBuffer.toString());
-              } else {
-                main.print("LIVE: final text empty");
-              }
-            } else {
-              float now = nowSec();
-              if ((now - lastPartialLog) >= 0.25f) {
-                String pjson = recognizer.getPartialResult();
-                String part  = extractTextJson(pjson, true);
-                main.print("LIVE: acceptWaveForm=false bytes=" + read + " rms=" + String.format("%.1f", rmsDb(buf, 0, read)) + " partialJson=" + trimForLog(pjson) + " part='" + part + "'");
-                String shown = part.isEmpty() ? liveBuffer.toString() : (liveBuffer.length() > 0 ? (liveBuffer.toString() + " " + part) : part);
-                if (!shown.isEmpty()) main.setLiveText(shown);
-                lastPartialLog = now;
-              }
-            }
-          }
-          String finJson = recognizer.getFinalResult();
-          String fin     = extractTextJson(finJson, false);
-          main.print("LIVE: finalFlush json=" + trimForLog(finJson) + " text='" + fin + "'");
-          if (!fin.isEmpty()) {
-            if (liveBuffer.length() > 0) liveBuffer.append(' ');
-            liveBuffer.append(fin);
-            main.setLiveText(liveBuffer.toString());
-          }
-        } catch (Exception e) {
-          main.print("EXCEPTION(LIVE loop): " + e);
-        } finally {
-          try {
-            if (liveRecorder != null) {
-              liveRecorder.stop   ();
-              liveRecorder.release();
-            }
-          } catch (Exception ignore) {}
-          liveRecorder = null;
-          main.runOnUiThread(() -> main.setLiveButtonText("Start Live Transcription"));
-          main.print("LIVE: stopped totalRead=" + totalRead);
+          Metrics.writeJson(new File(context.getFilesDir(), METRICS_FILE));
+        } catch (IOException e) {
+          log.i("LIVE: metrics dump failed: " + e.getMessage());
         }
-      });
-      liveThread.start();
-    } catch (Exception e) {
-      main.print("EXCEPTION(startLive): " + e);
-      isLive = false;
-      try { if (liveRecorder != null) { liveRecorder.release(); liveRecorder = null; } } catch (Exception ignore) {}
+        ui.onLiveStopped();
+      }
+    });
+    if (tts != null) {
+      EchoReference ref = new EchoReference();
+      mic.enableEchoCanceler();
+      live.setEchoGate(new BargeInDetector(ref, sampleRate, tts::interrupt));
+      tts.setDuplex(ref, mic);
+      log.i("(STT) duplex: barge-in enabled, AEC " + (AcousticEchoCanceler.isAvailable() ? "available" : "not available"));
     }
+    live.start();
   }
 
+  /**
+   * The microphone at the device's native 48 kHz, to be resampled to 16 kHz in-process so capture
+   * bypasses the platform resampler; plain 16 kHz capture on devices with another mixer rate.
+   */
+  private AudioRecordSource liveMic(int audioSource) {
+    int rate = (AudioTrackSink.nativeOutputRate(context, sampleRate) == NATIVE_RATE) ? NATIVE_RATE : sampleRate;
+    return new AudioRecordSource(audioSource, rate, 0);
+  }
+
+  /**
+   * Stops live transcription without blocking the caller for long: the recognizer finishes its
+   * backlog in the background and the final text arrives through {@link Ui#onLiveStopped} as usual.
+   */
   public void stopLiveTranscription() {
-    main.print("(STT:stopLiveTranscription) called");
-    isLive = false;
-    if (liveThread != null) {
-      try { liveThread.join(1000); } catch (InterruptedException ignored) {}
-      liveThread = null;
-    }
+    log.i("(STT:stopLiveTranscription) called");
+    stopLive(AudioCaptureEngine.STOP_TIMEOUT_MS);
+  }
+
+  private void stopLive(long timeoutMs) {
+    TTS tts = duplexTts;
+    if (tts != null) tts.setDuplex(null, null);
+    LiveRecognizer l = live;   // kept until the next start, so shutdown() can wait for its thread
+    if (l != null) l.stop(timeoutMs);
   }
 
+  /**
+   * Transcribes the current recording and passes the text to {@link Ui#onLiveText}. Decodes the
+   * whole file before returning, so call it off the main thread.
+   */
   public void toText() {
-    main.print("(STT:toText) called");
+    log.i("(STT:toText) called");
+    isDecoding = true;
     try {
-      if (model == null || recognizer == null) {
-        main.print("Cannot convert to text: model not loaded");
+      if (!ensureModel()) {
+        log.i("Cannot convert to text: model not loaded");
         return;
       }
-      long startTime = System.nanoTime();
-      ByteArrayInputStream bais;
-      synchronized (lock) {
-        bais = new ByteArrayInputStream(recordedData, 0, recordedBytes);
+      File file = currentRecording;
+      if (file == null) {
+        log.i("Cannot convert to text: nothing recorded yet");
+        return;
       }
-      byte[] buffer = new byte[4096];
-      resetBuffer();
-      while (true) {
-        int read = bais.read(buffer);
-        if (read == -1) break;
-        if (recognizer.acceptWaveForm(buffer, read)) {
-          main.print(extractTextJson(recognizer.getResult(), false));
-        } else {
-//          main.print(extractTextJson(recognizer.getPartialResult(), true));
-        }
+      RecognitionLoop.Result result;
+      try (RecordingReader reader = new RecordingReader(file)) {
+        result = new RecognitionLoop(recognizer)
+          .setListener(log::i)
+          .run(reader::read);
       }
-      main.print(extractTextJson(recognizer.getFinalResult(), false));
-      long endTime = System.nanoTime();
-      double elapsedSec = (endTime - startTime) / 1_000_000_000.0;
-      main.print(String.format("TO_TEXT: processing took %.3f seconds", elapsedSec));
+      log.i(String.format("TO_TEXT: processing took %.3f seconds", result.processingNanos / 1_000_000_000.0));
+      ui.onLiveText(result.text());
     } catch (IOException e) {
-      main.print("EXCEPTION(toText): " + e);
+      log.i("EXCEPTION(toText): " + e);
+    } finally {
+      isDecoding = false;
     }
   }
 
-  private String extractTextJson(String json, boolean partial) {
-    try {
-      if (json == null || json.isEmpty()) return "";
-      JSONObject o = new JSONObject(json);
-      String key = partial ? "partial" : "text";
-      if (!o.has(key)) return "";
-      String s = o.optString(key, "");
-      if (s == null) return "";
-      s = s.replace("\n", " ").replace("\t", " ").trim();
-      return s;
-    } catch (Exception e) {
-      return "";
+  /**
+   * Stops whatever is running and releases the Vosk model; the instance is unusable afterwards.
+   * Waits for the recognizer thread to let go of the model, so call it off the main thread.
+   */
+  public void shutdown() {
+    log.i("(STT) shutdown");
+    stopLive(Long.MAX_VALUE);
+    if (isRecording) stopRecording();
+    isPlaying = false;
+    synchronized (this) {
+      if (recognizer != null) recognizer.close();
+      if (model      != null) model     .close();
+      recognizer = null;
+      model      = null;
+      modelDir   = null;
     }
   }
 
-  private String trimForLog(String s) {
-    if (s == null) return "null";
-    if (s.length() > 160) return s.substring(0, 160) + "...";
-    return s;
-  }
-
-  private float rmsDb(byte[] data, int offset, int len) {
-    if (len <= 1) return -120f;
-    long sum = 0;
-    int samples = 0;
-    int end = offset + len;
-    for (int i = offset; i + 1 < end; i += 2) {
-      int lo = data[i] & 0xFF;
-      int hi = data[i + 1];
-      short s = (short)((hi << 8) | lo);
-      int v = s;
-      sum += (long)v * (long)v;
-      samples++;
+  /** Deletes all but the newest {@link #KEEP_RECORDINGS} recordings (the names sort by time). */
+  private void pruneRecordings() {
+    File[] files = recordings();
+    if (files == null || files.length <= KEEP_RECORDINGS) return;
+    Arrays.sort(files);
+    for (int i = 0; i < files.length - KEEP_RECORDINGS; i++) {
+      if (files[i].equals(currentRecording)) continue;
+      if (files[i].delete()) log.i("(STT) deleted old recording " + files[i].getName());
     }
-    if (samples == 0) return -120f;
-    double mean = sum / (double) samples;
-    double rms = Math.sqrt(mean);
-    double db = 20.0 * Math.log10(rms / 32768.0 + 1e-12);
-    return (float) db;
   }
 
-  private void resetBuffer() {
-    synchronized (lock) {
-      recordedBytes = 0;
-      playbackPosition = 0;
-    }
-    main.print("BUFFER: Reset complete");
+  private File[] recordings() {
+    return recordingsDir.listFiles((dir, name) -> name.startsWith("rec_") && name.endsWith(RecordingWriter.EXTENSION));
   }
 
-  private float nowSec() {
-    return (float) (System.nanoTime() / 1_000_000_000.0);
+  private File latestRecording() {
+    File[] files = recordings();
+    if (files == null || files.length == 0) return null;
+    File latest = files[0];
+    for (File f : files) {
+      if (f.getName().compareTo(latest.getName()) > 0) latest = f;
+    }
+    return latest;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,235 @@
+package myapp.app;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import myapp.app.log.LogSink;
+import myapp.app.utils.ModelAssetManager;
+import myapp.app.utils.ModelAssets;
+import myapp.app.utils.RangedDownloader;
+import myapp.app.utils.ResourceGovernor;
+
+/**
+ * All model state of the process: the asset manager, Kokoro (session, dictionary, style cache) and
+ * Vosk. Created by the first {@link #acquire} and loaded once on a background thread; every host
+ * ({@link SpeechService} for our own screens, {@link KokoroTtsService} for other apps) shares that
+ * one warm instance.
+ *
+ * Hosts acquire and release it in pairs. After the last release the models stay loaded for
+ * {@link #setKeepWarmMs} (default five minutes) and are then closed; an acquire in the meantime
+ * cancels that, and one after it loads again.
+ *
+ * Memory: the models and caches are {@link ResourceGovernor} resources. onTrimMemory/onLowMemory
+ * trim them in tiers (caches, then pools, then sessions) and {@link #setMemoryBudgetBytes} caps
+ * their total; whatever is released is reloaded on next use. {@link #footprint()} reports each one.
+ *
+ * The process log lives here too, so lines written while no screen is attached are still in its
+ * ring when one attaches.
+ */
+public final class SpeechEngine implements ComponentCallbacks2 {
+
+  public  static final long    DEFAULT_KEEP_WARM_MS = 5 * 60 * 1000;
+  public  static final long    KEEP_WARM_FOREVER    = -1;
+
+  // Vosk is not installed on the development devices yet; flip once the model is in the manifest.
+  private static final boolean STT_ENABLED = false;
+
+  private static final Handler  main      = new Handler(Looper.getMainLooper());
+  private static final Runnable closeIdle = SpeechEngine::closeIfIdle;
+
+  private static LogSink      log       ;
+  private static SpeechEngine instance  ;
+  private static int          refs      ;
+  private static long         keepWarmMs = DEFAULT_KEEP_WARM_MS;
+  private static long         budget     = ResourceGovernor.UNLIMITED;
+
+  private final Context                         context;
+  private final CompletableFuture<SpeechEngine> ready  = new CompletableFuture<>();
+  private final ModelAssetManager               assets ;
+  private final ResourceGovernor                governor;
+  private volatile TTS                          tts    ;
+  private volatile STT                          stt    ;
+  private volatile boolean                      closed ;
+
+  private SpeechEngine(Context context) {
+    this.context = context.getApplicationContext();
+    this.assets  = new ModelAssetManager(2, new RangedDownloader.Listener() {
+      @Override public void onMessage (String msg)                      { log.i("ASSETS: " + msg); }
+      @Override public void onProgress(long bytesDone, long totalBytes) { }
+    });
+    this.governor = new ResourceGovernor(log).setBudgetBytes(budget);
+    this.context.registerComponentCallbacks(this);
+    Thread t = new Thread(this::load, "engine-load");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** The process log, also written to filesDir/logs/app.log. */
+  public static synchronized LogSink log(Context context) {
+    if (log == null) {
+      log = new LogSink("main").setFile(new File(context.getFilesDir(), "logs/app.log"));
+    }
+    return log;
+  }
+
+  /** The engine of this process, loading in the background if it is not loaded already. */
+  public static synchronized SpeechEngine acquire(Context context) {
+    refs++;
+    main.removeCallbacks(closeIdle);
+    if (instance == null) {
+      log(context).i("(SpeechEngine) loading");
+      instance = new SpeechEngine(context);
+    }
+    return instance;
+  }
+
+  /** Ends one {@link #acquire}; the last one starts the keep-warm period. */
+  public static synchronized void release() {
+    if (refs == 0) throw new IllegalStateException("SpeechEngine.release without acquire");
+    if (--refs > 0 || instance == null) return;
+    if (keepWarmMs == 0) {
+      closeIfIdle();
+    } else if (keepWarmMs > 0) {
+      log.i("(SpeechEngine) idle; releasing models in " + keepWarmMs / 1000 + " s");
+      main.postDelayed(closeIdle, keepWarmMs);
+    }
+  }
+
+  /**
+   * How long the models stay loaded after the last release; 0 closes them at once,
+   * {@link #KEEP_WARM_FOREVER} keeps them for the life of the process. Applies from the next release.
+   */
+  public static synchronized void setKeepWarmMs(long ms) {
+    keepWarmMs = ms;
+  }
+
+  /**
+   * Total footprint of models and caches (see {@link #footprint()}) above which they are trimmed
+   * after each utterance; {@link ResourceGovernor#UNLIMITED} (the default) leaves it to the platform.
+   */
+  public static synchronized void setMemoryBudgetBytes(long bytes) {
+    budget = bytes;
+    if (instance != null) instance.governor.setBudgetBytes(bytes);
+  }
+
+  /**
+   * Runs on the main thread, but closing waits for synthesis and recognition in progress to let go
+   * of their sessions; so the instance is detached here and closed on its own thread. An acquire in
+   * the meantime loads a new one.
+   */
+  private static synchronized void closeIfIdle() {
+    if (refs > 0 || instance == null) return;
+    Thread t = new Thread(instance::close, "engine-close");
+    t.setDaemon(true);
+    t.start();
+    instance = null;
+  }
+
+  /** Where Kokoro and its voice tables live; pushed there by hand during development. */
+  public static File modelsDir(Context context) {
+    File dir = context.getExternalFilesDir("models");
+    return (dir != null) ? dir : new File(context.getFilesDir(), "models");
+  }
+
+  /** Completes with this engine once TTS (and STT, if enabled) are loaded; exceptionally on failure. */
+  public CompletableFuture<SpeechEngine> ready() { return ready; }
+
+  public boolean isReady() { return ready.isDone() && !ready.isCompletedExceptionally(); }
+
+  /** Null until loaded. */
+  public TTS tts() { return tts; }
+
+  /** Null until loaded, or when STT is disabled. */
+  public STT stt() { return stt; }
+
+  public ResourceGovernor governor() { return governor; }
+
+  /** Bytes held per component ("tts.model", "tts.styles", "tts.prefetch", "stt.model"). */
+  public Map<String, Long> footprint() { return governor.footprint(); }
+
+  // ======== MEMORY PRESSURE ========
+
+  @Override
+  public void onTrimMemory(int level) {
+    int tier = tierFor(level);
+    log.i("(SpeechEngine) onTrimMemory(" + level + ")");
+    governor.trim(tier);
+  }
+
+  @Override
+  public void onLowMemory() {
+    log.i("(SpeechEngine) onLowMemory");
+    governor.trim(ResourceGovernor.SESSIONS);
+  }
+
+  @Override
+  public void onConfigurationChanged(Configuration config) {}
+
+  /**
+   * Background or critical: close the models; the app's UI hidden or moderately low memory
+   * while running: drop caches; in between: also stop idle threads.
+   */
+  private static int tierFor(int level) {
+    switch (level) {
+      case TRIM_MEMORY_RUNNING_MODERATE:
+      case TRIM_MEMORY_UI_HIDDEN:
+        return ResourceGovernor.CACHES;
+      case TRIM_MEMORY_RUNNING_LOW:
+      case TRIM_MEMORY_BACKGROUND:
+        return ResourceGovernor.POOLS;
+      default:   // RUNNING_CRITICAL, MODERATE, COMPLETE
+        return ResourceGovernor.SESSIONS;
+    }
+  }
+
+  // ======== LOAD ========
+
+  private void load() {
+    long t0 = System.nanoTime();
+    try {
+      assets.submitAll(ModelAssets.manifest(context.getFilesDir(), modelsDir(context)));
+      if (STT_ENABLED) {
+        STT s = new STT(context, log);
+        s.loadModel(assets);
+        stt = s;
+      }
+      TTS t = new TTS(context, log, modelsDir(context), assets);
+      synchronized (this) {
+        if (closed) {
+          t.shutdown();
+          if (stt != null) stt.shutdown();
+          throw new IllegalStateException("released while loading");
+        }
+        tts = t;
+      }
+      t.setGovernor(governor);
+      if (stt != null) {
+        governor.register(stt);
+        stt.setDuplex(tts);
+      }
+      log.i(String.format("(SpeechEngine) ready in %.1f s; %s", (System.nanoTime() - t0) / 1e9, governor.report()));
+      ready.complete(this);
+    } catch (Exception e) {
+      log.i("EXCEPTION(SpeechEngine load): " + e);
+      ready.completeExceptionally(e);
+    }
+  }
+
+  private synchronized void close() {
+    closed = true;
+    log.i("(SpeechEngine) released");
+    context.unregisterComponentCallbacks(this);
+    if (stt != null) stt.shutdown();
+    if (tts != null) tts.shutdown();
+    assets.shutdown();
+    stt = null;
+    tts = null;
+  }
+}
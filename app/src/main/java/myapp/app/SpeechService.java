@@ -0,0 +1,107 @@
+package myapp.app;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Binder;
+import android.os.IBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import myapp.app.log.LogSink;
+
+/**
+ * Hosts the {@link SpeechEngine} for our own screens, independently of any of them. Activities bind
+ * to it (in-process, through {@link LocalBinder}) and get the already-loaded engine, so a rotation
+ * or a relaunch within the same process attaches instantly instead of loading the models again.
+ * The service lives while something is bound; the engine's keep-warm period covers the gaps.
+ */
+public final class SpeechService extends Service {
+
+  public final class LocalBinder extends Binder {
+    public SpeechService service() { return SpeechService.this; }
+  }
+
+  private final LocalBinder     binder = new LocalBinder();
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "speech-transcribe"));
+  private       LogSink         log    ;
+  private       SpeechEngine    engine ;
+
+  // ======== LIFECYCLE ========
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    log    = SpeechEngine.log(this);
+    engine = SpeechEngine.acquire(this);
+  }
+
+  @Override
+  public IBinder onBind(Intent intent) {
+    return binder;
+  }
+
+  @Override
+  public void onDestroy() {
+    worker.shutdown();   // a transcription in progress finishes
+    SpeechEngine.release();
+    super.onDestroy();
+  }
+
+  // ======== API ========
+
+  /** The engine; its {@link SpeechEngine#ready()} completes once the models are loaded. */
+  public SpeechEngine engine() { return engine; }
+
+  /** Completes with the engine once loaded; already complete for every client after the first. */
+  public CompletableFuture<SpeechEngine> ready() { return engine.ready(); }
+
+  public void speak(String text) {
+    TTS tts = engine.tts();
+    if (tts != null) tts.speak(text); else log.i("SpeechService.speak: TTS not loaded");
+  }
+
+  /** Synthesizes {@code text} in the background so a later {@link #speak} of it starts at once. */
+  public void prepare(String text) {
+    TTS tts = engine.tts();
+    if (tts != null) tts.prepare(text);
+  }
+
+  public void setPlaybackSpeed(float speed) {
+    TTS tts = engine.tts();
+    if (tts != null) tts.setPlaybackSpeed(speed);
+    STT stt = engine.stt();
+    if (stt != null) stt.setPlaybackSpeed(speed);
+  }
+
+  /**
+   * Transcribes the latest recording on a background thread; the text goes to the log and to
+   * {@code ui} (through {@link STT.Ui#onLiveText}, which may be replaced later via STT.setUi).
+   */
+  public void transcribe(STT.Ui ui) {
+    STT stt = engine.stt();
+    if (stt == null) {
+      log.i("SpeechService.transcribe: STT not loaded");
+      return;
+    }
+    stt.setUi(ui);
+    worker.execute(stt::toText);
+  }
+
+  /** Starts live transcription with results going to {@code ui} (which may be replaced later via STT.setUi). */
+  public void startLiveTranscription(STT.Ui ui) {
+    STT stt = engine.stt();
+    if (stt == null) {
+      log.i("SpeechService.startLiveTranscription: STT not loaded");
+      return;
+    }
+    stt.setUi(ui);
+    stt.startLiveTranscription();
+  }
+
+  public void stopLiveTranscription() {
+    STT stt = engine.stt();
+    if (stt != null) stt.stopLiveTranscription();
+  }
+}
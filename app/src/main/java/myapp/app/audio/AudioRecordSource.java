@@ -0,0 +1,85 @@
+package myapp.app.audio;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioRecord;
+import android.media.audiofx.AcousticEchoCanceler;
+import android.os.Process;
+
+import java.io.IOException;
+
+/**
+ * {@link AudioSource} backed by an {@link AudioRecord}. The record is created lazily on the
+ * capture thread, which is also promoted to {@code THREAD_PRIORITY_URGENT_AUDIO}. Optionally an
+ * {@link AcousticEchoCanceler} is attached to its session where the device has one.
+ */
+public final class AudioRecordSource implements AudioSource {
+
+  private final    int                  audioSource;
+  private final    int                  sampleRate ;
+  private final    int                  bufferBytes;
+  private          boolean              wantAec    ;
+  private volatile AudioRecord          record     ;
+  private volatile AcousticEchoCanceler aec        ;
+
+  public AudioRecordSource(int audioSource, int sampleRate, int minBufferBytes) {
+    int min = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+    this.audioSource = audioSource;
+    this.sampleRate  = sampleRate;
+    this.bufferBytes = Math.max(min, minBufferBytes);
+  }
+
+  /** Attach an {@link AcousticEchoCanceler} on start, if available. Best with {@code VOICE_COMMUNICATION}. */
+  public AudioRecordSource enableEchoCanceler() {
+    this.wantAec = true;
+    return this;
+  }
+
+  /** The record's audio session once started, else {@code AUDIO_SESSION_ID_GENERATE}. */
+  public int sessionId() {
+    AudioRecord r = record;
+    return (r != null) ? r.getAudioSessionId() : AudioManager.AUDIO_SESSION_ID_GENERATE;
+  }
+
+  public boolean echoCancelerActive() {
+    AcousticEchoCanceler a = aec;
+    return a != null && a.getEnabled();
+  }
+
+  @Override
+  public int sampleRate() { return sampleRate; }
+
+  @Override
+  public void start() throws IOException {
+    Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+    record = new AudioRecord(audioSource, sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, bufferBytes);
+    if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+      record.release();
+      record = null;
+      throw new IOException("AudioRecord not initialized (source=" + audioSource + ", rate=" + sampleRate + ")");
+    }
+    if (wantAec && AcousticEchoCanceler.isAvailable()) {
+      AcousticEchoCanceler a = AcousticEchoCanceler.create(record.getAudioSessionId());
+      if (a != null) a.setEnabled(true);
+      aec = a;
+    }
+    record.startRecording();
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) {
+    return record.read(buffer, offset, length);
+  }
+
+  @Override
+  public void stop() {
+    if (aec != null) {
+      try { aec.release(); } catch (Exception ignore) {}
+      aec = null;
+    }
+    if (record == null) return;
+    try { record.stop   (); } catch (Exception ignore) {}
+    try { record.release(); } catch (Exception ignore) {}
+    record = null;
+  }
+}
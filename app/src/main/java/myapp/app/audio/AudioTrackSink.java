@@ -0,0 +1,138 @@
+package myapp.app.audio;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+
+import java.io.IOException;
+
+/**
+ * {@link AudioSink} backed by a streaming {@link AudioTrack}. The track is created on the writing
+ * thread, which is also promoted to {@code THREAD_PRIORITY_AUDIO}. For duplex use it can join the
+ * capture's audio session (so the platform echo canceller references it) and play as voice
+ * communication; {@link #interrupt()} pauses and flushes it from any thread.
+ */
+public final class AudioTrackSink implements AudioSink {
+
+  private static final long DRAIN_POLL_MS  = 20;
+  private static final long DRAIN_SLACK_MS = 200;
+
+  private final    int        sampleRate ;
+  private final    int        contentType;
+  private final    int        bufferBytes;
+  private          int        usage       = AudioAttributes.USAGE_MEDIA;
+  private          int        sessionId   = AudioManager.AUDIO_SESSION_ID_GENERATE;
+  private volatile AudioTrack track      ;
+  private volatile boolean    interrupted;
+  private          long       written    ;   // frames
+
+  /** @param contentType an {@code AudioAttributes.CONTENT_TYPE_*} value */
+  public AudioTrackSink(int sampleRate, int contentType, int minBufferBytes) {
+    int min = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+    this.sampleRate  = sampleRate;
+    this.contentType = contentType;
+    this.bufferBytes = Math.max(min, minBufferBytes);
+  }
+
+  /** An {@code AudioAttributes.USAGE_*} value; {@code USAGE_MEDIA} by default. */
+  public AudioTrackSink setUsage(int usage) {
+    this.usage = usage;
+    return this;
+  }
+
+  /** Plays in this audio session (e.g. the capture's, for echo cancellation); 0 generates one. */
+  public AudioTrackSink setSessionId(int sessionId) {
+    this.sessionId = sessionId;
+    return this;
+  }
+
+  /**
+   * The mixer's native output rate ({@code AudioManager.PROPERTY_OUTPUT_SAMPLE_RATE}), or
+   * {@code fallback} if the device does not report one. Tracks at this rate stay on the fast
+   * mixer path and skip AudioFlinger's resampler.
+   */
+  public static int nativeOutputRate(Context context, int fallback) {
+    AudioManager am = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+    String rate = (am != null) ? am.getProperty(AudioManager.PROPERTY_OUTPUT_SAMPLE_RATE) : null;
+    try {
+      return (rate != null) ? Integer.parseInt(rate) : fallback;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  @Override
+  public int sampleRate() { return sampleRate; }
+
+  @Override
+  public void start() throws IOException {
+    Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+    AudioAttributes attrs = new AudioAttributes.Builder()
+      .setUsage      (usage)
+      .setContentType(contentType)
+      .build();
+    AudioFormat format = new AudioFormat.Builder()
+      .setSampleRate (sampleRate)
+      .setEncoding   (AudioFormat.ENCODING_PCM_16BIT)
+      .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+      .build();
+    try {
+      track = new AudioTrack(attrs, format, bufferBytes, AudioTrack.MODE_STREAM, sessionId);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("AudioTrack rejected (rate=" + sampleRate + ", buffer=" + bufferBytes + "): " + e.getMessage(), e);
+    }
+    if (track.getState() != AudioTrack.STATE_INITIALIZED) {
+      track.release();
+      track = null;
+      throw new IOException("AudioTrack not initialized (rate=" + sampleRate + ")");
+    }
+    written = 0;
+    track.play();
+  }
+
+  @Override
+  public int write(byte[] buffer, int offset, int length) {
+    if (interrupted) return AudioTrack.ERROR_INVALID_OPERATION;
+    int n = (Build.VERSION.SDK_INT >= 23)
+      ? track.write(buffer, offset, length, AudioTrack.WRITE_BLOCKING)
+      : track.write(buffer, offset, length);
+    if (n > 0) written += n / 2;
+    return n;
+  }
+
+  /** Polls the playback head until it reaches the last written frame (bounded by the audio length). */
+  @Override
+  public void drain() {
+    if (track == null || interrupted) return;
+    long deadline = System.currentTimeMillis() + (written * 1000L) / sampleRate + DRAIN_SLACK_MS;
+    try {
+      while ((track.getPlaybackHeadPosition() & 0xFFFFFFFFL) < written && System.currentTimeMillis() < deadline) {
+        Thread.sleep(DRAIN_POLL_MS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Pause + flush: a blocking write returns early and whatever is queued in the track is dropped. */
+  @Override
+  public void interrupt() {
+    interrupted = true;
+    AudioTrack t = track;
+    if (t == null) return;
+    try { t.pause(); } catch (Exception ignore) {}
+    try { t.flush(); } catch (Exception ignore) {}
+  }
+
+  @Override
+  public void stop() {
+    if (track == null) return;
+    try { track.stop   (); } catch (Exception ignore) {}
+    try { track.release(); } catch (Exception ignore) {}
+    track = null;
+  }
+}
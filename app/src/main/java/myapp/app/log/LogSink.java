@@ -0,0 +1,243 @@
+package myapp.app.log;
+
+import android.util.Log;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import myapp.app.BuildConfig;
+
+/**
+ * Application log: any thread may log, one "log" thread does all the work.
+ *
+ * - Producers only check the level (a volatile int compare, nothing is built for disabled levels)
+ *   and push onto a bounded lock-free MPSC queue; when it is full the line is counted as dropped.
+ * - The log thread drains the queue into logcat, an optional file and a fixed-capacity ring of
+ *   recent lines, then hands the {@link Display} at most one snapshot per frame (FRAME_MS),
+ *   so a burst of messages costs the UI thread a single setText instead of one post each.
+ */
+public final class LogSink implements Logger {
+
+  /** Receives the visible text, at most once per frame, on the log thread. */
+  public interface Display {
+    void show(CharSequence text);
+  }
+
+  private static final long FRAME_MS        = 50;
+  private static final int  QUEUE_CAPACITY  = 4096;
+  private static final int  RING_LINES      = 400;
+  private static final long MAX_FILE_BYTES  = 4L << 20;
+
+  private static final class Entry {
+    final int    level;
+    final long   time ;
+    final String text ;
+
+    Entry(int level, long time, String text) {
+      this.level = level;
+      this.time  = time;
+      this.text  = text;
+    }
+  }
+
+  private final String             tag      ;
+  private final MpscQueue<Entry>   queue    = new MpscQueue<>(QUEUE_CAPACITY);
+  private final String[]           ring     = new String[RING_LINES];
+  private final AtomicBoolean      sleeping = new AtomicBoolean(false);
+  private final AtomicLong         dropped  = new AtomicLong();
+  private final Thread             thread   ;
+
+  // Release builds start at INFO, so per-frame DEBUG lines are not even built there.
+  private volatile int     minLevel    = BuildConfig.DEBUG ? DEBUG : INFO;
+  private volatile int     logcatLevel = BuildConfig.DEBUG ? DEBUG : INFO;
+  private volatile Display display     = null;
+  private volatile File    pendingFile = null;
+  private volatile boolean redraw      = false;
+
+  // Log thread only.
+  private final SimpleDateFormat timeFormat    = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+  private       int              ringStart     = 0;
+  private       int              ringCount     = 0;
+  private       long             reportedDrops = 0;
+  private       File             file          = null;
+  private       Writer           fileOut       = null;
+  private       long             fileBytes     = 0;
+
+  public LogSink(String tag) {
+    this.tag    = tag;
+    this.thread = new Thread(this::loop, "log");
+    this.thread.setDaemon(true);
+    this.thread.setPriority(Thread.MIN_PRIORITY);
+    this.thread.start();
+  }
+
+  // ======== CONFIGURATION ========
+
+  public LogSink setMinLevel   (int level) { this.minLevel    = level; return this; }
+  public LogSink setLogcatLevel(int level) { this.logcatLevel = level; return this; }
+
+  public LogSink setDisplay(Display display) {
+    this.display = display;
+    this.redraw  = true;
+    wake();
+    return this;
+  }
+
+  /** Also appends every line to {@code file} (rotated to "file.1" past 4 MiB); null disables. */
+  public LogSink setFile(File file) {
+    this.pendingFile = (file != null) ? file : new File("");
+    wake();
+    return this;
+  }
+
+  /** Lines rejected because the queue was full. */
+  public long dropped() { return dropped.get(); }
+
+  // ======== PRODUCERS ========
+
+  @Override
+  public boolean isLoggable(int level) {
+    return level >= minLevel;
+  }
+
+  @Override public void d(String msg) { if (DEBUG >= minLevel) enqueue(DEBUG, msg); }
+  @Override public void i(String msg) { if (INFO  >= minLevel) enqueue(INFO , msg); }
+  @Override public void w(String msg) { if (WARN  >= minLevel) enqueue(WARN , msg); }
+  @Override public void e(String msg) { if (ERROR >= minLevel) enqueue(ERROR, msg); }
+
+  @Override
+  public void log(int level, String msg) {
+    if (level >= minLevel) enqueue(level, msg);
+  }
+
+  private void enqueue(int level, String msg) {
+    if (!queue.offer(new Entry(level, System.currentTimeMillis(), msg))) {
+      dropped.incrementAndGet();
+      return;
+    }
+    wake();
+  }
+
+  private void wake() {
+    if (sleeping.compareAndSet(true, false)) LockSupport.unpark(thread);
+  }
+
+  // ======== LOG THREAD ========
+
+  private void loop() {
+    while (true) {
+      boolean changed = redraw;
+      Entry   e;
+      redraw = false;
+      while ((e = queue.poll()) != null) {
+        emit(e);
+        changed = true;
+      }
+      long drops = dropped.get();
+      if (drops != reportedDrops) {
+        emit(new Entry(WARN, System.currentTimeMillis(), "(log) dropped " + (drops - reportedDrops) + " lines"));
+        reportedDrops = drops;
+        changed       = true;
+      }
+
+      File requested = pendingFile;
+      if (requested != null) {
+        pendingFile = null;
+        openFile(requested.getPath().isEmpty() ? null : requested);
+      }
+      if (fileOut != null && changed) {
+        try { fileOut.flush(); } catch (IOException ex) { closeFile(); }
+      }
+
+      Display d = display;
+      if (d != null && changed) d.show(snapshot());
+
+      if (changed) {
+        // Coalesce: whatever arrives during the next frame goes out in one batch.
+        LockSupport.parkNanos(FRAME_MS * 1_000_000L);
+      } else {
+        sleeping.set(true);
+        if (queue.size() == 0 && pendingFile == null && !redraw) LockSupport.park(this);
+        sleeping.set(false);
+      }
+    }
+  }
+
+  private void emit(Entry e) {
+    if (e.level >= logcatLevel) Log.println(e.level, tag, e.text);
+
+    int slot = (ringStart + ringCount) % RING_LINES;
+    ring[slot] = e.text;
+    if (ringCount < RING_LINES) ringCount++;
+    else                        ringStart = (ringStart + 1) % RING_LINES;
+
+    if (fileOut != null) {
+      String line = timeFormat.format(new Date(e.time)) + " " + levelChar(e.level) + " " + e.text + "\n";
+      try {
+        fileOut.write(line);
+        fileBytes += line.length();
+        if (fileBytes > MAX_FILE_BYTES) rotate();
+      } catch (IOException ex) {
+        closeFile();
+      }
+    }
+  }
+
+  private CharSequence snapshot() {
+    StringBuilder sb = new StringBuilder(ringCount * 48);
+    for (int i = 0; i < ringCount; i++) {
+      sb.append(ring[(ringStart + i) % RING_LINES]).append('\n');
+    }
+    return sb;
+  }
+
+  private static char levelChar(int level) {
+    switch (level) {
+      case Log.VERBOSE: return 'V';
+      case Log.DEBUG  : return 'D';
+      case Log.INFO   : return 'I';
+      case Log.WARN   : return 'W';
+      default         : return 'E';
+    }
+  }
+
+  // ======== FILE SINK ========
+
+  private void openFile(File f) {
+    closeFile();
+    if (f == null) return;
+    try {
+      File parent = f.getParentFile();
+      if (parent != null && !parent.exists()) parent.mkdirs();
+      fileOut   = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f, true), "UTF-8"), 16 * 1024);
+      fileBytes = f.length();
+      file      = f;
+    } catch (IOException ex) {
+      Log.w(tag, "Cannot open log file " + f + ": " + ex);
+      fileOut = null;
+    }
+  }
+
+  private void rotate() throws IOException {
+    File f = file;
+    closeFile();
+    File old = new File(f.getPath() + ".1");
+    old.delete();
+    f.renameTo(old);
+    openFile(f);
+  }
+
+  private void closeFile() {
+    if (fileOut != null) {
+      try { fileOut.close(); } catch (IOException ignore) {}
+    }
+    fileOut   = null;
+    file      = null;
+    fileBytes = 0;
+  }
+}
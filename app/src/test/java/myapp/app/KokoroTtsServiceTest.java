@@ -0,0 +1,161 @@
+package myapp.app;
+
+import android.speech.tts.SynthesisCallback;
+import android.speech.tts.TextToSpeech;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The request loop of {@link KokoroTtsService}, driven with a fake synthesizer and callback; the
+ * service is never created, so no engine or model is involved.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class KokoroTtsServiceTest {
+
+  private static final int SEGMENT_SAMPLES = 1200;   // 2400 bytes of PCM16 per segment
+
+  /** Records what the service hands to the framework. */
+  private static final class FakeCallback implements SynthesisCallback {
+    final int                   maxBuffer;
+    final List<Integer>         chunks = new ArrayList<>();
+    final ByteArrayOutputStream audio  = new ByteArrayOutputStream();
+    int     sampleRate;
+    int     errorCode;
+    boolean started, done, failed;
+
+    FakeCallback(int maxBuffer) { this.maxBuffer = maxBuffer; }
+
+    @Override public int getMaxBufferSize() { return maxBuffer; }
+
+    @Override
+    public int start(int sampleRateInHz, int audioFormat, int channelCount) {
+      started    = true;
+      sampleRate = sampleRateInHz;
+      return TextToSpeech.SUCCESS;
+    }
+
+    @Override
+    public int audioAvailable(byte[] buffer, int offset, int length) {
+      if (length > maxBuffer) throw new IllegalArgumentException("chunk of " + length + " > " + maxBuffer);
+      chunks.add(length);
+      audio.write(buffer, offset, length);
+      return TextToSpeech.SUCCESS;
+    }
+
+    @Override public int     done()             { done = true; return TextToSpeech.SUCCESS; }
+    @Override public void    error()            { error(TextToSpeech.ERROR); }
+    @Override public void    error(int code)    { failed = true; errorCode = code; }
+    @Override public boolean hasStarted()       { return started; }
+    @Override public boolean hasFinished()      { return done || failed; }
+  }
+
+  private KokoroTtsService service;
+  private List<String>     synthesized;
+
+  @Before
+  public void setUp() {
+    service     = Robolectric.buildService(KokoroTtsService.class).get();
+    synthesized = new ArrayList<>();
+  }
+
+  private KokoroTtsService.SegmentSynthesizer constant(float value) {
+    return (text, voiceName, voiceIndex, speed) -> {
+      synthesized.add(text);
+      float[] pcm = new float[SEGMENT_SAMPLES];
+      Arrays.fill(pcm, value);
+      return pcm;
+    };
+  }
+
+  @Test
+  public void audioIsSplitToTheMaxBufferSize() {
+    FakeCallback cb = new FakeCallback(1000);
+    service.synthesize("One. Two.", "af", 1f, System.nanoTime(), constant(0.5f), cb);
+
+    assertEquals(2, synthesized.size());
+    assertEquals(24000, cb.sampleRate);
+    int total = 0;
+    for (int n : cb.chunks) {
+      assertTrue("chunk " + n + " over the limit", n <= 1000);
+      total += n;
+    }
+    assertEquals(2 * SEGMENT_SAMPLES * 2, total);
+    assertEquals(2 * SEGMENT_SAMPLES * 2, cb.audio.size());
+    assertEquals(6, cb.chunks.size());   // 1000 + 1000 + 400 per segment
+    assertTrue(cb.done);
+    assertFalse(cb.failed);
+  }
+
+  @Test
+  public void stopMidRequestEndsWithoutDoneOrError() {
+    FakeCallback cb = new FakeCallback(1000);
+    KokoroTtsService.SegmentSynthesizer stopping = (text, voiceName, voiceIndex, speed) -> {
+      synthesized.add(text);
+      service.onStop();
+      return new float[SEGMENT_SAMPLES];
+    };
+    service.synthesize("One. Two. Three.", "af", 1f, System.nanoTime(), stopping, cb);
+
+    assertEquals(1, synthesized.size());
+    assertEquals(0, cb.audio.size());
+    assertFalse(cb.done);
+    assertFalse(cb.failed);
+  }
+
+  @Test
+  public void everySegmentFailingIsASynthesisError() {
+    FakeCallback cb = new FakeCallback(1000);
+    KokoroTtsService.SegmentSynthesizer failing = (text, voiceName, voiceIndex, speed) -> {
+      synthesized.add(text);
+      throw new IOException("no session");
+    };
+    service.synthesize("One. Two.", "af", 1f, System.nanoTime(), failing, cb);
+
+    assertEquals(2, synthesized.size());
+    assertTrue(cb.failed);
+    assertEquals(TextToSpeech.ERROR_SYNTHESIS, cb.errorCode);
+    assertFalse(cb.done);
+  }
+
+  @Test
+  public void oneSegmentFailingStillCompletes() {
+    FakeCallback cb = new FakeCallback(1000);
+    KokoroTtsService.SegmentSynthesizer second = (text, voiceName, voiceIndex, speed) -> {
+      synthesized.add(text);
+      if (synthesized.size() == 2) throw new IOException("bad segment");
+      return new float[SEGMENT_SAMPLES];
+    };
+    service.synthesize("One. Two. Three.", "af", 1f, System.nanoTime(), second, cb);
+
+    assertEquals(3, synthesized.size());
+    assertEquals(2 * SEGMENT_SAMPLES * 2, cb.audio.size());
+    assertTrue(cb.done);
+    assertFalse(cb.failed);
+  }
+
+  @Test
+  public void emptyTextIsDone() {
+    FakeCallback cb = new FakeCallback(1000);
+    service.synthesize("", "af", 1f, System.nanoTime(), constant(0.5f), cb);
+
+    assertTrue(cb.started);
+    assertTrue(synthesized.isEmpty());
+    assertEquals(0, cb.audio.size());
+    assertTrue(cb.done);
+    assertFalse(cb.failed);
+  }
+}
@@ -0,0 +1,66 @@
+package myapp.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import myapp.app.tts.KokoroInference;
+import myapp.app.tts.Phonemizer;
+import myapp.app.tts.Tokenizer;
+
+/**
+ * Text front-end: text -> phonemes (normalization, dictionary / fallback, stress fix-up) and
+ * phonemes -> token ids. One operation processes the whole corpus.
+ *
+ * {@code cache=false} measures the cold path (Phonemizer caches disabled); {@code cache=true} is the
+ * steady state of a repetitive workload, where every phrase after the first pass is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrontEndBenchmark {
+
+  @Param({"short", "paragraph", "article"})
+  public String corpus;
+
+  @Param({"false", "true"})
+  public boolean cache;
+
+  private Phonemizer   phonemizer;
+  private List<String> texts     ;
+  private List<String> phonemes  ;
+
+  @Setup
+  public void setup() throws IOException {
+    phonemizer = cache ? new Phonemizer(Corpus.dictionary())
+                       : new Phonemizer(Corpus.dictionary(), 0, 0);
+    texts      = Corpus.load(corpus);
+    phonemes   = new ArrayList<>(texts.size());
+    for (String t : texts) phonemes.add(phonemizer.phonemize(t, "en-us", true));
+  }
+
+  @Benchmark
+  public void phonemize(Blackhole bh) {
+    for (String t : texts) bh.consume(phonemizer.phonemize(t, "en-us", true));
+  }
+
+  @Benchmark
+  public void tokenize(Blackhole bh) {
+    for (String p : phonemes) bh.consume(Tokenizer.tokenize(p));
+  }
+
+  @Benchmark
+  public void phonemizeAndTokenize(Blackhole bh) {
+    for (String t : texts) bh.consume(Tokenizer.tokenize(phonemizer.phonemize(t, "en-us", true)));
+  }
+
+  /** The path the app takes: phonemize, then the memoized, padded token row. */
+  @Benchmark
+  public void phonemizeAndBuildTokens(Blackhole bh) {
+    for (String t : texts) bh.consume(KokoroInference.buildTokens(phonemizer.phonemize(t, "en-us", true)));
+  }
+}
@@ -0,0 +1,60 @@
+package myapp.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import myapp.app.tts.G2p;
+
+/**
+ * Out-of-dictionary G2P alone: every distinct word of the article corpus, per operation.
+ *
+ * {@code legacy} is the old per-character fallback (a String per word plus a substring per
+ * digraph check); {@code compiled} walks the rule trie over a reused char[] into a reused
+ * StringBuilder and should show ~0 B/op in gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class G2pBenchmark {
+
+  private List<String> words;
+  private char[][]     chars;
+  private G2p          g2p  ;
+  private StringBuilder out ;
+
+  @Setup
+  public void setup() throws IOException {
+    Set<String> distinct = new LinkedHashSet<>();
+    for (String text : Corpus.load("article")) {
+      for (String w : text.split("[^A-Za-z']+")) {
+        if (!w.isEmpty()) distinct.add(w);
+      }
+    }
+    words = new ArrayList<>(distinct);
+    chars = new char[words.size()][];
+    for (int i = 0; i < chars.length; i++) chars[i] = words.get(i).toCharArray();
+    g2p   = G2p.english();
+    out   = new StringBuilder(64);
+  }
+
+  @Benchmark
+  public void legacy(Blackhole bh) {
+    for (String w : words) bh.consume(LegacyG2p.transcribe(w));
+  }
+
+  @Benchmark
+  public void compiled(Blackhole bh) {
+    for (char[] w : chars) {
+      out.setLength(0);
+      g2p.transcribe(w, 0, w.length, out);
+      bh.consume(out.length());
+    }
+  }
+}
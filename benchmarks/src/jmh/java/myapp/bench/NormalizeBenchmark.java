@@ -0,0 +1,40 @@
+package myapp.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import myapp.app.tts.TextNormalizer;
+
+/**
+ * Text normalization alone: the old regex chain ({@code legacy}) vs the single-pass
+ * {@link TextNormalizer}, which also expands numbers, dates, currency and units.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NormalizeBenchmark {
+
+  @Param({"short", "paragraph", "article"})
+  public String corpus;
+
+  private List<String> texts;
+
+  @Setup
+  public void setup() throws IOException {
+    texts = Corpus.load(corpus);
+  }
+
+  @Benchmark
+  public void legacy(Blackhole bh) {
+    for (String t : texts) bh.consume(LegacyNormalizer.normalize(t));
+  }
+
+  @Benchmark
+  public void singlePass(Blackhole bh) {
+    for (String t : texts) bh.consume(TextNormalizer.normalize(t));
+  }
+}
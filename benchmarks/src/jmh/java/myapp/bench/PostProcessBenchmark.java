@@ -0,0 +1,52 @@
+package myapp.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import myapp.app.tts.PcmConversion;
+import myapp.app.tts.WavEncoder;
+
+/**
+ * Per-utterance post-processing of model output: peak normalization (TTS.speak), gain + int16
+ * conversion (KokoroSynthesizer.play) and WAV encoding (KokoroWaveDebug). Audio is 24 kHz speech-like noise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostProcessBenchmark {
+
+  private static final int SAMPLE_RATE = 24000;
+
+  @Param({"1", "10", "60"})
+  public int seconds;
+
+  private float[] audio;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(7);
+    audio = new float[seconds * SAMPLE_RATE];
+    for (int i = 0; i < audio.length; i++) {
+      double envelope = 0.5 + 0.5 * Math.sin(2 * Math.PI * i / (SAMPLE_RATE * 0.3));
+      audio[i] = (float) (envelope * (0.3 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE) + 0.05 * rnd.nextGaussian()));
+    }
+  }
+
+  @Benchmark
+  public float normalizePeak() {
+    // Idempotent after the first call, so the buffer can be reused across invocations.
+    return PcmConversion.normalizePeak(audio, 0.99f);
+  }
+
+  @Benchmark
+  public short[] toPcm16() {
+    return PcmConversion.toPcm16(audio, 5.0f);
+  }
+
+  @Benchmark
+  public byte[] encodeWav() {
+    return WavEncoder.encode(audio, SAMPLE_RATE);
+  }
+}
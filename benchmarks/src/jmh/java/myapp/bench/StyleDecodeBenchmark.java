@@ -0,0 +1,38 @@
+package myapp.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import myapp.app.tts.StyleVectors;
+
+/** Decoding a voices_XX.bin table (float32 [rows, 256]) as StyleLoaderJava does on first use. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StyleDecodeBenchmark {
+
+  private static final int STYLE_DIM = 256;
+
+  @Param({"510"})
+  public int rows;
+
+  private byte[] data;
+
+  @Setup
+  public void setup() {
+    ByteBuffer buf = ByteBuffer.allocate(rows * STYLE_DIM * 4).order(ByteOrder.LITTLE_ENDIAN);
+    Random     rnd = new Random(42);
+    while (buf.hasRemaining()) buf.putFloat((float) rnd.nextGaussian() * 0.2f);
+    data = buf.array();
+  }
+
+  @Benchmark
+  public float[][] decode() throws IOException {
+    return StyleVectors.decode(data, data.length, STYLE_DIM);
+  }
+}
@@ -0,0 +1,48 @@
+package myapp.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import myapp.app.audio.TimeStretcher;
+
+/**
+ * {@link TimeStretcher} throughput on one second of noise fed in 20 ms blocks at the playback rate,
+ * draining after each block as TimeStretchSink does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimeStretcherBenchmark {
+
+  private static final int RATE = 48000;
+
+  @Param({"0.75", "1.5"})
+  public float tempo;
+
+  private TimeStretcher stretcher;
+  private float[]       input    ;
+  private float[]       output   ;
+  private int           block    ;
+
+  @Setup
+  public void setup() {
+    stretcher = new TimeStretcher(RATE).setTempo(tempo);
+    block     = RATE / 50;
+    input     = new float[RATE];
+    output    = new float[RATE * 4];
+    Random rnd = new Random(7);
+    for (int i = 0; i < input.length; i++) input[i] = (float) (0.2 * rnd.nextGaussian());
+  }
+
+  @Benchmark
+  public int oneSecond() {
+    int produced = 0;
+    for (int i = 0; i < input.length; i += block) {
+      stretcher.put(input, i, block);
+      produced += stretcher.receive(output, 0, output.length);
+    }
+    return produced;
+  }
+}
@@ -0,0 +1,56 @@
+package myapp.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Minimal "--key value" command-line parsing for the harnesses. */
+final class Args {
+
+  private Args() {}
+
+  static Map<String, String> parse(String[] argv) {
+    Map<String, String> m = new HashMap<>();
+    for (int i = 0; i < argv.length; i++) {
+      if (!argv[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + argv[i]);
+      String key = argv[i].substring(2);
+      if (i + 1 < argv.length && !argv[i + 1].startsWith("--")) m.put(key, argv[++i]);
+      else                                                       m.put(key, "true");
+    }
+    return m;
+  }
+
+  static List<String> list(Map<String, String> m, String key, String def) {
+    String v = m.getOrDefault(key, def);
+    List<String> out = new ArrayList<>();
+    if (v == null) return out;
+    for (String s : v.split(",")) {
+      if (!s.trim().isEmpty()) out.add(s.trim());
+    }
+    return out;
+  }
+
+  static List<Integer> ints(Map<String, String> m, String key, String def) {
+    List<Integer> out = new ArrayList<>();
+    for (String s : list(m, key, def)) out.add(Integer.parseInt(s));
+    return out;
+  }
+
+  static List<Float> floats(Map<String, String> m, String key, String def) {
+    List<Float> out = new ArrayList<>();
+    for (String s : list(m, key, def)) out.add(Float.parseFloat(s));
+    return out;
+  }
+
+  static String quote(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if      (c == '"' || c == '\\') sb.append('\\').append(c);
+      else if (c < 0x20)              sb.append(' ');
+      else                            sb.append(c);
+    }
+    return sb.append('"').toString();
+  }
+}
@@ -0,0 +1,52 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import myapp.app.tts.Phonemizer;
+
+/** Text corpora bundled with the benchmarks, plus the optional CMU IPA dictionary. */
+final class Corpus {
+
+  private Corpus() {}
+
+  /**
+   * "short" is one prompt per line; "paragraph" and "article" are single utterances.
+   */
+  static List<String> load(String name) throws IOException {
+    String text = read("/corpus/" + name + ".txt");
+    if (!"short".equals(name)) return Collections.singletonList(text.trim());
+    List<String> lines = new ArrayList<>();
+    for (String line : text.split("\n")) {
+      if (!line.trim().isEmpty()) lines.add(line.trim());
+    }
+    return lines;
+  }
+
+  /**
+   * The dictionary is not part of the repo; run with -Pcmudict=/path/to/cmudict_ipa.txt to
+   * benchmark dictionary hits. Without it every word takes the fallback path.
+   */
+  static Map<String, String> dictionary() throws IOException {
+    String path = System.getProperty("cmudict");
+    if (path == null) return Collections.emptyMap();
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+      return Phonemizer.parseDictionary(in);
+    }
+  }
+
+  private static String read(String resource) throws IOException {
+    try (InputStream in = Corpus.class.getResourceAsStream(resource)) {
+      if (in == null) throw new FileNotFoundException(resource);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int    n;
+      while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
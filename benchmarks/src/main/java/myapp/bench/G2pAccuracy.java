@@ -0,0 +1,110 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import myapp.app.tts.G2p;
+import myapp.app.tts.Phonemizer;
+
+/**
+ * Accuracy of the out-of-dictionary G2P against held-out CMU dictionary entries, old fallback vs
+ * the compiled rules.
+ *
+ *   gradle :benchmarks:g2pAccuracy -PbenchArgs="--dict /data/cmudict_ipa.txt"
+ *
+ * Options (defaults in brackets):
+ *   --dict      cmudict_ipa.txt                                  [required]
+ *   --holdout   evaluate every Nth word (sorted keys)            [10]
+ *   --show      mismatches to print for the compiled rules       [20]
+ *
+ * Both sides are compared without stress and length marks or spaces, and with r -> ɹ, as the
+ * Phonemizer post-processing does. Reports word accuracy and phoneme error rate (edit distance over
+ * reference length). The held-out slice is fixed, so rule edits tuned on the other nine tenths can be
+ * compared run to run.
+ */
+public final class G2pAccuracy {
+
+  public static void main(String[] argv) throws Exception {
+    Map<String, String> a = Args.parse(argv);
+    if (!a.containsKey("dict")) {
+      System.err.println("usage: G2pAccuracy --dict cmudict_ipa.txt [--holdout 10] [--show 20]");
+      System.exit(2);
+    }
+    int holdout = Integer.parseInt(a.getOrDefault("holdout", "10"));
+    int show    = Integer.parseInt(a.getOrDefault("show"   , "20"));
+
+    Map<String, String> dict;
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(a.get("dict")), StandardCharsets.UTF_8))) {
+      dict = Phonemizer.parseDictionary(in);
+    }
+    List<String> keys = new ArrayList<>();
+    for (String k : dict.keySet()) {
+      if (k.matches("[A-Z']+")) keys.add(k);
+    }
+    Collections.sort(keys);
+
+    G2p           g2p      = G2p.english();
+    StringBuilder sb       = new StringBuilder(64);
+    Score         legacy   = new Score("legacy");
+    Score         compiled = new Score("compiled");
+    for (int i = 0; i < keys.size(); i += holdout) {
+      String word = keys.get(i);
+      String ref  = clean(dict.get(word).split(",")[0]);
+      if (ref.isEmpty()) continue;
+
+      sb.setLength(0);
+      g2p.transcribe(word.toLowerCase(Locale.ROOT).toCharArray(), 0, word.length(), sb);
+      String got = clean(sb.toString());
+      compiled.add(ref, got);
+      legacy.add(ref, clean(LegacyG2p.transcribe(word)));
+      if (!got.equals(ref) && show-- > 0) System.err.println(word + "\t" + ref + "\t" + got);
+    }
+    System.out.println(legacy.toJson());
+    System.out.println(compiled.toJson());
+  }
+
+  private static String clean(String ipa) {
+    StringBuilder sb = new StringBuilder(ipa.length());
+    for (int i = 0; i < ipa.length(); i++) {
+      char c = ipa.charAt(i);
+      if (c == 'ˈ' || c == 'ˌ' || c == 'ː' || c == ' ') continue;
+      sb.append(c == 'r' ? 'ɹ' : c);
+    }
+    return sb.toString();
+  }
+
+  private static final class Score {
+    final String name;
+    int  words, exact;
+    long edits, refLength;
+
+    Score(String name) { this.name = name; }
+
+    void add(String ref, String got) {
+      words++;
+      if (ref.equals(got)) exact++;
+      edits     += distance(ref, got);
+      refLength += ref.length();
+    }
+
+    String toJson() {
+      return String.format(Locale.US, "{\"engine\":%s,\"words\":%d,\"word_accuracy\":%.4f,\"phoneme_error_rate\":%.4f}",
+        Args.quote(name), words, words == 0 ? 0 : exact / (double) words, refLength == 0 ? 0 : edits / (double) refLength);
+    }
+
+    private static int distance(String a, String b) {
+      int[] prev = new int[b.length() + 1], cur = new int[b.length() + 1];
+      for (int j = 0; j <= b.length(); j++) prev[j] = j;
+      for (int i = 1; i <= a.length(); i++) {
+        cur[0] = i;
+        for (int j = 1; j <= b.length(); j++) {
+          int sub = prev[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+          cur[j]  = Math.min(sub, Math.min(prev[j] + 1, cur[j - 1] + 1));
+        }
+        int[] t = prev; prev = cur; cur = t;
+      }
+      return prev[b.length()];
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import myapp.app.metrics.Histogram;
+import myapp.app.tts.KokoroInference;
+import myapp.app.tts.Phonemizer;
+import myapp.app.tts.StyleVectors;
+
+/**
+ * End-to-end Kokoro inference on desktop ONNX Runtime (CPU), using the app's own
+ * {@link KokoroInference} tensor building.
+ *
+ * Sweeps models x intra-op threads x input lengths x speeds x batch sizes and prints one JSON object
+ * per configuration (latency percentiles, real-time factor, peak RSS), also written to --out.
+ *
+ *   gradle :benchmarks:kokoroBench -PbenchArgs="--model /path/kokoro.onnx,/path/kokoro-int8.onnx --threads 1,4"
+ *
+ * Options (defaults in brackets):
+ *   --model    comma-separated model files                       [required]
+ *   --voices   voices_XX.bin for the style vector                [random style]
+ *   --threads  intra-op thread counts                            [1,2,4]
+ *   --lengths  input lengths in phonemes (cut from the article)  [32,128,400]
+ *   --speeds   speed values                                      [1.0]
+ *   --batch    batch sizes (rows of equal length)                [1]
+ *   --opt      graph optimization: none|basic|extended|all       [all]
+ *   --warmup   untimed runs per configuration                    [2]
+ *   --runs     timed runs per configuration                      [10]
+ *   --out      JSON lines output file                            [build/results/kokoro.jsonl]
+ */
+public final class KokoroHarness {
+
+  private static final int STYLE_DIM = 256;
+
+  public static void main(String[] argv) throws Exception {
+    Map<String, String> a = Args.parse(argv);
+    if (!a.containsKey("model")) {
+      System.err.println("usage: KokoroHarness --model kokoro.onnx[,other.onnx] [--threads 1,2,4] [--lengths 32,128,400] ...");
+      System.exit(2);
+    }
+    List<String>  models  = Args.list(a, "model"  , null);
+    List<Integer> threads = Args.ints(a, "threads", "1,2,4");
+    List<Integer> lengths = Args.ints(a, "lengths", "32,128,400");
+    List<Float>   speeds  = Args.floats(a, "speeds", "1.0");
+    List<Integer> batches = Args.ints(a, "batch"  , "1");
+    int           warmup  = Integer.parseInt(a.getOrDefault("warmup", "2"));
+    int           runs    = Integer.parseInt(a.getOrDefault("runs"  , "10"));
+    File          out     = new File(a.getOrDefault("out", "build/results/kokoro.jsonl"));
+
+    String      phonemes = new Phonemizer(Corpus.dictionary()).phonemize(String.join(" ", Corpus.load("article")), "en-us", true);
+    float[]     style    = loadStyle(a.get("voices"));
+    OrtEnvironment env   = OrtEnvironment.getEnvironment();
+
+    if (out.getParentFile() != null) out.getParentFile().mkdirs();
+    try (PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+      for (String model : models) {
+        for (int t : threads) {
+          try (OrtSession session = env.createSession(model, options(t, a.getOrDefault("opt", "all")))) {
+            for (int len : lengths) {
+              long[] row = KokoroInference.buildTokens(cut(phonemes, len));
+              for (float speed : speeds) {
+                for (int b : batches) {
+                  String json = runConfig(session, model, t, len, speed, b, row, style, warmup, runs);
+                  System.out.println(json);
+                  w.println(json);
+                  w.flush();
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static String runConfig(OrtSession session, String model, int threads, int len, float speed, int batch,
+                                  long[] row, float[] styleRow, int warmup, int runs) {
+    long[][]  tokens = new long [batch][];
+    float[][] style  = new float[batch][];
+    for (int i = 0; i < batch; i++) { tokens[i] = row; style[i] = styleRow; }
+
+    Histogram latency = new Histogram("latency", "ms", 1000.0);
+    Histogram rtf     = new Histogram("rtf", "x", 1000.0);
+    long      samples = 0;
+    String    error   = null;
+    Rss.resetPeak();
+    try {
+      for (int i = 0; i < warmup; i++) KokoroInference.run(session, tokens, style, speed);
+      for (int i = 0; i < runs; i++) {
+        long    t0    = System.nanoTime();
+        float[] audio = KokoroInference.run(session, tokens, style, speed);
+        long    us    = (System.nanoTime() - t0) / 1000;
+        samples = audio.length;
+        long audioUs = (audio.length * 1_000_000L) / KokoroInference.SAMPLE_RATE;
+        latency.record(us);
+        rtf    .record((us * 1000L) / Math.max(1L, audioUs));
+      }
+    } catch (OrtException | RuntimeException e) {
+      error = e.toString();
+    }
+
+    StringBuilder sb = new StringBuilder(256);
+    sb.append("{\"model\":").append(Args.quote(new File(model).getName()))
+      .append(",\"threads\":").append(threads)
+      .append(",\"phonemes\":").append(len)
+      .append(",\"tokens\":").append(row.length)
+      .append(",\"speed\":").append(speed)
+      .append(",\"batch\":").append(batch)
+      .append(",\"runs\":").append(latency.count())
+      .append(",\"audio_sec\":").append(String.format(Locale.US, "%.3f", samples / (double) KokoroInference.SAMPLE_RATE))
+      .append(",\"latency_ms\":{").append(percentiles(latency)).append('}')
+      .append(",\"rtf\":{").append(percentiles(rtf)).append('}')
+      .append(",\"peak_rss_mb\":").append(Rss.peakMb());
+    if (error != null) sb.append(",\"error\":").append(Args.quote(error));
+    return sb.append('}').toString();
+  }
+
+  private static String percentiles(Histogram h) {
+    return String.format(Locale.US, "\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"max\":%.3f,\"mean\":%.3f",
+      h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.max(), h.mean());
+  }
+
+  private static OrtSession.SessionOptions options(int threads, String opt) throws OrtException {
+    OrtSession.SessionOptions o = new OrtSession.SessionOptions();
+    o.setIntraOpNumThreads(threads);
+    o.setInterOpNumThreads(1);
+    switch (opt) {
+      case "none"    : o.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.NO_OPT      ); break;
+      case "basic"   : o.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.BASIC_OPT   ); break;
+      case "extended": o.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.EXTENDED_OPT); break;
+      default        : o.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT     ); break;
+    }
+    return o;
+  }
+
+  /** First {@code len} phonemes, ending on a space where possible so words are not cut in half. */
+  private static String cut(String phonemes, int len) {
+    if (phonemes.length() <= len) return phonemes;
+    int end = phonemes.lastIndexOf(' ', len);
+    return phonemes.substring(0, end > len / 2 ? end : len);
+  }
+
+  private static float[] loadStyle(String voices) throws IOException {
+    if (voices == null) {
+      Random  rnd   = new Random(1);
+      float[] style = new float[STYLE_DIM];
+      for (int i = 0; i < STYLE_DIM; i++) style[i] = (float) rnd.nextGaussian() * 0.1f;
+      return style;
+    }
+    byte[] data;
+    try (RandomAccessFile f = new RandomAccessFile(voices, "r")) {
+      data = new byte[(int) f.length()];
+      f.readFully(data);
+    }
+    float[][] rows = StyleVectors.decode(data, data.length, STYLE_DIM);
+    return rows[Math.min(256, rows.length - 1)];   // same index TTS uses by default
+  }
+}
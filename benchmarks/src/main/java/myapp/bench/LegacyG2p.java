@@ -0,0 +1,50 @@
+package myapp.bench;
+
+/**
+ * The per-character fallback Phonemizer used before {@link myapp.app.tts.G2p}: five digraphs,
+ * one phoneme per letter, no stress. Kept verbatim (substring per digraph check included) as the
+ * baseline for G2pBenchmark and G2pAccuracy.
+ */
+final class LegacyG2p {
+
+  private LegacyG2p() {}
+
+  static String transcribe(String word) {
+    String        w   = word.toLowerCase();
+    StringBuilder out = new StringBuilder();
+
+    int i = 0;
+    while (i < w.length()) {
+      char c = w.charAt(i);
+
+      if (i + 1 < w.length()) {
+        String two = w.substring(i, i + 2);
+        switch (two) {
+          case "ch": out.append("tʃ"); i += 2; continue;
+          case "sh": out.append("ʃ");  i += 2; continue;
+          case "th": out.append("θ");  i += 2; continue;
+          case "ph": out.append("f");  i += 2; continue;
+          case "ng": out.append("ŋ");  i += 2; continue;
+          default  : break;
+        }
+      }
+
+      switch (c) {
+        case 'a': out.append("æ");  break;
+        case 'c': out.append("k");  break;
+        case 'e': out.append("ɛ");  break;
+        case 'i': out.append("ɪ");  break;
+        case 'j': out.append("dʒ"); break;
+        case 'o': out.append("ɒ");  break;
+        case 'q': out.append("k");  break;
+        case 'r': out.append("ɹ");  break;
+        case 'u': out.append("ʊ");  break;
+        case 'x': out.append("ks"); break;
+        case 'y': out.append("j");  break;
+        default : out.append(c);    break;   // b d f g h k l m n p s t v w z, punctuation, digits
+      }
+      i++;
+    }
+    return out.toString();
+  }
+}
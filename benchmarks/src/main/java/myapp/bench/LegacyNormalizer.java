@@ -0,0 +1,53 @@
+package myapp.bench;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex chain Phonemizer used before {@link myapp.app.tts.TextNormalizer}, kept as the
+ * baseline for NormalizeBenchmark. Same patterns, same order.
+ */
+final class LegacyNormalizer {
+
+  private LegacyNormalizer() {}
+
+  private static final Pattern CJK = Pattern.compile("[、。？！：；]");
+
+  static String normalize(String text) {
+    StringBuilder joined = new StringBuilder(text.length());
+    for (String line : text.split("\r\n|\n|\r", -1)) {
+      if (joined.length() > 0) joined.append('\n');
+      joined.append(line.trim());
+    }
+    String normalized = joined.toString()
+      .replaceAll("[‘’]", "'")
+      .replaceAll("[“”«»]", "\"");
+
+    Matcher      m  = CJK.matcher(normalized);
+    StringBuffer sb = new StringBuffer();
+    while (m.find()) {
+      String ascii;
+      switch (m.group()) {
+        case "、": ascii = ","; break;
+        case "。": ascii = "."; break;
+        case "？": ascii = "?"; break;
+        case "！": ascii = "!"; break;
+        case "：": ascii = ":"; break;
+        default  : ascii = ";"; break;
+      }
+      m.appendReplacement(sb, ascii + " ");
+    }
+    m.appendTail(sb);
+
+    normalized = sb.toString()
+      .replaceAll("\\bD[Rr]\\.(?= [A-Z])", "Doctor")
+      .replaceAll("\\b(?:Mr\\.|MR\\.(?= [A-Z]))", "Mister")
+      .replaceAll("\\b(?:Ms\\.|MS\\.(?= [A-Z]))", "Miss")
+      .replaceAll("\\b(?:Mrs\\.|MRS\\.(?= [A-Z]))", "Mrs")
+      .replaceAll("\\betc\\.(?! [A-Z])", "etc");
+
+    normalized = normalized.replaceAll("(?<=\\d),(?=\\d)", "");
+    normalized = normalized.replaceAll("(?<=\\d)-(?=\\d)", " to ");
+    return normalized.trim();
+  }
+}
@@ -0,0 +1,40 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import myapp.app.tts.TextNormalizer;
+
+/**
+ * Checks {@link TextNormalizer} against corpus/normalize_golden.tsv and exits non-zero on any
+ * difference. The corpus lives in speech-core/src/test/resources, where TextNormalizerGoldenTest
+ * runs it as part of the unit tests.
+ *
+ *   gradle :benchmarks:normalizeGolden
+ */
+public final class NormalizeGolden {
+
+  public static void main(String[] argv) throws IOException {
+    int cases = 0, failures = 0;
+    try (InputStream in = NormalizeGolden.class.getResourceAsStream("/corpus/normalize_golden.tsv")) {
+      if (in == null) throw new FileNotFoundException("/corpus/normalize_golden.tsv");
+      BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      String line;
+      while ((line = r.readLine()) != null) {
+        if (line.isEmpty() || line.startsWith("#")) continue;
+        int tab = line.indexOf('\t');
+        if (tab < 0) throw new IOException("No tab in golden line: " + line);
+        String input    = line.substring(0, tab).replace("\\n", "\n");
+        String expected = line.substring(tab + 1).replace("\\n", "\n");
+        String actual   = TextNormalizer.normalize(input);
+        cases++;
+        if (!actual.equals(expected)) {
+          failures++;
+          System.err.println("input:    " + input + "\nexpected: " + expected + "\nactual:   " + actual + "\n");
+        }
+      }
+    }
+    System.out.println(cases + " cases, " + failures + " failures");
+    if (failures > 0) System.exit(1);
+  }
+}
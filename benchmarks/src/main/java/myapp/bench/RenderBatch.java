@@ -0,0 +1,76 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+
+import myapp.app.log.Logger;
+import myapp.app.tts.BatchRenderer;
+import myapp.app.tts.Phonemizer;
+import myapp.app.tts.StyleLoaderJava;
+
+/**
+ * Headless batch rendering of a text manifest to WAV files (see {@link BatchRenderer}).
+ *
+ *   gradle :benchmarks:renderBatch -PbenchArgs="--model /m/kokoro.onnx --manifest prompts.jsonl --out /data/wav"
+ *
+ * Options (defaults in brackets):
+ *   --model     kokoro.onnx                                       [required]
+ *   --manifest  JSON lines {"id","text","voice","index","speed"} or plain text lines  [required]
+ *   --out       output directory; existing id.wav files are skipped [render]
+ *   --voices    directory with voices_XX.bin                      [directory of --model]
+ *   --dict      cmudict_ipa.txt                                   [fallback G2P only]
+ *   --front     front-end threads                                 [cores/2]
+ *   --infer     inference threads (concurrent session.run)        [1]
+ *   --threads   intra-op threads per session.run                  [cores/infer]
+ *   --gain      output gain before clipping                       [1.0]
+ *   --report    seconds between progress reports                  [10]
+ *
+ * Prints periodic throughput lines and a final JSON summary; per-file results are appended to
+ * out/progress.jsonl.
+ */
+public final class RenderBatch {
+
+  public static void main(String[] argv) throws Exception {
+    Map<String, String> a = Args.parse(argv);
+    if (!a.containsKey("model") || !a.containsKey("manifest")) {
+      System.err.println("usage: RenderBatch --model kokoro.onnx --manifest prompts.jsonl [--out dir] [--front N] [--infer N]");
+      System.exit(2);
+    }
+    File model    = new File(a.get("model"));
+    File manifest = new File(a.get("manifest"));
+    File out      = new File(a.getOrDefault("out", "render"));
+    File voices   = new File(a.getOrDefault("voices", model.getAbsoluteFile().getParent()));
+    int  cores    = Runtime.getRuntime().availableProcessors();
+    int  front    = Integer.parseInt(a.getOrDefault("front"  , Integer.toString(Math.max(1, cores / 2))));
+    int  infer    = Integer.parseInt(a.getOrDefault("infer"  , "1"));
+    int  threads  = Integer.parseInt(a.getOrDefault("threads", Integer.toString(Math.max(1, cores / infer))));
+
+    Map<String, String> dict = Collections.emptyMap();
+    if (a.containsKey("dict")) {
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(a.get("dict")), StandardCharsets.UTF_8))) {
+        dict = Phonemizer.parseDictionary(in);
+      }
+    }
+
+    List<BatchRenderer.Job> jobs = BatchRenderer.readManifest(manifest);
+    OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+    options.setIntraOpNumThreads(threads);
+    options.setInterOpNumThreads(1);
+
+    Logger log = (level, msg) -> { if (level >= Logger.INFO) System.err.println(msg); };
+    try (OrtSession session = OrtEnvironment.getEnvironment().createSession(model.getPath(), options)) {
+      BatchRenderer.Stats stats = new BatchRenderer(new Phonemizer(dict), new StyleLoaderJava(voices, null, log), session, log)
+        .setFrontEndThreads    (front)
+        .setInferenceThreads   (infer)
+        .setGain               (Float.parseFloat(a.getOrDefault("gain", "1.0")))
+        .setReportEverySeconds (Integer.parseInt(a.getOrDefault("report", "10")))
+        .render(jobs, out);
+      System.out.println(stats.toJson());
+      if (stats.failed.get() > 0) System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package myapp.bench;
+
+import java.io.*;
+
+/**
+ * Peak resident set size of this process, from /proc (Linux only; -1 elsewhere).
+ * Native allocations (ONNX Runtime, Kaldi) are included, unlike JVM heap statistics.
+ */
+final class Rss {
+
+  private Rss() {}
+
+  /** Resets VmHWM to the current RSS so the next {@link #peakMb()} covers one configuration. */
+  static void resetPeak() {
+    try (Writer w = new FileWriter("/proc/self/clear_refs")) {
+      w.write("5");
+    } catch (IOException ignore) {
+      // Older kernels / other OSes: peak then covers the whole process lifetime.
+    }
+  }
+
+  static long peakMb() {
+    try (BufferedReader in = new BufferedReader(new FileReader("/proc/self/status"))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith("VmHWM:")) {
+          return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+        }
+      }
+    } catch (IOException | NumberFormatException ignore) {}
+    return -1;
+  }
+}
@@ -0,0 +1,261 @@
+package myapp.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.vosk.LibVosk;
+import org.vosk.LogLevel;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import myapp.app.metrics.Histogram;
+import myapp.app.stt.RecognitionLoop;
+
+/**
+ * Offline STT throughput over a directory of 16 kHz mono PCM16 WAV files, using the app's own
+ * {@link RecognitionLoop} with the desktop Vosk library.
+ *
+ * Sweeps models x chunk sizes x decoding modes and prints one JSON object per configuration:
+ * real-time factor, final-result latency percentiles, peak RSS, and word error rate when a
+ * reference transcript "name.txt" sits next to "name.wav".
+ *
+ *   gradle :benchmarks:voskBench -PbenchArgs="--models /m/vosk-model-small-en-us-0.15,/m/vosk-model-en-us-0.22 --wavs /data/wav"
+ *
+ * Options (defaults in brackets):
+ *   --models    comma-separated model directories           [required]
+ *   --wavs      directory of .wav files                     [required]
+ *   --chunks    chunk sizes in bytes                        [4096,16384,65536]
+ *   --modes     serial | parallel                           [serial,parallel]
+ *   --segments  segments per file in parallel mode          [cores]
+ *   --out       JSON lines output file                      [build/results/vosk.jsonl]
+ *
+ * Parallel mode splits each file into segments at the quietest 100 ms near each cut point and
+ * decodes them on separate recognizers; the texts are joined in order.
+ */
+public final class VoskHarness {
+
+  private static final float SAMPLE_RATE = 16000f;
+
+  public static void main(String[] argv) throws Exception {
+    Map<String, String> a = Args.parse(argv);
+    if (!a.containsKey("models") || !a.containsKey("wavs")) {
+      System.err.println("usage: VoskHarness --models dir[,dir] --wavs dir [--chunks 4096,16384] [--modes serial,parallel]");
+      System.exit(2);
+    }
+    List<String>  models   = Args.list(a, "models", null);
+    List<Integer> chunks   = Args.ints(a, "chunks", "4096,16384,65536");
+    List<String>  modes    = Args.list(a, "modes" , "serial,parallel");
+    int           segments = Integer.parseInt(a.getOrDefault("segments", Integer.toString(Runtime.getRuntime().availableProcessors())));
+    File          out      = new File(a.getOrDefault("out", "build/results/vosk.jsonl"));
+    List<Clip>    clips    = loadClips(new File(a.get("wavs")));
+    if (clips.isEmpty()) throw new FileNotFoundException("No .wav files in " + a.get("wavs"));
+
+    LibVosk.setLogLevel(LogLevel.WARNINGS);
+    ExecutorService pool = Executors.newFixedThreadPool(segments);
+    if (out.getParentFile() != null) out.getParentFile().mkdirs();
+    try (PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+      for (String modelDir : models) {
+        Rss.resetPeak();
+        long t0 = System.nanoTime();
+        try (Model model = new Model(modelDir)) {
+          long loadMs = (System.nanoTime() - t0) / 1_000_000;
+          for (int chunk : chunks) {
+            for (String mode : modes) {
+              boolean parallel = "parallel".equals(mode);
+              String json = runConfig(model, modelDir, loadMs, chunk, parallel, parallel ? segments : 1, clips, pool);
+              System.out.println(json);
+              w.println(json);
+              w.flush();
+            }
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static String runConfig(Model model, String modelDir, long loadMs, int chunk, boolean parallel, int segments,
+                                  List<Clip> clips, ExecutorService pool) throws Exception {
+    Histogram latency    = new Histogram("final_latency", "ms", 1000.0);
+    long      audioBytes = 0;
+    long      wallNanos  = 0;
+    long      errors     = 0;
+    long      refWords   = 0;
+
+    for (Clip clip : clips) {
+      long   start = System.nanoTime();
+      String text;
+      if (!parallel) {
+        RecognitionLoop.Result r = decode(model, clip.pcm, 0, clip.pcm.length, chunk);
+        latency.record(r.finalLatencyNanos / 1000);
+        text = r.text();
+      } else {
+        int[] cuts = cutPoints(clip.pcm, segments);
+        List<Future<RecognitionLoop.Result>> parts = new ArrayList<>();
+        for (int i = 0; i + 1 < cuts.length; i++) {
+          final int from = cuts[i], to = cuts[i + 1];
+          parts.add(pool.submit(() -> decode(model, clip.pcm, from, to, chunk)));
+        }
+        StringBuilder sb       = new StringBuilder();
+        long          worstEnd = 0;
+        for (Future<RecognitionLoop.Result> f : parts) {
+          RecognitionLoop.Result r = f.get();
+          String t = r.text();
+          if (!t.isEmpty()) sb.append(sb.length() > 0 ? " " : "").append(t);
+          worstEnd = Math.max(worstEnd, r.finalLatencyNanos);
+        }
+        // The transcript is complete once the slowest segment has flushed its final result.
+        latency.record(worstEnd / 1000);
+        text = sb.toString();
+      }
+      wallNanos  += System.nanoTime() - start;
+      audioBytes += clip.pcm.length;
+      if (clip.reference != null) {
+        List<String> ref = words(clip.reference);
+        errors   += editDistance(ref, words(text));
+        refWords += ref.size();
+      }
+    }
+
+    double audioSec = audioBytes / (SAMPLE_RATE * 2);
+    StringBuilder sb = new StringBuilder(256);
+    sb.append("{\"model\":").append(Args.quote(new File(modelDir).getName()))
+      .append(",\"model_load_ms\":").append(loadMs)
+      .append(",\"chunk_bytes\":").append(chunk)
+      .append(",\"mode\":\"").append(parallel ? "parallel" : "serial").append('"')
+      .append(",\"segments\":").append(segments)
+      .append(",\"files\":").append(clips.size())
+      .append(",\"audio_sec\":").append(String.format(Locale.US, "%.1f", audioSec))
+      .append(",\"rtf\":").append(String.format(Locale.US, "%.4f", (wallNanos / 1e9) / audioSec))
+      .append(",\"final_latency_ms\":").append(String.format(Locale.US,
+        "{\"p50\":%.1f,\"p90\":%.1f,\"max\":%.1f}", latency.percentile(0.5), latency.percentile(0.9), latency.max()))
+      .append(",\"peak_rss_mb\":").append(Rss.peakMb());
+    if (refWords > 0) sb.append(",\"wer\":").append(String.format(Locale.US, "%.4f", errors / (double) refWords));
+    return sb.append('}').toString();
+  }
+
+  private static RecognitionLoop.Result decode(Model model, byte[] pcm, int from, int to, int chunk) throws IOException {
+    try (Recognizer rec = new Recognizer(model, SAMPLE_RATE)) {
+      int[] pos = { from };
+      return new RecognitionLoop(rec).setChunkBytes(chunk).run((buf, off, len) -> {
+        if (pos[0] >= to) return -1;
+        int n = Math.min(len, to - pos[0]);
+        System.arraycopy(pcm, pos[0], buf, off, n);
+        pos[0] += n;
+        return n;
+      });
+    }
+  }
+
+  /** Byte offsets [0, c1, ..., len], each inner cut moved to the quietest 100 ms within +-1 s. */
+  private static int[] cutPoints(byte[] pcm, int segments) {
+    int   samples = pcm.length / 2;
+    int   window  = (int) (SAMPLE_RATE / 10);
+    int   search  = (int) SAMPLE_RATE;
+    int[] cuts    = new int[segments + 1];
+    cuts[segments] = samples * 2;
+    for (int s = 1; s < segments; s++) {
+      int  target = (int) ((long) samples * s / segments);
+      int  best   = target;
+      long bestE  = Long.MAX_VALUE;
+      for (int c = Math.max(cuts[s - 1] / 2 + window, target - search); c < Math.min(samples - window, target + search); c += window / 2) {
+        long e = 0;
+        for (int i = c; i < c + window; i++) {
+          int v = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8));
+          e += (long) v * v;
+        }
+        if (e < bestE) { bestE = e; best = c + window / 2; }
+      }
+      cuts[s] = Math.max(cuts[s - 1], best * 2);
+    }
+    return cuts;
+  }
+
+  // ======== CORPUS ========
+
+  private static final class Clip {
+    final byte[] pcm      ;
+    final String reference;
+
+    Clip(byte[] pcm, String reference) {
+      this.pcm       = pcm;
+      this.reference = reference;
+    }
+  }
+
+  private static List<Clip> loadClips(File dir) throws IOException {
+    File[] files = dir.listFiles((d, n) -> n.toLowerCase(Locale.ROOT).endsWith(".wav"));
+    List<Clip> clips = new ArrayList<>();
+    if (files == null) return clips;
+    Arrays.sort(files);
+    for (File f : files) {
+      File   ref  = new File(dir, f.getName().substring(0, f.getName().length() - 4) + ".txt");
+      String text = ref.isFile() ? new String(readAll(ref), StandardCharsets.UTF_8) : null;
+      clips.add(new Clip(pcmFromWav(f), text));
+    }
+    return clips;
+  }
+
+  /** The "data" chunk of a 16 kHz mono PCM16 WAV. */
+  private static byte[] pcmFromWav(File f) throws IOException {
+    byte[] b = readAll(f);
+    if (b.length < 12 || b[0] != 'R' || b[1] != 'I' || b[2] != 'F' || b[3] != 'F') throw new IOException("Not a WAV: " + f);
+    int p = 12;
+    int rate = -1, channels = -1, bits = -1;
+    while (p + 8 <= b.length) {
+      String id  = new String(b, p, 4, StandardCharsets.US_ASCII);
+      int    len = le32(b, p + 4);
+      if (id.equals("fmt ")) {
+        channels = le16(b, p + 10);
+        rate     = le32(b, p + 12);
+        bits     = le16(b, p + 22);
+      } else if (id.equals("data")) {
+        if (rate != 16000 || channels != 1 || bits != 16) {
+          throw new IOException(f + ": need 16 kHz mono 16-bit, got " + rate + " Hz, " + channels + " ch, " + bits + " bit");
+        }
+        return Arrays.copyOfRange(b, p + 8, Math.min(b.length, p + 8 + len));
+      }
+      p += 8 + len + (len & 1);
+    }
+    throw new IOException("No data chunk in " + f);
+  }
+
+  private static byte[] readAll(File f) throws IOException {
+    try (RandomAccessFile r = new RandomAccessFile(f, "r")) {
+      byte[] b = new byte[(int) r.length()];
+      r.readFully(b);
+      return b;
+    }
+  }
+
+  private static int le16(byte[] b, int p) { return (b[p] & 0xFF) | ((b[p + 1] & 0xFF) << 8); }
+  private static int le32(byte[] b, int p) { return le16(b, p) | (le16(b, p + 2) << 16); }
+
+  // ======== WER ========
+
+  private static List<String> words(String s) {
+    List<String> out = new ArrayList<>();
+    for (String w : s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9' ]", " ").split("\\s+")) {
+      if (!w.isEmpty()) out.add(w);
+    }
+    return out;
+  }
+
+  private static int editDistance(List<String> ref, List<String> hyp) {
+    int[] prev = new int[hyp.size() + 1];
+    int[] cur  = new int[hyp.size() + 1];
+    for (int j = 0; j <= hyp.size(); j++) prev[j] = j;
+    for (int i = 1; i <= ref.size(); i++) {
+      cur[0] = i;
+      for (int j = 1; j <= hyp.size(); j++) {
+        int sub = prev[j - 1] + (ref.get(i - 1).equals(hyp.get(j - 1)) ? 0 : 1);
+        cur[j] = Math.min(sub, Math.min(prev[j] + 1, cur[j - 1] + 1));
+      }
+      int[] t = prev; prev = cur; cur = t;
+    }
+    return prev[hyp.size()];
+  }
+}
@@ -0,0 +1,249 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One capture thread per {@link AudioSource}, publishing frames into an {@link AudioRing}.
+ *
+ * Consumers (recorder, player, VAD, recognizer, ...) attach independently; each gets its own
+ * ring reader and its own thread, so a slow consumer only ever loses its own frames
+ * (counted as overruns) and never stalls the capture thread.
+ *
+ * {@link #stop()} only waits {@link #STOP_TIMEOUT_MS} for the threads, so it can be called from a
+ * UI thread; a consumer still working through its backlog finishes in the background and reports
+ * through {@link Consumer#onStopped}. Use {@link #stop(long)} where everything must be finished
+ * before resources the consumers use are released.
+ */
+public final class AudioCaptureEngine {
+
+  public interface Consumer {
+    /** Called on the consumer's own thread. {@code data} is reused after return. */
+    void onFrame(byte[] data, int length);
+
+    /** Called once on the consumer's thread after the last frame (or on detach). */
+    default void onStopped() {}
+  }
+
+  public  static final long STOP_TIMEOUT_MS        = 1_000L;
+
+  private static final long PARK_NANOS             = 5_000_000L;
+  private static final int  MAX_CONSECUTIVE_ERRORS = 50;
+
+  private final String                           name        ;
+  private final AudioSource                      source      ;
+  private final AudioRing                        ring        ;
+  private final CopyOnWriteArrayList<Attachment> attachments = new CopyOnWriteArrayList<>();
+  private final AtomicLong                       framesRead  = new AtomicLong();
+  private final AtomicLong                       readErrors  = new AtomicLong();
+  private final AtomicLong                       shortReads  = new AtomicLong();
+
+  private volatile boolean     running      = false;
+  private volatile boolean     captureDone  = true ;
+  private volatile int         lastReadCode = 0    ;
+  private volatile IOException startError   = null ;
+  private          Thread      captureThread;
+
+  public AudioCaptureEngine(String name, AudioSource source, int frameBytes, int capacityFrames) {
+    this.name   = name;
+    this.source = source;
+    this.ring   = new AudioRing(capacityFrames, frameBytes);
+  }
+
+  public int sampleRate() { return source.sampleRate(); }
+  public boolean isRunning() { return running; }
+
+  /** Frames successfully read from the source. */
+  public long framesRead() { return framesRead.get(); }
+
+  /** Reads that returned 0 or a negative error code. */
+  public long readErrors() { return readErrors.get(); }
+
+  /** Reads that returned fewer bytes than a full frame (source could not keep up). */
+  public long shortReads() { return shortReads.get(); }
+
+  /** Last non-positive code returned by the source, 0 if none. */
+  public int lastReadCode() { return lastReadCode; }
+
+  /** Set if the source failed to start; capture then stops immediately. */
+  public IOException startError() { return startError; }
+
+  /** Total frames dropped across attached consumers because they fell behind. */
+  public long overruns() {
+    long sum = 0;
+    for (Attachment a : attachments) sum += a.reader.overruns();
+    return sum;
+  }
+
+  /** Largest backlog (in frames) among attached consumers. */
+  public long maxLag() {
+    long max = 0;
+    for (Attachment a : attachments) max = Math.max(max, a.reader.lag());
+    return max;
+  }
+
+  // ======== CONSUMERS ========
+
+  /** Attaches a consumer. It sees frames published from now on. */
+  public synchronized void attach(String consumerName, Consumer consumer) {
+    Attachment a = new Attachment(consumerName, consumer, ring.newReader());
+    attachments.add(a);
+    if (running) a.start();
+  }
+
+  /** Detaches a consumer and waits up to {@link #STOP_TIMEOUT_MS} for its thread to finish. */
+  public void detach(Consumer consumer) {
+    Attachment found = null;
+    synchronized (this) {
+      for (Attachment a : attachments) {
+        if (a.consumer == consumer) { found = a; break; }
+      }
+      if (found == null) return;
+      attachments.remove(found);
+    }
+    found.detached = true;
+    found.join(System.currentTimeMillis() + STOP_TIMEOUT_MS);
+  }
+
+  // ======== CAPTURE ========
+
+  public synchronized void start() {
+    if (captureThread != null) return;
+    running     = true;
+    captureDone = false;
+    startError  = null;
+    captureThread = new Thread(this::captureLoop, name + "-capture");
+    captureThread.start();
+    for (Attachment a : attachments) a.start();
+  }
+
+  /** {@link #stop(long)} with {@link #STOP_TIMEOUT_MS}. */
+  public boolean stop() {
+    return stop(STOP_TIMEOUT_MS);
+  }
+
+  /**
+   * Stops capture and lets every consumer drain what was already captured, waiting at most
+   * {@code timeoutMs} in total for the threads. Returns true if they have all finished; otherwise
+   * the rest finish on their own. Calling it again after a timeout waits for them again.
+   */
+  public boolean stop(long timeoutMs) {
+    Thread t;
+    synchronized (this) {
+      running = false;
+      t = captureThread;
+      captureThread = null;
+    }
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    if (deadline < 0) deadline = Long.MAX_VALUE;
+    boolean done = (t == null) || join(t, deadline);
+    for (Attachment a : attachments) done &= a.join(deadline);
+    return done;
+  }
+
+  /** Joins {@code t} until the wall-clock {@code deadline}; true if it finished. */
+  private static boolean join(Thread t, long deadline) {
+    try {
+      long left = deadline - System.currentTimeMillis();
+      if (left > 0) t.join(left);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return !t.isAlive();
+  }
+
+  private void captureLoop() {
+    try {
+      source.start();
+    } catch (IOException e) {
+      startError = e;
+      running    = false;
+      finishCapture();
+      return;
+    }
+
+    int consecutiveErrors = 0;
+    try {
+      while (running) {
+        byte[] slot = ring.claim();
+        int    read = source.read(slot, 0, slot.length);
+        if (read <= 0) {
+          readErrors.incrementAndGet();
+          lastReadCode = read;
+          if (++consecutiveErrors >= MAX_CONSECUTIVE_ERRORS) break;
+          continue;
+        }
+        consecutiveErrors = 0;
+        if (read < slot.length) shortReads.incrementAndGet();
+        ring.publish(read);
+        framesRead.incrementAndGet();
+        wakeConsumers();
+      }
+    } finally {
+      running = false;
+      source.stop();
+      finishCapture();
+    }
+  }
+
+  private void finishCapture() {
+    captureDone = true;
+    wakeConsumers();
+  }
+
+  private void wakeConsumers() {
+    for (Attachment a : attachments) {
+      Thread t = a.thread;
+      if (t != null) LockSupport.unpark(t);
+    }
+  }
+
+  private final class Attachment implements Runnable {
+    final    String           consumerName;
+    final    Consumer         consumer    ;
+    final    AudioRing.Reader reader      ;
+    volatile Thread           thread      ;
+    volatile boolean          detached    = false;
+
+    Attachment(String consumerName, Consumer consumer, AudioRing.Reader reader) {
+      this.consumerName = consumerName;
+      this.consumer     = consumer;
+      this.reader       = reader;
+    }
+
+    void start() {
+      if (thread != null) return;
+      thread = new Thread(this, name + "-" + consumerName);
+      thread.start();
+    }
+
+    boolean join(long deadline) {
+      Thread t = thread;
+      if (t == null) return true;
+      LockSupport.unpark(t);
+      if (!AudioCaptureEngine.join(t, deadline)) return false;
+      thread = null;
+      return true;
+    }
+
+    @Override
+    public void run() {
+      byte[] buf = new byte[ring.frameBytes()];
+      try {
+        while (!detached) {
+          int n = reader.poll(buf);
+          if (n > 0) {
+            consumer.onFrame(buf, n);
+            continue;
+          }
+          if (captureDone && reader.lag() == 0) break;
+          LockSupport.parkNanos(PARK_NANOS);
+        }
+      } finally {
+        consumer.onStopped();
+      }
+    }
+  }
+}
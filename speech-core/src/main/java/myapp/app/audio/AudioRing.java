@@ -0,0 +1,118 @@
+package myapp.app.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer / multi-consumer ring of fixed-size PCM frames.
+ *
+ * - The producer (capture thread) claims a slot, reads audio straight into it and publishes it.
+ * - Every consumer owns a {@link Reader} with its own sequence counter; nothing is shared
+ *   between consumers and no locks are taken on either side.
+ * - The producer never waits. A reader that falls more than (capacity - GUARD_FRAMES) frames
+ *   behind is resynced to the oldest safe frame and the skipped frames are counted as overruns.
+ *
+ * Readers copy a slot with plain reads and then re-check {@link #published} (a seqlock). Both
+ * sides order that with an atomic read-modify-write on {@code published}, which is a full fence:
+ * the producer's writes into the next slot cannot become visible before the count that announces
+ * the overwrite, and a reader's copy cannot be reordered after its re-check. (VarHandle fences
+ * would say this more directly, but they need Java 9 / Android API 33.)
+ */
+public final class AudioRing {
+
+  // Slots kept between the producer and the oldest readable frame, so a reader copying
+  // a frame rarely has to retry because the producer reached the same slot.
+  private static final int GUARD_FRAMES = 2;
+
+  private final int        frameBytes;
+  private final int        capacity  ;
+  private final int        mask      ;
+  private final byte[][]   frames    ;
+  private final int[]      lengths   ;
+  private final AtomicLong published = new AtomicLong(0);
+
+  private long claimed = 0;   // producer-only
+
+  public AudioRing(int capacityFrames, int frameBytes) {
+    if (capacityFrames <= GUARD_FRAMES * 2) throw new IllegalArgumentException("capacityFrames too small: " + capacityFrames);
+    if (frameBytes     <= 0               ) throw new IllegalArgumentException("frameBytes must be > 0: "   + frameBytes    );
+    int cap = Integer.highestOneBit(capacityFrames - 1) << 1;
+    this.frameBytes = frameBytes;
+    this.capacity   = cap;
+    this.mask       = cap - 1;
+    this.frames     = new byte[cap][frameBytes];
+    this.lengths    = new int [cap];
+  }
+
+  public int frameBytes() { return frameBytes; }
+  public int capacity  () { return capacity  ; }
+
+  /** Sequence number of the next frame to be published (= frames published so far). */
+  public long published() { return published.get(); }
+
+  // ======== PRODUCER ========
+
+  /** Returns the slot the producer may fill next. Only valid until the matching {@link #publish}. */
+  public byte[] claim() {
+    return frames[(int) (claimed & mask)];
+  }
+
+  /** Publishes the claimed slot with {@code length} valid bytes. */
+  public void publish(int length) {
+    lengths[(int) (claimed & mask)] = length;
+    claimed++;
+    published.getAndIncrement();   // full fence: the next claim()'s writes stay after it
+  }
+
+  // ======== CONSUMERS ========
+
+  /** Creates a reader positioned at the next frame to be published. */
+  public Reader newReader() {
+    return new Reader(published.get());
+  }
+
+  public final class Reader {
+    private volatile long next    ;
+    private volatile long overruns;
+
+    private Reader(long start) {
+      this.next = start;
+    }
+
+    /**
+     * Copies the next frame into {@code dst} (at least {@link #frameBytes()} long).
+     * Returns the number of bytes copied, or 0 if no frame is available yet.
+     */
+    public int poll(byte[] dst) {
+      while (true) {
+        long head = published.get();
+        if (next >= head) return 0;
+
+        long oldest = head - capacity + GUARD_FRAMES;
+        if (next < oldest) {
+          overruns += oldest - next;
+          next      = oldest;
+        }
+
+        int slot = (int) (next & mask);
+        int len  = lengths[slot];
+        System.arraycopy(frames[slot], 0, dst, 0, len);
+
+        // Producer lapped us while copying: drop the frame and resync. The read-modify-write
+        // keeps the copy above from being reordered after this check.
+        if (published.getAndAdd(0) - capacity + GUARD_FRAMES > next) continue;
+
+        next++;
+        return len;
+      }
+    }
+
+    /** Frames published but not yet consumed by this reader. */
+    public long lag() {
+      return Math.max(0L, published.get() - next);
+    }
+
+    public long overruns() {
+      return overruns;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+
+/**
+ * A blocking sink for 16-bit mono PCM, the output counterpart of {@link AudioSource}.
+ * All methods are called from the thread that produces the audio.
+ */
+public interface AudioSink {
+
+  int sampleRate();
+
+  /** Opens/starts the underlying device. Called once before the first write. */
+  void start() throws IOException;
+
+  /** Blocking write of little-endian PCM16. Returns bytes accepted, or a negative device error code. */
+  int write(byte[] buffer, int offset, int length);
+
+  /** Blocks until everything written so far has been played out. */
+  void drain();
+
+  /** Stops immediately (dropping anything not yet played) and releases the underlying device. */
+  void stop();
+
+  /**
+   * May be called from any thread: silences output as soon as possible, e.g. for barge-in. A write
+   * blocked in the device returns early and later writes return a negative code, so the producer
+   * fails out and still calls {@link #stop()} itself. The default does nothing.
+   */
+  default void interrupt() {}
+}
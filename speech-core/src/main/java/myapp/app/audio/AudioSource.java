@@ -0,0 +1,21 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+
+/**
+ * A blocking source of 16-bit mono PCM, driven by {@link AudioCaptureEngine}.
+ * All methods are called from the capture thread.
+ */
+public interface AudioSource {
+
+  int sampleRate();
+
+  /** Opens/starts the underlying device. Called once on the capture thread before the first read. */
+  void start() throws IOException;
+
+  /** Blocking read. Returns bytes read, or a negative device error code. */
+  int read(byte[] buffer, int offset, int length);
+
+  /** Stops and releases the underlying device. */
+  void stop();
+}
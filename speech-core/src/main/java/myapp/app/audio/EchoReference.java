@@ -0,0 +1,65 @@
+package myapp.app.audio;
+
+/**
+ * Energy envelope of what the app is playing, so capture-side code can tell the user's voice from
+ * our own output coming back through the microphone.
+ *
+ * The playback thread reports the mean square of each block it hands to the device
+ * ({@link #onPlayed}); readers ask for the loudest block written in a time window ({@link #level}).
+ * Blocks are stamped when the write returns, which is up to one device buffer before they are
+ * heard, so readers should look back over a window rather than at an instant. A ring of
+ * {@link #SLOTS} blocks (~5 s of 20 ms blocks) is kept. Thread-safe.
+ */
+public final class EchoReference {
+
+  public  static final int SLOTS = 256;
+
+  private final long []  times = new long [SLOTS];
+  private final float[]  power = new float[SLOTS];
+  private       int      next  ;
+  private       int      count ;
+  private volatile boolean playing     ;
+  private volatile long    lastPlayed  = Long.MIN_VALUE / 2;   // nanoTime of the last block
+
+  /** Playback started or stopped (the device was opened or released). */
+  public void setPlaying(boolean playing) {
+    this.playing = playing;
+    if (!playing) lastPlayed = System.nanoTime();
+  }
+
+  /** A block with mean square {@code meanSquare} (full scale = 1) was written at {@code nanos}. */
+  public synchronized void onPlayed(float meanSquare, long nanos) {
+    times[next] = nanos;
+    power[next] = meanSquare;
+    next = (next + 1) % SLOTS;
+    if (count < SLOTS) count++;
+    lastPlayed = nanos;
+  }
+
+  /** True while playing, and for {@code holdNanos} after (the echo tail still in the room and the buffers). */
+  public boolean isActive(long now, long holdNanos) {
+    return playing || now - lastPlayed < holdNanos;
+  }
+
+  /** True if any block, silent or not, was written in [{@code from}, {@code to}]. */
+  public synchronized boolean hasOutput(long from, long to) {
+    for (int k = 1; k <= count; k++) {
+      long t = times[(next - k + SLOTS) % SLOTS];
+      if (t < from) break;
+      if (t <= to)  return true;
+    }
+    return false;
+  }
+
+  /** Loudest mean square written in [{@code from}, {@code to}], 0 if none (see {@link #hasOutput}). */
+  public synchronized float level(long from, long to) {
+    float max = 0f;
+    for (int k = 1; k <= count; k++) {
+      int  i = (next - k + SLOTS) % SLOTS;
+      long t = times[i];
+      if (t < from) break;   // older from here on
+      if (t <= to && power[i] > max) max = power[i];
+    }
+    return max;
+  }
+}
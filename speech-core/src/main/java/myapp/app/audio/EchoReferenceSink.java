@@ -0,0 +1,65 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+
+/**
+ * {@link AudioSink} decorator that reports the energy of everything written through it to an
+ * {@link EchoReference}, in {@link #BLOCK_MS} blocks, after the underlying write returns.
+ * Wrap the sink closest to the device (after any time stretch) so the reference matches what is heard.
+ */
+public final class EchoReferenceSink implements AudioSink {
+
+  public  static final int BLOCK_MS = 20;
+
+  private final AudioSink     sink;
+  private final EchoReference ref ;
+  private final int           blockBytes;
+
+  public EchoReferenceSink(AudioSink sink, EchoReference ref) {
+    this.sink       = sink;
+    this.ref        = ref;
+    this.blockBytes = 2 * Math.max(1, sink.sampleRate() * BLOCK_MS / 1000);
+  }
+
+  @Override
+  public int sampleRate() { return sink.sampleRate(); }
+
+  @Override
+  public void start() throws IOException {
+    sink.start();
+    ref.setPlaying(true);
+  }
+
+  @Override
+  public int write(byte[] buffer, int offset, int length) {
+    int n = sink.write(buffer, offset, length);
+    if (n <= 0) return n;
+    long now = System.nanoTime();
+    for (int b = offset, end = offset + (n & ~1); b < end; b += blockBytes) {
+      int    e   = Math.min(end, b + blockBytes);
+      double sum = 0;
+      for (int i = b; i < e; i += 2) {
+        int v = (short) ((buffer[i] & 0xFF) | (buffer[i + 1] << 8));
+        sum += (double) v * v;
+      }
+      ref.onPlayed((float) (sum / ((e - b) / 2) / (32768.0 * 32768.0)), now);
+    }
+    return n;
+  }
+
+  @Override
+  public void drain() {
+    sink.drain();
+  }
+
+  @Override
+  public void stop() {
+    ref.setPlaying(false);
+    sink.stop();
+  }
+
+  @Override
+  public void interrupt() {
+    sink.interrupt();
+  }
+}
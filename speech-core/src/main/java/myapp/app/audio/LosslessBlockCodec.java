@@ -0,0 +1,168 @@
+package myapp.app.audio;
+
+import java.util.zip.CRC32;
+
+/**
+ * Block coder for the on-disk recording format (see {@link RecordingWriter}).
+ *
+ * Each block is coded independently, FLAC-style:
+ * - fixed polynomial predictor of order 0, 1 or 2 (whichever gives the smallest residual),
+ * - zig-zag mapped residuals, Rice coded with one parameter per block,
+ * - an escape code for outliers so a block never exceeds {@link #maxBlockBytes}.
+ *
+ * Block layout (little endian):
+ *   u16 sync, u16 sampleCount, u8 order, u8 riceK, u32 payloadBytes, u32 crc32(payload),
+ *   payload = order warm-up samples (s16) + Rice bitstream.
+ */
+final class LosslessBlockCodec {
+
+  static final int HEADER_BYTES = 14;
+  static final int SYNC         = 0x5B1A;
+
+  private static final int ESCAPE_Q = 24;
+  private static final int RAW_BITS = 20;
+  private static final int MAX_K    = 20;
+
+  private LosslessBlockCodec() {}
+
+  static int maxBlockBytes(int samples) {
+    return HEADER_BYTES + 4 + (samples * (ESCAPE_Q + RAW_BITS) + 7) / 8 + 8;
+  }
+
+  /** Encodes {@code n} samples into {@code out} (at least {@link #maxBlockBytes}(n) long). Returns bytes written. */
+  static int encode(short[] s, int n, byte[] out) {
+    int order = bestOrder(s, n);
+
+    long sumAbs = 0;
+    for (int i = order; i < n; i++) sumAbs += Math.abs(residual(s, i, order));
+    long mean = (n > order) ? sumAbs / (n - order) : 0;
+    int  k    = (mean > 0) ? Math.min(MAX_K, 63 - Long.numberOfLeadingZeros(mean)) : 0;
+
+    int pos = HEADER_BYTES;
+    for (int i = 0; i < order; i++) {
+      out[pos++] = (byte)  s[i];
+      out[pos++] = (byte) (s[i] >> 8);
+    }
+
+    long acc  = 0;
+    int  bits = 0;
+    for (int i = order; i < n; i++) {
+      int e = residual(s, i, order);
+      int u = (e << 1) ^ (e >> 31);
+      int q = u >>> k;
+      if (q < ESCAPE_Q) {
+        // q ones, a zero, then k low bits
+        acc   = (acc << (q + 1)) | (((1L << q) - 1) << 1);
+        bits += q + 1;
+        acc   = (acc << k) | (u & ((1L << k) - 1));
+        bits += k;
+      } else {
+        acc   = (acc << ESCAPE_Q) | ((1L << ESCAPE_Q) - 1);
+        bits += ESCAPE_Q;
+        acc   = (acc << RAW_BITS) | (u & ((1L << RAW_BITS) - 1));
+        bits += RAW_BITS;
+      }
+      while (bits >= 8) {
+        bits -= 8;
+        out[pos++] = (byte) (acc >>> bits);
+      }
+    }
+    if (bits > 0) out[pos++] = (byte) (acc << (8 - bits));
+
+    int payload = pos - HEADER_BYTES;
+    CRC32 crc = new CRC32();
+    crc.update(out, HEADER_BYTES, payload);
+
+    putShort(out, 0, SYNC);
+    putShort(out, 2, n);
+    out[4] = (byte) order;
+    out[5] = (byte) k;
+    putInt(out, 6, payload);
+    putInt(out, 10, (int) crc.getValue());
+    return pos;
+  }
+
+  /** Decodes one block's payload into {@code dst}. Returns the sample count. */
+  static int decode(byte[] header, byte[] payload, short[] dst) {
+    int n     = getShort(header, 2);
+    int order = header[4] & 0xFF;
+    int k     = header[5] & 0xFF;
+
+    int pos = 0;
+    for (int i = 0; i < order; i++) {
+      dst[i] = (short) ((payload[pos] & 0xFF) | (payload[pos + 1] << 8));
+      pos += 2;
+    }
+
+    long acc  = 0;
+    int  bits = 0;
+    for (int i = order; i < n; i++) {
+      int q = 0;
+      while (true) {
+        if (bits == 0) { acc = payload[pos++] & 0xFF; bits = 8; }
+        bits--;
+        if (((acc >>> bits) & 1) == 0) break;
+        if (++q == ESCAPE_Q) break;
+      }
+      int need = (q == ESCAPE_Q) ? RAW_BITS : k;
+      while (bits < need) { acc = (acc << 8) | (payload[pos++] & 0xFF); bits += 8; }
+      int low = (int) ((acc >>> (bits - need)) & ((1L << need) - 1));
+      bits -= need;
+      acc  &= (1L << bits) - 1;
+
+      int u = (q == ESCAPE_Q) ? low : ((q << k) | low);
+      int e = (u >>> 1) ^ -(u & 1);
+      dst[i] = (short) (e + prediction(dst, i, order));
+    }
+    return n;
+  }
+
+  static boolean isValid(byte[] header, byte[] payload, int payloadBytes) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payloadBytes);
+    return getInt(header, 10) == (int) crc.getValue();
+  }
+
+  private static int bestOrder(short[] s, int n) {
+    int  best    = 0;
+    long bestSum = Long.MAX_VALUE;
+    for (int order = 0; order <= 2 && order < n; order++) {
+      long sum = 0;
+      for (int i = order; i < n; i++) sum += Math.abs(residual(s, i, order));
+      if (sum < bestSum) { bestSum = sum; best = order; }
+    }
+    return best;
+  }
+
+  private static int residual(short[] s, int i, int order) {
+    return s[i] - prediction(s, i, order);
+  }
+
+  private static int prediction(short[] s, int i, int order) {
+    switch (order) {
+      case 1:  return s[i - 1];
+      case 2:  return 2 * s[i - 1] - s[i - 2];
+      default: return 0;
+    }
+  }
+
+  static void putShort(byte[] b, int off, int v) {
+    b[off    ] = (byte)  v;
+    b[off + 1] = (byte) (v >> 8);
+  }
+
+  static void putInt(byte[] b, int off, int v) {
+    b[off    ] = (byte)  v;
+    b[off + 1] = (byte) (v >>  8);
+    b[off + 2] = (byte) (v >> 16);
+    b[off + 3] = (byte) (v >> 24);
+  }
+
+  static int getShort(byte[] b, int off) {
+    return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8);
+  }
+
+  static int getInt(byte[] b, int off) {
+    return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8) | ((b[off + 2] & 0xFF) << 16) | ((b[off + 3] & 0xFF) << 24);
+  }
+}
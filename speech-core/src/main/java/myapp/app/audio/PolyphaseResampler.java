@@ -0,0 +1,199 @@
+package myapp.app.audio;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming rational-ratio resampler for mono float audio (24k -> 48k/44.1k for playback,
+ * 48k -> 16k for capture).
+ *
+ * The ratio out/in is reduced to L/M. A Kaiser-windowed sinc low-pass of L * taps coefficients,
+ * cut off just below the lower of the two Nyquist rates, is split into L phases of {@code taps}
+ * coefficients each. Each output sample is then one dot product of a phase against the last
+ * {@code taps} inputs. When decimating, taps are scaled by ceil(M/L) so the transition band stays
+ * as narrow relative to the output rate. Tables are computed once per (L, M, taps) and shared
+ * between instances.
+ *
+ * {@link #process} keeps the filter history across calls, so a stream can be fed in blocks of
+ * any size. Nothing is allocated after construction. Not thread-safe.
+ */
+public final class PolyphaseResampler {
+
+  public  static final int    DEFAULT_TAPS = 32;                 // per phase at the lower rate; ~80 dB stopband with BETA
+  private static final double BETA         = 8.0;                // Kaiser window shape
+  private static final double ROLLOFF      = 0.92;               // cutoff as a fraction of the lower Nyquist
+  private static final int    CHUNK        = 1024;               // input samples staged per step
+
+  private static final Map<String, float[][]> TABLES = new HashMap<>();
+
+  private final int       inRate ;
+  private final int       outRate;
+  private final int       up     ;   // L
+  private final int       down   ;   // M
+  private final int       taps   ;
+  private final float[][] phases ;   // [L][taps], coefficients reversed so the dot product runs forward
+  private final float[]   buf    ;   // taps - 1 samples of history, then staged input
+  private       int       fill   ;   // valid samples in buf
+  private       int       pos    ;   // index in buf of the newest input the next output needs
+  private       int       phase  ;   // 0..L-1
+
+  public PolyphaseResampler(int inRate, int outRate) {
+    this(inRate, outRate, DEFAULT_TAPS);
+  }
+
+  public PolyphaseResampler(int inRate, int outRate, int taps) {
+    if (inRate <= 0 || outRate <= 0 || taps < 4) {
+      throw new IllegalArgumentException("PolyphaseResampler: bad rates " + inRate + " -> " + outRate + " or taps " + taps);
+    }
+    int g = gcd(inRate, outRate);
+    this.inRate  = inRate;
+    this.outRate = outRate;
+    this.up      = outRate / g;
+    this.down    = inRate  / g;
+    this.taps    = down > up ? taps * ((down + up - 1) / up) : taps;
+    this.phases  = table(up, down, this.taps);
+    this.buf     = new float[this.taps - 1 + CHUNK];
+    reset();
+  }
+
+  public int inRate () { return inRate ; }
+  public int outRate() { return outRate; }
+
+  /** Coefficients per phase (after scaling for decimation). */
+  public int taps() { return taps; }
+
+  /** Upper bound on the samples {@link #process} writes for {@code inputLength} input samples. */
+  public int maxOutput(int inputLength) {
+    return (int) (((long) inputLength * up + down - 1) / down) + 1;
+  }
+
+  /** Filter delay in output samples: an impulse at input 0 peaks at this output index. */
+  public int delay() {
+    return (int) Math.round((up * taps - 1) / 2.0 / down);
+  }
+
+  /** Clears the history, as if the stream started over. */
+  public void reset() {
+    Arrays.fill(buf, 0f);
+    fill  = taps - 1;
+    pos   = taps - 1;
+    phase = 0;
+  }
+
+  /**
+   * Resamples {@code in[inOff, inOff+inLen)} into {@code out} starting at {@code outOff} and returns
+   * the number of samples written. {@code out} needs room for {@link #maxOutput}(inLen).
+   */
+  public int process(float[] in, int inOff, int inLen, float[] out, int outOff) {
+    int o = outOff;
+    int consumed = 0;
+    while (consumed < inLen) {
+      int n = Math.min(inLen - consumed, buf.length - fill);
+      System.arraycopy(in, inOff + consumed, buf, fill, n);
+      fill     += n;
+      consumed += n;
+      o = drain(out, o);
+    }
+    return o - outOff;
+  }
+
+  /**
+   * Pushes enough silence through the filter to release the last inputs (the {@link #delay} tail)
+   * and resets. {@code out} needs room for {@link #maxOutput}({@link #taps()}).
+   */
+  public int flush(float[] out, int outOff) {
+    int o = outOff;
+    int zeros = taps;
+    while (zeros > 0) {
+      int n = Math.min(zeros, buf.length - fill);
+      Arrays.fill(buf, fill, fill + n, 0f);
+      fill  += n;
+      zeros -= n;
+      o = drain(out, o);
+    }
+    reset();
+    return o - outOff;
+  }
+
+  /** Emits every output whose inputs are staged, then keeps the last taps-1 inputs as history. */
+  private int drain(float[] out, int o) {
+    final int t = taps;
+    while (pos < fill) {
+      float[] h   = phases[phase];
+      int     x0  = pos - (t - 1);
+      float   acc = 0f;
+      for (int k = 0; k < t; k++) acc += h[k] * buf[x0 + k];
+      out[o++] = acc;
+
+      phase += down;
+      pos   += phase / up;
+      phase %= up;
+    }
+    int keepFrom = pos - (t - 1);
+    if (keepFrom > 0) {
+      int keep = fill - keepFrom;
+      System.arraycopy(buf, keepFrom, buf, 0, keep);
+      fill  = keep;
+      pos  -= keepFrom;
+    }
+    return o;
+  }
+
+  // ======== FILTER DESIGN ========
+
+  private static synchronized float[][] table(int up, int down, int taps) {
+    String key = up + "/" + down + "/" + taps;
+    float[][] t = TABLES.get(key);
+    if (t == null) {
+      t = design(up, down, taps);
+      TABLES.put(key, t);
+    }
+    return t;
+  }
+
+  private static float[][] design(int up, int down, int taps) {
+    int    n      = up * taps;
+    double center = (n - 1) / 2.0;
+    double fc     = ROLLOFF * 0.5 / Math.max(up, down);   // cycles per sample at the upsampled rate
+    double i0beta = besselI0(BETA);
+
+    float[][] phases = new float[up][taps];
+    for (int p = 0; p < up; p++) {
+      double sum = 0;
+      for (int k = 0; k < taps; k++) {
+        int    i = p + k * up;
+        double x = i - center;
+        double r = x / center;
+        double w = besselI0(BETA * Math.sqrt(Math.max(0, 1 - r * r))) / i0beta;
+        double h = 2 * fc * sinc(2 * fc * x) * w * up;
+        phases[p][taps - 1 - k] = (float) h;
+        sum += h;
+      }
+      // Unity DC gain per phase, so a constant input stays constant at every output position.
+      for (int k = 0; k < taps; k++) phases[p][k] /= (float) sum;
+    }
+    return phases;
+  }
+
+  private static double sinc(double x) {
+    if (Math.abs(x) < 1e-12) return 1.0;
+    double px = Math.PI * x;
+    return Math.sin(px) / px;
+  }
+
+  private static double besselI0(double x) {
+    double sum = 1, term = 1, q = x * x / 4;
+    for (int k = 1; k < 50; k++) {
+      term *= q / (k * (double) k);
+      sum  += term;
+      if (term < sum * 1e-12) break;
+    }
+    return sum;
+  }
+
+  private static int gcd(int a, int b) {
+    while (b != 0) { int t = a % b; a = b; b = t; }
+    return a;
+  }
+}
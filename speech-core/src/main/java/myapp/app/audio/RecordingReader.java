@@ -0,0 +1,127 @@
+package myapp.app.audio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Stream-decodes a file written by {@link RecordingWriter} back to little-endian PCM16.
+ *
+ * Opening only walks the block headers (one small read per block) to build a seek index;
+ * samples are decoded a block at a time on demand. {@link #refresh()} picks up blocks
+ * appended by a writer that is still recording into the same file.
+ */
+public final class RecordingReader implements Closeable {
+
+  private final File             file        ;
+  private final RandomAccessFile raf         ;
+  private final int              sampleRate  ;
+  private final int              blockSamples;
+  private final byte[]           header      = new byte[LosslessBlockCodec.HEADER_BYTES];
+  private final byte[]           payload     ;
+  private final short[]          decoded     ;
+
+  private long[] blockOffsets = new long[64];
+  private int    blockCount   = 0;
+  private long   scanOffset   = RecordingWriter.HEADER_BYTES;
+  private long   totalSamples = 0;
+
+  private int    currentBlock = -1;
+  private int    currentCount = 0;
+  private long   position     = 0;   // in samples
+
+  public RecordingReader(File file) throws IOException {
+    this.file = file;
+    this.raf  = new RandomAccessFile(file, "r");
+    try {
+      byte[] fileHeader = new byte[RecordingWriter.HEADER_BYTES];
+      raf.readFully(fileHeader);
+      if (LosslessBlockCodec.getInt(fileHeader, 0) != RecordingWriter.MAGIC) {
+        throw new IOException("Not a recording file: " + file);
+      }
+      this.sampleRate   = LosslessBlockCodec.getInt(fileHeader, 4);
+      this.blockSamples = LosslessBlockCodec.getInt(fileHeader, 8);
+      if (blockSamples <= 0 || blockSamples > 0xFFFF) {
+        throw new IOException("Bad block size " + blockSamples + " in " + file);
+      }
+      this.payload = new byte[LosslessBlockCodec.maxBlockBytes(blockSamples)];
+      this.decoded = new short[blockSamples];
+      refresh();
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    }
+  }
+
+  public File file        () { return file        ; }
+  public int  sampleRate  () { return sampleRate  ; }
+  public long totalSamples() { return totalSamples; }
+  public long position    () { return position    ; }
+
+  /** Indexes any complete blocks appended since the last scan. Stops at the first torn block. */
+  public void refresh() throws IOException {
+    long length = raf.length();
+    while (scanOffset + LosslessBlockCodec.HEADER_BYTES <= length) {
+      raf.seek(scanOffset);
+      raf.readFully(header);
+      if (LosslessBlockCodec.getShort(header, 0) != LosslessBlockCodec.SYNC) break;
+      int count        = LosslessBlockCodec.getShort(header, 2);
+      int payloadBytes = LosslessBlockCodec.getInt  (header, 6);
+      if (count <= 0 || count > blockSamples || payloadBytes < 0 || payloadBytes > payload.length) break;
+      long next = scanOffset + LosslessBlockCodec.HEADER_BYTES + payloadBytes;
+      if (next > length) break;
+
+      if (blockCount == blockOffsets.length) blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+      blockOffsets[blockCount++] = scanOffset;
+      totalSamples += count;
+      scanOffset    = next;
+      if (count < blockSamples) break;  // final partial block
+    }
+  }
+
+  /** Moves the read position to {@code sample} (clamped to the indexed length). */
+  public void seek(long sample) {
+    position = Math.max(0L, Math.min(sample, totalSamples));
+  }
+
+  /**
+   * Reads up to {@code length} bytes (rounded down to whole samples) of PCM16 into {@code dst}.
+   * Returns the number of bytes read, or -1 at the end of the indexed data.
+   */
+  public int read(byte[] dst, int offset, int length) throws IOException {
+    if (position >= totalSamples) return -1;
+    int written = 0;
+    while (written + 1 < length && position < totalSamples) {
+      int  block = (int) (position / blockSamples);
+      int  index = (int) (position % blockSamples);
+      if (block != currentBlock) loadBlock(block);
+      int  n = Math.min(currentCount - index, (length - written) / 2);
+      for (int i = 0; i < n; i++) {
+        short s = decoded[index + i];
+        dst[offset + written++] = (byte)  s;
+        dst[offset + written++] = (byte) (s >> 8);
+      }
+      position += n;
+    }
+    return written;
+  }
+
+  private void loadBlock(int block) throws IOException {
+    raf.seek(blockOffsets[block]);
+    raf.readFully(header);
+    int payloadBytes = LosslessBlockCodec.getInt(header, 6);
+    raf.readFully(payload, 0, payloadBytes);
+    if (!LosslessBlockCodec.isValid(header, payload, payloadBytes)) {
+      throw new IOException("CRC mismatch in block " + block + " of " + file);
+    }
+    currentCount = LosslessBlockCodec.decode(header, payload, decoded);
+    currentBlock = block;
+  }
+
+  @Override
+  public void close() throws IOException {
+    raf.close();
+  }
+}
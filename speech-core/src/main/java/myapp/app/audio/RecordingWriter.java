@@ -0,0 +1,99 @@
+package myapp.app.audio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Streams 16-bit mono PCM to a compact, seekable, lossless file while it is being captured.
+ *
+ * File layout: a 16-byte header ("SLA1", sampleRate, blockSamples, channels) followed by
+ * self-contained blocks from {@link LosslessBlockCodec}. Only whole blocks are ever written,
+ * every block but the last holds exactly blockSamples samples, and each block carries a CRC,
+ * so a file cut short by a crash is still readable up to its last complete block.
+ *
+ * Memory use is one block of samples plus one encode buffer, regardless of recording length.
+ */
+public final class RecordingWriter implements Closeable {
+
+  public  static final String EXTENSION      = ".sla";
+  public  static final int    BLOCK_SAMPLES  = 4096;
+  static  final        int    MAGIC          = 0x31414C53;  // "SLA1"
+  static  final        int    HEADER_BYTES   = 16;
+
+  private final File             file      ;
+  private final int              sampleRate;
+  private final FileOutputStream out       ;
+  private final short[]          block     = new short[BLOCK_SAMPLES];
+  private final byte[]           encoded   = new byte[LosslessBlockCodec.maxBlockBytes(BLOCK_SAMPLES)];
+
+  private          int     blockFill  = 0;
+  private          int     oddByte    = -1;
+  private volatile long    samples    = 0;
+  private          boolean closed     = false;
+
+  public RecordingWriter(File file, int sampleRate) throws IOException {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Failed to create dir: " + parent);
+    }
+    this.file       = file;
+    this.sampleRate = sampleRate;
+    this.out        = new FileOutputStream(file);
+
+    byte[] header = new byte[HEADER_BYTES];
+    LosslessBlockCodec.putInt(header,  0, MAGIC);
+    LosslessBlockCodec.putInt(header,  4, sampleRate);
+    LosslessBlockCodec.putInt(header,  8, BLOCK_SAMPLES);
+    LosslessBlockCodec.putInt(header, 12, 1);
+    out.write(header);
+  }
+
+  public File file      () { return file      ; }
+  public int  sampleRate() { return sampleRate; }
+
+  /** Samples accepted so far (including those still buffered in the current block). */
+  public long samples() { return samples; }
+
+  /** Appends little-endian PCM16 bytes. An odd trailing byte is carried over to the next call. */
+  public void write(byte[] pcm, int offset, int length) throws IOException {
+    if (closed) throw new IOException("RecordingWriter closed: " + file);
+    int i   = offset;
+    int end = offset + length;
+    if (oddByte >= 0 && i < end) {
+      push((short) (oddByte | (pcm[i++] << 8)));
+      oddByte = -1;
+    }
+    for (; i + 1 < end; i += 2) {
+      push((short) ((pcm[i] & 0xFF) | (pcm[i + 1] << 8)));
+    }
+    if (i < end) oddByte = pcm[i] & 0xFF;
+  }
+
+  private void push(short sample) throws IOException {
+    block[blockFill++] = sample;
+    samples++;
+    if (blockFill == BLOCK_SAMPLES) flushBlock();
+  }
+
+  private void flushBlock() throws IOException {
+    if (blockFill == 0) return;
+    int n = LosslessBlockCodec.encode(block, blockFill, encoded);
+    out.write(encoded, 0, n);
+    blockFill = 0;
+  }
+
+  /** Writes the final partial block and closes the file. */
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    try {
+      flushBlock();
+      out.getFD().sync();
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+
+/**
+ * {@link AudioSource} decorator that converts another source to a different rate, e.g. a native
+ * 48 kHz microphone to the 16 kHz the recognizer expects. Samples are resampled as float through a
+ * {@link PolyphaseResampler}; output left over from one read is returned by the next. Buffers grow
+ * to the largest read size once and are reused afterwards.
+ */
+public final class ResamplingSource implements AudioSource {
+
+  private final AudioSource        source   ;
+  private final int                rate     ;
+  private final PolyphaseResampler resampler;
+  private       byte[]             raw      = new byte [0];
+  private       float[]            in       = new float[0];
+  private       float[]            out      = new float[0];
+  private       int                outPos   ;   // next unread sample in out
+  private       int                outLen   ;
+
+  public ResamplingSource(AudioSource source, int sampleRate) {
+    this.source    = source;
+    this.rate      = sampleRate;
+    this.resampler = new PolyphaseResampler(source.sampleRate(), sampleRate);
+  }
+
+  @Override
+  public int sampleRate() { return rate; }
+
+  @Override
+  public void start() throws IOException {
+    resampler.reset();
+    outPos = outLen = 0;
+    source.start();
+  }
+
+  /** Fills {@code length} bytes (rounded down to whole samples) unless the underlying source fails. */
+  @Override
+  public int read(byte[] buffer, int offset, int length) {
+    int want = length / 2;
+    int done = 0;
+    while (done < want) {
+      if (outPos == outLen) {
+        // Enough source samples for the rest of this read, rounded up.
+        int need  = (int) (((long) (want - done) * source.sampleRate() + rate - 1) / rate);
+        int bytes = Math.max(2, need * 2);
+        if (raw.length < bytes) {
+          raw = new byte [bytes];
+          in  = new float[bytes / 2];
+          out = new float[resampler.maxOutput(bytes / 2)];
+        }
+        int n = source.read(raw, 0, bytes);
+        if (n <= 0) return done > 0 ? done * 2 : n;
+        int samples = n / 2;
+        for (int i = 0; i < samples; i++) {
+          in[i] = (short) ((raw[2 * i] & 0xFF) | (raw[2 * i + 1] << 8)) / 32768f;
+        }
+        outPos = 0;
+        outLen = resampler.process(in, 0, samples, out, 0);
+        continue;
+      }
+      int n = Math.min(want - done, outLen - outPos);
+      for (int i = 0; i < n; i++) {
+        float v = out[outPos + i] * 32768f;
+        int   s = v >= 32767f ? 32767 : v <= -32768f ? -32768 : Math.round(v);
+        int   p = offset + 2 * (done + i);
+        buffer[p]     = (byte) s;
+        buffer[p + 1] = (byte) (s >> 8);
+      }
+      outPos += n;
+      done   += n;
+    }
+    return done * 2;
+  }
+
+  @Override
+  public void stop() {
+    source.stop();
+  }
+}
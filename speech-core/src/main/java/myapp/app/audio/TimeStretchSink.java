@@ -0,0 +1,92 @@
+package myapp.app.audio;
+
+import java.io.IOException;
+
+/**
+ * {@link AudioSink} decorator that plays through another sink at an adjustable speed, pitch
+ * unchanged (see {@link TimeStretcher}). The tempo can be changed while audio is playing, e.g. from
+ * a UI control; at tempo 1 samples pass through unchanged. {@link #drain()} first releases what the
+ * stretcher still holds (at most a frame and its search window).
+ */
+public final class TimeStretchSink implements AudioSink {
+
+  private final AudioSink     sink     ;
+  private final TimeStretcher stretcher;
+  private       float[]       in       = new float[0];
+  private final float[]       out      = new float[2048];
+  private final byte[]        pcm      = new byte [2 * 2048];
+
+  public TimeStretchSink(AudioSink sink, float tempo) {
+    this.sink      = sink;
+    this.stretcher = new TimeStretcher(sink.sampleRate()).setTempo(tempo);
+  }
+
+  /** Any thread; takes effect within one 15 ms hop. */
+  public TimeStretchSink setTempo(float tempo) {
+    stretcher.setTempo(tempo);
+    return this;
+  }
+
+  public float tempo() { return stretcher.tempo(); }
+
+  @Override
+  public int sampleRate() { return sink.sampleRate(); }
+
+  @Override
+  public void start() throws IOException {
+    stretcher.reset();
+    sink.start();
+  }
+
+  /** Accepts whole samples; returns {@code length} or the underlying sink's error code. */
+  @Override
+  public int write(byte[] buffer, int offset, int length) {
+    int samples = length / 2;
+    if (in.length < samples) in = new float[samples];
+    for (int i = 0; i < samples; i++) {
+      int p = offset + 2 * i;
+      in[i] = (short) ((buffer[p] & 0xFF) | (buffer[p + 1] << 8)) / 32768f;
+    }
+    stretcher.put(in, 0, samples);
+    int n = pump();
+    return n < 0 ? n : length;
+  }
+
+  @Override
+  public void drain() {
+    stretcher.flush();
+    pump();
+    sink.drain();
+  }
+
+  @Override
+  public void stop() {
+    stretcher.reset();
+    sink.stop();
+  }
+
+  @Override
+  public void interrupt() {
+    sink.interrupt();
+  }
+
+  /** Writes all available stretched output to the sink; 0, or the first negative write result. */
+  private int pump() {
+    int n;
+    while ((n = stretcher.receive(out, 0, out.length)) > 0) {
+      for (int i = 0; i < n; i++) {
+        float v = out[i] * 32768f;
+        int   s = v >= 32767f ? 32767 : v <= -32768f ? -32768 : Math.round(v);
+        pcm[2 * i]     = (byte) s;
+        pcm[2 * i + 1] = (byte) (s >> 8);
+      }
+      int written = 0;
+      while (written < 2 * n) {
+        int w = sink.write(pcm, written, 2 * n - written);
+        if (w <= 0) return w < 0 ? w : -1;
+        written += w;
+      }
+    }
+    return 0;
+  }
+}
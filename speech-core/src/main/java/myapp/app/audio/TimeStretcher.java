@@ -0,0 +1,221 @@
+package myapp.app.audio;
+
+import java.util.Arrays;
+
+/**
+ * Streaming WSOLA (waveform-similarity overlap-add) time stretch for mono float audio: changes the
+ * playback speed without changing pitch, so audio synthesized or recorded once can be played at any
+ * speed without running the model again.
+ *
+ * Output is built from 30 ms frames overlapped by half (a 15 ms hop, sin^2 cross-fades). Each frame
+ * is read from the input near the ideal position (tempo * output position); within +-10 ms the
+ * position whose first half best matches the natural continuation of the previous frame is taken,
+ * so periods line up and the overlap-add does not smear pitch. The search is coarse (every 4th lag,
+ * every 2nd sample) and then refined around the best lag. At tempo 1 frames are taken contiguously
+ * and the output equals the input.
+ *
+ * Input is pushed with {@link #put} and output pulled with {@link #receive}, in blocks of any size;
+ * {@link #flush} releases the end of a stream. Buffers grow to the largest block once.
+ * {@link #setTempo} may be called from any thread and takes effect at the next frame; everything
+ * else belongs to one thread.
+ */
+public final class TimeStretcher {
+
+  public  static final float MIN_TEMPO = 0.5f;
+  public  static final float MAX_TEMPO = 2.0f;
+  private static final int   FRAME_MS  = 30;
+  private static final int   SEEK_MS   = 10;
+  private static final int   COARSE    = 4;                  // lag step of the first search pass
+
+  private final int       sampleRate;
+  private final int       hop       ;   // half a frame: output produced per step
+  private final int       seek      ;   // search radius around the ideal position
+  private final float[]   fadeIn    ;   // hop samples, sin^2 from 0 to 1
+  private final float[]   tail      ;   // second half of the last frame, faded out under the next
+  private volatile float  tempo     = 1f;
+
+  private float[]         in        = new float[0];
+  private int             inLen     ;
+  private long            inStart   ;   // stream index of in[0]
+  private long            inTotal   ;   // real samples put since reset
+  private double          readPos   ;   // ideal stream index of the next frame
+  private long            lastPos   ;   // stream index of the last frame, -1 before the first
+  private float[]         out       = new float[0];
+  private int             outPos    ;   // next sample for receive
+  private int             outLen    ;
+
+  public TimeStretcher(int sampleRate) {
+    if (sampleRate <= 0) throw new IllegalArgumentException("TimeStretcher: bad rate " + sampleRate);
+    this.sampleRate = sampleRate;
+    this.hop        = Math.max(8, sampleRate * FRAME_MS / 2000);
+    this.seek       = sampleRate * SEEK_MS / 1000;
+    this.fadeIn     = new float[hop];
+    this.tail       = new float[hop];
+    for (int i = 0; i < hop; i++) {
+      double s = Math.sin(Math.PI / 2 * (i + 0.5) / hop);
+      fadeIn[i] = (float) (s * s);
+    }
+    reset();
+  }
+
+  public int sampleRate() { return sampleRate; }
+
+  public float tempo() { return tempo; }
+
+  /** Playback speed: 2 plays twice as fast. Clamped to [{@link #MIN_TEMPO}, {@link #MAX_TEMPO}]. */
+  public TimeStretcher setTempo(float tempo) {
+    if (!(tempo > 0)) throw new IllegalArgumentException("TimeStretcher: bad tempo " + tempo);
+    this.tempo = Math.max(MIN_TEMPO, Math.min(MAX_TEMPO, tempo));
+    return this;
+  }
+
+  /** Drops buffered input and output, as if the stream started over. Keeps the tempo. */
+  public void reset() {
+    inLen   = 0;
+    inStart = 0;
+    inTotal = 0;
+    readPos = 0;
+    lastPos = -1;
+    outPos  = 0;
+    outLen  = 0;
+  }
+
+  /** Samples ready for {@link #receive}. */
+  public int available() { return outLen - outPos; }
+
+  /** Appends {@code x[off, off+len)} to the input and stretches as many frames as it allows. */
+  public void put(float[] x, int off, int len) {
+    ensureInput(len);
+    System.arraycopy(x, off, in, inLen, len);
+    inLen   += len;
+    inTotal += len;
+    float t;
+    while (canStep(t = tempo)) step(t);
+  }
+
+  /** Copies up to {@code max} output samples into {@code dst} and returns how many. */
+  public int receive(float[] dst, int off, int max) {
+    int n = Math.min(max, outLen - outPos);
+    System.arraycopy(out, outPos, dst, off, n);
+    outPos += n;
+    if (outPos == outLen) outPos = outLen = 0;
+    return n;
+  }
+
+  /**
+   * Ends the stream: stretches the remaining input (padding with silence where frames run past it)
+   * and makes all of it available to {@link #receive}. The next {@link #put} starts a new stream.
+   */
+  public void flush() {
+    long end = inTotal;
+    // Until the next frame would start within a hop of the end; the last tail covers the rest.
+    while (end > 0 && (lastPos < 0 || readPos + hop * (double) tempo < end)) {
+      float t = tempo;
+      while (!canStep(t)) {
+        ensureInput(hop);
+        Arrays.fill(in, inLen, inLen + hop, 0f);
+        inLen += hop;
+      }
+      step(t);
+    }
+    if (lastPos >= 0) {
+      int real = (int) Math.max(0, Math.min(hop, Math.round((end - readPos) / tempo)));
+      ensureOutput(real);
+      System.arraycopy(tail, 0, out, outLen, real);
+      outLen += real;
+    }
+    int pos = outPos, len = outLen;
+    reset();
+    outPos = pos;
+    outLen = len;
+  }
+
+  // ======== WSOLA ========
+
+  /** Stream index where the next frame would start before searching. */
+  private long next(float t) {
+    return (t == 1f && lastPos >= 0) ? lastPos + hop : (long) readPos;
+  }
+
+  private boolean canStep(float t) {
+    long hi = (t == 1f || lastPos < 0) ? next(t) : next(t) + seek;
+    return hi + 2 * hop <= inStart + inLen;
+  }
+
+  private void step(float t) {
+    long pos;
+    if (lastPos < 0 || t == 1f) {
+      pos = next(t);
+    } else {
+      long ideal = (long) readPos;
+      pos = search(Math.max(inStart, ideal - seek), ideal + seek, ideal);
+    }
+
+    ensureOutput(hop);
+    int c = (int) (pos - inStart);
+    if (lastPos < 0) {
+      System.arraycopy(in, c, out, outLen, hop);
+    } else {
+      for (int i = 0; i < hop; i++) {
+        float g = fadeIn[i];
+        out[outLen + i] = tail[i] * (1f - g) + in[c + i] * g;
+      }
+    }
+    outLen += hop;
+    System.arraycopy(in, c + hop, tail, 0, hop);
+
+    readPos = (t == 1f ? pos : readPos) + (double) hop * t;
+    lastPos = pos;
+
+    // Nothing before the next frame's search window (or its contiguous position) is needed again.
+    long keep = Math.min((long) readPos - seek, lastPos + hop);
+    int  drop = (int) Math.min(inLen, keep - inStart);
+    if (drop > 0 && drop >= inLen / 2) {
+      System.arraycopy(in, drop, in, 0, inLen - drop);
+      inLen   -= drop;
+      inStart += drop;
+    }
+  }
+
+  /** The frame start in [lo, hi] whose first half best matches {@link #tail}; {@code ideal} on ties. */
+  private long search(long lo, long hi, long ideal) {
+    long  best      = Math.max(lo, Math.min(hi, ideal));
+    float bestScore = score(best, 2);
+    for (long p = lo; p <= hi; p += COARSE) {
+      float s = score(p, 2);
+      if (s > bestScore) { bestScore = s; best = p; }
+    }
+    long center = best;
+    bestScore = score(center, 1);
+    for (long p = Math.max(lo, center - COARSE + 1); p <= Math.min(hi, center + COARSE - 1); p++) {
+      float s = score(p, 1);
+      if (s > bestScore) { bestScore = s; best = p; }
+    }
+    return best;
+  }
+
+  /** Normalized correlation of {@link #tail} with the input at stream index {@code p}. */
+  private float score(long p, int stride) {
+    int   c   = (int) (p - inStart);
+    float dot = 0f, energy = 1e-9f;
+    for (int i = 0; i < hop; i += stride) {
+      float x = in[c + i];
+      dot    += tail[i] * x;
+      energy += x * x;
+    }
+    return dot / (float) Math.sqrt(energy);
+  }
+
+  private void ensureInput(int extra) {
+    if (inLen + extra > in.length) in = Arrays.copyOf(in, Math.max(inLen + extra, 2 * hop + 2 * seek + in.length));
+  }
+
+  private void ensureOutput(int extra) {
+    if (outPos > 0 && outLen + extra > out.length) {
+      System.arraycopy(out, outPos, out, 0, outLen - outPos);
+      outLen -= outPos;
+      outPos  = 0;
+    }
+    if (outLen + extra > out.length) out = Arrays.copyOf(out, Math.max(outLen + extra, 2 * out.length));
+  }
+}
@@ -0,0 +1,29 @@
+package myapp.app.log;
+
+/**
+ * Where core components send diagnostics. The app passes its {@code LogSink}; desktop tools can
+ * use {@link #STDERR} or {@link #NONE}.
+ *
+ * Implementations must be cheap to call from audio threads (no I/O on the caller's thread).
+ */
+public interface Logger {
+
+  // Same values as android.util.Log so Android implementations can pass them straight through.
+  int DEBUG = 3;
+  int INFO  = 4;
+  int WARN  = 5;
+  int ERROR = 6;
+
+  Logger NONE   = (level, msg) -> {};
+  Logger STDERR = (level, msg) -> System.err.println(msg);
+
+  void log(int level, String msg);
+
+  /** Lets callers skip building messages nobody will see. */
+  default boolean isLoggable(int level) { return true; }
+
+  default void d(String msg) { log(DEBUG, msg); }
+  default void i(String msg) { log(INFO , msg); }
+  default void w(String msg) { log(WARN , msg); }
+  default void e(String msg) { log(ERROR, msg); }
+}
@@ -0,0 +1,60 @@
+package myapp.app.log;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer queue (intrusive linked list, Vyukov style).
+ *
+ * Producers pay one atomic swap on the tail plus one counter increment; when the bound is hit
+ * the element is rejected instead of blocking, so a flooding producer can never stall the
+ * caller or grow memory without limit.
+ */
+final class MpscQueue<T> {
+
+  private static final class Node<T> {
+             T       value;
+    volatile Node<T> next ;
+
+    Node(T value) { this.value = value; }
+  }
+
+  private final int                      capacity;
+  private final AtomicInteger            size     = new AtomicInteger();
+  private final AtomicReference<Node<T>> tail     ;
+  private       Node<T>                  head     ;   // consumer only
+
+  MpscQueue(int capacity) {
+    Node<T> stub  = new Node<>(null);
+    this.capacity = capacity;
+    this.head     = stub;
+    this.tail     = new AtomicReference<>(stub);
+  }
+
+  /** Any thread. Returns false if the queue is full. */
+  boolean offer(T value) {
+    if (size.incrementAndGet() > capacity) {
+      size.decrementAndGet();
+      return false;
+    }
+    Node<T> node = new Node<>(value);
+    Node<T> prev = tail.getAndSet(node);
+    prev.next = node;
+    return true;
+  }
+
+  /** Consumer thread only. Returns null if empty (or if a producer is mid-link). */
+  T poll() {
+    Node<T> next = head.next;
+    if (next == null) return null;
+    T value    = next.value;
+    next.value = null;        // next becomes the stub; don't retain the element
+    head       = next;
+    size.decrementAndGet();
+    return value;
+  }
+
+  int size() {
+    return size.get();
+  }
+}
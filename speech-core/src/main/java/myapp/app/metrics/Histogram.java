@@ -0,0 +1,118 @@
+package myapp.app.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory, lock-free histogram with HDR-style log-linear buckets.
+ *
+ * Values are split into power-of-two ranges, each divided into 32 linear steps, so every recorded
+ * value is kept to within ~3% of its true value over the whole long range (15 KiB per histogram).
+ * Recording is a handful of atomic operations and never allocates; percentiles are computed on read.
+ *
+ * Values are plain longs; {@code unit} and {@code scale} only affect reporting
+ * (reported = recorded / scale), e.g. latencies recorded in microseconds and reported in ms.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS    = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int HALF        = SUB_BUCKETS / 2;
+  private static final int RANGES      = 64 - SUB_BITS;
+
+  private final String          name   ;
+  private final String          unit   ;
+  private final double          scale  ;
+  private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + RANGES * HALF);
+  private final AtomicLong      total  = new AtomicLong();
+  private final AtomicLong      sum    = new AtomicLong();
+  private final AtomicLong      min    = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong      max    = new AtomicLong(Long.MIN_VALUE);
+
+  public Histogram(String name, String unit, double scale) {
+    this.name  = name;
+    this.unit  = unit;
+    this.scale = scale;
+  }
+
+  public String name() { return name; }
+  public String unit() { return unit; }
+
+  public void record(long value) {
+    if (value < 0) value = 0;
+    counts.incrementAndGet(index(value));
+    total .incrementAndGet();
+    sum   .addAndGet(value);
+    long m;
+    while (value < (m = min.get()) && !min.compareAndSet(m, value)) {}
+    while (value > (m = max.get()) && !max.compareAndSet(m, value)) {}
+  }
+
+  public long count() { return total.get(); }
+
+  public double min () { long c = count(); return c == 0 ? 0 : min.get() / scale; }
+  public double max () { long c = count(); return c == 0 ? 0 : max.get() / scale; }
+  public double mean() { long c = count(); return c == 0 ? 0 : (sum.get() / (double) c) / scale; }
+
+  /** Value at quantile {@code q} in [0, 1], in reporting units. */
+  public double percentile(double q) {
+    long c = count();
+    if (c == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(q * c));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) return Math.min(highestEquivalent(i), max.get()) / scale;
+    }
+    return max.get() / scale;
+  }
+
+  public void reset() {
+    for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    total.set(0);
+    sum  .set(0);
+    min  .set(Long.MAX_VALUE);
+    max  .set(Long.MIN_VALUE);
+  }
+
+  void appendJson(StringBuilder sb) {
+    sb.append("{\"unit\":\"").append(unit).append('"')
+      .append(",\"count\":").append(count())
+      .append(",\"min\":"  ).append(fmt(min ()))
+      .append(",\"mean\":" ).append(fmt(mean()))
+      .append(",\"p50\":"  ).append(fmt(percentile(0.50)))
+      .append(",\"p90\":"  ).append(fmt(percentile(0.90)))
+      .append(",\"p99\":"  ).append(fmt(percentile(0.99)))
+      .append(",\"max\":"  ).append(fmt(max ()))
+      .append('}');
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.US, "%s n=%d p50=%.2f p90=%.2f max=%.2f %s",
+      name, count(), percentile(0.5), percentile(0.9), max(), unit);
+  }
+
+  static String fmt(double v) {
+    return String.format(Locale.US, "%.3f", v);
+  }
+
+  // ======== BUCKETS ========
+
+  // Values below SUB_BUCKETS map 1:1; above, range r covers [2^(r+SUB_BITS-1), 2^(r+SUB_BITS)).
+  private static int index(long v) {
+    if (v < SUB_BUCKETS) return (int) v;
+    int range = 64 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+    int sub   = (int) (v >>> range) - HALF;
+    return SUB_BUCKETS + (range - 1) * HALF + sub;
+  }
+
+  private static long highestEquivalent(int index) {
+    if (index < SUB_BUCKETS) return index;
+    int  i     = index - SUB_BUCKETS;
+    int  range = i / HALF + 1;
+    long sub   = i % HALF + HALF;
+    return ((sub + 1) << range) - 1;
+  }
+}
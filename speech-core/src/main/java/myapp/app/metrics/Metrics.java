@@ -0,0 +1,113 @@
+package myapp.app.metrics;
+
+import java.io.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of histograms and counters.
+ *
+ * Metrics are created on first use and live for the process; look them up once and keep the
+ * reference on hot paths. {@link #toJson()} gives a stable, sorted snapshot (plus free-form tags
+ * such as device and app version) that can be written to disk and compared across releases.
+ */
+public final class Metrics {
+
+  private static final Map<String, Histogram>  histograms = new ConcurrentHashMap<>();
+  private static final Map<String, AtomicLong> counters   = new ConcurrentHashMap<>();
+  private static final Map<String, String>     tags       = new ConcurrentHashMap<>();
+
+  private Metrics() {}
+
+  /** Latency histogram: record microseconds, reported in milliseconds. */
+  public static Histogram latency(String name) {
+    return histogram(name, "ms", 1000.0);
+  }
+
+  public static Histogram histogram(String name, String unit, double scale) {
+    Histogram h = histograms.get(name);
+    if (h != null) return h;
+    Histogram fresh    = new Histogram(name, unit, scale);
+    Histogram existing = histograms.putIfAbsent(name, fresh);
+    return existing != null ? existing : fresh;
+  }
+
+  public static AtomicLong counter(String name) {
+    AtomicLong c = counters.get(name);
+    if (c != null) return c;
+    AtomicLong fresh    = new AtomicLong();
+    AtomicLong existing = counters.putIfAbsent(name, fresh);
+    return existing != null ? existing : fresh;
+  }
+
+  /** Null if nothing was recorded under that name yet. */
+  public static Histogram find(String name) {
+    return histograms.get(name);
+  }
+
+  public static void tag(String key, String value) {
+    if (value != null) tags.put(key, value);
+  }
+
+  public static void reset() {
+    for (Histogram  h : histograms.values()) h.reset();
+    for (AtomicLong c : counters  .values()) c.set(0);
+  }
+
+  // ======== EXPORT ========
+
+  public static String toJson() {
+    StringBuilder sb = new StringBuilder(1024);
+    sb.append("{\"timestamp\":").append(System.currentTimeMillis());
+
+    sb.append(",\"tags\":{");
+    appendEntries(sb, new TreeMap<>(tags), (b, v) -> quote(b, v));
+    sb.append("},\"counters\":{");
+    appendEntries(sb, new TreeMap<>(counters), (b, v) -> b.append(v.get()));
+    sb.append("},\"histograms\":{");
+    appendEntries(sb, new TreeMap<>(histograms), (b, v) -> v.appendJson(b));
+    sb.append("}}");
+    return sb.toString();
+  }
+
+  /** Writes {@link #toJson()} atomically (temp file + rename). */
+  public static void writeJson(File file) throws IOException {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) parent.mkdirs();
+    File tmp = new File(file.getPath() + ".tmp");
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8")) {
+      out.write(toJson());
+    }
+    if (!tmp.renameTo(file)) {
+      tmp.delete();
+      throw new IOException("Cannot rename " + tmp + " -> " + file);
+    }
+  }
+
+  private interface ValueWriter<V> {
+    void write(StringBuilder sb, V value);
+  }
+
+  private static <V> void appendEntries(StringBuilder sb, Map<String, V> map, ValueWriter<V> writer) {
+    boolean first = true;
+    for (Map.Entry<String, V> e : map.entrySet()) {
+      if (!first) sb.append(',');
+      first = false;
+      quote(sb, e.getKey()).append(':');
+      writer.write(sb, e.getValue());
+    }
+  }
+
+  private static StringBuilder quote(StringBuilder sb, String s) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if      (c == '"' || c == '\\') sb.append('\\').append(c);
+      else if (c < 0x20)              sb.append(String.format("\\u%04x", (int) c));
+      else                            sb.append(c);
+    }
+    return sb.append('"');
+  }
+}
@@ -0,0 +1,109 @@
+package myapp.app.metrics;
+
+import java.util.Locale;
+
+/**
+ * Live-recognition telemetry for one session: feed it every buffer and every final result from
+ * the recognizer thread, and engine counters from wherever they are sampled.
+ *
+ * Histograms (shared across sessions, see {@link Metrics}):
+ * - "stt.accept"       : acceptWaveForm latency per buffer (ms)
+ * - "stt.rtf"          : acceptWaveForm time / buffer audio duration (x)
+ * - "stt.eou_to_final" : last voiced buffer -> final result (ms)
+ * - "stt.queue_depth"  : frames waiting behind the recognizer when a buffer is taken
+ *
+ * Counters: "stt.buffers", "stt.finals", "stt.read_errors", "stt.short_reads", "stt.overruns".
+ */
+public final class RecognizerTelemetry {
+
+  private static final float VOICE_DB = -45f;   // buffers louder than this count as speech
+
+  private final Histogram accept     = Metrics.latency  ("stt.accept");
+  private final Histogram rtf        = Metrics.histogram("stt.rtf", "x", 1000.0);
+  private final Histogram eouToFinal = Metrics.latency  ("stt.eou_to_final");
+  private final Histogram queueDepth = Metrics.histogram("stt.queue_depth", "frames", 1.0);
+
+  private final int  bytesPerSecond;
+
+  // Recognizer thread.
+  private long buffers        = 0;
+  private long finals         = 0;
+  private long acceptNanosSum = 0;
+  private long audioBytesSum  = 0;
+  private long lastVoiceNanos = 0;
+  private long lastAcceptUs   = 0;
+  private long lastEouUs      = -1;
+  private long lastDepth      = 0;
+
+  // Engine counters, last sampled values.
+  private volatile long readErrors   = 0;
+  private volatile int  lastReadCode = 0;
+  private volatile long shortReads   = 0;
+  private volatile long overruns     = 0;
+
+  public RecognizerTelemetry(int sampleRate) {
+    this.bytesPerSecond = sampleRate * 2;
+  }
+
+  /**
+   * @param acceptNanos time spent in acceptWaveForm for this buffer
+   * @param levelDb     buffer level in dBFS, used to find the end of speech
+   * @param depth       frames still queued behind this one
+   */
+  public void onBuffer(int bytes, long acceptNanos, float levelDb, long depth) {
+    long now = System.nanoTime();
+    buffers++;
+    acceptNanosSum += acceptNanos;
+    audioBytesSum  += bytes;
+    lastAcceptUs    = acceptNanos / 1000;
+    lastDepth       = depth;
+    if (levelDb > VOICE_DB) lastVoiceNanos = now;
+
+    accept.record(lastAcceptUs);
+    long audioUs = (bytes * 1_000_000L) / bytesPerSecond;
+    if (audioUs > 0) rtf.record((lastAcceptUs * 1000L) / audioUs);
+    queueDepth.record(depth);
+  }
+
+  /** Call when the recognizer produced a final (non-empty or not) result. */
+  public void onFinal() {
+    finals++;
+    if (lastVoiceNanos > 0) {
+      lastEouUs = (System.nanoTime() - lastVoiceNanos) / 1000;
+      eouToFinal.record(lastEouUs);
+      lastVoiceNanos = 0;
+    }
+  }
+
+  /** Latest engine counters (cumulative for this session). */
+  public void sampleEngine(long readErrors, int lastReadCode, long shortReads, long overruns) {
+    this.readErrors   = readErrors;
+    this.lastReadCode = lastReadCode;
+    this.shortReads   = shortReads;
+    this.overruns     = overruns;
+  }
+
+  /** Adds this session's totals to the global counters; call once when the session ends. */
+  public void publish() {
+    Metrics.counter("stt.buffers"    ).addAndGet(buffers   );
+    Metrics.counter("stt.finals"     ).addAndGet(finals    );
+    Metrics.counter("stt.read_errors").addAndGet(readErrors);
+    Metrics.counter("stt.short_reads").addAndGet(shortReads);
+    Metrics.counter("stt.overruns"   ).addAndGet(overruns  );
+  }
+
+  /** Session real-time factor so far (processing time / audio time). */
+  public double sessionRtf() {
+    if (audioBytesSum == 0) return 0;
+    return (acceptNanosSum / 1e9) / (audioBytesSum / (double) bytesPerSecond);
+  }
+
+  /** Two short lines for the on-screen overlay. */
+  public String overlay() {
+    return String.format(Locale.US,
+      "accept %.1f ms (p90 %.1f)  rtf %.2f  eou->final %s\nqueue %d  overruns %d  read err %d (last %d)  short %d",
+      lastAcceptUs / 1000.0, accept.percentile(0.9), sessionRtf(),
+      lastEouUs < 0 ? "-" : String.format(Locale.US, "%.0f ms", lastEouUs / 1000.0),
+      lastDepth, overruns, readErrors, lastReadCode, shortReads);
+  }
+}
@@ -0,0 +1,92 @@
+package myapp.app.metrics;
+
+import java.util.Locale;
+
+/**
+ * Monotonic stage timer for one run of a pipeline (e.g. one utterance).
+ *
+ * {@link #stage(String)} closes the stage that started at the previous mark and records its
+ * duration into the "prefix.stage" latency histogram. The trace also keeps the per-run values so
+ * a one-line summary can be logged. Not thread-safe; hand it from thread to thread with the work.
+ */
+public final class StageTrace {
+
+  /** Cumulative bytes allocated by the process, or -1 if the platform cannot tell. */
+  public interface AllocationProbe {
+    long bytesAllocated();
+  }
+
+  private static final int MAX_STAGES = 16;
+
+  private static volatile AllocationProbe allocationProbe = () -> -1;
+
+  private final String   prefix     ;
+  private final long     startNanos ;
+  private final long     startAlloc ;
+  private final String[] names      = new String[MAX_STAGES];
+  private final long[]   micros     = new long  [MAX_STAGES];
+  private       int      count      = 0;
+  private       long     lastNanos  ;
+
+  public StageTrace(String prefix) {
+    this.prefix     = prefix;
+    this.startNanos = System.nanoTime();
+    this.lastNanos  = startNanos;
+    this.startAlloc = allocationProbe.bytesAllocated();
+  }
+
+  public static void setAllocationProbe(AllocationProbe probe) {
+    allocationProbe = (probe != null) ? probe : () -> -1;
+  }
+
+  /** Ends the current stage under {@code name} and starts the next one. */
+  public long stage(String name) {
+    long now = System.nanoTime();
+    long us  = (now - lastNanos) / 1000;
+    lastNanos = now;
+    Metrics.latency(prefix + "." + name).record(us);
+    if (count < MAX_STAGES) {
+      names [count] = name;
+      micros[count] = us;
+      count++;
+    }
+    return us;
+  }
+
+  /** Restarts the current stage without recording (e.g. to skip an idle wait). */
+  public void skip() {
+    lastNanos = System.nanoTime();
+  }
+
+  /** Microseconds since the trace was created. */
+  public long elapsedMicros() {
+    return (System.nanoTime() - startNanos) / 1000;
+  }
+
+  /** Records elapsed time since creation under "prefix.name" (e.g. time to first audio). */
+  public long mark(String name) {
+    long us = elapsedMicros();
+    Metrics.latency(prefix + "." + name).record(us);
+    return us;
+  }
+
+  /**
+   * Records bytes allocated since creation into "prefix.alloc" (KiB), if the probe supports it.
+   * Returns the byte count, or -1.
+   */
+  public long recordAllocations() {
+    long now = allocationProbe.bytesAllocated();
+    if (now < 0 || startAlloc < 0) return -1;
+    long bytes = now - startAlloc;
+    Metrics.histogram(prefix + ".alloc", "KiB", 1024.0).record(bytes);
+    return bytes;
+  }
+
+  public String summary() {
+    StringBuilder sb = new StringBuilder(prefix).append(':');
+    for (int i = 0; i < count; i++) {
+      sb.append(' ').append(names[i]).append('=').append(String.format(Locale.US, "%.1f", micros[i] / 1000.0));
+    }
+    return sb.append(" ms").toString();
+  }
+}
@@ -0,0 +1,153 @@
+package myapp.app.stt;
+
+import myapp.app.audio.AudioCaptureEngine;
+import myapp.app.audio.EchoReference;
+import myapp.app.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects the user talking over our own playback (barge-in), as a capture consumer.
+ *
+ * Each capture frame is split into 20 ms blocks. While the {@link EchoReference} is active, a
+ * block counts as the user when its energy exceeds both the predicted echo (the loudest recent
+ * output block times the echo coupling, plus {@code marginDb}) and the noise floor (plus
+ * {@code floorMarginDb}). {@code minSpeechMs} of consecutive such blocks fire
+ * {@link Listener#onBargeIn} once per playback. The coupling (mic energy / output energy, in dB)
+ * is learned from the blocks that do not count, so it follows the device, the volume and whether
+ * a platform echo canceller runs; the noise floor is tracked while nothing plays.
+ *
+ * Nothing counts until both are known: while playback is active but no output block has been
+ * reported for a block's echo window yet (the device started before its first write returned),
+ * the mic may already hear us with no reference to compare against, and until a quiet block has
+ * set the noise floor there is no floor to beat. Both cases are judged ECHO.
+ *
+ * A recognizer on the same capture calls {@link #process} itself for each frame, before
+ * recognizing it, and gets that frame's verdict: {@link #CLEAR} (nothing playing), {@link #ECHO}
+ * (the mic hears only our output, so far) or {@link #BARGE_IN} (detection completed in this frame).
+ * Because speech needs {@code minSpeechMs} to be confirmed, the first frames of a barge-in are
+ * still judged ECHO; the recognizer keeps them back (see LiveRecognizer) rather than muting them.
+ * Used on its own, it is an {@link AudioCaptureEngine.Consumer}.
+ *
+ * Records "duplex.detect" (first counted block to detection) and counts "duplex.barge_ins".
+ */
+public final class BargeInDetector implements AudioCaptureEngine.Consumer {
+
+  public interface Listener {
+    /**
+     * Called on the detector's capture thread, once per playback. {@code onsetNanos} is the
+     * estimated capture time of the first speech block, {@code detectedNanos} the time of detection.
+     */
+    void onBargeIn(long onsetNanos, long detectedNanos);
+  }
+
+  public  static final int   CLEAR         = 0;
+  public  static final int   ECHO          = 1;
+  public  static final int   BARGE_IN      = 2;
+
+  private static final int   BLOCK_MS      = 20;
+  private static final long  ECHO_SPAN_NS  = 500_000_000L;   // output this far back can still be in the mic
+  private static final long  HOLD_NS       = 300_000_000L;   // echo tail after playback stops
+  private static final float NOISE_RISE    = 1.01f;          // per block, ~2 dB/s
+  private static final float ADAPT_RATE    = 0.05f;          // coupling update per block
+  private static final float MIN_COUPLING  = -60f;
+  private static final float MAX_COUPLING  =  20f;
+
+  private final EchoReference ref       ;
+  private final int           sampleRate;
+  private final Listener      listener  ;
+  private final AtomicLong    bargeIns  = Metrics.counter("duplex.barge_ins");
+
+  private float   marginDb      = 10f;
+  private float   floorMarginDb = 12f;
+  private int     minSpeechMs   = 120;
+  private float   couplingDb    = -10f;     // initial guess: echo 10 dB below the output
+
+  private float   noise     = 0f;           // mean square, 0 until the first quiet block
+  private int     run       = 0;            // consecutive speech blocks
+  private long    onset     = 0;
+  private boolean triggered = false;        // latched until playback ends
+
+  public BargeInDetector(EchoReference ref, int sampleRate, Listener listener) {
+    this.ref        = ref;
+    this.sampleRate = sampleRate;
+    this.listener   = listener;
+  }
+
+  public BargeInDetector setMarginDb         (float db) { this.marginDb      = db; return this; }
+  public BargeInDetector setFloorMarginDb    (float db) { this.floorMarginDb = db; return this; }
+  public BargeInDetector setMinSpeechMs      (int   ms) { this.minSpeechMs   = Math.max(BLOCK_MS, ms); return this; }
+  public BargeInDetector setInitialCouplingDb(float db) { this.couplingDb    = db; return this; }
+
+  public int minSpeechMs() { return minSpeechMs; }
+
+  /** Current echo coupling estimate in dB (mic energy relative to output energy). */
+  public float couplingDb() { return couplingDb; }
+
+  @Override
+  public void onFrame(byte[] data, int length) {
+    process(data, length);
+  }
+
+  /** Analyzes one capture frame and returns its verdict: {@link #CLEAR}, {@link #ECHO} or {@link #BARGE_IN}. */
+  public int process(byte[] data, int length) {
+    long now        = System.nanoTime();
+    int  samples    = length / 2;
+    int  block      = Math.max(1, sampleRate * BLOCK_MS / 1000);
+    long frameStart = now - samples * 1_000_000_000L / sampleRate;
+    boolean active  = ref.isActive(now, HOLD_NS);
+
+    for (int s = 0; s < samples; s += block) {
+      int   e  = Math.min(samples, s + block);
+      float ms = meanSquare(data, s, e);
+      long  t  = frameStart + s * 1_000_000_000L / sampleRate;
+
+      if (!active) {
+        triggered = false;
+        run       = 0;
+        noise     = (noise == 0f || ms < noise) ? Math.max(ms, 1e-10f) : noise * NOISE_RISE;
+        continue;
+      }
+      if (triggered) continue;
+      if (noise == 0f || !ref.hasOutput(t - ECHO_SPAN_NS, t)) {
+        run = 0;   // no floor or no reference yet: cannot tell the user from our own output
+        continue;
+      }
+
+      float out   = ref.level(t - ECHO_SPAN_NS, t);
+      float echo  = out * dbToPower(couplingDb + marginDb);
+      float floor = noise * dbToPower(floorMarginDb);
+      if (ms > echo && ms > floor) {
+        if (run++ == 0) onset = t;
+        if (run * BLOCK_MS >= minSpeechMs) {
+          triggered = true;
+          bargeIns.incrementAndGet();
+          Metrics.latency("duplex.detect").record((now - onset) / 1000);
+          listener.onBargeIn(onset, now);
+        }
+      } else {
+        run = 0;
+        if (out > 0f && ms > 0f) {
+          float observed = (float) (10 * Math.log10(ms / out));
+          couplingDb += ADAPT_RATE * (observed - couplingDb);
+          couplingDb  = Math.max(MIN_COUPLING, Math.min(MAX_COUPLING, couplingDb));
+        }
+      }
+    }
+    if (!active) return CLEAR;
+    return triggered ? BARGE_IN : ECHO;
+  }
+
+  private static float meanSquare(byte[] data, int from, int to) {
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      int v = (short) ((data[2 * i] & 0xFF) | (data[2 * i + 1] << 8));
+      sum += (double) v * v;
+    }
+    return (float) (sum / Math.max(1, to - from) / (32768.0 * 32768.0));
+  }
+
+  private static float dbToPower(float db) {
+    return (float) Math.pow(10, db / 10);
+  }
+}
@@ -0,0 +1,235 @@
+package myapp.app.stt;
+
+import myapp.app.audio.AudioCaptureEngine;
+import myapp.app.audio.AudioSource;
+import myapp.app.log.Logger;
+import myapp.app.metrics.RecognizerTelemetry;
+
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Live recognition: an {@link AudioCaptureEngine} over any {@link AudioSource}, with a Vosk
+ * {@link Recognizer} attached as a consumer and results reported through {@link Listener}.
+ *
+ * Listener callbacks run on the recognizer thread; they must hand off (e.g. post to the UI)
+ * rather than block, or the recognizer falls behind and frames are counted as overruns.
+ *
+ * With an echo gate ({@link #setEchoGate}) each frame is first run through the detector on the
+ * recognizer thread, so its verdict belongs to exactly that frame. Frames judged echo are held
+ * back in a short pre-roll (the detector's minimum speech time plus two frames) instead of being
+ * recognized: when the detector confirms a barge-in they are recognized as captured, so the first
+ * words are kept; when playback ends, or they fall out of the pre-roll, they reach the recognizer
+ * as silence.
+ */
+public final class LiveRecognizer {
+
+  public interface Listener {
+    /** Everything recognized so far: all finals plus the current partial, if any. */
+    void onText(String transcript);
+
+    /** Overlay text from {@link RecognizerTelemetry}, about every {@link #OVERLAY_PERIOD_SEC}. */
+    default void onTelemetry(String overlay) {}
+
+    /** After the final flush; telemetry has been published to the global metrics. */
+    default void onStopped(String transcript) {}
+  }
+
+  public static final float OVERLAY_PERIOD_SEC = 0.5f;
+
+  private static final int   FRAME_BYTES        = 3200;  // 100 ms of 16 kHz mono PCM16
+  private static final int   FRAME_MS           =  100;
+  private static final int   RING_FRAMES        =   64;
+  private static final float PARTIAL_PERIOD_SEC = 0.25f;
+
+  private final Recognizer         recognizer;
+  private final AudioCaptureEngine engine    ;
+  private final Logger             log       ;
+  private final Listener           listener  ;
+  private final StringBuilder      finals    = new StringBuilder();
+  private       BargeInDetector    echoGate  ;
+
+  public LiveRecognizer(Recognizer recognizer, AudioSource source, Logger log, Listener listener) {
+    this.recognizer = recognizer;
+    this.engine     = new AudioCaptureEngine("STT-live", source, FRAME_BYTES, RING_FRAMES);
+    this.log        = log;
+    this.listener   = listener;
+  }
+
+  public boolean isRunning() { return engine.isRunning(); }
+
+  /** Attaches a barge-in detector to the capture and mutes echo-only audio. Call before {@link #start()}. */
+  public LiveRecognizer setEchoGate(BargeInDetector detector) {
+    this.echoGate = detector;
+    return this;
+  }
+
+  public void start() {
+    finals.setLength(0);
+    engine.attach("recognizer", new Consumer(new RecognizerTelemetry(engine.sampleRate())));
+    engine.start();
+    log.i("LIVE: started");
+  }
+
+  /**
+   * Stops capture and waits up to {@link AudioCaptureEngine#STOP_TIMEOUT_MS} for the recognizer to
+   * drain and flush; if it needs longer it finishes in the background and the final result still
+   * arrives through {@link Listener#onStopped}.
+   */
+  public void stop() {
+    stop(AudioCaptureEngine.STOP_TIMEOUT_MS);
+  }
+
+  /** {@link #stop()} waiting up to {@code timeoutMs}; true once the recognizer is done with it. */
+  public boolean stop(long timeoutMs) {
+    boolean done = engine.stop(timeoutMs);
+    IOException startError = engine.startError();
+    if (startError != null) log.e("EXCEPTION(startLive): " + startError);
+    log.i("LIVE: readErrors=" + engine.readErrors() + " lastReadCode=" + engine.lastReadCode() + " shortReads=" + engine.shortReads() + " overruns=" + engine.overruns() + (done ? "" : " (still draining)"));
+    return done;
+  }
+
+  private final class Consumer implements AudioCaptureEngine.Consumer {
+    final RecognizerTelemetry telemetry;
+    float lastPartial = nowSec();
+    float lastOverlay = nowSec();
+    long  totalRead   = 0;
+
+    // Pre-roll of frames the gate judged echo, oldest at heldHead; allocated once.
+    final byte[][] held;
+    final int[]    heldLen;
+    int            heldHead  = 0;
+    int            heldCount = 0;
+
+    Consumer(RecognizerTelemetry telemetry) {
+      this.telemetry = telemetry;
+      int frames   = (echoGate != null) ? echoGate.minSpeechMs() / FRAME_MS + 2 : 0;
+      this.held    = new byte[frames][FRAME_BYTES];
+      this.heldLen = new int[frames];
+    }
+
+    @Override
+    public void onFrame(byte[] buf, int read) {
+      totalRead += read;
+      if (echoGate == null) {
+        recognize(buf, read);
+        return;
+      }
+      int verdict = echoGate.process(buf, read);
+      if (verdict == BargeInDetector.ECHO) {
+        if (heldCount == held.length) {
+          byte[] oldest = held[heldHead];
+          Arrays.fill(oldest, 0, heldLen[heldHead], (byte) 0);
+          recognize(oldest, heldLen[heldHead]);
+          heldHead = (heldHead + 1) % held.length;
+          heldCount--;
+        }
+        int slot = (heldHead + heldCount) % held.length;
+        int n    = Math.min(read, FRAME_BYTES);
+        System.arraycopy(buf, 0, held[slot], 0, n);
+        heldLen[slot] = n;
+        heldCount++;
+        return;
+      }
+      // Barge-in: the held frames may contain the start of the user's speech. Playback over: they were echo.
+      while (heldCount > 0) {
+        byte[] f = held[heldHead];
+        if (verdict == BargeInDetector.CLEAR) Arrays.fill(f, 0, heldLen[heldHead], (byte) 0);
+        recognize(f, heldLen[heldHead]);
+        heldHead = (heldHead + 1) % held.length;
+        heldCount--;
+      }
+      recognize(buf, read);
+    }
+
+    private void recognize(byte[] buf, int read) {
+      long    t0       = System.nanoTime();
+      boolean hasFinal = recognizer.acceptWaveForm(buf, read);
+      float   levelDb  = rmsDb(buf, 0, read);
+      telemetry.onBuffer(read, System.nanoTime() - t0, levelDb, engine.maxLag());
+      if (hasFinal) telemetry.onFinal();
+
+      float now = nowSec();
+      if ((now - lastOverlay) >= OVERLAY_PERIOD_SEC) {
+        telemetry.sampleEngine(engine.readErrors(), engine.lastReadCode(), engine.shortReads(), engine.overruns());
+        listener.onTelemetry(telemetry.overlay());
+        lastOverlay = now;
+      }
+
+      if (hasFinal) {
+        String j   = recognizer.getResult();
+        String fin = RecognitionLoop.extractText(j, false);
+        if (log.isLoggable(Logger.DEBUG)) {
+          log.d("LIVE: acceptWaveForm=true bytes=" + read + " rms=" + String.format("%.1f", levelDb) + " finalJson=" + trimForLog(j));
+        }
+        if (!fin.isEmpty()) {
+          appendFinal(fin);
+          listener.onText(finals.toString());
+        } else {
+          log.i("LIVE: final text empty");
+        }
+      } else if ((now - lastPartial) >= PARTIAL_PERIOD_SEC) {
+        String pjson = recognizer.getPartialResult();
+        String part  = RecognitionLoop.extractText(pjson, true);
+        if (log.isLoggable(Logger.DEBUG)) {
+          log.d("LIVE: acceptWaveForm=false bytes=" + read + " rms=" + String.format("%.1f", levelDb) + " partialJson=" + trimForLog(pjson) + " part='" + part + "'");
+        }
+        String shown = part.isEmpty() ? finals.toString() : (finals.length() > 0 ? (finals + " " + part) : part);
+        if (!shown.isEmpty()) listener.onText(shown);
+        lastPartial = now;
+      }
+    }
+
+    @Override
+    public void onStopped() {
+      try {
+        String finJson = recognizer.getFinalResult();
+        String fin     = RecognitionLoop.extractText(finJson, false);
+        log.i("LIVE: finalFlush json=" + trimForLog(finJson) + " text='" + fin + "'");
+        if (!fin.isEmpty()) {
+          appendFinal(fin);
+          listener.onText(finals.toString());
+        }
+      } catch (Exception e) {
+        log.e("EXCEPTION(LIVE loop): " + e);
+      }
+      telemetry.sampleEngine(engine.readErrors(), engine.lastReadCode(), engine.shortReads(), engine.overruns());
+      telemetry.publish();
+      listener.onTelemetry(telemetry.overlay());
+      log.i("LIVE: stopped totalRead=" + totalRead);
+      listener.onStopped(finals.toString());
+    }
+  }
+
+  private void appendFinal(String text) {
+    if (finals.length() > 0) finals.append(' ');
+    finals.append(text);
+  }
+
+  private static String trimForLog(String s) {
+    if (s == null) return "null";
+    if (s.length() > 160) return s.substring(0, 160) + "...";
+    return s;
+  }
+
+  /** Level of a little-endian PCM16 buffer in dBFS (-120 for silence). */
+  static float rmsDb(byte[] data, int offset, int len) {
+    long sum     = 0;
+    int  samples = 0;
+    int  end     = offset + len;
+    for (int i = offset; i + 1 < end; i += 2) {
+      int v = (short) ((data[i + 1] << 8) | (data[i] & 0xFF));
+      sum += (long) v * v;
+      samples++;
+    }
+    if (samples == 0) return -120f;
+    double rms = Math.sqrt(sum / (double) samples);
+    return (float) (20.0 * Math.log10(rms / 32768.0 + 1e-12));
+  }
+
+  private static float nowSec() {
+    return (float) (System.nanoTime() / 1_000_000_000.0);
+  }
+}
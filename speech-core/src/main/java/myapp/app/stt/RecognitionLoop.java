@@ -0,0 +1,111 @@
+package myapp.app.stt;
+
+import org.json.JSONObject;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline recognition of a PCM16 stream with a Vosk {@link Recognizer}: feed fixed-size chunks,
+ * collect every final result, flush at the end.
+ *
+ * This is the loop behind {@code STT.toText()}, kept free of Android types so the same code can be
+ * benchmarked with the desktop Vosk library.
+ */
+public final class RecognitionLoop {
+
+  /** Source of little-endian PCM16; returns -1 at the end. */
+  public interface PcmInput {
+    int read(byte[] buf, int off, int len) throws IOException;
+  }
+
+  public interface Listener {
+    void onFinal(String text);
+
+    default void onPartial(String text) {}
+  }
+
+  public static final class Result {
+    public final List<String> texts           ;
+    public final long         audioBytes      ;
+    public final long         processingNanos ;
+    /** Time from the last chunk being fed to the flushed final result. */
+    public final long         finalLatencyNanos;
+
+    Result(List<String> texts, long audioBytes, long processingNanos, long finalLatencyNanos) {
+      this.texts             = texts;
+      this.audioBytes        = audioBytes;
+      this.processingNanos   = processingNanos;
+      this.finalLatencyNanos = finalLatencyNanos;
+    }
+
+    public String text() {
+      StringBuilder sb = new StringBuilder();
+      for (String t : texts) {
+        if (t.isEmpty()) continue;
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(t);
+      }
+      return sb.toString();
+    }
+  }
+
+  public static final int DEFAULT_CHUNK_BYTES = 4096;
+
+  private final Recognizer recognizer;
+  private       int        chunkBytes = DEFAULT_CHUNK_BYTES;
+  private       boolean    partials   = false;
+  private       Listener   listener   = null;
+
+  public RecognitionLoop(Recognizer recognizer) {
+    this.recognizer = recognizer;
+  }
+
+  public RecognitionLoop setChunkBytes(int chunkBytes) { this.chunkBytes = Math.max(2, chunkBytes & ~1); return this; }
+  public RecognitionLoop setPartials  (boolean on    ) { this.partials   = on;                          return this; }
+  public RecognitionLoop setListener  (Listener l    ) { this.listener   = l;                           return this; }
+
+  public Result run(PcmInput in) throws IOException {
+    List<String> texts  = new ArrayList<>();
+    byte[]       buffer = new byte[chunkBytes];
+    long         bytes  = 0;
+    long         start  = System.nanoTime();
+    while (true) {
+      int read = in.read(buffer, 0, buffer.length);
+      if (read == -1) break;
+      if (read == 0) continue;
+      bytes += read;
+      if (recognizer.acceptWaveForm(buffer, read)) {
+        emit(texts, extractText(recognizer.getResult(), false));
+      } else if (partials && listener != null) {
+        listener.onPartial(extractText(recognizer.getPartialResult(), true));
+      }
+    }
+    long fed = System.nanoTime();
+    emit(texts, extractText(recognizer.getFinalResult(), false));
+    long end = System.nanoTime();
+    return new Result(texts, bytes, end - start, end - fed);
+  }
+
+  private void emit(List<String> texts, String text) {
+    texts.add(text);
+    if (listener != null) listener.onFinal(text);
+  }
+
+  /** The "text" (or "partial") field of a Vosk result, whitespace-flattened; "" if absent. */
+  public static String extractText(String json, boolean partial) {
+    try {
+      if (json == null || json.isEmpty()) return "";
+      JSONObject o = new JSONObject(json);
+      String key = partial ? "partial" : "text";
+      if (!o.has(key)) return "";
+      String s = o.optString(key, "");
+      if (s == null) return "";
+      return s.replace("\n", " ").replace("\t", " ").trim();
+    } catch (Exception e) {
+      return "";
+    }
+  }
+}
@@ -0,0 +1,357 @@
+package myapp.app.tts;
+
+import myapp.app.log.Logger;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.onnxruntime.OrtSession;
+
+/**
+ * Renders many utterances straight to WAV files, without playback.
+ *
+ * Three stages connected by bounded queues, each with its own threads:
+ *
+ *   front-end (N threads) : text -> phonemes -> chunks of at most MAX_PHONEMES -> token rows, style row
+ *   inference (M threads) : token rows -> float PCM (one session.run per chunk)
+ *   encoder   (1 thread)  : PCM -> "id.wav" via {@link WavFileWriter}, progress line, throughput report
+ *
+ * Long texts are split at sentence/clause boundaries so nothing is truncated; each chunk is
+ * trimmed of leading/trailing silence before the fixed gap is added. Jobs whose output
+ * file already exists are skipped, so an interrupted run resumes where it stopped.
+ */
+public final class BatchRenderer {
+
+    /** One manifest entry. */
+    public static final class Job {
+        public final String id;
+        public final String text;
+        public final String voice;
+        public final int voiceIndex;
+        public final float speed;
+
+        public Job(String id, String text, String voice, int voiceIndex, float speed) {
+            this.id         = id;
+            this.text       = text;
+            this.voice      = voice;
+            this.voiceIndex = voiceIndex;
+            this.speed      = speed;
+        }
+    }
+
+    /** Totals for a run; also the periodic throughput report. */
+    public static final class Stats {
+        public final int total;
+        public final AtomicInteger done = new AtomicInteger();
+        public final AtomicInteger skipped = new AtomicInteger();
+        public final AtomicInteger failed = new AtomicInteger();
+        public final AtomicLong samples = new AtomicLong();
+        public final long startNanos = System.nanoTime();
+
+        Stats(int total) {
+            this.total = total;
+        }
+
+        public double audioSeconds() {
+            return samples.get() / (double) KokoroInference.SAMPLE_RATE;
+        }
+
+        public double wallSeconds() {
+            return (System.nanoTime() - startNanos) / 1e9;
+        }
+
+        public String toJson() {
+            double wall  = wallSeconds();
+            double audio = audioSeconds();
+            int    left  = total - done.get() - skipped.get() - failed.get();
+            double rate  = done.get() / Math.max(1e-9, wall);
+            return String.format(Locale.US,
+                    "{\"total\":%d,\"done\":%d,\"skipped\":%d,\"failed\":%d,\"audio_sec\":%.1f,\"wall_sec\":%.1f,"
+                            + "\"rtf\":%.3f,\"jobs_per_sec\":%.2f,\"audio_sec_per_sec\":%.2f,\"eta_sec\":%.0f}",
+                    total, done.get(), skipped.get(), failed.get(), audio, wall,
+                    audio > 0 ? wall / audio : 0.0, rate, audio / Math.max(1e-9, wall),
+                    rate > 0 ? left / rate : 0.0);
+        }
+    }
+
+    public static final String DEFAULT_VOICE = KokoroSynthesizer.DEFAULT_VOICE_NAME;
+    public static final int DEFAULT_VOICE_INDEX = KokoroSynthesizer.DEFAULT_VOICE_INDEX;
+
+    private static final int CHUNK_GAP_SAMPLES = KokoroInference.SAMPLE_RATE / 10;   // 100 ms between chunks
+    private static final String PROGRESS_FILE = "progress.jsonl";
+
+    private static final class Prepared {
+        final Job job;
+        final List<long[]> chunks;
+        final float[][] style;
+
+        Prepared(Job job, List<long[]> chunks, float[][] style) {
+            this.job    = job;
+            this.chunks = chunks;
+            this.style  = style;
+        }
+    }
+
+    private static final class Rendered {
+        final Job job;
+        final List<float[]> audio;
+        final Exception error;
+
+        Rendered(Job job, List<float[]> audio, Exception error) {
+            this.job   = job;
+            this.audio = audio;
+            this.error = error;
+        }
+    }
+
+    private static final Prepared POISON_PREPARED = new Prepared(null, null, null);
+    private static final Rendered POISON_RENDERED = new Rendered(null, null, null);
+
+    private final Phonemizer phonemizer;
+    private final StyleLoaderJava styles;
+    private final OrtSession session;
+    private final Logger log;
+
+    private int frontEndThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int inferenceThreads = 1;
+    private int queueDepth = 8;
+    private float gain = 1.0f;
+    private SilenceTrimmer trimmer = new SilenceTrimmer(KokoroInference.SAMPLE_RATE);
+    private long reportEveryNanos = 10_000_000_000L;
+
+    public BatchRenderer(Phonemizer phonemizer, StyleLoaderJava styles, OrtSession session, Logger log) {
+        this.phonemizer = phonemizer;
+        this.styles     = styles;
+        this.session    = session;
+        this.log        = log;
+    }
+
+    public BatchRenderer setFrontEndThreads(int n) { this.frontEndThreads = Math.max(1, n); return this; }
+    public BatchRenderer setInferenceThreads(int n) { this.inferenceThreads = Math.max(1, n); return this; }
+    public BatchRenderer setQueueDepth(int n) { this.queueDepth = Math.max(1, n); return this; }
+    public BatchRenderer setGain(float gain) { this.gain = gain; return this; }
+    public BatchRenderer setTrimmer(SilenceTrimmer trimmer) { this.trimmer = trimmer; return this; }
+    public BatchRenderer setReportEverySeconds(int s) { this.reportEveryNanos = s * 1_000_000_000L; return this; }
+
+    // ======== MANIFEST ========
+
+    /**
+     * One job per non-empty line: either a JSON object
+     * {"id":"p0001","text":"...","voice":"af","index":256,"speed":1.0} (all but "text" optional),
+     * or a bare line of text. Missing ids are the 1-based line number, zero-padded.
+     */
+    public static List<Job> readManifest(File manifest) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String defaultId = String.format(Locale.US, "%06d", lineNo);
+                if (!line.startsWith("{")) {
+                    jobs.add(new Job(defaultId, line, DEFAULT_VOICE, DEFAULT_VOICE_INDEX, KokoroSynthesizer.DEFAULT_SPEED));
+                    continue;
+                }
+                try {
+                    JSONObject o = new JSONObject(line);
+                    jobs.add(new Job(
+                            safeId(o.optString("id", defaultId)),
+                            o.getString("text"),
+                            o.optString("voice", DEFAULT_VOICE),
+                            o.optInt("index", DEFAULT_VOICE_INDEX),
+                            (float) o.optDouble("speed", KokoroSynthesizer.DEFAULT_SPEED)));
+                } catch (Exception e) {   // JSONException is checked on Android, unchecked on desktop
+                    throw new IOException(manifest + ":" + lineNo + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /** Ids become file names; anything outside [A-Za-z0-9._-] is replaced. */
+    static String safeId(String id) {
+        String s = id.replaceAll("[^A-Za-z0-9._-]", "_");
+        return s.isEmpty() || s.startsWith(".") ? "_" + s : s;
+    }
+
+    // ======== RUN ========
+
+    /** Renders every job into {@code outDir}/id.wav and returns the totals. Blocks until done. */
+    public Stats render(List<Job> jobs, File outDir) throws IOException, InterruptedException {
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Cannot create " + outDir);
+        }
+        final Stats stats = new Stats(jobs.size());
+        final List<Job> todo = new ArrayList<>();
+        for (Job job : jobs) {
+            if (output(outDir, job).isFile()) stats.skipped.incrementAndGet();
+            else todo.add(job);
+        }
+        log.i("BatchRenderer: " + todo.size() + " to render, " + stats.skipped.get() + " already done; "
+                + frontEndThreads + " front-end / " + inferenceThreads + " inference threads");
+
+        final BlockingQueue<Prepared> prepared = new ArrayBlockingQueue<>(queueDepth);
+        final BlockingQueue<Rendered> rendered = new ArrayBlockingQueue<>(queueDepth);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger frontLeft = new AtomicInteger(frontEndThreads);
+        final AtomicInteger inferLeft = new AtomicInteger(inferenceThreads);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < frontEndThreads; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < todo.size()) {
+                        prepared.put(prepare(todo.get(i)));
+                    }
+                    if (frontLeft.decrementAndGet() == 0) {
+                        for (int k = 0; k < inferenceThreads; k++) prepared.put(POISON_PREPARED);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "render-front-" + t));
+        }
+        for (int t = 0; t < inferenceThreads; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    Prepared p;
+                    while ((p = prepared.take()) != POISON_PREPARED) {
+                        rendered.put(infer(p));
+                    }
+                    if (inferLeft.decrementAndGet() == 0) rendered.put(POISON_RENDERED);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "render-infer-" + t));
+        }
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+
+        try (Writer progress = new OutputStreamWriter(new FileOutputStream(new File(outDir, PROGRESS_FILE), true), StandardCharsets.UTF_8)) {
+            long lastReport = System.nanoTime();
+            Rendered r;
+            while ((r = rendered.take()) != POISON_RENDERED) {
+                encode(r, outDir, stats, progress);
+                long now = System.nanoTime();
+                if (now - lastReport >= reportEveryNanos) {
+                    log.i("BatchRenderer: " + stats.toJson());
+                    lastReport = now;
+                }
+            }
+        } finally {
+            for (Thread t : threads) t.interrupt();
+        }
+        log.i("BatchRenderer: finished " + stats.toJson());
+        return stats;
+    }
+
+    private static File output(File outDir, Job job) {
+        return new File(outDir, job.id + ".wav");
+    }
+
+    // ======== STAGES ========
+
+    private Prepared prepare(Job job) {
+        try {
+            String phonemes = phonemizer.phonemize(job.text, "en-us", true);
+            List<long[]> chunks = new ArrayList<>();
+            for (String chunk : splitPhonemes(phonemes, KokoroInference.MAX_PHONEMES)) {
+                chunks.add(KokoroInference.buildTokens(chunk));
+            }
+            return new Prepared(job, chunks, styles.getStyleArray(job.voice, job.voiceIndex));
+        } catch (RuntimeException e) {
+            log.w("BatchRenderer: front-end failed for " + job.id + ": " + e);
+            return new Prepared(job, null, null);
+        }
+    }
+
+    private Rendered infer(Prepared p) {
+        if (p.chunks == null) {
+            return new Rendered(p.job, null, new IOException("front-end failed"));
+        }
+        try {
+            List<float[]> audio = new ArrayList<>(p.chunks.size());
+            for (long[] tokens : p.chunks) {
+                float[] pcm = KokoroInference.run(session, new long[][] { tokens }, p.style, p.job.speed);
+                audio.add(trimmer != null ? trimmer.trim(pcm) : pcm);
+            }
+            return new Rendered(p.job, audio, null);
+        } catch (Exception e) {
+            return new Rendered(p.job, null, e);
+        }
+    }
+
+    private void encode(Rendered r, File outDir, Stats stats, Writer progress) throws IOException {
+        if (r.error != null) {
+            stats.failed.incrementAndGet();
+            log.w("BatchRenderer: " + r.job.id + " failed: " + r.error.getMessage());
+            return;
+        }
+        WavFileWriter wav = new WavFileWriter(output(outDir, r.job), KokoroInference.SAMPLE_RATE);
+        try {
+            for (int i = 0; i < r.audio.size(); i++) {
+                if (i > 0) wav.writeSilence(CHUNK_GAP_SAMPLES);
+                wav.write(r.audio.get(i), gain);
+            }
+            wav.close();
+        } catch (IOException e) {
+            wav.abort();
+            stats.failed.incrementAndGet();
+            log.w("BatchRenderer: " + r.job.id + " write failed: " + e.getMessage());
+            return;
+        }
+        stats.done.incrementAndGet();
+        stats.samples.addAndGet(wav.samples());
+        progress.write(String.format(Locale.US, "{\"id\":%s,\"chunks\":%d,\"audio_sec\":%.3f,\"t\":%.1f}\n",
+                JSONObject.quote(r.job.id), r.audio.size(), wav.samples() / (double) wav.sampleRate(), stats.wallSeconds()));
+        progress.flush();
+    }
+
+    /**
+     * Splits a phoneme string into pieces of at most {@code max} characters, preferring to cut after
+     * sentence punctuation, then clause punctuation, then a space.
+     */
+    static List<String> splitPhonemes(String phonemes, int max) {
+        List<String> out = new ArrayList<>();
+        String rest = phonemes.trim();
+        while (rest.length() > max) {
+            int cut = lastBoundary(rest, max, ".!?");
+            if (cut < 0) cut = lastBoundary(rest, max, ",;:");
+            if (cut < 0) cut = lastBoundary(rest, max, " ");
+            if (cut < 0) cut = max;
+            out.add(rest.substring(0, cut).trim());
+            rest = rest.substring(cut).trim();
+        }
+        if (!rest.isEmpty()) out.add(rest);
+        return out;
+    }
+
+    /** Index just after the last of {@code chars} within the first {@code max} characters (past the first third), or -1. */
+    private static int lastBoundary(String s, int max, String chars) {
+        for (int i = max - 1; i >= max / 3; i--) {
+            if (chars.indexOf(s.charAt(i)) >= 0) return i + 1;
+        }
+        return -1;
+    }
+}
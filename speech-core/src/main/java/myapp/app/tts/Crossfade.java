@@ -0,0 +1,31 @@
+package myapp.app.tts;
+
+/**
+ * Equal-power crossfades for joining utterances without a gap or a click: the outgoing tail is
+ * scaled by cos, the incoming head by sin, so the summed power stays constant across the overlap.
+ */
+public final class Crossfade {
+
+    private Crossfade() {}
+
+    /**
+     * Mixes {@code tail[tailOff, tailOff+n)} (fading out) into {@code head[headOff, headOff+n)}
+     * (fading in), in place in {@code head}.
+     */
+    public static void mixInto(float[] tail, int tailOff, float[] head, int headOff, int n) {
+        for (int i = 0; i < n; i++) {
+            double t = (Math.PI / 2) * (i + 0.5) / n;
+            head[headOff + i] = (float) (tail[tailOff + i] * Math.cos(t) + head[headOff + i] * Math.sin(t));
+        }
+    }
+
+    /** {@code a} followed by {@code b}, overlapping by up to {@code overlap} samples. */
+    public static float[] join(float[] a, float[] b, int overlap) {
+        int n = Math.min(overlap, Math.min(a.length, b.length));
+        float[] out = new float[a.length + b.length - n];
+        System.arraycopy(a, 0, out, 0, a.length - n);
+        System.arraycopy(b, 0, out, a.length - n, b.length);
+        mixInto(a, a.length - n, out, a.length - n, n);
+        return out;
+    }
+}
@@ -1,8 +1,6 @@
-// app/src/main/java/myapp/app/tts/ExternalOrtTts.java
+// speech-core/src/main/java/myapp/app/tts/ExternalOrtTts.java
 package myapp.app.tts;
 
-import android.content.Context;
-
 import java.io.File;
 
 import ai.onnxruntime.OrtEnvironment;
@@ -19,23 +17,13 @@ public final class ExternalOrtTts {
     private ExternalOrtTts() {
     }
 
-    public static synchronized void initialize(Context context) {
+    public static synchronized void initialize(File modelFile) {
         if (initialized) {
             return;
         }
 
-        if (context == null) {
-            throw new IllegalStateException("ExternalOrtTts.initialize: context is null");
-        }
-
-        File modelsDir = context.getExternalFilesDir("models");
-        if (modelsDir == null) {
-            throw new IllegalStateException("ExternalOrtTts.initialize: getExternalFilesDir(\"models\") returned null");
-        }
-
-        File modelFile = new File(modelsDir, "kokoro.onnx");
-        if (!modelFile.exists()) {
-            throw new IllegalStateException("Kokoro ONNX model not found at: " + modelFile.getAbsolutePath());
+        if (modelFile == null || !modelFile.exists()) {
+            throw new IllegalStateException("Kokoro ONNX model not found at: " + modelFile);
         }
 
         try {
@@ -64,7 +52,7 @@ public final class ExternalOrtTts {
 
     public static OrtSession getSession() {
         if (!initialized) {
-            throw new IllegalStateException("ExternalOrtTts is not initialized. Call initialize(context) first.");
+            throw new IllegalStateException("ExternalOrtTts is not initialized. Call initialize(modelFile) first.");
         }
         return session;
     }
@@ -0,0 +1,248 @@
+package myapp.app.tts;
+
+import java.util.Arrays;
+
+/**
+ * Rule-based English grapheme-to-phoneme conversion for words missing from the dictionary.
+ *
+ * Rules map a grapheme string (1-4 letters) to phonemes, optionally guarded by a left and a right
+ * context. They are compiled once into a letter trie; at each position the longest grapheme whose
+ * context matches wins, so "tch", "igh", "tion" etc. beat their prefixes. Transcription walks the
+ * caller's char array and appends to the caller's StringBuilder without allocating.
+ *
+ * Rule syntax, one per line: {@code [left]graphemes[/right]  phonemes}
+ *   left : ^ word start, * some vowel letter earlier in the word, ~ previous letter is a consonant
+ *   right: $ word end, F e/i/y follows, V vowel follows, C consonant follows,
+ *          E "magic e" follows (one consonant, then e at the end, optionally + s/d)
+ *   phonemes: IPA in the dictionary's conventions, or "-" for silent
+ * Within one grapheme, rules with a context are tried before the plain one.
+ *
+ * The output gets a primary stress mark before the first vowel, as dictionary entries have.
+ */
+public final class G2p {
+
+    private static final int LEFT_ANY = 0, LEFT_START = 1, LEFT_AFTER_VOWEL = 2, LEFT_AFTER_CONS = 3;
+    private static final int RIGHT_ANY = 0, RIGHT_END = 1, RIGHT_FRONT = 2, RIGHT_VOWEL = 3, RIGHT_CONS = 4, RIGHT_MAGIC_E = 5;
+
+    private static final char STRESS = 'ˈ';
+    private static final String VOWEL_PHONEMES = "aeiouæɑɒɔəɚɛɜɝɪʊʌ";
+
+    // Ordered roughly by grapheme family; see the class comment for the syntax.
+    private static final String ENGLISH_RULES =
+            // silent and position-dependent consonant clusters
+            "^kn n\n^gn n\n^wr ɹ\n^ps s\nmb/$ m\ngh/$ -\n'  -\n"
+            // suffixes
+            + "ation eɪʃən\ntion ʃən\nsion ʒən\ncian ʃən\nture tʃɚ\nsure ʒɚ\nous/$ əs\ning/$ ɪŋ\n~le/$ əl\n~ed/$ d\nful/$ fəl\nness/$ nəs\nment/$ mənt\n"
+            + "*able/$ əbəl\n*ible/$ əbəl\nism/$ ɪzəm\nity/$ ɪti\nly/$ li\n"
+            // consonant digraphs and trigraphs
+            + "tch tʃ\ndge dʒ\nch tʃ\nsh ʃ\nth θ\nph f\nwh w\nck k\nng ŋ\nnk ŋk\nqu kw\n"
+            + "bb b\ncc k\ndd d\nff f\ngg g\nll l\nmm m\nnn n\npp p\nrr ɹ\nss s\ntt t\nzz z\n"
+            // single consonants
+            + "c/F s\nc k\ng/F dʒ\ng g\nj dʒ\nq k\n^x z\nx ks\ns/$ z\n*s/V z\ns s\nr ɹ\ny/V j\n"
+            + "b b\nd d\nf f\nh h\nk k\nl l\nm m\nn n\np p\nt t\nv v\nw w\nz z\n"
+            // vowel groups
+            + "eigh eɪ\nigh aɪ\naugh ɔ\nough oʊ\n"
+            + "air ɛɹ\near ɪɹ\neer ɪɹ\nour aʊɚ\noor ɔɹ\nare/$ ɛɹ\nire/$ aɪɚ\nore/$ ɔɹ\n"
+            + "ar ɑɹ\ner ɚ\nir ɝ\nur ɝ\nor ɔɹ\n"
+            + "ai eɪ\nay eɪ\nee i\nea i\nei eɪ\ney/$ i\ney eɪ\nie/$ aɪ\nie i\noa oʊ\noo u\nou aʊ\now/$ oʊ\now aʊ\noi ɔɪ\noy ɔɪ\n"
+            + "au ɔ\naw ɔ\new u\nue/$ u\nui u\n"
+            // single vowels: magic e, word-final, default
+            + "a/E eɪ\ne/E i\ni/E aɪ\no/E oʊ\nu/E ju\n"
+            + "a/$ ə\n*e/$ -\ne/$ i\ni/$ i\no/$ oʊ\nu/$ u\n*y/$ i\ny/$ aɪ\n"
+            + "a æ\ne ɛ\ni ɪ\no ɑ\nu ʌ\ny ɪ\n";
+
+    private static volatile G2p english;
+
+    private static final class Rule {
+        final char[] phonemes;
+        final int left;
+        final int right;
+        final int vowelAt;      // index of the first vowel phoneme, or -1
+
+        Rule(char[] phonemes, int left, int right) {
+            this.phonemes = phonemes;
+            this.left     = left;
+            this.right    = right;
+            int v = -1;
+            for (int i = 0; i < phonemes.length && v < 0; i++) {
+                if (VOWEL_PHONEMES.indexOf(phonemes[i]) >= 0) v = i;
+            }
+            this.vowelAt  = v;
+        }
+    }
+
+    private static final class Node {
+        final Node[] next = new Node[27];   // a-z, apostrophe
+        Rule[] rules = new Rule[0];
+    }
+
+    private final Node root = new Node();
+
+    /** Compiles a rule table (see the class comment for the syntax). */
+    public G2p(String rules) {
+        for (String line : rules.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            int sp = line.indexOf(' ');
+            if (sp <= 0) throw new IllegalArgumentException("G2p rule needs graphemes and phonemes: '" + line + "'");
+            addRule(line.substring(0, sp), line.substring(sp + 1).trim());
+        }
+    }
+
+    /** The built-in English rules, compiled on first use. */
+    public static G2p english() {
+        G2p g = english;
+        if (g == null) {
+            synchronized (G2p.class) {
+                if (english == null) english = new G2p(ENGLISH_RULES);
+                g = english;
+            }
+        }
+        return g;
+    }
+
+    private void addRule(String spec, String phonemes) {
+        int left = LEFT_ANY;
+        switch (spec.charAt(0)) {
+            case '^': left = LEFT_START;       spec = spec.substring(1); break;
+            case '*': left = LEFT_AFTER_VOWEL; spec = spec.substring(1); break;
+            case '~': left = LEFT_AFTER_CONS;  spec = spec.substring(1); break;
+            default : break;
+        }
+        int right = RIGHT_ANY;
+        int slash = spec.indexOf('/');
+        if (slash >= 0) {
+            switch (spec.substring(slash + 1)) {
+                case "$": right = RIGHT_END;     break;
+                case "F": right = RIGHT_FRONT;   break;
+                case "V": right = RIGHT_VOWEL;   break;
+                case "C": right = RIGHT_CONS;    break;
+                case "E": right = RIGHT_MAGIC_E; break;
+                default : throw new IllegalArgumentException("G2p: unknown right context in '" + spec + "'");
+            }
+            spec = spec.substring(0, slash);
+        }
+
+        Node n = root;
+        for (int i = 0; i < spec.length(); i++) {
+            int k = index(spec.charAt(i));
+            if (k < 0) throw new IllegalArgumentException("G2p: bad grapheme '" + spec + "'");
+            if (n.next[k] == null) n.next[k] = new Node();
+            n = n.next[k];
+        }
+
+        Rule rule = new Rule("-".equals(phonemes) ? new char[0] : phonemes.toCharArray(), left, right);
+        // Context rules first, in declaration order; the plain rule (if any) last.
+        Rule[] rs = Arrays.copyOf(n.rules, n.rules.length + 1);
+        int at = rs.length - 1;
+        if (left != LEFT_ANY || right != RIGHT_ANY) {
+            while (at > 0 && rs[at - 1].left == LEFT_ANY && rs[at - 1].right == RIGHT_ANY) {
+                rs[at] = rs[at - 1];
+                at--;
+            }
+        }
+        rs[at] = rule;
+        n.rules = rs;
+    }
+
+    // ======== TRANSCRIPTION ========
+
+    /** Appends the phonemes for {@code word[off, off+len)} to {@code out}. Letters only; others are copied. */
+    public void transcribe(char[] word, int off, int len, StringBuilder out) {
+        int end = off + len;
+        int stressAt = -1;
+        int i = off;
+        while (i < end) {
+            Node n = root;
+            Rule best = null;
+            int bestEnd = i + 1;
+            for (int j = i; j < end; j++) {
+                int k = index(word[j]);
+                if (k < 0 || (n = n.next[k]) == null) break;
+                for (Rule r : n.rules) {
+                    if (matches(r, word, off, i, j + 1, end)) {
+                        best = r;
+                        bestEnd = j + 1;
+                        break;
+                    }
+                }
+            }
+            if (best == null) {
+                out.append(word[i]);
+            } else {
+                if (best.vowelAt >= 0 && stressAt < 0) stressAt = out.length() + best.vowelAt;
+                out.append(best.phonemes);
+            }
+            i = bestEnd;
+        }
+        if (stressAt >= 0) out.insert(stressAt, STRESS);
+    }
+
+    public String transcribe(String word) {
+        StringBuilder sb = new StringBuilder(word.length() + 4);
+        transcribe(word.toCharArray(), 0, word.length(), sb);
+        return sb.toString();
+    }
+
+    private static boolean matches(Rule r, char[] w, int start, int from, int to, int end) {
+        switch (r.left) {
+            case LEFT_START:
+                if (from != start) return false;
+                break;
+            case LEFT_AFTER_VOWEL: {
+                boolean seen = false;
+                for (int p = start; p < from && !seen; p++) seen = isVowel(w, start, p);
+                if (!seen) return false;
+                break;
+            }
+            case LEFT_AFTER_CONS:
+                if (from == start || !isConsonant(w, start, from - 1)) return false;
+                break;
+            default:
+                break;
+        }
+        switch (r.right) {
+            case RIGHT_END:
+                return to == end;
+            case RIGHT_FRONT: {
+                if (to >= end) return false;
+                char c = lower(w[to]);
+                return c == 'e' || c == 'i' || c == 'y';
+            }
+            case RIGHT_VOWEL:
+                return to < end && isVowel(w, start, to);
+            case RIGHT_CONS:
+                return to < end && isConsonant(w, start, to);
+            case RIGHT_MAGIC_E: {
+                // one consonant, then a final e (or es/ed)
+                if (to + 1 >= end || !isConsonant(w, start, to) || lower(w[to + 1]) != 'e') return false;
+                int after = to + 2;
+                if (after == end) return true;
+                char c = lower(w[after]);
+                return after + 1 == end && (c == 's' || c == 'd');
+            }
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isVowel(char[] w, int start, int p) {
+        char c = lower(w[p]);
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || (c == 'y' && p > start);
+    }
+
+    private static boolean isConsonant(char[] w, int start, int p) {
+        char c = lower(w[p]);
+        return c >= 'a' && c <= 'z' && !isVowel(w, start, p);
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c | 0x20) : c;
+    }
+
+    private static int index(char c) {
+        c = lower(c);
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        return c == '\'' ? 26 : -1;
+    }
+}
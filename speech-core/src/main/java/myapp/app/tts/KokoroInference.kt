@@ -0,0 +1,94 @@
+package myapp.app.tts
+
+import ai.onnxruntime.OnnxTensor
+import ai.onnxruntime.OrtEnvironment
+import ai.onnxruntime.OrtException
+import ai.onnxruntime.OrtSession
+import myapp.app.metrics.StageTrace
+import myapp.app.utils.LruCache
+
+/**
+ * Kokoro inference core: phonemes -> padded token ids -> session.run -> float PCM.
+ *
+ * No Android dependency, so the exact same tensor-building code runs in the app
+ * (via [KokoroSynthesizer]) and in the desktop harness in :benchmarks.
+ */
+object KokoroInference {
+    const val MAX_PHONEMES = 400
+    const val SAMPLE_RATE = 24000
+    const val TOKEN_CACHE_SIZE = 1024
+
+    // Phoneme string -> padded token row; the same phrases recur across utterances.
+    private val tokenCache = LruCache<String, LongArray>("tts.cache.tokens", TOKEN_CACHE_SIZE)
+
+    /**
+     * Truncates to [MAX_PHONEMES], tokenizes, and pads with 0 at start and end.
+     * Memoized; the returned array is a copy the caller may keep or modify.
+     */
+    @JvmStatic
+    fun buildTokens(phonemes: String): LongArray {
+        val text = phonemes.take(MAX_PHONEMES)
+        tokenCache.get(text)?.let { return it.copyOf() }
+        val tokens = Tokenizer.tokenize(text)
+        val padded = LongArray(tokens.size + 2)
+        padded[0] = 0
+        System.arraycopy(tokens, 0, padded, 1, tokens.size)
+        padded[padded.size - 1] = 0
+        tokenCache.put(text, padded.copyOf())
+        return padded
+    }
+
+    /** Empties the token cache (memory pressure). */
+    @JvmStatic
+    fun clearCaches() = tokenCache.clear()
+
+    /**
+     * Runs the model for a batch of token rows (all the same length) with one style row each.
+     * The app always uses a batch of one.
+     */
+    @JvmStatic
+    @JvmOverloads
+    @Suppress("UNCHECKED_CAST")
+    @Throws(OrtException::class)
+    fun run(
+        session: OrtSession,
+        tokens: Array<LongArray>,
+        style: Array<FloatArray>,
+        speed: Float,
+        trace: StageTrace? = null,
+    ): FloatArray {
+        val env = OrtEnvironment.getEnvironment()
+
+        val tokenTensor = OnnxTensor.createTensor(env, tokens)
+        val styleTensor = OnnxTensor.createTensor(env, style)
+        val speedTensor = OnnxTensor.createTensor(env, floatArrayOf(speed))
+        try {
+            session.run(
+                mapOf(
+                    "tokens" to tokenTensor,
+                    "style" to styleTensor,
+                    "speed" to speedTensor
+                )
+            ).use { outputs ->
+                val value = outputs[0].value
+                val audio = if (value is FloatArray) value else flatten(value as Array<FloatArray>)
+                trace?.stage("inference")
+                return audio
+            }
+        } finally {
+            tokenTensor.close()
+            styleTensor.close()
+            speedTensor.close()
+        }
+    }
+
+    private fun flatten(rows: Array<FloatArray>): FloatArray {
+        val out = FloatArray(rows.sumOf { it.size })
+        var p = 0
+        for (r in rows) {
+            System.arraycopy(r, 0, out, p, r.size)
+            p += r.size
+        }
+        return out
+    }
+}
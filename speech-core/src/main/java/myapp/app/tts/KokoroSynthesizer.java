@@ -0,0 +1,443 @@
+package myapp.app.tts;
+
+import myapp.app.audio.AudioSink;
+import myapp.app.audio.PolyphaseResampler;
+import myapp.app.log.Logger;
+import myapp.app.metrics.Metrics;
+import myapp.app.metrics.StageTrace;
+import myapp.app.utils.ResourceGovernor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ai.onnxruntime.OrtSession;
+
+/**
+ * Kokoro text-to-speech without any platform types:
+ * text -> phonemes -> style -> tokens -> ONNX session -> normalized float PCM -> {@link AudioSink}.
+ *
+ * The model is a plain file path and all output goes through {@link Logger}, {@link Listener}
+ * and {@link AudioSink}, so the same pipeline runs in the app, in desktop harnesses and on a server.
+ * Sinks may run at any rate (e.g. the device's native 48 kHz); audio is resampled from
+ * {@link #SAMPLE_RATE} with a {@link PolyphaseResampler} when they differ.
+ * The ONNX session is shared process-wide via {@link ExternalOrtTts}.
+ *
+ * As a {@link ResourceGovernor} resource ("tts.model") it clears the phoneme and token caches at
+ * the CACHES tier and closes the session at SESSIONS, unless an inference is running; the next
+ * synthesis reopens it.
+ */
+public final class KokoroSynthesizer implements ResourceGovernor.Resource {
+
+    /** Per-utterance hooks around playback; both are called on the thread running {@link #play}. */
+    public interface Listener {
+        /** Normalized model output, before it is converted and written to the sink. */
+        default void onAudio(float[] audio, int sampleRate) {}
+
+        /** The sink accepted the first buffer (time to first audio). */
+        default void onFirstWrite() {}
+    }
+
+    public static final int    SAMPLE_RATE         = KokoroInference.SAMPLE_RATE;
+    public static final float  DEFAULT_SPEED       = 1.0f;
+    public static final String DEFAULT_VOICE_NAME  = "af";  // matches voices_af.bin
+    public static final int    DEFAULT_VOICE_INDEX = 256;   // 0..511 inside that file
+
+    private static final float NORMALIZE_PEAK = 0.99f;
+    private static final int   WRITE_BYTES    = 4800 * 2;   // 200 ms per sink write
+    private static final int   CROSSFADE      = SAMPLE_RATE / 100;   // 10 ms overlap between SSML segments
+
+    private final File modelFile;
+    private final Phonemizer phonemizer;
+    private final StyleLoaderJava styles;
+    private final Logger log;
+
+    private volatile String   voiceName  = DEFAULT_VOICE_NAME;
+    private volatile int      voiceIndex = DEFAULT_VOICE_INDEX;
+    private volatile float    speed      = DEFAULT_SPEED;
+    private volatile float    gain       = 1.0f;
+    private volatile String   lastError  = null;
+    private volatile SilenceTrimmer trimmer = new SilenceTrimmer(SAMPLE_RATE);
+
+    // Read-held by each synthesis; trim() closes the session only if it gets the write lock.
+    private final ReentrantReadWriteLock sessionLock = new ReentrantReadWriteLock();
+
+    public KokoroSynthesizer(File modelFile, Phonemizer phonemizer, StyleLoaderJava styles, Logger log) {
+        this.modelFile   = modelFile;
+        this.phonemizer  = phonemizer;
+        this.styles      = styles;
+        this.log         = log;
+    }
+
+    // ======== CONFIGURATION ========
+
+    public KokoroSynthesizer setVoice(String name, int index) {
+        this.voiceName  = name;
+        this.voiceIndex = index;
+        return this;
+    }
+
+    public KokoroSynthesizer setSpeed(float speed) {
+        this.speed = speed;
+        return this;
+    }
+
+    public String getVoiceName()  { return voiceName; }
+    public int    getVoiceIndex() { return voiceIndex; }
+    public float  getSpeed()      { return speed; }
+
+    /** Applied when converting to PCM16, after peak normalization. */
+    public KokoroSynthesizer setGain(float gain) {
+        this.gain = gain;
+        return this;
+    }
+
+    /** Cuts leading/trailing silence from every synthesized utterance; null plays the model output as is. */
+    public KokoroSynthesizer setTrimmer(SilenceTrimmer trimmer) {
+        this.trimmer = trimmer;
+        return this;
+    }
+
+    // ======== LIFECYCLE ========
+
+    /** Opens the ONNX session if needed. Returns false (see {@link #getLastError()}) on failure. */
+    public synchronized boolean ensureInitialized() {
+        if (ExternalOrtTts.isInitialized()) {
+            return true;
+        }
+        try {
+            log.i("KokoroSynthesizer: opening " + modelFile);
+            ExternalOrtTts.initialize(modelFile);
+            lastError = null;
+            return true;
+        } catch (Throwable t) {
+            lastError = "KokoroSynthesizer.ensureInitialized: " + t.getMessage();
+            log.e(lastError);
+            return false;
+        }
+    }
+
+    public boolean isInitialized() {
+        return ExternalOrtTts.isInitialized();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Closes the ONNX session, waiting for any {@link #synthesize} in progress to finish first so the
+     * native session is never freed under a running inference. The write lock is taken before the
+     * monitor: synthesize holds the read lock while it enters {@link #ensureInitialized}.
+     */
+    public void shutdown() {
+        sessionLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                ExternalOrtTts.shutdown();
+                lastError = null;
+            }
+        } finally {
+            sessionLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "tts.model";
+    }
+
+    /** The model file's size while the session is open (its weights are resident), else 0. */
+    @Override
+    public long footprintBytes() {
+        return ExternalOrtTts.isInitialized() ? modelFile.length() : 0;
+    }
+
+    @Override
+    public void trim(int tier) {
+        if (tier >= ResourceGovernor.CACHES) {
+            phonemizer.clearCaches();
+            KokoroInference.clearCaches();
+        }
+        if (tier >= ResourceGovernor.SESSIONS && ExternalOrtTts.isInitialized()) {
+            if (!sessionLock.writeLock().tryLock()) {
+                log.i("KokoroSynthesizer: session in use, not closed");
+                return;
+            }
+            try {
+                log.i("KokoroSynthesizer: closing session (memory pressure)");
+                shutdown();
+            } finally {
+                sessionLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ======== SYNTHESIS ========
+
+    /**
+     * Runs the model for {@code text} and returns float PCM at {@link #SAMPLE_RATE}, peak-normalized.
+     * Leading and trailing silence is trimmed (see {@link #setTrimmer}).
+     * Records the "phonemize", "style", "tokenize", "inference", "normalize" and "trim" stages on
+     * {@code trace} (if given), plus the "tts.rtf", "tts.audio_duration" and "tts.trimmed" histograms.
+     */
+    public float[] synthesize(String text, StageTrace trace) throws IOException {
+        return synthesize(text, voiceName, voiceIndex, speed, trace);
+    }
+
+    /** {@link #synthesize(String, StageTrace)} with an explicit voice and speed instead of the configured ones. */
+    public float[] synthesize(String text, String voiceName, int voiceIndex, float speed, StageTrace trace) throws IOException {
+        sessionLock.readLock().lock();
+        try {
+            return synthesizeLocked(text, voiceName, voiceIndex, speed, trace);
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    private float[] synthesizeLocked(String text, String voiceName, int voiceIndex, float speed, StageTrace trace) throws IOException {
+        if (!ensureInitialized()) {
+            throw new IOException(lastError);
+        }
+        long startNanos = System.nanoTime();
+
+        String phonemes;
+        try {
+            phonemes = phonemizer.phonemize(text, "en-us", true);
+        } catch (RuntimeException e) {
+            throw fail("phoneme conversion failed", e);
+        }
+        if (phonemes.isEmpty()) {
+            throw fail("phonemes empty", null);
+        }
+        if (trace != null) trace.stage("phonemize");
+
+        float[][] style = styles.getStyleArray(voiceName, voiceIndex);
+        if (trace != null) trace.stage("style");
+
+        long[] tokens = KokoroInference.buildTokens(phonemes);
+        if (log.isLoggable(Logger.DEBUG)) {
+            log.d("KokoroSynthesizer: phonemes='" + phonemes + "' (len=" + phonemes.length() + "), tokens=" + (tokens.length - 2));
+        }
+        if (trace != null) trace.stage("tokenize");
+
+        float[] audio;
+        try {
+            OrtSession session = ExternalOrtTts.getSession();
+            audio = KokoroInference.run(session, new long[][] { tokens }, style, speed, trace);
+        } catch (Exception e) {
+            throw fail("inference failed", e);
+        }
+        if (audio.length == 0) {
+            throw fail("empty audio from model", null);
+        }
+
+        // Real-time factor: synthesis time (excluding one-off init) / audio duration.
+        long synthUs = (System.nanoTime() - startNanos) / 1000;
+        long audioUs = (audio.length * 1_000_000L) / SAMPLE_RATE;
+        Metrics.histogram("tts.rtf", "x", 1000.0).record((synthUs * 1000L) / Math.max(1L, audioUs));
+        Metrics.latency("tts.audio_duration").record(audioUs);
+
+        float scale = PcmConversion.normalizePeak(audio, NORMALIZE_PEAK);
+        if (scale != 1.0f && log.isLoggable(Logger.DEBUG)) {
+            log.d("KokoroSynthesizer: normalized audio by " + scale + ", new maxAbs=" + NORMALIZE_PEAK);
+        }
+        if (trace != null) trace.stage("normalize");
+
+        SilenceTrimmer t = trimmer;
+        if (t != null) {
+            int before = audio.length;
+            audio = t.trim(audio);
+            Metrics.latency("tts.trimmed").record(((before - audio.length) * 1_000_000L) / SAMPLE_RATE);
+            if (audio.length == 0) {
+                throw fail("model output is all silence", null);
+            }
+            if (trace != null) trace.stage("trim");
+        }
+        return audio;
+    }
+
+    /**
+     * Converts {@code audio} to PCM16 at the sink's rate and writes it to {@code sink}, blocking until
+     * it has been played. Records "pcm" and "track_create" on {@code trace}; {@link Listener#onFirstWrite()}
+     * is where the caller closes the trace. {@code listener} may be null.
+     */
+    public void play(float[] audio, AudioSink sink, StageTrace trace, Listener listener) throws IOException {
+        Listener l = (listener != null) ? listener : new Listener() {};
+        l.onAudio(audio, SAMPLE_RATE);
+
+        byte[] pcm = PcmConversion.toPcm16Le(toRate(audio, sink.sampleRate()), gain);
+        if (trace != null) trace.stage("pcm");
+
+        sink.start();
+        try {
+            if (trace != null) trace.stage("track_create");
+            write(sink, pcm, l, true);
+            sink.drain();
+        } finally {
+            sink.stop();
+        }
+    }
+
+    /**
+     * Speaks an SSML document (see {@link SsmlParser}) through one {@code sink}. Text segments are
+     * synthesized with their own voice and speed on a background thread, one segment ahead of
+     * playback; breaks become silence without a model call. Segments play strictly in document order.
+     * Adjacent text segments overlap by a 10 ms equal-power {@link Crossfade} instead of
+     * butting their (trimmed) edges together.
+     * {@link Listener#onAudio} is called per segment, {@link Listener#onFirstWrite()} once.
+     */
+    public void speakSsml(String ssml, AudioSink sink, StageTrace trace, Listener listener) throws IOException {
+        Listener l = (listener != null) ? listener : new Listener() {};
+        SsmlParser parser = new SsmlParser(ssml, voiceName, voiceIndex, speed);
+        BlockingQueue<Object> ready = new ArrayBlockingQueue<>(2);   // Chunk, IOException, or END
+        Object end = new Object();
+
+        Thread producer = new Thread("TTS-SSML") {
+            @Override
+            public void run() {
+                Object result = end;
+                try {
+                    // The trace is only touched for the first segment; the queue hands it to playback.
+                    SsmlParser.Segment seg;
+                    boolean first = true;
+                    while ((seg = parser.next()) != null) {
+                        float[] audio = seg.isBreak()
+                                ? new float[(int) ((long) seg.breakMs * SAMPLE_RATE / 1000)]
+                                : synthesize(seg.text, seg.voiceName, seg.voiceIndex, seg.speed, first ? trace : null);
+                        first = false;
+                        ready.put(new Chunk(audio, !seg.isBreak()));
+                    }
+                } catch (IOException e) {
+                    result = e;
+                } catch (RuntimeException e) {
+                    result = new IOException("KokoroSynthesizer: SSML segment failed: " + e.getMessage(), e);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    ready.put(result);
+                } catch (InterruptedException ignored) {}
+            }
+        };
+        producer.start();
+
+        // One resampler for the whole document, so segment boundaries stay continuous.
+        PolyphaseResampler resampler = sink.sampleRate() != SAMPLE_RATE ? new PolyphaseResampler(SAMPLE_RATE, sink.sampleRate()) : null;
+        sink.start();
+        try {
+            boolean first = true;
+            float[] held = null;   // last CROSSFADE samples of the previous text segment, not yet played
+            while (true) {
+                Object item;
+                try {
+                    item = ready.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("KokoroSynthesizer: interrupted", e);
+                }
+                if (item == end) break;
+                if (item instanceof IOException) throw (IOException) item;
+
+                Chunk chunk = (Chunk) item;
+                float[] audio = chunk.audio;
+                l.onAudio(audio, SAMPLE_RATE);
+                if (held != null && chunk.speech && audio.length >= 2 * CROSSFADE) {
+                    audio = audio.clone();
+                    Crossfade.mixInto(held, 0, audio, 0, CROSSFADE);
+                } else if (held != null) {
+                    if (emit(sink, resampler, held, 0, held.length, l, first, trace)) first = false;
+                }
+                held = null;
+
+                int play = audio.length;
+                if (chunk.speech && audio.length >= 2 * CROSSFADE) {
+                    play -= CROSSFADE;
+                    held = Arrays.copyOfRange(audio, play, audio.length);
+                }
+                if (emit(sink, resampler, audio, 0, play, l, first, trace)) first = false;
+            }
+            if (held != null) {
+                emit(sink, resampler, held, 0, held.length, l, first, trace);
+            }
+            if (resampler != null) {
+                float[] tail = new float[resampler.maxOutput(resampler.taps())];
+                write(sink, PcmConversion.toPcm16Le(Arrays.copyOf(tail, resampler.flush(tail, 0)), gain), l, false);
+            }
+            sink.drain();
+        } finally {
+            producer.interrupt();
+            sink.stop();
+        }
+    }
+
+    /** {@code audio} at {@code rate}: itself if that is {@link #SAMPLE_RATE}, else resampled without added delay. */
+    static float[] toRate(float[] audio, int rate) {
+        if (rate == SAMPLE_RATE) return audio;
+        PolyphaseResampler r = new PolyphaseResampler(SAMPLE_RATE, rate);
+        float[] out = new float[r.maxOutput(audio.length) + r.maxOutput(r.taps())];
+        int n = r.process(audio, 0, audio.length, out, 0);
+        n += r.flush(out, n);
+        return Arrays.copyOfRange(out, Math.min(r.delay(), n), n);
+    }
+
+    /** One queued SSML segment: synthesized speech, or the silence of a break. */
+    private static final class Chunk {
+        final float[] audio;
+        final boolean speech;
+
+        Chunk(float[] audio, boolean speech) {
+            this.audio  = audio;
+            this.speech = speech;
+        }
+    }
+
+    /**
+     * Resamples (if {@code resampler} is set), converts and writes {@code audio[off, off+len)}; records
+     * "pcm" if {@code first}. Returns false if nothing reached the sink (so the next write is still first).
+     */
+    private boolean emit(AudioSink sink, PolyphaseResampler resampler, float[] audio, int off, int len,
+                      Listener l, boolean first, StageTrace trace) throws IOException {
+        float[] out;
+        if (resampler != null) {
+            out = new float[resampler.maxOutput(len)];
+            out = Arrays.copyOf(out, resampler.process(audio, off, len, out, 0));
+        } else {
+            out = (off == 0 && len == audio.length) ? audio : Arrays.copyOfRange(audio, off, off + len);
+        }
+        if (out.length == 0) return false;
+        byte[] pcm = PcmConversion.toPcm16Le(out, gain);
+        if (first && trace != null) trace.stage("pcm");
+        write(sink, pcm, l, first);
+        return true;
+    }
+
+    /** Writes all of {@code pcm} in {@link #WRITE_BYTES} chunks; calls onFirstWrite after the first if {@code first}. */
+    private void write(AudioSink sink, byte[] pcm, Listener l, boolean first) throws IOException {
+        int written = 0;
+        while (written < pcm.length) {
+            int n = sink.write(pcm, written, Math.min(WRITE_BYTES, pcm.length - written));
+            if (n <= 0) {
+                throw new IOException("AudioSink.write failed with code " + n);
+            }
+            if (first && written == 0) l.onFirstWrite();
+            written += n;
+        }
+        if (log.isLoggable(Logger.DEBUG)) {
+            log.d("KokoroSynthesizer: wrote " + (written / 2) + " samples");
+        }
+    }
+
+    /** {@link #synthesize} followed by {@link #play}. */
+    public void speak(String text, AudioSink sink, StageTrace trace, Listener listener) throws IOException {
+        play(synthesize(text, trace), sink, trace, listener);
+    }
+
+    private IOException fail(String what, Throwable cause) {
+        lastError = "KokoroSynthesizer: " + what + (cause != null ? ": " + cause.getMessage() : "");
+        return new IOException(lastError, cause);
+    }
+}
@@ -0,0 +1,56 @@
+package myapp.app.tts;
+
+/**
+ * Post-processing of model output before playback: peak normalization and float -> int16.
+ * Pure JVM (no Android types) so it can be benchmarked off-device.
+ */
+public final class PcmConversion {
+
+    private PcmConversion() {}
+
+    /**
+     * Scales {@code audio} in place so its peak is {@code target}.
+     * Returns the applied scale (1 if the signal is silent).
+     */
+    public static float normalizePeak(float[] audio, float target) {
+        float maxAbs = 0.0f;
+        for (float v : audio) {
+            float a = Math.abs(v);
+            if (a > maxAbs) maxAbs = a;
+        }
+        if (maxAbs <= 0.0f) {
+            return 1.0f;
+        }
+        float scale = target / maxAbs;
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] *= scale;
+        }
+        return scale;
+    }
+
+    /** float[-1,1] * gain -> clipped int16. */
+    public static short[] toPcm16(float[] audio, float gain) {
+        short[] pcm = new short[audio.length];
+        for (int i = 0; i < audio.length; i++) {
+            float v = audio[i] * gain;
+            if (v > 1.0f) v = 1.0f;
+            if (v < -1.0f) v = -1.0f;
+            pcm[i] = (short) (v * Short.MAX_VALUE);
+        }
+        return pcm;
+    }
+
+    /** Same as {@link #toPcm16} but packed little-endian, ready for an {@code AudioSink}. */
+    public static byte[] toPcm16Le(float[] audio, float gain) {
+        byte[] pcm = new byte[audio.length * 2];
+        for (int i = 0; i < audio.length; i++) {
+            float v = audio[i] * gain;
+            if (v > 1.0f) v = 1.0f;
+            if (v < -1.0f) v = -1.0f;
+            short s = (short) (v * Short.MAX_VALUE);
+            pcm[2 * i]     = (byte) s;
+            pcm[2 * i + 1] = (byte) (s >> 8);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,170 @@
+package myapp.app.tts
+
+import myapp.app.utils.LruCache
+import java.io.BufferedReader
+
+/**
+ * Text -> Kokoro phoneme string, without any Android dependency.
+ *
+ * - Uses CMU IPA entries from [dictionary] when available (keys are uppercase words).
+ * - For missing words, uses the rule-based [G2p] fallback (longest-match grapheme rules).
+ * - [PhonemeConverter] wraps this with the dictionary loaded from res/raw; benchmarks use it directly.
+ * - Whole texts and single words are memoized in bounded LRU caches ("tts.cache.phrases",
+ *   "tts.cache.words"), so repeated names and boilerplate cost a hash lookup. Pass 0 to disable.
+ */
+class Phonemizer @JvmOverloads constructor(
+    private val phonemeMap: Map<String, String>,
+    wordCacheSize: Int = WORD_CACHE_SIZE,
+    phraseCacheSize: Int = PHRASE_CACHE_SIZE,
+) {
+
+    companion object {
+        const val WORD_CACHE_SIZE = 8192
+        const val PHRASE_CACHE_SIZE = 512
+
+        private val NON_WORD = Regex("[^a-zA-Z']+")
+        private val NON_LETTER = Regex("[^a-zA-Z']")
+        private val DIGIT = Regex("[0-9]")
+        private val TOKEN_SPLIT = Regex("(?<=\\W)|(?=\\W)")
+
+        /** Parses cmudict_ipa lines ("WORD<TAB>ipa[,variant...]"), skipping comments. */
+        @JvmStatic
+        fun parseDictionary(reader: BufferedReader): Map<String, String> {
+            val map = HashMap<String, String>()
+            reader.useLines { lines ->
+                lines
+                    .filter { it.isNotBlank() && !it.startsWith(";;;") && !it.startsWith(";") }
+                    .forEach { line ->
+                        val parts = line.split("\t", limit = 2)
+                        if (parts.size == 2) {
+                            map[parts[0]] = parts[1]
+                        } else {
+                            println("Phonemizer: invalid dict line: $line")
+                        }
+                    }
+            }
+            return map
+        }
+    }
+
+    private val wordCache = LruCache<String, String>("tts.cache.words", wordCacheSize)
+    private val phraseCache = LruCache<String, String>("tts.cache.phrases", phraseCacheSize)
+
+    val dictionarySize: Int
+        get() = phonemeMap.size
+
+    private fun convertToPhonemes(word: String): String {
+        // Keep punctuation as-is
+        if (word.matches(NON_WORD)) {
+            return word
+        }
+
+        // CMU keys are uppercase, no punctuation
+        val cleanWord = word.replace(NON_LETTER, "").uppercase()
+        if (cleanWord.isEmpty()) return word
+
+        // In cmudict_ipa, stress digits (0/1/2) appear on vowels; replace with a generic primary marker
+        val key = cleanWord.replace(DIGIT, "ˈ")
+
+        val dictHit = phonemeMap[key]
+        if (dictHit != null) {
+            // Use the first variant
+            return dictHit.split(",").first().trim()
+        }
+
+        // Fallback: rule-based grapheme→IPA
+        return fallbackTranscribe(word)
+    }
+
+    /** Rule-based G2P (longest-match grapheme trie, see [G2p]) for out-of-dictionary words. */
+    private fun fallbackTranscribe(word: String): String = G2p.english().transcribe(word)
+
+    fun phonemize(text: String, lang: String = "en-us", norm: Boolean = true): String {
+        val key = if (norm) "$lang|n|$text" else "$lang|r|$text"
+        phraseCache.get(key)?.let { return it }
+
+        val normalized = if (norm) normalizeText(text) else text
+
+        // Split into tokens but keep punctuation as separate tokens
+        val tokens = normalized.split(TOKEN_SPLIT)
+            .filter { it.isNotBlank() }
+
+        val result = StringBuilder()
+        tokens.forEachIndexed { index, token ->
+            val isWord = !token.matches(NON_WORD)
+            val ipa = if (isWord) wordToPhonemes(token) else token
+
+            if (index > 0 && isWord) {
+                result.append(" ")
+            }
+            result.append(ipa)
+        }
+
+        val out = postProcessPhonemes(result.toString(), lang)
+        phraseCache.put(key, out)
+        return out
+    }
+
+    /** Empties the word and phrase caches (memory pressure); they refill as text is spoken. */
+    fun clearCaches() {
+        wordCache.clear()
+        phraseCache.clear()
+    }
+
+    /** Dictionary/fallback lookup plus stress fix-up for one word, memoized. */
+    private fun wordToPhonemes(word: String): String {
+        wordCache.get(word)?.let { return it }
+        val tmp = convertToPhonemes(word)
+            .replace(" ", "")
+            .replace("ˌ", "")
+        val ipa = adjustStressMarkers(tmp)
+        wordCache.put(word, ipa)
+        return ipa
+    }
+
+    fun adjustStressMarkers(input: String): String {
+        val vowels = setOf(
+            'a','e','i','o','u',
+            'ɑ','ɐ','ɔ','æ','ɒ','ə','ɨ','ɯ','ɛ','œ','ɝ','ɞ','ɪ','ʊ','ʌ'
+        )
+
+        val builder = StringBuilder(input)
+        var i = 0
+
+        while (i < builder.length) {
+            if (builder[i] == 'ˈ' || builder[i] == 'ˌ') {
+                val stressIndex = i
+                val stressChar = builder[i]
+                for (j in stressIndex + 1 until builder.length) {
+                    if (builder[j] in vowels) {
+                        builder.deleteCharAt(stressIndex)
+                        builder.insert(j - 1, stressChar)
+                        i = j
+                        break
+                    }
+                }
+            }
+            i++
+        }
+
+        return builder.toString()
+    }
+
+    /** Numbers, dates, currency, abbreviations and punctuation to speakable text, see [TextNormalizer]. */
+    private fun normalizeText(text: String): String = TextNormalizer.normalize(text)
+
+    private fun postProcessPhonemes(phonemes: String, lang: String): String {
+        var result = phonemes
+            .replace("r", "ɹ")
+
+        // Kokoro-specific fixes (kept from demo)
+        result = result.replace("kəkˈoɹoʊ", "kˈoʊkəɹoʊ")
+            .replace("kəkˈɔɹəʊ", "kˈəʊkəɹəʊ")
+
+        if (lang == "en-us") {
+            result = result.replace("ti", "di")
+        }
+
+        return result.trim()
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package myapp.app.tts;
+
+import myapp.app.log.Logger;
+import myapp.app.metrics.Metrics;
+import myapp.app.utils.ResourceGovernor;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Speculative synthesis of utterances the caller expects to speak next (the next list item, the
+ * next sentence of a paragraph), so {@link #take} can hand over finished PCM instead of running the
+ * model on the critical path.
+ *
+ * Preparations run one at a time on a single daemon thread at {@link Thread#MIN_PRIORITY}, so they
+ * only use CPU the foreground path leaves idle. At most {@code capacity} utterances are held, queued,
+ * running or ready; preparing one more cancels the oldest. Preparations are expected to be consumed
+ * in order: taking one cancels everything prepared before it, since the caller has moved past them.
+ * A running synthesis cannot be interrupted; cancelling it just discards its result.
+ *
+ * Counts "tts.prefetch.hits", ".misses" and ".cancelled"; "tts.prefetch_wait" is how long
+ * {@link #take} blocked on a preparation that was still running.
+ *
+ * As a {@link ResourceGovernor} resource ("tts.prefetch") it drops prepared audio at the CACHES
+ * tier and also stops its thread at POOLS; the next {@link #prepare} starts a new one.
+ */
+public final class Prefetcher implements ResourceGovernor.Resource {
+
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final KokoroSynthesizer synth;
+    private final Logger log;
+    private final int capacity;
+    private ExecutorService worker;   // null until needed and after trimming to POOLS
+    private boolean closed;
+    private final LinkedHashMap<String, Future<float[]>> prepared = new LinkedHashMap<>();   // oldest first
+
+    private final AtomicLong hits      = Metrics.counter("tts.prefetch.hits");
+    private final AtomicLong misses    = Metrics.counter("tts.prefetch.misses");
+    private final AtomicLong cancelled = Metrics.counter("tts.prefetch.cancelled");
+
+    public Prefetcher(KokoroSynthesizer synth, int capacity, Logger log) {
+        this.synth    = synth;
+        this.log      = log;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Starts synthesizing {@code text} in the background unless it is already prepared.
+     * Returns false if it was (or the prefetcher is shut down).
+     */
+    public synchronized boolean prepare(final String text, final String voiceName, final int voiceIndex, final float speed) {
+        String key = key(text, voiceName, voiceIndex, speed);
+        if (prepared.containsKey(key) || closed) return false;
+        while (prepared.size() >= capacity) {
+            Iterator<Future<float[]>> it = prepared.values().iterator();
+            cancel(it.next());
+            it.remove();
+        }
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "TTS-PREPARE");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        prepared.put(key, worker.submit(() -> synth.synthesize(text, voiceName, voiceIndex, speed, null)));
+        return true;
+    }
+
+    /**
+     * The prepared audio for this utterance, waiting for it if it is still being synthesized;
+     * null if it was never prepared, was cancelled or failed (the caller then synthesizes it itself).
+     * Everything prepared before it is cancelled.
+     */
+    public float[] take(String text, String voiceName, int voiceIndex, float speed) {
+        String key = key(text, voiceName, voiceIndex, speed);
+        Future<float[]> f;
+        synchronized (this) {
+            f = prepared.get(key);
+            if (f != null) {
+                // Insertion order: everything before the taken entry has been skipped.
+                Iterator<Map.Entry<String, Future<float[]>>> it = prepared.entrySet().iterator();
+                while (true) {
+                    Map.Entry<String, Future<float[]>> e = it.next();
+                    it.remove();
+                    if (e.getValue() == f) break;
+                    cancel(e.getValue());
+                }
+            }
+        }
+        if (f == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        long start = System.nanoTime();
+        boolean running = !f.isDone();
+        try {
+            float[] audio = f.get();
+            if (running) Metrics.latency("tts.prefetch_wait").record((System.nanoTime() - start) / 1000);
+            hits.incrementAndGet();
+            return audio;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+            // shut down or evicted between remove and get
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            log.w("Prefetcher: preparation failed: " + (cause instanceof IOException ? cause.getMessage() : String.valueOf(cause)));
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Cancels every preparation, e.g. when the content being read changes. */
+    public synchronized void cancelAll() {
+        for (Future<float[]> f : prepared.values()) cancel(f);
+        prepared.clear();
+    }
+
+    public synchronized int size() {
+        return prepared.size();
+    }
+
+    public synchronized void shutdown() {
+        closed = true;
+        cancelAll();
+        if (worker != null) worker.shutdownNow();
+        worker = null;
+    }
+
+    @Override
+    public String name() {
+        return "tts.prefetch";
+    }
+
+    /** Audio of the finished preparations. */
+    @Override
+    public synchronized long footprintBytes() {
+        long bytes = 0;
+        for (Future<float[]> f : prepared.values()) {
+            if (!f.isDone() || f.isCancelled()) continue;
+            try {
+                bytes += 4L * f.get().length;
+            } catch (Exception ignored) {
+                // failed: holds nothing
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized void trim(int tier) {
+        if (tier >= ResourceGovernor.CACHES) cancelAll();
+        if (tier >= ResourceGovernor.POOLS && worker != null) {
+            worker.shutdown();   // a cancelled preparation that is still running finishes on its own
+            worker = null;
+        }
+    }
+
+    private void cancel(Future<float[]> f) {
+        if (f != null && f.cancel(false)) cancelled.incrementAndGet();
+    }
+
+    private static String key(String text, String voiceName, int voiceIndex, float speed) {
+        return String.format(Locale.US, "%s#%d@%.3f|%s", voiceName, voiceIndex, speed, text);
+    }
+}
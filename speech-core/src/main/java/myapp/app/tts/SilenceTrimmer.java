@@ -0,0 +1,83 @@
+package myapp.app.tts;
+
+import java.util.Arrays;
+
+/**
+ * Cuts leading and trailing near-silence from synthesized audio.
+ *
+ * One pass over the samples computes the RMS of each 10 ms frame. Frames louder than both
+ * {@code thresholdDb} below the loudest frame and the absolute {@code floorDb} count as sound. The
+ * kept range runs from the first to the last sound frame, widened by the lead and trail padding.
+ * Cut edges get a short raised-cosine fade so the cut never clicks.
+ */
+public final class SilenceTrimmer {
+
+    private final int sampleRate;
+    private final int frame;
+
+    private float thresholdDb   = 40f;   // below the loudest frame
+    private float floorDb       = -60f;  // dBFS; quieter frames are always silence
+    private int   leadPadMs     = 30;
+    private int   trailPadMs    = 80;
+    private int   fadeMs        = 5;
+
+    public SilenceTrimmer(int sampleRate) {
+        this.sampleRate = sampleRate;
+        this.frame      = Math.max(1, sampleRate / 100);
+    }
+
+    public SilenceTrimmer setThresholdDb(float db)  { this.thresholdDb = db;  return this; }
+    public SilenceTrimmer setFloorDb(float dbfs)    { this.floorDb     = dbfs; return this; }
+    public SilenceTrimmer setLeadPaddingMs(int ms)  { this.leadPadMs   = Math.max(0, ms); return this; }
+    public SilenceTrimmer setTrailPaddingMs(int ms) { this.trailPadMs  = Math.max(0, ms); return this; }
+    public SilenceTrimmer setFadeMs(int ms)         { this.fadeMs      = Math.max(0, ms); return this; }
+
+    /** [start, end) of the part of {@code audio} to keep; [0, 0) if it is all silence. */
+    public int[] bounds(float[] audio) {
+        int frames = (audio.length + frame - 1) / frame;
+        if (frames == 0) return new int[] { 0, 0 };
+
+        float[] energy = new float[frames];   // mean square per frame
+        float   loudest = 0f;
+        for (int f = 0, i = 0; f < frames; f++) {
+            int   end = Math.min(audio.length, i + frame);
+            float sum = 0f;
+            int   n   = end - i;
+            for (; i < end; i++) sum += audio[i] * audio[i];
+            energy[f] = sum / n;
+            if (energy[f] > loudest) loudest = energy[f];
+        }
+
+        float relative = loudest * (float) Math.pow(10, -thresholdDb / 10);
+        float absolute = (float) Math.pow(10, floorDb / 10);
+        float limit    = Math.max(relative, absolute);
+
+        int first = -1, last = -1;
+        for (int f = 0; f < frames; f++) {
+            if (energy[f] > limit) {
+                if (first < 0) first = f;
+                last = f;
+            }
+        }
+        if (first < 0) return new int[] { 0, 0 };
+
+        int start = Math.max(0, first * frame - leadPadMs * sampleRate / 1000);
+        int end   = Math.min(audio.length, (last + 1) * frame + trailPadMs * sampleRate / 1000);
+        return new int[] { start, end };
+    }
+
+    /** The kept part of {@code audio}, faded at cut edges; {@code audio} itself if nothing is cut. */
+    public float[] trim(float[] audio) {
+        int[] b = bounds(audio);
+        if (b[0] == 0 && b[1] == audio.length) return audio;
+
+        float[] out  = Arrays.copyOfRange(audio, b[0], b[1]);
+        int     fade = Math.min(out.length / 2, fadeMs * sampleRate / 1000);
+        for (int i = 0; i < fade; i++) {
+            float g = 0.5f - 0.5f * (float) Math.cos(Math.PI * (i + 0.5) / fade);
+            if (b[0] > 0)            out[i]                  *= g;
+            if (b[1] < audio.length) out[out.length - 1 - i] *= g;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,439 @@
+package myapp.app.tts;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Pull parser for the SSML subset the synthesizer understands. It turns markup into an ordered
+ * stream of {@link Segment}s: text to synthesize with its own voice and speed, or a pause.
+ *
+ *   <speak>                      optional root
+ *   <break time="500ms"/>        pause; time in ms or s, or strength="none|x-weak|weak|medium|strong|x-strong"
+ *   <prosody rate="slow">        x-slow|slow|medium|fast|x-fast, "80%", or a multiplier "1.2"; nests
+ *   <voice name="af" variant="12">  voices_NAME.bin, style row VARIANT (default: the enclosing one)
+ *   <say-as interpret-as="...">  cardinal|number|ordinal|digits|characters|spell-out|telephone|date|time
+ *   <sub alias="...">            speaks the alias instead of the content
+ *   <p>, <s>                     paragraph (medium pause) / sentence boundaries
+ * Other elements are ignored but their content is kept. The five XML entities and numeric
+ * character references are decoded. A '<' that cannot start a tag is taken literally.
+ *
+ * Input is scanned incrementally: each {@link #next()} reads only as far as the next segment
+ * boundary, so the first segment can be synthesized before the rest of the document is parsed.
+ */
+public final class SsmlParser {
+
+    private static final int MAX_BREAK_MS = 10_000;
+    private static final float MIN_SPEED = 0.5f, MAX_SPEED = 2.0f;
+
+    /** One unit of output: text (with its voice and speed) or a pause. */
+    public static final class Segment {
+        public final String text;         // null for a pause
+        public final int    breakMs;
+        public final String voiceName;
+        public final int    voiceIndex;
+        public final float  speed;
+
+        Segment(String text, int breakMs, String voiceName, int voiceIndex, float speed) {
+            this.text       = text;
+            this.breakMs    = breakMs;
+            this.voiceName  = voiceName;
+            this.voiceIndex = voiceIndex;
+            this.speed      = speed;
+        }
+
+        public boolean isBreak() {
+            return text == null;
+        }
+
+        @Override
+        public String toString() {
+            return isBreak() ? "break(" + breakMs + "ms)"
+                             : String.format(Locale.US, "%s:%d@%.2f \"%s\"", voiceName, voiceIndex, speed, text);
+        }
+    }
+
+    /** Voice/speed in effect inside an element; one per open element. */
+    private static final class Scope {
+        final String  tag;
+        final String  voiceName;
+        final int     voiceIndex;
+        final float   speed;
+        final String  sayAs;      // interpret-as, or null
+        final boolean skip;       // inside <sub>: content replaced by the alias
+
+        Scope(String tag, String voiceName, int voiceIndex, float speed, String sayAs, boolean skip) {
+            this.tag        = tag;
+            this.voiceName  = voiceName;
+            this.voiceIndex = voiceIndex;
+            this.speed      = speed;
+            this.sayAs      = sayAs;
+            this.skip       = skip;
+        }
+    }
+
+    private final String s;
+    private final int n;
+    private int pos;
+
+    private final ArrayDeque<Scope>   scopes = new ArrayDeque<>();
+    private final ArrayDeque<Segment> ready  = new ArrayDeque<>();
+    private final StringBuilder text  = new StringBuilder();
+    private final StringBuilder sayAs = new StringBuilder();
+
+    /** Parses {@code ssml}; text outside any voice/prosody element uses the given defaults. */
+    public SsmlParser(String ssml, String voiceName, int voiceIndex, float speed) {
+        this.s = ssml;
+        this.n = ssml.length();
+        scopes.push(new Scope("", voiceName, voiceIndex, speed, null, false));
+    }
+
+    /** True if {@code text} is an SSML document (starts with a speak element, after an optional XML prolog). */
+    public static boolean isSsml(String text) {
+        String t = text.trim();
+        if (t.startsWith("<?xml")) {
+            int end = t.indexOf("?>");
+            if (end < 0) return false;
+            t = t.substring(end + 2).trim();
+        }
+        return t.startsWith("<speak") && t.length() > 6 && (t.charAt(6) == '>' || Character.isWhitespace(t.charAt(6)));
+    }
+
+    /** The next segment in document order, or null at the end. */
+    public Segment next() {
+        while (ready.isEmpty() && pos < n) {
+            char c = s.charAt(pos);
+            if (c == '<' && pos + 1 < n && isTagStart(s.charAt(pos + 1))) {
+                tag();
+            } else if (c == '&') {
+                appendChar(entity());
+            } else {
+                appendChar(c);
+                pos++;
+            }
+        }
+        if (ready.isEmpty()) flushText();
+        return ready.poll();
+    }
+
+    // ======== TAGS ========
+
+    private static boolean isTagStart(char c) {
+        return c == '/' || c == '!' || c == '?' || Character.isLetter(c);
+    }
+
+    private void tag() {
+        if (s.startsWith("<!--", pos)) {
+            int end = s.indexOf("-->", pos + 4);
+            pos = end < 0 ? n : end + 3;
+            return;
+        }
+        if (s.startsWith("<?", pos) || s.startsWith("<!", pos)) {
+            int end = s.indexOf('>', pos);
+            pos = end < 0 ? n : end + 1;
+            return;
+        }
+
+        boolean closing = s.charAt(pos + 1) == '/';
+        int p = pos + (closing ? 2 : 1);
+        int nameStart = p;
+        while (p < n && !Character.isWhitespace(s.charAt(p)) && s.charAt(p) != '>' && s.charAt(p) != '/') p++;
+        String name = s.substring(nameStart, p).toLowerCase(Locale.ROOT);
+
+        int end = p;
+        char quote = 0;
+        while (end < n && (quote != 0 || s.charAt(end) != '>')) {
+            char c = s.charAt(end);
+            if (quote == 0 && (c == '"' || c == '\'')) quote = c;
+            else if (c == quote)                       quote = 0;
+            end++;
+        }
+        String attrs = s.substring(p, Math.min(end, n));
+        boolean selfClosing = attrs.endsWith("/");
+        pos = Math.min(end + 1, n);
+
+        if (closing) close(name);
+        else         open(name, attrs, selfClosing);
+    }
+
+    private void open(String name, String attrs, boolean selfClosing) {
+        Scope cur = scopes.peek();
+        if (cur.sayAs != null) return;   // say-as content is plain text
+        switch (name) {
+            case "break":
+                addBreak(breakMs(attr(attrs, "time"), attr(attrs, "strength")));
+                return;
+            case "p":
+                flushText();
+                if (selfClosing) addBreak(400);
+                else             scopes.push(copy(cur, name));
+                return;
+            case "s":
+                flushText();
+                if (!selfClosing) scopes.push(copy(cur, name));
+                return;
+            case "prosody": {
+                if (selfClosing) return;
+                flushText();
+                float speed = rate(attr(attrs, "rate"), cur.speed);
+                scopes.push(new Scope(name, cur.voiceName, cur.voiceIndex, speed, cur.sayAs, cur.skip));
+                return;
+            }
+            case "voice": {
+                if (selfClosing) return;
+                flushText();
+                String voice = attr(attrs, "name");
+                String variant = attr(attrs, "variant");
+                int index = cur.voiceIndex;
+                if (variant != null) {
+                    try {
+                        index = Integer.parseInt(variant.trim());
+                    } catch (NumberFormatException ignored) {}
+                }
+                scopes.push(new Scope(name, (voice != null && !voice.isEmpty()) ? voice : cur.voiceName, index, cur.speed, cur.sayAs, cur.skip));
+                return;
+            }
+            case "say-as":
+                if (selfClosing) return;
+                sayAs.setLength(0);
+                scopes.push(new Scope(name, cur.voiceName, cur.voiceIndex, cur.speed, attr(attrs, "interpret-as"), cur.skip));
+                return;
+            case "sub": {
+                String alias = attr(attrs, "alias");
+                if (alias != null) {
+                    separate();
+                    text.append(alias);
+                }
+                if (!selfClosing) scopes.push(new Scope(name, cur.voiceName, cur.voiceIndex, cur.speed, cur.sayAs, alias != null));
+                return;
+            }
+            default:
+                if (!selfClosing && !"speak".equals(name)) scopes.push(copy(cur, name));
+                return;
+        }
+    }
+
+    private void close(String name) {
+        // Pop up to and including the matching element; stray closing tags are ignored.
+        boolean open = false;
+        for (Scope sc : scopes) {
+            if (sc.tag.equals(name)) { open = true; break; }
+        }
+        if (!open) return;
+
+        while (scopes.size() > 1) {
+            Scope sc = scopes.peek();
+            if ("say-as".equals(sc.tag)) {
+                separate();
+                interpret(sc.sayAs, sayAs.toString(), text);
+                sayAs.setLength(0);
+            } else if (isBoundary(sc.tag)) {
+                flushText();   // before the pop: the text carries this element's voice and speed
+            }
+            scopes.pop();
+            if ("p".equals(sc.tag)) addBreak(400);
+            if (sc.tag.equals(name)) break;
+        }
+    }
+
+    /** Elements whose start and end split the text into separate segments. */
+    private static boolean isBoundary(String tag) {
+        return "prosody".equals(tag) || "voice".equals(tag) || "p".equals(tag) || "s".equals(tag);
+    }
+
+    private static Scope copy(Scope cur, String tag) {
+        return new Scope(tag, cur.voiceName, cur.voiceIndex, cur.speed, cur.sayAs, cur.skip);
+    }
+
+    // ======== TEXT ========
+
+    private void appendChar(char c) {
+        Scope cur = scopes.peek();
+        if (cur.skip) return;
+        if (cur.sayAs != null) sayAs.append(c);
+        else                   text.append(c);
+    }
+
+    private char entity() {
+        int semi = s.indexOf(';', pos);
+        if (semi < 0 || semi - pos > 10) {
+            pos++;
+            return '&';
+        }
+        String e = s.substring(pos + 1, semi);
+        char c;
+        switch (e) {
+            case "amp":  c = '&';  break;
+            case "lt":   c = '<';  break;
+            case "gt":   c = '>';  break;
+            case "quot": c = '"';  break;
+            case "apos": c = '\''; break;
+            default:
+                try {
+                    if      (e.startsWith("#x")) c = (char) Integer.parseInt(e.substring(2), 16);
+                    else if (e.startsWith("#"))  c = (char) Integer.parseInt(e.substring(1));
+                    else { pos++; return '&'; }
+                } catch (NumberFormatException ex) {
+                    pos++;
+                    return '&';
+                }
+        }
+        pos = semi + 1;
+        return c;
+    }
+
+    private void separate() {
+        if (text.length() > 0 && !Character.isWhitespace(text.charAt(text.length() - 1))) text.append(' ');
+    }
+
+    /** Emits pending text (if any) with the voice and speed currently in effect. */
+    private void flushText() {
+        String t = text.toString().trim();
+        text.setLength(0);
+        if (t.isEmpty()) return;
+        Scope cur = scopes.peek();
+        ready.add(new Segment(t, 0, cur.voiceName, cur.voiceIndex, cur.speed));
+    }
+
+    private void addBreak(int ms) {
+        flushText();
+        if (ms <= 0) return;
+        Segment last = ready.peekLast();
+        if (last != null && last.isBreak()) {
+            ready.pollLast();
+            ms = Math.min(MAX_BREAK_MS, ms + last.breakMs);
+        }
+        Scope cur = scopes.peek();
+        ready.add(new Segment(null, ms, cur.voiceName, cur.voiceIndex, cur.speed));
+    }
+
+    // ======== ATTRIBUTES ========
+
+    /** Value of {@code name="..."} (or single quotes) in {@code attrs}, entities not decoded; null if absent. */
+    static String attr(String attrs, String name) {
+        int from = 0;
+        while (true) {
+            int at = attrs.indexOf(name, from);
+            if (at < 0) return null;
+            int p = at + name.length();
+            boolean boundary = at == 0 || Character.isWhitespace(attrs.charAt(at - 1));
+            while (p < attrs.length() && Character.isWhitespace(attrs.charAt(p))) p++;
+            if (boundary && p < attrs.length() && attrs.charAt(p) == '=') {
+                p++;
+                while (p < attrs.length() && Character.isWhitespace(attrs.charAt(p))) p++;
+                if (p >= attrs.length()) return null;
+                char q = attrs.charAt(p);
+                if (q == '"' || q == '\'') {
+                    int end = attrs.indexOf(q, p + 1);
+                    return end < 0 ? attrs.substring(p + 1) : attrs.substring(p + 1, end);
+                }
+                int end = p;
+                while (end < attrs.length() && !Character.isWhitespace(attrs.charAt(end)) && attrs.charAt(end) != '/') end++;
+                return attrs.substring(p, end);
+            }
+            from = at + 1;
+        }
+    }
+
+    static int breakMs(String time, String strength) {
+        if (time != null) {
+            String t = time.trim().toLowerCase(Locale.ROOT);
+            try {
+                double ms;
+                if      (t.endsWith("ms")) ms = Double.parseDouble(t.substring(0, t.length() - 2));
+                else if (t.endsWith("s"))  ms = Double.parseDouble(t.substring(0, t.length() - 1)) * 1000;
+                else                       ms = Double.parseDouble(t);
+                return (int) Math.max(0, Math.min(MAX_BREAK_MS, ms));
+            } catch (NumberFormatException ignored) {
+                // fall through to strength
+            }
+        }
+        if (strength == null) return 400;
+        switch (strength.trim().toLowerCase(Locale.ROOT)) {
+            case "none":     return 0;
+            case "x-weak":   return 100;
+            case "weak":     return 200;
+            case "strong":   return 700;
+            case "x-strong": return 1000;
+            default:         return 400;
+        }
+    }
+
+    static float rate(String rate, float current) {
+        if (rate == null) return current;
+        String r = rate.trim().toLowerCase(Locale.ROOT);
+        float f;
+        switch (r) {
+            case "x-slow":  f = 0.6f;  break;
+            case "slow":    f = 0.8f;  break;
+            case "medium":
+            case "default": f = 1.0f;  break;
+            case "fast":    f = 1.25f; break;
+            case "x-fast":  f = 1.5f;  break;
+            default:
+                try {
+                    f = r.endsWith("%") ? Float.parseFloat(r.substring(0, r.length() - 1)) / 100f : Float.parseFloat(r);
+                } catch (NumberFormatException e) {
+                    return current;
+                }
+        }
+        return Math.max(MIN_SPEED, Math.min(MAX_SPEED, current * f));
+    }
+
+    // ======== SAY-AS ========
+
+    /** Expands say-as content into words via {@link TextNormalizer}; unknown classes pass the text through. */
+    static void interpret(String as, String content, StringBuilder out) {
+        String c = content.trim();
+        if (as == null || c.isEmpty()) {
+            out.append(c);
+            return;
+        }
+        switch (as.toLowerCase(Locale.ROOT)) {
+            case "cardinal":
+            case "number":
+            case "ordinal": {
+                String digits = c.replace(",", "");
+                try {
+                    long v = Long.parseLong(digits);
+                    if (as.equalsIgnoreCase("ordinal")) TextNormalizer.appendOrdinal(v, out);
+                    else                                TextNormalizer.appendCardinal(v, out);
+                } catch (NumberFormatException e) {
+                    TextNormalizer.normalize(c, out);
+                }
+                return;
+            }
+            case "digits":
+                TextNormalizer.appendDigits(c, 0, c.length(), out);
+                return;
+            case "characters":
+            case "spell-out":
+                for (int i = 0; i < c.length(); i++) {
+                    char ch = c.charAt(i);
+                    if (Character.isWhitespace(ch)) continue;
+                    if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+                    if (ch >= '0' && ch <= '9') TextNormalizer.appendDigits(c, i, i + 1, out);
+                    else                        out.append(Character.toUpperCase(ch));
+                }
+                return;
+            case "telephone": {
+                // digit by digit, groups separated by a short pause
+                boolean group = false;
+                for (int i = 0; i < c.length(); i++) {
+                    char ch = c.charAt(i);
+                    if (ch >= '0' && ch <= '9') {
+                        if (group) out.append(' ');
+                        TextNormalizer.appendDigits(c, i, i + 1, out);
+                        group = true;
+                    } else if (group && (ch == '-' || ch == ' ' || ch == '.' || ch == ')')) {
+                        out.append(',');
+                        group = false;
+                        out.append(' ');
+                    }
+                }
+                return;
+            }
+            default:
+                TextNormalizer.normalize(c, out);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+// C:\dev\GPT\github\android_02\app\src\main\java\myapp\app\tts\StyleLoaderJava.java
+package myapp.app.tts;
+
+import myapp.app.log.Logger;
+import myapp.app.utils.ModelAssetManager;
+import myapp.app.utils.ModelAssets;
+import myapp.app.utils.ResourceGovernor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Flexible style loader:
+ *
+ * - Supports multiple voice files: af.bin, au.bin, bf.bin, etc.
+ * - Each file is float32, shape [N, 256] (N styles, 256-dim vectors).
+ * - Files are stored in the models directory given to the constructor
+ *   (on the device: /sdcard/Android/data/myapp.app/files/models/voices_XX.bin)
+ *
+ *   e.g. voices_af.bin, voices_au.bin, voices_bf.bin, ...
+ *
+ * - Public API is still:
+ *
+ *   getStyleArray(String name, int index)
+ *
+ *   Where "name" can be "af", "au", "bf", etc.
+ *   And "index" is [0 .. N-1].
+ *
+ * - If requested voice/index missing, falls back to a neutral zero style.
+ *
+ * - Loaded tables are cached; the cache is a {@link ResourceGovernor} resource ("tts.styles")
+ *   and is simply reloaded from disk after it has been trimmed.
+ */
+public class StyleLoaderJava implements ResourceGovernor.Resource {
+
+    private static final String TAG = "StyleLoaderJava";
+    private static final int STYLE_DIM = 256;
+
+    private final File modelsDir;
+    private final ModelAssetManager assets;
+    private final Logger log;
+
+    // Cache: "af" -> float[numVoices][256]
+    private final Map<String, float[][]> cache = new HashMap<>();
+
+    public StyleLoaderJava(File modelsDir) {
+        this(modelsDir, null, Logger.NONE);
+    }
+
+    /** Voices declared in the asset manifest are awaited there instead of assumed present. */
+    public StyleLoaderJava(File modelsDir, ModelAssetManager assets, Logger log) {
+        this.modelsDir = modelsDir;
+        this.assets    = assets;
+        this.log       = log;
+    }
+
+    // Synchronized: batch rendering resolves styles from several front-end threads.
+    private synchronized float[][] loadVoices(String voiceName) throws IOException {
+        if (voiceName == null || voiceName.isEmpty()) {
+            throw new IOException("voiceName is null/empty");
+        }
+
+        // If cached, return immediately
+        float[][] cached = cache.get(voiceName);
+        if (cached != null) {
+            return cached;
+        }
+
+        File voicesFile = (assets != null) ? assets.awaitIfDeclared(ModelAssets.VOICES_PREFIX + voiceName) : null;
+        if (voicesFile == null) {
+            if (modelsDir == null) {
+                throw new IOException("No models directory for voice '" + voiceName + "'");
+            }
+            voicesFile = new File(modelsDir, "voices_" + voiceName + ".bin");
+        }
+
+        if (log.isLoggable(Logger.DEBUG)) {
+            log.d(TAG + ": Loading voice '" + voiceName + "' from: " + voicesFile.getAbsolutePath());
+        }
+
+        if (!voicesFile.exists()) {
+            throw new IOException("Voices file not found: " + voicesFile.getAbsolutePath());
+        }
+
+        long length = voicesFile.length();
+        if (length <= 0L || length > Integer.MAX_VALUE) {
+            throw new IOException("Voices file has bad size " + length + ": " + voicesFile.getAbsolutePath());
+        }
+
+        byte[] data = new byte[(int) length];
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(voicesFile))) {
+            int read = 0;
+            while (read < data.length) {
+                int r = in.read(data, read, data.length - read);
+                if (r < 0) {
+                    throw new IOException("Unexpected EOF while reading voices file");
+                }
+                read += r;
+            }
+        }
+
+        float[][] voices = StyleVectors.decode(data, data.length, STYLE_DIM);
+        int numVoices = voices.length;
+
+        cache.put(voiceName, voices);
+        if (log.isLoggable(Logger.DEBUG)) {
+            log.d(TAG + ": Loaded " + numVoices + " style vectors for voice '" + voiceName + "'.");
+        }
+        return voices;
+    }
+
+    public float[][] getStyleArray(String name, int index) {
+        // name like "af", "au", "bf" etc. as we choose in TTS.java
+        if (name == null || name.isEmpty()) {
+            log.w(TAG + ": getStyleArray called with empty name, returning neutral style.");
+            return neutralStyle();
+        }
+
+        try {
+            float[][] voices = loadVoices(name);
+
+            if (voices.length == 0) {
+                log.w(TAG + ": Voices array empty for '" + name + "', returning neutral.");
+                return neutralStyle();
+            }
+
+            int chosen = index;
+            if (chosen < 0 || chosen >= voices.length) {
+                chosen = 0; // default to first style
+            }
+
+            float[][] out = new float[1][STYLE_DIM];
+            System.arraycopy(voices[chosen], 0, out[0], 0, STYLE_DIM);
+
+            if (log.isLoggable(Logger.DEBUG)) {
+                log.d(TAG + ": Returning style voice='" + name + "', index=" + chosen);
+            }
+            return out;
+
+        } catch (Exception e) {
+            log.e(TAG + ": Error in getStyleArray('" + name + "', " + index + "): " + e);
+            return neutralStyle();
+        }
+    }
+
+    /**
+     * Names of the voices that can be loaded: every voices_NAME.bin in the models directory, plus
+     * any already cached. Sorted.
+     */
+    public synchronized List<String> voiceNames() {
+        TreeSet<String> names = new TreeSet<>(cache.keySet());
+        names.addAll(installedVoices(modelsDir));
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * NAME of every voices_NAME.bin in {@code modelsDir}, sorted. Only lists the directory, so it
+     * can be called before any loader exists (e.g. while the model is still loading).
+     */
+    public static List<String> installedVoices(File modelsDir) {
+        TreeSet<String> names = new TreeSet<>();
+        File[] files = (modelsDir != null) ? modelsDir.listFiles() : null;
+        if (files != null) {
+            for (File f : files) {
+                String n = f.getName();
+                if (n.startsWith("voices_") && n.endsWith(".bin") && n.length() > 11) {
+                    names.add(n.substring(7, n.length() - 4));
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    @Override
+    public String name() {
+        return "tts.styles";
+    }
+
+    @Override
+    public synchronized long footprintBytes() {
+        long bytes = 0;
+        for (float[][] voices : cache.values()) bytes += (long) voices.length * STYLE_DIM * 4;
+        return bytes;
+    }
+
+    @Override
+    public synchronized void trim(int tier) {
+        if (tier >= ResourceGovernor.CACHES) cache.clear();
+    }
+
+    private float[][] neutralStyle() {
+        float[][] neutral = new float[1][STYLE_DIM];
+        for (int i = 0; i < STYLE_DIM; i++) {
+            neutral[0][i] = 0.0f;
+        }
+        return neutral;
+    }
+}
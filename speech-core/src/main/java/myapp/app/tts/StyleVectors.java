@@ -0,0 +1,39 @@
+package myapp.app.tts;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Decoding of Kokoro voice tables: little-endian float32, shape [N, styleDim].
+ * Pure JVM (no Android types) so it can be benchmarked off-device.
+ */
+public final class StyleVectors {
+
+    private StyleVectors() {}
+
+    public static float[][] decode(byte[] data, int length, int styleDim) throws IOException {
+        if (length <= 0) {
+            throw new IOException("Voices data is empty");
+        }
+        if ((length % 4) != 0) {
+            throw new IOException("Voices data size is not a multiple of 4 bytes (float32): " + length);
+        }
+
+        int totalFloats = length / 4;
+        if ((totalFloats % styleDim) != 0) {
+            throw new IOException("Total floats " + totalFloats +
+                    " is not a multiple of STYLE_DIM=" + styleDim);
+        }
+
+        int numVoices = totalFloats / styleDim;
+        FloatBuffer floats = ByteBuffer.wrap(data, 0, length).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+
+        float[][] voices = new float[numVoices][styleDim];
+        for (int v = 0; v < numVoices; v++) {
+            floats.get(voices[v]);
+        }
+        return voices;
+    }
+}
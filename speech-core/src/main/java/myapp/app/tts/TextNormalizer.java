@@ -0,0 +1,776 @@
+package myapp.app.tts;
+
+/**
+ * Text normalization for the phonemizer: one left-to-right pass that expands semiotic classes into
+ * words and maps typographic punctuation to ASCII.
+ *
+ * Handled: cardinals (with 1,000 grouping), decimals (also .5), negatives, ordinals (1st, 22nd),
+ * years (1984, 2024), decades (1990s), ranges (5-10), percentages, fractions (3/4), times (10:30 pm,
+ * 23:59:30), elapsed times (25:00), dates (5/14/2024, 2024-05-14, May 5), versions (2.0.1), phone
+ * numbers (555-1234, 555-123-4567), currency ($12.50, -$5, £3 million), units after numbers (5 km,
+ * 20°C, 5 ft 6 in), abbreviations from a small table (Dr., Mr., St., e.g., Jan. ...), curly quotes
+ * and CJK punctuation. Anything else is copied through.
+ *
+ * No regexes: each token is classified by looking at a few characters ahead, so the cost is linear
+ * in the input and nothing is allocated beyond the output builder.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {}
+
+    private static final String[] ONES = {
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+            "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen", "nineteen"
+    };
+    private static final String[] TENS = {
+            "", "", "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty", "ninety"
+    };
+    private static final String[] SCALES = { "", "thousand", "million", "billion", "trillion" };
+    private static final long[]   POW1000 = { 1L, 1_000L, 1_000_000L, 1_000_000_000L, 1_000_000_000_000L };
+    private static final int      MAX_DIGITS = 15;
+
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+    };
+
+    // Abbreviations are only considered when followed by '.'; conditions look at what follows the period.
+    private static final int ALWAYS = 0, BEFORE_NAME = 1, NOT_BEFORE_NAME = 2, BEFORE_NUMBER = 3;
+
+    private static final class Abbrev {
+        final String  key;
+        final String  expansion;
+        final int     condition;
+        final boolean keepPeriod;   // "Main St." may end a sentence; "Dr. Smith" never does
+
+        Abbrev(String key, String expansion, int condition, boolean keepPeriod) {
+            this.key        = key;
+            this.expansion  = expansion;
+            this.condition  = condition;
+            this.keepPeriod = keepPeriod;
+        }
+    }
+
+    private static final Abbrev[] ABBREVIATIONS = {
+            new Abbrev("Dr",     "Doctor",        BEFORE_NAME,     false),
+            new Abbrev("DR",     "Doctor",        BEFORE_NAME,     false),
+            new Abbrev("Mr",     "Mister",        ALWAYS,          false),
+            new Abbrev("MR",     "Mister",        BEFORE_NAME,     false),
+            new Abbrev("Ms",     "Miss",          ALWAYS,          false),
+            new Abbrev("MS",     "Miss",          BEFORE_NAME,     false),
+            new Abbrev("Mrs",    "Mrs",           ALWAYS,          false),
+            new Abbrev("MRS",    "Mrs",           BEFORE_NAME,     false),
+            new Abbrev("Prof",   "Professor",     BEFORE_NAME,     false),
+            new Abbrev("St",     "Saint",         BEFORE_NAME,     false),
+            new Abbrev("St",     "Street",        ALWAYS,          true),
+            new Abbrev("Ave",    "Avenue",        ALWAYS,          true),
+            new Abbrev("Rd",     "Road",          ALWAYS,          true),
+            new Abbrev("Jr",     "Junior",        ALWAYS,          true),
+            new Abbrev("Sr",     "Senior",        ALWAYS,          true),
+            new Abbrev("vs",     "versus",        ALWAYS,          false),
+            new Abbrev("approx", "approximately", ALWAYS,          false),
+            new Abbrev("etc",    "etc",           NOT_BEFORE_NAME, false),
+            new Abbrev("No",     "number",        BEFORE_NUMBER,   false),
+            new Abbrev("no",     "number",        BEFORE_NUMBER,   false),
+            new Abbrev("Jan",    "January",       BEFORE_NUMBER,   false),
+            new Abbrev("Feb",    "February",      BEFORE_NUMBER,   false),
+            new Abbrev("Mar",    "March",         BEFORE_NUMBER,   false),
+            new Abbrev("Apr",    "April",         BEFORE_NUMBER,   false),
+            new Abbrev("Jun",    "June",          BEFORE_NUMBER,   false),
+            new Abbrev("Jul",    "July",          BEFORE_NUMBER,   false),
+            new Abbrev("Aug",    "August",        BEFORE_NUMBER,   false),
+            new Abbrev("Sep",    "September",     BEFORE_NUMBER,   false),
+            new Abbrev("Sept",   "September",     BEFORE_NUMBER,   false),
+            new Abbrev("Oct",    "October",       BEFORE_NUMBER,   false),
+            new Abbrev("Nov",    "November",      BEFORE_NUMBER,   false),
+            new Abbrev("Dec",    "December",      BEFORE_NUMBER,   false),
+    };
+
+    // Dotted abbreviations matched at a word start (case-insensitive).
+    private static final String[][] DOTTED = {
+            { "e.g.", "for example" },
+            { "i.e.", "that is" },
+            { "a.m.", "ay em" },
+            { "p.m.", "pee em" },
+    };
+
+    // Units after a number: symbol, singular, plural. Matched case-sensitively, longest first.
+    private static final String[][] UNITS = {
+            { "km/h", "kilometer per hour", "kilometers per hour" },
+            { "mph",  "mile per hour",      "miles per hour" },
+            { "kph",  "kilometer per hour", "kilometers per hour" },
+            { "kHz",  "kilohertz",          "kilohertz" },
+            { "MHz",  "megahertz",          "megahertz" },
+            { "GHz",  "gigahertz",          "gigahertz" },
+            { "km",   "kilometer",          "kilometers" },
+            { "cm",   "centimeter",         "centimeters" },
+            { "mm",   "millimeter",         "millimeters" },
+            { "kg",   "kilogram",           "kilograms" },
+            { "mg",   "milligram",          "milligrams" },
+            { "ml",   "milliliter",         "milliliters" },
+            { "lbs",  "pounds",             "pounds" },
+            { "lb",   "pound",              "pounds" },
+            { "oz",   "ounce",              "ounces" },
+            { "ft",   "foot",               "feet" },
+            { "mi",   "mile",               "miles" },
+            { "ms",   "millisecond",        "milliseconds" },
+            { "Hz",   "hertz",              "hertz" },
+            { "KB",   "kilobyte",           "kilobytes" },
+            { "MB",   "megabyte",           "megabytes" },
+            { "GB",   "gigabyte",           "gigabytes" },
+            { "TB",   "terabyte",           "terabytes" },
+            { "°C",   "degree Celsius",     "degrees Celsius" },
+            { "°F",   "degree Fahrenheit",  "degrees Fahrenheit" },
+            { "°",    "degree",             "degrees" },
+    };
+
+    // "in" only counts as a unit right after a number in feet ("5 ft 6 in"); elsewhere it is the word.
+    private static final String[] INCHES = { "in", "inch", "inches" };
+
+    private static final String[] SCALE_WORDS = { "thousand", "million", "billion", "trillion" };
+
+    /** Normalizes {@code text}; leading and trailing whitespace (also per line) is dropped. */
+    public static String normalize(CharSequence text) {
+        StringBuilder out = new StringBuilder(text.length() + 32);
+        normalize(text, out);
+        return out.toString();
+    }
+
+    /** Appends the normalized {@code text} to {@code out}. */
+    public static void normalize(CharSequence text, StringBuilder out) {
+        new Pass(text, out).run();
+    }
+
+    // ======== NUMBER WORDS ========
+
+    /** Appends {@code v} in words ("one hundred twenty three"), |v| below 10^15. */
+    public static void appendCardinal(long v, StringBuilder out) {
+        if (v == 0) { out.append(ONES[0]); return; }
+        if (v < 0) { out.append("minus "); v = -v; }
+        boolean first = true;
+        for (int k = SCALES.length - 1; k >= 0; k--) {
+            int chunk = (int) (v / POW1000[k] % 1000);
+            if (chunk == 0) continue;
+            if (!first) out.append(' ');
+            appendHundreds(chunk, out);
+            if (k > 0) out.append(' ').append(SCALES[k]);
+            first = false;
+        }
+    }
+
+    /** Appends {@code v} as an ordinal ("twenty first"). */
+    public static void appendOrdinal(long v, StringBuilder out) {
+        appendCardinal(v, out);
+        if      (endsWith(out, "one"))    replaceTail(out, 3, "first");
+        else if (endsWith(out, "two"))    replaceTail(out, 3, "second");
+        else if (endsWith(out, "three"))  replaceTail(out, 5, "third");
+        else if (endsWith(out, "five"))   replaceTail(out, 4, "fifth");
+        else if (endsWith(out, "eight"))  out.append('h');
+        else if (endsWith(out, "nine"))   replaceTail(out, 4, "ninth");
+        else if (endsWith(out, "twelve")) replaceTail(out, 6, "twelfth");
+        else if (endsWith(out, "y"))      replaceTail(out, 1, "ieth");
+        else                              out.append("th");
+    }
+
+    /** Appends a year the way it is read: "nineteen eighty four", "two thousand five", "twenty twenty". */
+    public static void appendYear(int y, StringBuilder out) {
+        int hi = y / 100, lo = y % 100;
+        if (y < 1000 || (hi % 10 == 0 && lo < 10)) {
+            appendCardinal(y, out);
+        } else {
+            appendHundreds(hi, out);
+            if      (lo == 0) out.append(" hundred");
+            else if (lo < 10) out.append(" oh ").append(ONES[lo]);
+            else              { out.append(' '); appendHundreds(lo, out); }
+        }
+    }
+
+    /** Appends each digit of {@code s[from, to)} as a word. */
+    public static void appendDigits(CharSequence s, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) continue;
+            if (i > from) out.append(' ');
+            out.append(ONES[c - '0']);
+        }
+    }
+
+    private static void appendHundreds(int v, StringBuilder out) {
+        if (v >= 100) {
+            out.append(ONES[v / 100]).append(" hundred");
+            v %= 100;
+            if (v == 0) return;
+            out.append(' ');
+        }
+        if (v < 20) {
+            out.append(ONES[v]);
+        } else {
+            out.append(TENS[v / 10]);
+            if (v % 10 != 0) out.append(' ').append(ONES[v % 10]);
+        }
+    }
+
+    private static void appendPlural(StringBuilder out) {
+        if (endsWith(out, "y")) replaceTail(out, 1, "ies");
+        else                    out.append('s');
+    }
+
+    // ======== THE PASS ========
+
+    private static final class Pass {
+        final CharSequence  s;
+        final int           n;
+        final StringBuilder out;
+        final int           base;
+        int                 i;
+        boolean             month;   // previous word was a month: a following 1-31 is a day
+        boolean             feet;    // previous number was in feet: a following "in" is inches
+
+        Pass(CharSequence s, StringBuilder out) {
+            this.s    = s;
+            this.n    = s.length();
+            this.out  = out;
+            this.base = out.length();
+        }
+
+        void run() {
+            while (i < n && isSpace(s.charAt(i))) i++;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (!isSpace(c) && !isDigit(c)) month = feet = false;
+
+                if (isDigit(c) || (currency(c) != null && digitAt(i + 1)) || (((c == '-' && signedNumberAt(i + 1)) || (c == '.' && digitAt(i + 1))) && atTokenStart())) {
+                    number();
+                    month = false;
+                    continue;
+                }
+                if (isLetter(c)) {
+                    word();
+                    continue;
+                }
+                switch (c) {
+                    case '\n':
+                        trimTrailingSpaces();
+                        out.append('\n');
+                        i++;
+                        while (i < n && isSpace(s.charAt(i))) i++;
+                        continue;
+                    case '‘': case '’':
+                        out.append('\'');
+                        break;
+                    case '“': case '”': case '«': case '»':
+                        out.append('"');
+                        break;
+                    case '、': out.append(", "); break;
+                    case '。': out.append(". "); break;
+                    case '？': out.append("? "); break;
+                    case '！': out.append("! "); break;
+                    case '：': out.append(": "); break;
+                    case '；': out.append("; "); break;
+                    case '&':
+                        if (atTokenStart() && (i + 1 == n || isSpace(s.charAt(i + 1)))) out.append("and");
+                        else                                                            out.append(c);
+                        break;
+                    default:
+                        out.append(c);
+                        break;
+                }
+                i++;
+            }
+            trimTrailingSpaces();
+        }
+
+        // ---- words ----
+
+        void word() {
+            for (String[] d : DOTTED) {
+                if (regionMatches(i, d[0], true) && !letterAt(i + d[0].length())) {
+                    sep();
+                    out.append(d[1]);
+                    i += d[0].length();
+                    return;
+                }
+            }
+
+            int end = i;
+            while (end < n && (isLetter(s.charAt(end)) || (s.charAt(end) == '\'' && end + 1 < n && isLetter(s.charAt(end + 1))))) end++;
+
+            if (end < n && s.charAt(end) == '.') {
+                for (Abbrev a : ABBREVIATIONS) {
+                    if (a.key.length() != end - i || !regionMatches(i, a.key, false) || !holds(a.condition, end + 1)) continue;
+                    out.append(a.expansion);
+                    month = isMonth(a.expansion, 0, a.expansion.length());
+                    i = a.keepPeriod ? end : end + 1;
+                    return;
+                }
+            }
+
+            month = isMonth(s, i, end);
+            for (int k = i; k < end; k++) out.append(s.charAt(k));
+            i = end;
+        }
+
+        boolean holds(int condition, int after) {
+            switch (condition) {
+                case BEFORE_NAME:     return after + 1 < n && s.charAt(after) == ' ' && Character.isUpperCase(s.charAt(after + 1));
+                case NOT_BEFORE_NAME: return !holds(BEFORE_NAME, after);
+                case BEFORE_NUMBER:   return after + 1 < n && s.charAt(after) == ' ' && isDigit(s.charAt(after + 1));
+                default:              return true;
+            }
+        }
+
+        // ---- numbers ----
+
+        void number() {
+            boolean negative = s.charAt(i) == '-';   // "-5", "-$5", "-.5"
+            if (negative) i++;
+            String[] cur = currency(s.charAt(i));
+            if (cur != null) i++;
+
+            int  intStart = i;
+            long value    = 0;
+            int  digits   = 0;
+            boolean grouped = false;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (isDigit(c)) {
+                    if (digits < MAX_DIGITS + 1) value = value * 10 + (c - '0');
+                    digits++;
+                    i++;
+                } else if (c == ',' && digits > 0 && digitAt(i + 1) && digitAt(i + 2) && digitAt(i + 3) && !digitAt(i + 4)) {
+                    grouped = true;
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            int intEnd = i;
+            boolean plain = cur == null && !negative && !grouped;
+
+            if (plain && digits == 3 && phone(intStart)) return;
+            if (plain && digits >= 1 && digits <= 2 && time(value)) return;
+            if (plain && digits >= 1 && digits <= 2 && slashDate(value)) return;
+            if (plain && digits == 4 && isoDate(value)) return;
+            if (plain && digits >= 1 && version(intStart)) return;
+
+            // decimal part
+            int fracStart = -1, fracEnd = -1;
+            if (i + 1 < n && s.charAt(i) == '.' && digitAt(i + 1)) {
+                fracStart = ++i;
+                while (i < n && isDigit(s.charAt(i))) i++;
+                fracEnd = i;
+            }
+            boolean whole = fracStart < 0;
+
+            sep();
+            if (negative) out.append("minus ");
+
+            // ordinal suffix, decade plural
+            if (whole && digits <= MAX_DIGITS && ordinalSuffix()) {
+                appendOrdinal(value, out);
+                finish();
+                return;
+            }
+
+            boolean spelled = digits > MAX_DIGITS || (digits > 1 && s.charAt(intStart) == '0' && !grouped && whole);
+            int     scale   = cur != null ? scaleWordAfter() : -1;
+            boolean cents   = cur != null && cur[2] != null && scale < 0 && !whole && fracEnd - fracStart == 2;
+            String[] unit   = cur == null ? unitAfter() : null;
+            boolean percent = cur == null && unit == null && i < n && s.charAt(i) == '%';
+
+            if (cents && value == 0) {
+                centsOnly(cur, fracStart);
+                finish();
+                return;
+            }
+            if (digits == 0) {
+                // ".5": nothing before the point
+            } else if (spelled) {
+                appendDigits(s, intStart, intEnd, out);
+            } else if (plain && whole && month && value >= 1 && value <= 31 && unit == null && !percent) {
+                appendOrdinal(value, out);
+            } else if (plain && whole && digits == 4 && value >= 1100 && value < 2100 && unit == null && !percent) {
+                appendYear((int) value, out);
+            } else {
+                appendCardinal(value, out);
+            }
+            if (!whole && !cents) {
+                out.append(digits == 0 ? "point " : " point ");
+                appendDigits(s, fracStart, fracEnd, out);
+            }
+
+            if (whole && pluralSuffix()) appendPlural(out);
+
+            if (cur != null) {
+                if (scale >= 0) {
+                    out.append(' ').append(SCALE_WORDS[scale]);
+                    i += 1 + SCALE_WORDS[scale].length();
+                    out.append(' ').append(cur[1]);
+                } else {
+                    boolean one = value == 1 && (whole || cents);
+                    out.append(' ').append(one ? cur[0] : cur[1]);
+                    if (cents && (s.charAt(fracStart) != '0' || s.charAt(fracStart + 1) != '0')) {
+                        out.append(" and ");
+                        centsOnly(cur, fracStart);
+                    }
+                }
+            } else if (unit != null) {
+                out.append(' ').append(value == 1 && whole ? unit[1] : unit[2]);
+            } else if (percent) {
+                out.append(" percent");
+                i++;
+            }
+
+            // ranges: "5-10" -> "five to ten", the second number is the next token
+            if (i + 1 < n && s.charAt(i) == '-' && digitAt(i + 1)) {
+                out.append(" to");
+                i++;
+                return;
+            }
+            finish();
+        }
+
+        void centsOnly(String[] cur, int at) {
+            int c = (s.charAt(at) - '0') * 10 + (s.charAt(at + 1) - '0');
+            appendCardinal(c, out);
+            out.append(' ').append(c == 1 ? cur[2] : cur[3]);
+        }
+
+        /** H:MM or H:MM:SS with an optional am/pm, or H am/pm, after the hour has been read. */
+        boolean time(long hour) {
+            int j = i, min = 0, sec = -1;
+            boolean colon = j + 2 < n && s.charAt(j) == ':' && digitAt(j + 1) && digitAt(j + 2) && !digitAt(j + 3);
+            if (colon) {
+                min = (s.charAt(j + 1) - '0') * 10 + (s.charAt(j + 2) - '0');
+                j += 3;
+                if (j + 2 < n && s.charAt(j) == ':' && digitAt(j + 1) && digitAt(j + 2) && !digitAt(j + 3)) {
+                    sec = (s.charAt(j + 1) - '0') * 10 + (s.charAt(j + 2) - '0');
+                    j += 3;
+                }
+            }
+            if (colon && (hour > 23 || min > 59 || sec > 59)) return notClock(hour, min, sec, j);
+            if (!colon && (hour < 1 || hour > 12)) return false;
+
+            int end = j;
+            String meridiem = null;
+            if (j < n && s.charAt(j) == ' ') j++;
+            if      (regionMatches(j, "a.m.", true)) { meridiem = "ay em";  i = j + 4; }
+            else if (regionMatches(j, "p.m.", true)) { meridiem = "pee em"; i = j + 4; }
+            else if (regionMatches(j, "am", true) && !letterAt(j + 2)) { meridiem = "ay em";  i = j + 2; }
+            else if (regionMatches(j, "pm", true) && !letterAt(j + 2)) { meridiem = "pee em"; i = j + 2; }
+            else if (colon)                                            i = end;
+            else                                                       return false;
+
+            sep();
+            appendCardinal(hour, out);
+            if (min == 0) {
+                if (meridiem == null) out.append(" o'clock");
+            } else {
+                out.append(min < 10 ? " oh " : " ");
+                appendCardinal(min, out);
+            }
+            if (meridiem != null) out.append(' ').append(meridiem);
+            if (sec > 0) {
+                out.append(" and ");
+                appendCardinal(sec, out);
+                out.append(sec == 1 ? " second" : " seconds");
+            }
+            finish();
+            return true;
+        }
+
+        /**
+         * A colon form that is no clock time. Past 23 with valid minutes and seconds it is elapsed
+         * time: "25:00" as minutes and seconds, "25:10:05" as hours, minutes and seconds. Anything
+         * else ("10:65") is read as plain numbers.
+         */
+        boolean notClock(long first, int min, int sec, int end) {
+            sep();
+            appendCardinal(first, out);
+            i = end;
+            if (first <= 23 || min > 59 || sec > 59) {
+                out.append(' ');
+                appendCardinal(min, out);
+                if (sec >= 0) {
+                    out.append(' ');
+                    appendCardinal(sec, out);
+                }
+                finish();
+                return true;
+            }
+            if (sec < 0) {
+                out.append(" minutes");
+                if (min > 0) appendCount(" and ", min, "second");
+            } else {
+                out.append(" hours");
+                if (min > 0) appendCount(sec > 0 ? " " : " and ", min, "minute");
+                if (sec > 0) appendCount(" and ", sec, "second");
+            }
+            finish();
+            return true;
+        }
+
+        void appendCount(String before, long v, String unit) {
+            out.append(before);
+            appendCardinal(v, out);
+            out.append(' ').append(unit);
+            if (v != 1) out.append('s');
+        }
+
+        /**
+         * NNN-NNNN or NNN-NNN-NNNN read digit by digit, after the first group has been read. A
+         * seven-digit number starts with 2-9 (as exchanges do); "300-1200", round on both sides,
+         * stays a range.
+         */
+        boolean phone(int start) {
+            boolean ten   = dashGroupAt(i, 3) && dashGroupAt(i + 4, 4);
+            boolean seven = !ten && dashGroupAt(i, 4) && s.charAt(start) >= '2'
+                    && !(s.charAt(i - 1) == '0' && s.charAt(i + 4) == '0');
+            if (!ten && !seven) return false;
+            int end = ten ? i + 9 : i + 5;
+            sep();
+            appendDigits(s, start, i, out);
+            while (i < end) {
+                int from = i + 1, to = from;
+                while (to < end && s.charAt(to) != '-') to++;
+                out.append(", ");
+                appendDigits(s, from, to, out);
+                i = to;
+            }
+            finish();
+            return true;
+        }
+
+        /** '-' followed by exactly {@code len} digits. */
+        boolean dashGroupAt(int at, int len) {
+            if (at >= n || s.charAt(at) != '-') return false;
+            for (int k = 1; k <= len; k++) if (!digitAt(at + k)) return false;
+            return !digitAt(at + len + 1);
+        }
+
+        /** N.N.N (two or more dots), after the first part has been read: "two point zero point one". */
+        boolean version(int start) {
+            int j = i, dots = 0;
+            while (j + 1 < n && s.charAt(j) == '.' && digitAt(j + 1)) {
+                j++;
+                while (digitAt(j)) j++;
+                dots++;
+            }
+            if (dots < 2) return false;
+            sep();
+            appendPart(start, i);
+            while (i < j) {
+                int from = i + 1, to = from;
+                while (digitAt(to)) to++;
+                out.append(" point ");
+                appendPart(from, to);
+                i = to;
+            }
+            finish();
+            return true;
+        }
+
+        /** One dotted part: a cardinal, or digit by digit with a leading zero ("05") or when long. */
+        void appendPart(int from, int to) {
+            if ((to - from > 1 && s.charAt(from) == '0') || to - from > MAX_DIGITS) {
+                appendDigits(s, from, to, out);
+                return;
+            }
+            long v = 0;
+            for (int k = from; k < to; k++) v = v * 10 + (s.charAt(k) - '0');
+            appendCardinal(v, out);
+        }
+
+        /** M/D/YYYY, M/D/YY or a small fraction N/D, after the first number has been read. */
+        boolean slashDate(long first) {
+            if (i + 1 >= n || s.charAt(i) != '/' || !digitAt(i + 1)) return false;
+            int j = i + 1;
+            int second = 0, secondDigits = 0;
+            while (j < n && isDigit(s.charAt(j)) && secondDigits < 3) { second = second * 10 + (s.charAt(j) - '0'); secondDigits++; j++; }
+            if (digitAt(j)) return false;
+
+            if (j + 1 < n && s.charAt(j) == '/' && digitAt(j + 1)) {
+                int k = j + 1, year = 0, yearDigits = 0;
+                while (k < n && isDigit(s.charAt(k)) && yearDigits < 5) { year = year * 10 + (s.charAt(k) - '0'); yearDigits++; k++; }
+                if ((yearDigits != 2 && yearDigits != 4) || digitAt(k) || first < 1 || first > 12 || second < 1 || second > 31) return false;
+                if (yearDigits == 2) year += year < 70 ? 2000 : 1900;
+                i = k;
+                sep();
+                appendDate((int) first, second, year);
+                finish();
+                return true;
+            }
+
+            if (secondDigits > 2 || second > 16 || first < 1 || first >= second || (j < n && s.charAt(j) == '/')) return false;
+            i = j;
+            sep();
+            appendCardinal(first, out);
+            out.append(' ');
+            if      (second == 2) out.append(first == 1 ? "half" : "halves");
+            else if (second == 4) out.append(first == 1 ? "quarter" : "quarters");
+            else {
+                appendOrdinal(second, out);
+                if (first != 1) out.append('s');
+            }
+            finish();
+            return true;
+        }
+
+        /** YYYY-MM-DD, after the year has been read. */
+        boolean isoDate(long year) {
+            if (i + 5 >= n || s.charAt(i) != '-' || !digitAt(i + 1) || !digitAt(i + 2) || s.charAt(i + 3) != '-'
+                    || !digitAt(i + 4) || !digitAt(i + 5) || digitAt(i + 6)) return false;
+            int m = (s.charAt(i + 1) - '0') * 10 + (s.charAt(i + 2) - '0');
+            int d = (s.charAt(i + 4) - '0') * 10 + (s.charAt(i + 5) - '0');
+            if (m < 1 || m > 12 || d < 1 || d > 31) return false;
+            i += 6;
+            sep();
+            appendDate(m, d, (int) year);
+            finish();
+            return true;
+        }
+
+        void appendDate(int m, int d, int year) {
+            out.append(MONTHS[m - 1]).append(' ');
+            appendOrdinal(d, out);
+            out.append(", ");
+            appendYear(year, out);
+        }
+
+        boolean ordinalSuffix() {
+            if (i + 1 >= n || letterAt(i + 2)) return false;
+            char a = lower(s.charAt(i)), b = lower(s.charAt(i + 1));
+            if ((a == 's' && b == 't') || (a == 'n' && b == 'd') || (a == 'r' && b == 'd') || (a == 't' && b == 'h')) {
+                i += 2;
+                return true;
+            }
+            return false;
+        }
+
+        /** "1990s", "80's" */
+        boolean pluralSuffix() {
+            if (i < n && s.charAt(i) == 's' && !letterAt(i + 1)) { i += 1; return true; }
+            if (i + 1 < n && s.charAt(i) == '\'' && s.charAt(i + 1) == 's' && !letterAt(i + 2)) { i += 2; return true; }
+            return false;
+        }
+
+        /** A unit symbol right after the number or after one space; consumed when found. */
+        String[] unitAfter() {
+            int j = (i < n && s.charAt(i) == ' ') ? i + 1 : i;
+            boolean afterFeet = feet;
+            feet = false;
+            if (afterFeet && regionMatches(j, INCHES[0], false) && !letterAt(j + 2) && !digitAt(j + 2)) {
+                i = j + 2;
+                return INCHES;
+            }
+            for (String[] u : UNITS) {
+                int end = j + u[0].length();
+                if (regionMatches(j, u[0], false) && !letterAt(end) && !digitAt(end)) {
+                    i    = end;
+                    feet = u[0].equals("ft");
+                    return u;
+                }
+            }
+            return null;
+        }
+
+        /** Index into SCALE_WORDS of " million" etc. following the number, or -1. */
+        int scaleWordAfter() {
+            if (i >= n || s.charAt(i) != ' ') return -1;
+            for (int k = 0; k < SCALE_WORDS.length; k++) {
+                String w = SCALE_WORDS[k];
+                if (regionMatches(i + 1, w, true) && !letterAt(i + 1 + w.length())) return k;
+            }
+            return -1;
+        }
+
+        /** Keeps a following letter or digit from gluing onto the expansion. */
+        void finish() {
+            if (i < n && (isLetter(s.charAt(i)) || isDigit(s.charAt(i)))) out.append(' ');
+        }
+
+        /** Separates an expansion from a preceding word. */
+        void sep() {
+            if (out.length() > base) {
+                char last = out.charAt(out.length() - 1);
+                if (isLetter(last) || isDigit(last)) out.append(' ');
+            }
+        }
+
+        boolean atTokenStart() {
+            return out.length() == base || isSpace(out.charAt(out.length() - 1)) || out.charAt(out.length() - 1) == '(';
+        }
+
+        void trimTrailingSpaces() {
+            int len = out.length();
+            while (len > base && isSpace(out.charAt(len - 1))) len--;
+            out.setLength(len);
+        }
+
+        boolean digitAt(int k)  { return k < n && isDigit(s.charAt(k)); }
+        boolean letterAt(int k) { return k < n && isLetter(s.charAt(k)); }
+
+        /** What may follow a minus sign: a digit, or a currency sign or point and a digit ("-$5", "-.5"). */
+        boolean signedNumberAt(int k) {
+            return digitAt(k) || (k < n && (currency(s.charAt(k)) != null || s.charAt(k) == '.') && digitAt(k + 1));
+        }
+
+        boolean regionMatches(int at, String w, boolean ignoreCase) {
+            if (at + w.length() > n) return false;
+            for (int k = 0; k < w.length(); k++) {
+                char a = s.charAt(at + k), b = w.charAt(k);
+                if (a != b && !(ignoreCase && lower(a) == lower(b))) return false;
+            }
+            return true;
+        }
+    }
+
+    // ======== HELPERS ========
+
+    /** singular, plural, minor singular, minor plural (null when there is no minor unit). */
+    private static String[] currency(char c) {
+        switch (c) {
+            case '$':      return DOLLAR;
+            case '\u00A3': return POUND;
+            case '\u20AC': return EURO;
+            case '\u00A5': return YEN;
+            default:       return null;
+        }
+    }
+
+    private static final String[] DOLLAR = { "dollar", "dollars", "cent", "cents" };
+    private static final String[] POUND  = { "pound", "pounds", "penny", "pence" };
+    private static final String[] EURO   = { "euro", "euros", "cent", "cents" };
+    private static final String[] YEN    = { "yen", "yen", null, null };
+
+    private static boolean isMonth(CharSequence s, int from, int to) {
+        int len = to - from;
+        if (len < 3 || len > 9 || !Character.isUpperCase(s.charAt(from))) return false;
+        for (String m : MONTHS) {
+            if (m.length() != len) continue;
+            boolean eq = true;
+            for (int k = 0; k < len && eq; k++) eq = lower(s.charAt(from + k)) == lower(m.charAt(k));
+            if (eq) return true;
+        }
+        return false;
+    }
+
+    private static boolean endsWith(StringBuilder sb, String tail) {
+        int off = sb.length() - tail.length();
+        if (off < 0) return false;
+        for (int k = 0; k < tail.length(); k++) {
+            if (sb.charAt(off + k) != tail.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static void replaceTail(StringBuilder sb, int drop, String with) {
+        sb.setLength(sb.length() - drop);
+        sb.append(with);
+    }
+
+    private static boolean isDigit(char c)  { return c >= '0' && c <= '9'; }
+    private static boolean isLetter(char c) { return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'); }
+    private static boolean isSpace(char c)  { return c == ' ' || c == '\t' || c == '\r' || c == '\u00A0'; }
+    private static char    lower(char c)    { return (c >= 'A' && c <= 'Z') ? (char) (c | 0x20) : c; }
+}
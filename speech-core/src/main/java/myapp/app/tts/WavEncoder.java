@@ -0,0 +1,67 @@
+package myapp.app.tts;
+
+/**
+ * Mono 16-bit PCM WAV encoding (44-byte RIFF header + samples).
+ * Pure JVM (no Android types) so it can be benchmarked off-device.
+ */
+public final class WavEncoder {
+
+    public static final int HEADER_BYTES = 44;
+
+    private WavEncoder() {}
+
+    /** Complete WAV file in one array; samples are clipped to [-1, 1]. */
+    public static byte[] encode(float[] audio, int sampleRate) {
+        byte[] out = new byte[HEADER_BYTES + audio.length * 2];
+        writeHeader(out, audio.length, sampleRate);
+        int p = HEADER_BYTES;
+        for (float sample : audio) {
+            float v = sample;
+            if (v > 1.0f) v = 1.0f;
+            if (v < -1.0f) v = -1.0f;
+            short pcm = (short) (v * Short.MAX_VALUE);
+            out[p++] = (byte) pcm;
+            out[p++] = (byte) (pcm >> 8);
+        }
+        return out;
+    }
+
+    public static byte[] header(int numSamples, int sampleRate) {
+        byte[] header = new byte[HEADER_BYTES];
+        writeHeader(header, numSamples, sampleRate);
+        return header;
+    }
+
+    private static void writeHeader(byte[] h, int numSamples, int sampleRate) {
+        int dataSizeBytes = numSamples * 2;   // PCM16 = 2 bytes per sample
+        int byteRate      = sampleRate * 2;   // mono, 16-bit
+
+        putAscii(h,  0, "RIFF");
+        putInt  (h,  4, dataSizeBytes + 36);  // ChunkSize
+        putAscii(h,  8, "WAVE");
+        putAscii(h, 12, "fmt ");
+        putInt  (h, 16, 16);                  // Subchunk1Size (16 for PCM)
+        putShort(h, 20, 1);                   // AudioFormat (1 = PCM)
+        putShort(h, 22, 1);                   // NumChannels (1 = mono)
+        putInt  (h, 24, sampleRate);
+        putInt  (h, 28, byteRate);
+        putShort(h, 32, 2);                   // BlockAlign
+        putShort(h, 34, 16);                  // BitsPerSample
+        putAscii(h, 36, "data");
+        putInt  (h, 40, dataSizeBytes);
+    }
+
+    private static void putAscii(byte[] b, int p, String s) {
+        for (int i = 0; i < s.length(); i++) b[p + i] = (byte) s.charAt(i);
+    }
+
+    private static void putShort(byte[] b, int p, int v) {
+        b[p]     = (byte) v;
+        b[p + 1] = (byte) (v >> 8);
+    }
+
+    private static void putInt(byte[] b, int p, int v) {
+        putShort(b, p, v);
+        putShort(b, p + 2, v >> 16);
+    }
+}
@@ -0,0 +1,111 @@
+package myapp.app.tts;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Streaming mono PCM16 WAV file: audio is appended block by block and the RIFF sizes are patched
+ * on {@link #close()}, so a long utterance never has to be held in memory as one array.
+ *
+ * The file is written as "name.part" and renamed into place on close, so a file under the final
+ * name is always complete (batch rendering uses that to resume).
+ */
+public final class WavFileWriter implements Closeable {
+
+    private final File target;
+    private final File partial;
+    private final int sampleRate;
+    private final OutputStream out;
+    private final byte[] block = new byte[8192];
+    private long samples = 0;
+    private boolean closed = false;
+
+    public WavFileWriter(File target, int sampleRate) throws IOException {
+        this.target     = target;
+        this.partial    = new File(target.getPath() + ".part");
+        this.sampleRate = sampleRate;
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        this.out = new BufferedOutputStream(new FileOutputStream(partial), 64 * 1024);
+        out.write(WavEncoder.header(0, sampleRate));
+    }
+
+    /** Appends float samples, clipped to [-1, 1] after {@code gain}. */
+    public void write(float[] audio, float gain) throws IOException {
+        int p = 0;
+        for (float sample : audio) {
+            float v = sample * gain;
+            if (v > 1.0f) v = 1.0f;
+            if (v < -1.0f) v = -1.0f;
+            short pcm = (short) (v * Short.MAX_VALUE);
+            block[p++] = (byte) pcm;
+            block[p++] = (byte) (pcm >> 8);
+            if (p == block.length) {
+                out.write(block, 0, p);
+                p = 0;
+            }
+        }
+        out.write(block, 0, p);
+        samples += audio.length;
+    }
+
+    /** Appends {@code count} samples of silence. */
+    public void writeSilence(int count) throws IOException {
+        Arrays.fill(block, (byte) 0);
+        long bytes = count * 2L;
+        while (bytes > 0) {
+            int n = (int) Math.min(block.length, bytes);
+            out.write(block, 0, n);
+            bytes -= n;
+        }
+        samples += count;
+    }
+
+    public long samples() {
+        return samples;
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /** Leaves no file behind (for failed jobs). */
+    public void abort() {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+        partial.delete();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.close();
+        if (samples * 2 > Integer.MAX_VALUE - WavEncoder.HEADER_BYTES) {
+            partial.delete();
+            throw new IOException("WAV too large: " + samples + " samples");
+        }
+        try (RandomAccessFile f = new RandomAccessFile(partial, "rw")) {
+            f.seek(0);
+            f.write(WavEncoder.header((int) samples, sampleRate));
+        }
+        if (!partial.renameTo(target)) {
+            target.delete();
+            if (!partial.renameTo(target)) {
+                throw new IOException("Cannot rename " + partial + " -> " + target);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package myapp.app.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import myapp.app.metrics.Metrics;
+
+/**
+ * Bounded least-recently-used map for memoizing pure functions (word -> IPA, phonemes -> tokens).
+ *
+ * Synchronized on the instance: lookups are a hash probe plus a relink, far cheaper than what they
+ * save, so a lock is simpler than anything concurrent. Hits and misses are also counted in the
+ * global "name.hits" / "name.misses" counters (see {@link Metrics}). A capacity of 0 disables
+ * caching but still counts misses, which makes before/after comparisons easy.
+ */
+public final class LruCache<K, V> {
+
+  private final String              name    ;
+  private final int                 capacity;
+  private final LinkedHashMap<K, V> map     ;
+  private final AtomicLong          hits    ;
+  private final AtomicLong          misses  ;
+
+  public LruCache(String name, int capacity) {
+    this.name     = name;
+    this.capacity = Math.max(0, capacity);
+    this.hits     = Metrics.counter(name + ".hits");
+    this.misses   = Metrics.counter(name + ".misses");
+    this.map      = new LinkedHashMap<K, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > LruCache.this.capacity;
+      }
+    };
+  }
+
+  /** Null on a miss. */
+  public V get(K key) {
+    V v;
+    synchronized (this) {
+      v = map.get(key);
+    }
+    if (v != null) hits.incrementAndGet();
+    else           misses.incrementAndGet();
+    return v;
+  }
+
+  public void put(K key, V value) {
+    if (capacity == 0) return;
+    synchronized (this) {
+      map.put(key, value);
+    }
+  }
+
+  public synchronized int size() { return map.size(); }
+  public synchronized void clear() { map.clear(); }
+
+  public String name() { return name; }
+  public int capacity() { return capacity; }
+
+  /** Hit rate since process start (the counters are shared by every cache with this name). */
+  public double hitRate() {
+    long h = hits.get(), m = misses.get();
+    return (h + m) == 0 ? 0 : h / (double) (h + m);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.US, "%s: %d/%d entries, hit rate %.1f%%", name, size(), capacity, hitRate() * 100);
+  }
+}
@@ -0,0 +1,58 @@
+package myapp.app.utils;
+
+import java.io.File;
+
+/**
+ * One entry of the model manifest: where an asset comes from, how to check it, and where it lives.
+ *
+ * - {@link Kind#FILE}    : single file, fetched with {@link RangedDownloader}.
+ * - {@link Kind#ZIP_DIR} : zipped directory, installed with {@link StreamingZipInstaller}.
+ * - {@link Kind#LOCAL}   : no download source; ready as soon as the file exists (e.g. voices pushed via adb).
+ */
+public final class ModelAsset {
+
+  public enum Kind { FILE, ZIP_DIR, LOCAL }
+
+  public final String name        ;
+  public final Kind   kind        ;
+  public final String url         ;
+  public final File   installPath ;
+  public final long   sizeBytes   ;   // -1 if unknown
+  public final String sha256      ;   // null if unknown
+  public final String topLevelName;   // ZIP_DIR only
+
+  private ModelAsset(String name, Kind kind, String url, File installPath, long sizeBytes, String sha256, String topLevelName) {
+    this.name         = name;
+    this.kind         = kind;
+    this.url          = url;
+    this.installPath  = installPath;
+    this.sizeBytes    = sizeBytes;
+    this.sha256       = sha256;
+    this.topLevelName = topLevelName;
+  }
+
+  public static ModelAsset file(String name, String url, File installPath) {
+    return new ModelAsset(name, Kind.FILE, url, installPath, -1, null, null);
+  }
+
+  public static ModelAsset zipDir(String name, String url, File installDir, String topLevelName) {
+    return new ModelAsset(name, Kind.ZIP_DIR, url, installDir, -1, null, topLevelName);
+  }
+
+  public static ModelAsset local(String name, File installPath) {
+    return new ModelAsset(name, Kind.LOCAL, null, installPath, -1, null, null);
+  }
+
+  public ModelAsset withSize(long sizeBytes) {
+    return new ModelAsset(name, kind, url, installPath, sizeBytes, sha256, topLevelName);
+  }
+
+  public ModelAsset withSha256(String sha256) {
+    return new ModelAsset(name, kind, url, installPath, sizeBytes, sha256, topLevelName);
+  }
+
+  @Override
+  public String toString() {
+    return name + " (" + kind + " -> " + installPath + ")";
+  }
+}
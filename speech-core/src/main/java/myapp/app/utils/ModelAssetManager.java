@@ -0,0 +1,223 @@
+package myapp.app.utils;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Installs the assets of a declarative manifest ({@link ModelAsset}) concurrently, with bounded
+ * parallelism, and hands out one readiness future per asset.
+ *
+ * - Files are downloaded to "name.part", verified (size / SHA-256 when declared) and only then
+ *   renamed into place; a small "name.asset" stamp records what was verified.
+ * - An existing file without a stamp (e.g. from an older build that wrote straight to the target)
+ *   is only accepted if its size matches the declared or server-reported size.
+ * - Zipped directories are streamed into a staging directory and published with one rename.
+ */
+public class ModelAssetManager {
+
+  private static final int DOWNLOAD_SEGMENTS = 4;
+
+  private final ExecutorService                      pool    ;
+  private final RangedDownloader.Listener            listener;
+  private final Map<String, CompletableFuture<File>> futures = new ConcurrentHashMap<>();
+
+  public ModelAssetManager(int parallelism, RangedDownloader.Listener listener) {
+    AtomicInteger n = new AtomicInteger();
+    this.listener = listener;
+    this.pool     = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+      Thread t = new Thread(r, "ModelAssets-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Schedules every asset of the manifest. */
+  public void submitAll(Collection<ModelAsset> manifest) {
+    for (ModelAsset a : manifest) submit(a);
+  }
+
+  /** Schedules one asset (once per name) and returns its readiness future. */
+  public CompletableFuture<File> submit(ModelAsset asset) {
+    CompletableFuture<File> fresh    = new CompletableFuture<>();
+    CompletableFuture<File> existing = futures.putIfAbsent(asset.name, fresh);
+    if (existing != null) return existing;
+
+    pool.execute(() -> {
+      try {
+        fresh.complete(install(asset));
+      } catch (Throwable t) {
+        message("FAILED " + asset.name + ": " + t);
+        fresh.completeExceptionally(t);
+      }
+    });
+    return fresh;
+  }
+
+  public boolean isDeclared(String name) {
+    return futures.containsKey(name);
+  }
+
+  /** Readiness future of a declared asset. */
+  public CompletableFuture<File> future(String name) {
+    CompletableFuture<File> f = futures.get(name);
+    if (f == null) throw new IllegalArgumentException("Unknown asset: " + name);
+    return f;
+  }
+
+  /** Blocks until the asset is installed and returns its path. */
+  public File await(String name) throws IOException {
+    try {
+      return future(name).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " + name);
+    } catch (ExecutionException e) {
+      Throwable c = e.getCause();
+      throw (c instanceof IOException) ? (IOException) c : new IOException("Asset " + name + " failed: " + c, c);
+    }
+  }
+
+  /** Like {@link #await} but returns null for assets that are not in the manifest. */
+  public File awaitIfDeclared(String name) throws IOException {
+    return isDeclared(name) ? await(name) : null;
+  }
+
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  // ======== INSTALL ========
+
+  private File install(ModelAsset a) throws IOException {
+    switch (a.kind) {
+      case LOCAL:
+        if (!a.installPath.exists()) throw new FileNotFoundException("Local asset " + a.name + " missing at " + a.installPath);
+        return a.installPath;
+      case ZIP_DIR:
+        return installZipDir(a);
+      default:
+        return installFile(a);
+    }
+  }
+
+  private File installZipDir(ModelAsset a) throws IOException {
+    StreamingZipInstaller.recover(a.installPath);
+    if (a.installPath.isDirectory()) {
+      message(a.name + " found at " + a.installPath);
+      return a.installPath;
+    }
+    message(a.name + " missing; downloading and extracting");
+    File staging = new File(a.installPath.getPath() + ".tmp");
+    new StreamingZipInstaller(a.url, staging, a.installPath, a.topLevelName)
+      .setListener(listener)
+      .install();
+    return a.installPath;
+  }
+
+  private File installFile(ModelAsset a) throws IOException {
+    File f     = a.installPath;
+    File stamp = new File(f.getPath() + ".asset");
+
+    if (f.isFile()) {
+      if (stampMatches(a, f, stamp)) {
+        message(a.name + " found at " + f);
+        return f;
+      }
+      Boolean complete = stamp.isFile() ? Boolean.FALSE : legacyFileComplete(a, f);
+      if (complete == null) {
+        // Offline: use it for this run, but leave it unstamped so it is checked again next time.
+        message(a.name + ": cannot verify " + f + " offline, using it unverified");
+        return f;
+      }
+      if (complete) {
+        writeStamp(a, f, stamp, null);
+        message(a.name + " found at " + f + " (verified by size)");
+        return f;
+      }
+      message(a.name + " at " + f + " is incomplete or unverified; downloading again");
+      f.delete();
+      stamp.delete();
+    }
+
+    String sha = new RangedDownloader(a.url, f)
+      .setSegments(DOWNLOAD_SEGMENTS)
+      .setExpectedSha256(a.sha256)
+      .setListener(listener)
+      .download();
+    long size = f.length();
+    if (a.sizeBytes >= 0 && size != a.sizeBytes) {
+      f.delete();
+      throw new IOException(a.name + ": size " + size + " != declared " + a.sizeBytes);
+    }
+    writeStamp(a, f, stamp, sha);
+    return f;
+  }
+
+  /** Whether a file without a stamp is complete; null if that cannot be checked (offline). */
+  private Boolean legacyFileComplete(ModelAsset a, File f) {
+    if (a.sha256 != null) {
+      try {
+        return a.sha256.equalsIgnoreCase(RangedDownloader.sha256(f));
+      } catch (IOException e) {
+        return false;
+      }
+    }
+    if (a.sizeBytes >= 0) return f.length() == a.sizeBytes;
+    try {
+      return f.length() == new RangedDownloader(a.url, f).remoteLength();
+    } catch (IOException e) {
+      message(a.name + ": remote size unavailable (" + e.getMessage() + ")");
+      return (f.length() > 0) ? null : Boolean.FALSE;
+    }
+  }
+
+  private static boolean stampMatches(ModelAsset a, File f, File stamp) {
+    if (!stamp.isFile()) return false;
+    Properties p = new Properties();
+    try (InputStream in = new FileInputStream(stamp)) {
+      p.load(in);
+    } catch (IOException e) {
+      return false;
+    }
+    try {
+      if (Long.parseLong(p.getProperty("size", "-1")) != f.length()) return false;
+    } catch (NumberFormatException e) {
+      return false;   // corrupt stamp: verify or download again
+    }
+    if (a.sizeBytes >= 0 && a.sizeBytes != f.length())             return false;
+    return a.sha256 == null || a.sha256.equalsIgnoreCase(p.getProperty("sha256"));
+  }
+
+  private static void writeStamp(ModelAsset a, File f, File stamp, String sha) {
+    Properties p = new Properties();
+    p.setProperty("size", Long.toString(f.length()));
+    if (a.url != null) p.setProperty("url"   , a.url);
+    if (sha   != null) p.setProperty("sha256", sha  );
+    try (OutputStream out = new FileOutputStream(stamp)) {
+      p.store(out, "ModelAssetManager");
+    } catch (IOException ignore) {}
+  }
+
+  private void message(String msg) {
+    if (listener != null) listener.onMessage(msg);
+  }
+
+  static void deleteRecursive(File f) {
+    if (f == null || !f.exists()) return;
+    if (f.isDirectory()) {
+      File[] files = f.listFiles();
+      if (files != null) {
+        for (File c : files) deleteRecursive(c);
+      }
+    }
+    f.delete();
+  }
+}
@@ -0,0 +1,42 @@
+package myapp.app.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The app's model manifest. Everything the app downloads or expects on disk is declared here once;
+ * {@link ModelAssetManager} installs it and consumers wait on the asset they need by name.
+ */
+public final class ModelAssets {
+
+  public static final String VOSK          = "vosk-model-en-us-0.22";
+  public static final String FLITE         = "cmu_us_slt.flitevox";
+  public static final String KOKORO        = "kokoro.onnx";
+  public static final String VOICES_PREFIX = "voices_";
+
+  private static final String VOSK_URL   = "https://alphacephei.com/vosk/models/" + VOSK + ".zip";
+  private static final String FLITE_URL  = "http://mirrors.cn99.com/freeswitch/downloads/libs/voices/" + FLITE;
+  private static final String KOKORO_URL = "https://g3.jonnyonthefly.org/explorer/" + KOKORO;
+
+  // Voice style tables are not hosted anywhere; they are pushed next to the Kokoro model.
+  private static final String[] LOCAL_VOICES = { "af" };
+
+  private ModelAssets() {}
+
+  /**
+   * @param filesDir  private storage for the Vosk and Flite models
+   * @param modelsDir where Kokoro and its voice tables live (pushed there by hand during development)
+   */
+  public static List<ModelAsset> manifest(File filesDir, File modelsDir) {
+    List<ModelAsset> list = new ArrayList<>();
+    list.add(ModelAsset.zipDir(VOSK  , VOSK_URL  , new File(filesDir , VOSK  ), VOSK));
+    list.add(ModelAsset.file  (FLITE , FLITE_URL , new File(filesDir , FLITE )));
+    list.add(ModelAsset.file  (KOKORO, KOKORO_URL, new File(modelsDir, KOKORO)));
+    for (String voice : LOCAL_VOICES) {
+      String name = VOICES_PREFIX + voice;
+      list.add(ModelAsset.local(name, new File(modelsDir, name + ".bin")));
+    }
+    return list;
+  }
+}
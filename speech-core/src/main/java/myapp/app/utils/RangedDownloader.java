@@ -0,0 +1,410 @@
+package myapp.app.utils;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumable, parallel HTTP download into a single file.
+ *
+ * - Probes the server with "Range: bytes=0-0"; if ranges are supported the file is split
+ *   into segments fetched concurrently and written with positional FileChannel writes into
+ *   a preallocated "target.part" file. A 206 whose Content-Range differs from the requested
+ *   range is treated as a failed attempt.
+ * - Progress (per-segment byte counts plus ETag/Last-Modified) is persisted about once a second
+ *   to a small "target.part.meta" properties file, so a later run resumes where the last one
+ *   stopped, even after process death.
+ * - On completion the size and (optionally) SHA-256 are verified before "target.part" is
+ *   renamed to the target.
+ *
+ * Plain java.net/java.nio only, so it runs unchanged against a local stand-in HTTP server.
+ */
+public class RangedDownloader {
+
+  public interface Listener {
+    void onMessage (String msg);
+    void onProgress(long bytesDone, long totalBytes);
+  }
+
+  private static final int  CONNECT_TIMEOUT_MS  = 60_000;
+  private static final int  READ_TIMEOUT_MS     = 60_000;
+  private static final int  BUFFER_SIZE         = 64 * 1024;
+  private static final int  MAX_REDIRECTS       = 10;
+  private static final int  MAX_ATTEMPTS        = 4;
+  private static final long MIN_SEGMENT_BYTES   = 4L << 20;
+  private static final long MANIFEST_PERIOD_MS  = 1_000L;
+
+  private final String   url     ;
+  private final File     target  ;
+  private final File     partFile;
+  private final File     metaFile;
+  private       int      segments       = 4;
+  private       String   expectedSha256 = null;
+  private       Listener listener       = null;
+
+  public RangedDownloader(String url, File target) {
+    this.url      = url;
+    this.target   = target;
+    this.partFile = new File(target.getPath() + ".part");
+    this.metaFile = new File(target.getPath() + ".part.meta");
+  }
+
+  public RangedDownloader setSegments      (int segments     ) { this.segments       = Math.max(1, segments); return this; }
+  public RangedDownloader setExpectedSha256(String sha256    ) { this.expectedSha256 = sha256;                return this; }
+  public RangedDownloader setListener      (Listener listener) { this.listener       = listener;              return this; }
+
+  public File partFile() { return partFile; }
+
+  /** Content length reported by the server, -1 if unknown. */
+  public long remoteLength() throws IOException {
+    return probe().length;
+  }
+
+  /**
+   * Downloads (or resumes) into the target file. Blocks until done; partial state is kept on failure.
+   * Returns the SHA-256 (hex) of the published file.
+   */
+  public String download() throws IOException {
+    Probe probe = probe();
+    Manifest m  = Manifest.load(metaFile);
+    if (m != null && m.matches(url, probe) && partFile.isFile() && partFile.length() == probe.length) {
+      message("Resuming " + target.getName() + " at " + (m.done() >> 20) + " / " + (probe.length >> 20) + " MiB");
+    } else {
+      m = Manifest.create(url, probe, probe.acceptsRanges ? segmentCount(probe.length) : 1);
+      File parent = target.getParentFile();
+      if (parent != null && !parent.exists()) parent.mkdirs();
+      try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+        raf.setLength(Math.max(0L, probe.length));
+      }
+      m.save(metaFile);
+      message("Downloading " + target.getName() + " in " + m.segmentCount() + " segment(s), " + (probe.length >> 20) + " MiB");
+    }
+
+    try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw"); FileChannel channel = raf.getChannel()) {
+      fetchSegments(m, channel, probe.acceptsRanges);
+      channel.force(true);
+    }
+
+    if (probe.length >= 0 && partFile.length() != probe.length) {
+      throw new IOException("Size mismatch for " + target.getName() + ": " + partFile.length() + " != " + probe.length);
+    }
+    String sha = sha256(partFile);
+    if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha)) {
+      partFile.delete();
+      metaFile.delete();
+      throw new IOException("SHA-256 mismatch for " + target.getName() + ": " + sha);
+    }
+    if (target.exists() && !target.delete()) throw new IOException("Cannot replace " + target);
+    if (!partFile.renameTo(target))          throw new IOException("Cannot rename " + partFile + " -> " + target);
+    metaFile.delete();
+    message("Finished " + target.getName() + " (" + (target.length() >> 20) + " MiB, sha256=" + sha + ")");
+    return sha;
+  }
+
+  private int segmentCount(long length) {
+    if (length <= 0) return 1;
+    return (int) Math.max(1, Math.min(segments, length / MIN_SEGMENT_BYTES));
+  }
+
+  // ======== SEGMENTS ========
+
+  private void fetchSegments(Manifest m, FileChannel channel, boolean ranged) throws IOException {
+    int             n    = m.segmentCount();
+    ExecutorService pool = Executors.newFixedThreadPool(n);
+    List<Future<?>> jobs = new ArrayList<>(n);
+    try {
+      for (int i = 0; i < n; i++) {
+        final int seg = i;
+        jobs.add(pool.submit(() -> { fetchSegment(m, seg, channel, ranged); return null; }));
+      }
+
+      long lastLog = -1;
+      for (Future<?> job : jobs) {
+        while (true) {
+          try {
+            job.get(MANIFEST_PERIOD_MS, TimeUnit.MILLISECONDS);
+            break;
+          } catch (TimeoutException e) {
+            channel.force(false);
+            m.save(metaFile);
+            long done = m.done();
+            if (listener != null) listener.onProgress(done, m.length);
+            lastLog = logProgress(done, m.length, lastLog);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Download interrupted: " + target.getName());
+    } catch (ExecutionException e) {
+      Throwable c = e.getCause();
+      throw (c instanceof IOException) ? (IOException) c : new IOException(c);
+    } finally {
+      pool.shutdownNow();
+      try { channel.force(false); } catch (IOException ignore) {}
+      m.save(metaFile);
+    }
+    if (listener != null) listener.onProgress(m.done(), m.length);
+  }
+
+  private void fetchSegment(Manifest m, int seg, FileChannel channel, boolean ranged) throws IOException {
+    IOException last = null;
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      long start = m.starts[seg] + m.done[seg].get();
+      long end   = m.ends  [seg];
+      if (end >= 0 && start > end) return;
+      if (!ranged) { m.done[seg].set(0); start = 0; }
+
+      HttpURLConnection conn = null;
+      try {
+        String range = ranged ? ("bytes=" + start + "-" + (end >= 0 ? end : "")) : null;
+        conn = open(url, range);
+        int code = conn.getResponseCode();
+        if (ranged && code != HttpURLConnection.HTTP_PARTIAL) throw new IOException("HTTP " + code + " for range " + range);
+        if (!ranged && code != HttpURLConnection.HTTP_OK)     throw new IOException("HTTP " + code + " for " + url);
+        String cr = ranged ? conn.getHeaderField("Content-Range") : null;
+        if (ranged && !contentRangeMatches(cr, start, end))   throw new IOException("Content-Range " + cr + " for range " + range);
+
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        long       pos = start;
+        try (InputStream in = conn.getInputStream()) {
+          int r;
+          while ((r = in.read(buf.array(), 0, buf.capacity())) != -1) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+            buf.limit(r).position(0);
+            while (buf.hasRemaining()) pos += channel.write(buf, pos);
+            buf.clear();
+            m.done[seg].addAndGet(r);
+          }
+        }
+        if (end >= 0 && pos != end + 1) throw new IOException("Segment " + seg + " ended at " + pos + ", expected " + (end + 1));
+        return;
+      } catch (InterruptedIOException e) {
+        throw e;
+      } catch (IOException e) {
+        last = e;
+        message("Segment " + seg + " attempt " + attempt + " failed: " + e.getMessage());
+        try { Thread.sleep(1000L * attempt); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); throw new InterruptedIOException(); }
+      } finally {
+        if (conn != null) conn.disconnect();
+      }
+    }
+    throw last;
+  }
+
+  private long logProgress(long done, long total, long lastLog) {
+    if (total <= 0) return lastLog;
+    long percent = (done * 100) / total;
+    if (percent >= lastLog + 5) {
+      message(target.getName() + ": " + percent + "% (" + (done >> 20) + " MiB)");
+      return percent;
+    }
+    return lastLog;
+  }
+
+  // ======== HTTP ========
+
+  private static final class Probe {
+    long    length        = -1;
+    boolean acceptsRanges = false;
+    String  etag          ;
+    String  lastModified  ;
+  }
+
+  private Probe probe() throws IOException {
+    HttpURLConnection conn = open(url, "bytes=0-0");
+    try {
+      int   code = conn.getResponseCode();
+      Probe p    = new Probe();
+      p.etag         = conn.getHeaderField("ETag");
+      p.lastModified = conn.getHeaderField("Last-Modified");
+      if (code == HttpURLConnection.HTTP_PARTIAL) {
+        String cr    = conn.getHeaderField("Content-Range");   // bytes 0-0/12345
+        int    slash = (cr != null) ? cr.lastIndexOf('/') : -1;
+        if (slash >= 0 && !cr.endsWith("*") && contentRangeMatches(cr, 0, 0)) {
+          p.length        = Long.parseLong(cr.substring(slash + 1).trim());
+          p.acceptsRanges = true;
+        }
+      } else if (code == HttpURLConnection.HTTP_OK) {
+        p.length = conn.getContentLengthLong();
+      } else {
+        throw new IOException("HTTP " + code + " for " + url);
+      }
+      return p;
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  /** Opens a GET (optionally ranged), following up to MAX_REDIRECTS redirects by hand. */
+  static HttpURLConnection open(String urlString, String range) throws IOException {
+    String currentUrl = urlString;
+    int    redirects  = 0;
+    while (true) {
+      URL url = new URL(currentUrl);
+      HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+      conn.setInstanceFollowRedirects(false);
+      conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      conn.setReadTimeout(READ_TIMEOUT_MS);
+      conn.setRequestProperty("Accept-Encoding", "identity");
+      if (range != null) conn.setRequestProperty("Range", range);
+      conn.connect();
+
+      int code = conn.getResponseCode();
+      if (code / 100 != 3) return conn;
+
+      String loc = conn.getHeaderField("Location");
+      conn.disconnect();
+      if (++redirects > MAX_REDIRECTS)  throw new IOException("Too many redirects for " + urlString);
+      if (loc == null || loc.isEmpty()) throw new IOException("Redirect without Location for " + urlString);
+      currentUrl = new URL(url, loc).toString();
+    }
+  }
+
+  /**
+   * Whether a 206's Content-Range ("bytes 100-199/1000") covers exactly {@code start}..{@code end}
+   * ({@code end} -1: whatever the server has from {@code start} on). A server that ignores part of
+   * the Range header would otherwise have its bytes written at the wrong offset.
+   */
+  static boolean contentRangeMatches(String contentRange, long start, long end) {
+    if (contentRange == null || !contentRange.startsWith("bytes ")) return false;
+    int dash  = contentRange.indexOf('-');
+    int slash = contentRange.indexOf('/');
+    if (dash < 0 || slash < dash) return false;
+    try {
+      long first = Long.parseLong(contentRange.substring(6, dash).trim());
+      long last  = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+      return first == start && (end < 0 || last == end);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  static String sha256(File file) throws IOException {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+      byte[] buf = new byte[BUFFER_SIZE];
+      int r;
+      while ((r = in.read(buf)) != -1) md.update(buf, 0, r);
+    }
+    StringBuilder sb = new StringBuilder(64);
+    for (byte b : md.digest()) sb.append(String.format(Locale.US, "%02x", b & 0xFF));
+    return sb.toString();
+  }
+
+  private void message(String msg) {
+    if (listener != null) listener.onMessage(msg);
+  }
+
+  // ======== MANIFEST ========
+
+  private static final class Manifest {
+    String       url         ;
+    long         length      ;
+    String       etag        ;
+    String       lastModified;
+    long[]       starts      ;
+    long[]       ends        ;
+    AtomicLong[] done        ;
+
+    static Manifest create(String url, Probe p, int n) {
+      Manifest m = new Manifest();
+      m.url          = url;
+      m.length       = p.length;
+      m.etag         = p.etag;
+      m.lastModified = p.lastModified;
+      m.starts       = new long[n];
+      m.ends         = new long[n];
+      m.done         = new AtomicLong[n];
+      long size = (p.length > 0) ? (p.length + n - 1) / n : 0;
+      for (int i = 0; i < n; i++) {
+        m.starts[i] = i * size;
+        m.ends  [i] = (p.length > 0) ? Math.min(p.length, (i + 1) * size) - 1 : -1;
+        m.done  [i] = new AtomicLong();
+      }
+      return m;
+    }
+
+    static Manifest load(File f) {
+      if (!f.isFile()) return null;
+      Properties p = new Properties();
+      try (InputStream in = new FileInputStream(f)) {
+        p.load(in);
+        Manifest m = new Manifest();
+        m.url          = p.getProperty("url");
+        m.length       = Long.parseLong(p.getProperty("length"));
+        m.etag         = p.getProperty("etag");
+        m.lastModified = p.getProperty("lastModified");
+        int n = Integer.parseInt(p.getProperty("segments"));
+        m.starts = new long[n];
+        m.ends   = new long[n];
+        m.done   = new AtomicLong[n];
+        for (int i = 0; i < n; i++) {
+          m.starts[i] = Long.parseLong(p.getProperty("seg." + i + ".start"));
+          m.ends  [i] = Long.parseLong(p.getProperty("seg." + i + ".end"  ));
+          m.done  [i] = new AtomicLong(Long.parseLong(p.getProperty("seg." + i + ".done")));
+        }
+        return m;
+      } catch (IOException | RuntimeException e) {
+        return null;
+      }
+    }
+
+    boolean matches(String url, Probe p) {
+      return url.equals(this.url)
+          && p.acceptsRanges
+          && p.length == length
+          && (p.etag         == null || p.etag        .equals(etag        ))
+          && (p.lastModified == null || p.lastModified.equals(lastModified));
+    }
+
+    int  segmentCount() { return starts.length; }
+
+    long done() {
+      long sum = 0;
+      for (AtomicLong d : done) sum += d.get();
+      return sum;
+    }
+
+    synchronized void save(File f) {
+      Properties p = new Properties();
+      p.setProperty("url"     , url);
+      p.setProperty("length"  , Long.toString(length));
+      p.setProperty("segments", Integer.toString(starts.length));
+      if (etag         != null) p.setProperty("etag"        , etag);
+      if (lastModified != null) p.setProperty("lastModified", lastModified);
+      for (int i = 0; i < starts.length; i++) {
+        p.setProperty("seg." + i + ".start", Long.toString(starts[i]));
+        p.setProperty("seg." + i + ".end"  , Long.toString(ends  [i]));
+        p.setProperty("seg." + i + ".done" , Long.toString(done  [i].get()));
+      }
+      File tmp = new File(f.getPath() + ".tmp");
+      try (OutputStream out = new FileOutputStream(tmp)) {
+        p.store(out, "RangedDownloader progress");
+      } catch (IOException e) {
+        return;
+      }
+      if (!tmp.renameTo(f)) tmp.delete();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package myapp.app.utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import myapp.app.log.Logger;
+import myapp.app.metrics.Metrics;
+
+/**
+ * Releases speech resources under memory pressure, in tiers, and reports what each one holds.
+ *
+ *   CACHES    memoized data that is rebuilt as it is used (voice tables, phoneme/token caches,
+ *             prepared utterances)
+ *   POOLS     idle worker threads and their queues
+ *   SESSIONS  loaded models (the ONNX session, the Vosk model); reopened on next use, which costs
+ *             a model load
+ *
+ * Trimming to a tier also trims every tier below it. Nothing is closed while it is in use; a
+ * resource that is busy keeps what it has and is trimmed again on the next call. Everything
+ * released is re-materialized lazily by its owner, so callers never need to know it was trimmed.
+ * Resources are trimmed in registration order (see {@link #register}).
+ *
+ * Pressure comes from the platform ({@link #trim}, wired to onTrimMemory/onLowMemory by the host)
+ * and from an optional budget on the total footprint ({@link #setBudgetBytes}, checked by
+ * {@link #enforce} after each utterance). Counts "governor.trim.caches", ".pools" and ".sessions".
+ */
+public final class ResourceGovernor {
+
+  public static final int  NONE      = 0;
+  public static final int  CACHES    = 1;
+  public static final int  POOLS     = 2;
+  public static final int  SESSIONS  = 3;
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  private static final String[] TIER_NAMES = { "none", "caches", "pools", "sessions" };
+
+  /** Something holding memory that can be given back. Implementations must be thread-safe. */
+  public interface Resource {
+    /** Component name in reports, e.g. "tts.styles". */
+    String name();
+
+    /** Current estimate of the memory held, in bytes (native memory included). */
+    long footprintBytes();
+
+    /** Releases everything belonging to {@code tier} and the tiers below it, unless in use. */
+    void trim(int tier);
+  }
+
+  private final List<Resource> resources = new CopyOnWriteArrayList<>();
+  private final Logger         log       ;
+  private volatile long        budget    = UNLIMITED;
+
+  public ResourceGovernor(Logger log) {
+    this.log = log;
+  }
+
+  /**
+   * Adds a resource. Each tier is applied in registration order, so register a resource before
+   * the ones it uses: it lets go of them first, and they are not still busy when their turn comes.
+   */
+  public ResourceGovernor register(Resource r) {
+    resources.add(r);
+    return this;
+  }
+
+  public void unregister(Resource r) {
+    resources.remove(r);
+  }
+
+  /** Total footprint above which {@link #enforce} trims; {@link #UNLIMITED} (the default) disables it. */
+  public ResourceGovernor setBudgetBytes(long bytes) {
+    if (bytes <= 0) throw new IllegalArgumentException("ResourceGovernor: bad budget " + bytes);
+    this.budget = bytes;
+    return this;
+  }
+
+  public long budgetBytes() { return budget; }
+
+  /** Footprint per component, in registration order. */
+  public Map<String, Long> footprint() {
+    Map<String, Long> out = new LinkedHashMap<>();
+    for (Resource r : resources) out.put(r.name(), r.footprintBytes());
+    return out;
+  }
+
+  public long totalBytes() {
+    long sum = 0;
+    for (Resource r : resources) sum += r.footprintBytes();
+    return sum;
+  }
+
+  /** Trims every resource to {@code tier} and logs the footprint before and after. */
+  public void trim(int tier) {
+    if (tier <= NONE) return;
+    tier = Math.min(tier, SESSIONS);
+    String before = report();
+    for (Resource r : resources) {
+      try {
+        r.trim(tier);
+      } catch (RuntimeException e) {
+        log.w("ResourceGovernor: trimming " + r.name() + " failed: " + e);
+      }
+    }
+    Metrics.counter("governor.trim." + TIER_NAMES[tier]).incrementAndGet();
+    log.i("ResourceGovernor: trimmed " + TIER_NAMES[tier] + "; " + before + " -> " + report());
+  }
+
+  /**
+   * Trims one tier at a time, cheapest first, until the total is within the budget. Returns the
+   * tier it stopped at ({@link #NONE} if nothing needed trimming).
+   */
+  public int enforce() {
+    long limit = budget;
+    int  tier  = NONE;
+    while (tier < SESSIONS && totalBytes() > limit) trim(++tier);
+    if (tier > NONE && totalBytes() > limit) {
+      log.w("ResourceGovernor: still over budget after trimming: " + report());
+    }
+    return tier;
+  }
+
+  /** e.g. "tts.prefetch 0.0 MB, tts.model 82.4 MB, tts.styles 0.5 MB (82.9 MB)". */
+  public String report() {
+    StringBuilder sb    = new StringBuilder();
+    long          total = 0;
+    for (Map.Entry<String, Long> e : footprint().entrySet()) {
+      if (sb.length() > 0) sb.append(", ");
+      sb.append(e.getKey()).append(' ').append(mb(e.getValue()));
+      total += e.getValue();
+    }
+    return sb.append(" (").append(mb(total)).append(')').toString();
+  }
+
+  private static String mb(long bytes) {
+    return String.format(Locale.US, "%.1f MB", bytes / 1048576.0);
+  }
+}
@@ -0,0 +1,351 @@
+package myapp.app.utils;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Installs a zipped model directory straight from HTTP, extracting entries as bytes arrive.
+ *
+ * - The archive is parsed from its local file headers (the central directory at the end is
+ *   never needed), so extraction runs in lock-step with the network transfer and the zip
+ *   itself is never written to disk: peak usage is roughly the extracted model size.
+ * - Entries land in a staging directory; paths escaping it (Zip-Slip) are rejected.
+ * - After each entry the archive offset of the next local header is saved to a small
+ *   "staging.progress" file; an interrupted install resumes with "Range: bytes=offset-".
+ * - When the stream is complete the staging directory is published by swapping: the installed
+ *   directory is renamed to "target.old", the staging one to the target, then the backup is
+ *   deleted. {@link #recover} completes or rolls back a swap cut short by process death.
+ */
+public class StreamingZipInstaller {
+
+  private static final int  LOCAL_HEADER_SIG    = 0x04034b50;
+  private static final int  CENTRAL_HEADER_SIG  = 0x02014b50;
+  private static final int  END_OF_CENTRAL_SIG  = 0x06054b50;
+  private static final int  DATA_DESCRIPTOR_SIG = 0x08074b50;
+  private static final int  BUFFER_SIZE         = 64 * 1024;
+  private static final int  MAX_ATTEMPTS        = 4;
+
+  private final String                    url         ;
+  private final File                      stagingDir  ;
+  private final File                      finalDir    ;
+  private final String                    topLevelName;
+  private final File                      progressFile;
+  private       RangedDownloader.Listener listener    = null;
+
+  /**
+   * @param topLevelName if the archive wraps everything in this directory, its contents become
+   *                     {@code finalDir}; otherwise the staging directory itself does.
+   */
+  public StreamingZipInstaller(String url, File stagingDir, File finalDir, String topLevelName) {
+    this.url          = url;
+    this.stagingDir   = stagingDir;
+    this.finalDir     = finalDir;
+    this.topLevelName = topLevelName;
+    this.progressFile = new File(stagingDir.getPath() + ".progress");
+  }
+
+  public StreamingZipInstaller setListener(RangedDownloader.Listener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Cleans up after a swap interrupted between its renames: deletes a leftover "finalDir.old" if
+   * the new directory is in place, or renames it back if not. Call before checking whether
+   * {@code finalDir} is installed.
+   */
+  public static void recover(File finalDir) throws IOException {
+    File backup = backupDir(finalDir);
+    if (!backup.exists()) return;
+    if (finalDir.exists()) {
+      ModelAssetManager.deleteRecursive(backup);
+    } else if (!backup.renameTo(finalDir)) {
+      throw new IOException("Cannot restore " + backup + " -> " + finalDir);
+    }
+  }
+
+  private static File backupDir(File finalDir) {
+    return new File(finalDir.getPath() + ".old");
+  }
+
+  public void install() throws IOException {
+    recover(finalDir);
+    long offset = loadOffset();
+    if (offset > 0 && stagingDir.isDirectory()) {
+      message("Resuming install of " + finalDir.getName() + " at " + (offset >> 20) + " MiB");
+    } else {
+      offset = 0;
+      ModelAssetManager.deleteRecursive(stagingDir);
+    }
+    if (!stagingDir.exists() && !stagingDir.mkdirs()) throw new IOException("Failed to create dir: " + stagingDir);
+
+    IOException last = null;
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      try {
+        extractFrom(offset);
+        last = null;
+        break;
+      } catch (InterruptedIOException e) {
+        throw e;
+      } catch (IOException e) {
+        last   = e;
+        offset = loadOffset();
+        message("Install attempt " + attempt + " failed at " + (offset >> 20) + " MiB: " + e.getMessage());
+        try { Thread.sleep(1000L * attempt); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); throw new InterruptedIOException(); }
+      }
+    }
+    if (last != null) throw last;
+
+    File extracted    = new File(stagingDir, topLevelName);
+    File sourceToMove = extracted.isDirectory() ? extracted : stagingDir;
+    File backup       = backupDir(finalDir);
+    if (finalDir.exists() && !finalDir.renameTo(backup)) {
+      throw new IOException("Cannot rename " + finalDir + " -> " + backup);
+    }
+    if (!sourceToMove.renameTo(finalDir)) {
+      if (backup.exists()) backup.renameTo(finalDir);
+      throw new IOException("Cannot rename " + sourceToMove + " -> " + finalDir);
+    }
+    ModelAssetManager.deleteRecursive(backup);
+    ModelAssetManager.deleteRecursive(stagingDir);
+    progressFile.delete();
+    message("Installed " + finalDir.getAbsolutePath());
+  }
+
+  // ======== STREAMING EXTRACTION ========
+
+  private void extractFrom(long offset) throws IOException {
+    HttpURLConnection conn = RangedDownloader.open(url, offset > 0 ? "bytes=" + offset + "-" : null);
+    try {
+      int code = conn.getResponseCode();
+      if (offset > 0 && code == HttpURLConnection.HTTP_OK) {
+        // Server ignored the range: start over from the beginning of the archive.
+        message("Server does not support ranges; restarting install of " + finalDir.getName());
+        ModelAssetManager.deleteRecursive(stagingDir);
+        stagingDir.mkdirs();
+        offset = 0;
+      } else if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+        throw new IOException("HTTP " + code + " for " + url);
+      }
+      long total = (code == HttpURLConnection.HTTP_PARTIAL) ? offset + conn.getContentLengthLong() : conn.getContentLengthLong();
+
+      try (InputStream in = conn.getInputStream()) {
+        ArchiveStream zs       = new ArchiveStream(in, offset);
+        String        target   = stagingDir.getCanonicalPath();
+        byte[]        out      = new byte[BUFFER_SIZE];
+        Inflater      inflater = new Inflater(true);
+        long          nextLog  = 0;
+        try {
+          while (true) {
+            int sig = zs.readInt();
+            if (sig == CENTRAL_HEADER_SIG || sig == END_OF_CENTRAL_SIG) break;
+            if (sig != LOCAL_HEADER_SIG) throw new IOException("Unexpected zip signature 0x" + Integer.toHexString(sig) + " at " + (zs.pos - 4));
+
+            extractEntry(zs, target, inflater, out);
+            saveOffset(zs.pos);
+
+            if (total > 0) {
+              long percent = (zs.pos * 100) / total;
+              if (percent >= nextLog) {
+                message(finalDir.getName() + ": " + percent + "% (" + (zs.pos >> 20) + " MiB)");
+                nextLog = percent + 5;
+              }
+            }
+          }
+        } finally {
+          inflater.end();
+        }
+      }
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  private void extractEntry(ArchiveStream zs, String targetPath, Inflater inflater, byte[] out) throws IOException {
+    zs.readShort();                          // version needed
+    int  flags    = zs.readShort();
+    int  method   = zs.readShort();
+    zs.readInt();                            // mod time + date
+    long crc      = zs.readInt() & 0xFFFFFFFFL;
+    long csize    = zs.readInt() & 0xFFFFFFFFL;
+    long usize    = zs.readInt() & 0xFFFFFFFFL;
+    int  nameLen  = zs.readShort();
+    int  extraLen = zs.readShort();
+    String name   = new String(zs.readBytes(nameLen), "UTF-8");
+    byte[] extra  = zs.readBytes(extraLen);
+
+    boolean zip64 = false;
+    for (int i = 0; i + 4 <= extra.length; ) {
+      int id  = (extra[i] & 0xFF) | ((extra[i + 1] & 0xFF) << 8);
+      int len = (extra[i + 2] & 0xFF) | ((extra[i + 3] & 0xFF) << 8);
+      if (id == 0x0001) {
+        zip64 = true;
+        int p = i + 4;
+        if (usize == 0xFFFFFFFFL && p + 8 <= i + 4 + len) { usize = getLong(extra, p); p += 8; }
+        if (csize == 0xFFFFFFFFL && p + 8 <= i + 4 + len) { csize = getLong(extra, p); }
+      }
+      i += 4 + len;
+    }
+    boolean descriptor = (flags & 0x08) != 0;
+
+    File   newFile = new File(stagingDir, name);
+    String newPath = newFile.getCanonicalPath();
+    if (!newPath.startsWith(targetPath + File.separator) && !newPath.equals(targetPath)) {
+      throw new IOException("Blocked Zip-Slip entry: " + name);
+    }
+
+    boolean directory = name.endsWith("/");
+    File    dir       = directory ? newFile : newFile.getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs()) {
+      throw new IOException("Failed to create dir: " + dir);
+    }
+
+    CRC32 actual = new CRC32();
+    try (OutputStream fos = directory ? null : new BufferedOutputStream(new FileOutputStream(newFile), BUFFER_SIZE)) {
+      if (method == 0) {
+        if (descriptor) throw new IOException("Unsupported stored entry with data descriptor: " + name);
+        long left = csize;
+        while (left > 0) {
+          int n = zs.read(out, (int) Math.min(out.length, left));
+          if (fos != null) fos.write(out, 0, n);
+          actual.update(out, 0, n);
+          left -= n;
+        }
+      } else if (method == 8) {
+        inflater.reset();
+        try {
+          while (!inflater.finished()) {
+            if (inflater.needsInput()) zs.feed(inflater);
+            int n = inflater.inflate(out);
+            if (n > 0) {
+              if (fos != null) fos.write(out, 0, n);
+              actual.update(out, 0, n);
+            } else if (inflater.needsDictionary()) {
+              throw new IOException("Deflate dictionary not supported: " + name);
+            }
+          }
+        } catch (DataFormatException e) {
+          throw new IOException("Corrupt entry " + name + ": " + e.getMessage());
+        }
+        zs.unread(inflater.getRemaining());
+      } else {
+        throw new IOException("Unsupported zip method " + method + " for " + name);
+      }
+    }
+
+    if (descriptor) {
+      long first = zs.readInt() & 0xFFFFFFFFL;
+      crc = (first == DATA_DESCRIPTOR_SIG) ? (zs.readInt() & 0xFFFFFFFFL) : first;
+      if (zip64) { zs.readBytes(16); } else { zs.readBytes(8); }
+    }
+    if (actual.getValue() != crc) throw new IOException("CRC mismatch for " + name);
+  }
+
+  private static long getLong(byte[] b, int p) {
+    long v = 0;
+    for (int i = 7; i >= 0; i--) v = (v << 8) | (b[p + i] & 0xFF);
+    return v;
+  }
+
+  /** Buffered view of the HTTP body that knows the exact archive offset of every byte. */
+  private static final class ArchiveStream {
+    final InputStream in ;
+    final byte[]      buf = new byte[BUFFER_SIZE];
+    int               off = 0;
+    int               len = 0;
+    long              pos;
+
+    ArchiveStream(InputStream in, long startOffset) {
+      this.in  = in;
+      this.pos = startOffset;
+    }
+
+    private void fill() throws IOException {
+      if (off < len) return;
+      len = in.read(buf, 0, buf.length);
+      off = 0;
+      if (len <= 0) { len = 0; throw new EOFException("Archive truncated at " + pos); }
+    }
+
+    int readByte() throws IOException {
+      fill();
+      pos++;
+      return buf[off++] & 0xFF;
+    }
+
+    int readShort() throws IOException {
+      return readByte() | (readByte() << 8);
+    }
+
+    int readInt() throws IOException {
+      return readShort() | (readShort() << 16);
+    }
+
+    byte[] readBytes(int n) throws IOException {
+      byte[] b = new byte[n];
+      for (int i = 0; i < n; ) i += read(b, i, n - i);
+      return b;
+    }
+
+    int read(byte[] dst, int dstOff, int max) throws IOException {
+      fill();
+      int n = Math.min(max, len - off);
+      System.arraycopy(buf, off, dst, dstOff, n);
+      off += n;
+      pos += n;
+      return n;
+    }
+
+    int read(byte[] dst, int max) throws IOException {
+      return read(dst, 0, max);
+    }
+
+    /** Hands all buffered bytes to the inflater; {@link #unread} gives back what it did not use. */
+    void feed(Inflater inflater) throws IOException {
+      fill();
+      inflater.setInput(buf, off, len - off);
+      pos += len - off;
+      off  = len;
+    }
+
+    void unread(int n) {
+      off -= n;
+      pos -= n;
+    }
+  }
+
+  // ======== PROGRESS ========
+
+  private long loadOffset() {
+    if (!progressFile.isFile()) return 0;
+    Properties p = new Properties();
+    try (InputStream in = new FileInputStream(progressFile)) {
+      p.load(in);
+      if (!url.equals(p.getProperty("url"))) return 0;
+      return Long.parseLong(p.getProperty("offset", "0"));
+    } catch (IOException | RuntimeException e) {
+      return 0;
+    }
+  }
+
+  private void saveOffset(long offset) {
+    Properties p = new Properties();
+    p.setProperty("url"   , url);
+    p.setProperty("offset", Long.toString(offset));
+    File tmp = new File(progressFile.getPath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmp)) {
+      p.store(out, "StreamingZipInstaller progress");
+    } catch (IOException e) {
+      return;
+    }
+    if (!tmp.renameTo(progressFile)) tmp.delete();
+  }
+
+  private void message(String msg) {
+    if (listener != null) listener.onMessage(msg);
+  }
+}
@@ -0,0 +1,77 @@
+package myapp.app.audio;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Stopping an {@link AudioCaptureEngine} whose consumer is slower than the capture. */
+public class AudioCaptureEngineTest {
+
+  private static final int FRAME_BYTES = 320;
+
+  /** Produces a frame every millisecond until stopped. */
+  private static final class FastSource implements AudioSource {
+    @Override public int  sampleRate() { return 16000; }
+    @Override public void start()      {}
+    @Override public void stop()       {}
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      try { Thread.sleep(1); } catch (InterruptedException e) { return -1; }
+      return length;
+    }
+  }
+
+  /** Takes {@code frameMs} per frame; counts frames and signals onStopped. */
+  private static final class SlowConsumer implements AudioCaptureEngine.Consumer {
+    final long           frameMs;
+    final AtomicInteger  frames  = new AtomicInteger();
+    final CountDownLatch stopped = new CountDownLatch(1);
+
+    SlowConsumer(long frameMs) { this.frameMs = frameMs; }
+
+    @Override
+    public void onFrame(byte[] data, int length) {
+      try { Thread.sleep(frameMs); } catch (InterruptedException ignored) {}
+      frames.incrementAndGet();
+    }
+
+    @Override public void onStopped() { stopped.countDown(); }
+  }
+
+  @Test
+  public void stopReturnsWithinTheTimeoutAndTheConsumerDrainsAfterwards() throws InterruptedException {
+    AudioCaptureEngine engine   = new AudioCaptureEngine("test", new FastSource(), FRAME_BYTES, 64);
+    SlowConsumer       consumer = new SlowConsumer(50);
+    engine.attach("slow", consumer);
+    engine.start();
+    Thread.sleep(200);   // ~200 frames captured, ~4 consumed: the backlog is the full ring
+
+    long    t0   = System.nanoTime();
+    boolean done = engine.stop();
+    long    ms   = (System.nanoTime() - t0) / 1_000_000;
+
+    assertFalse(done);
+    assertTrue("stop() took " + ms + " ms", ms < AudioCaptureEngine.STOP_TIMEOUT_MS + 500);
+    assertTrue(consumer.stopped.await(10, TimeUnit.SECONDS));
+    assertTrue(engine.stop(0));
+    assertTrue(consumer.frames.get() > 20);
+  }
+
+  @Test
+  public void stopWithALongTimeoutWaitsForTheConsumer() {
+    AudioCaptureEngine engine   = new AudioCaptureEngine("test", new FastSource(), FRAME_BYTES, 8);
+    SlowConsumer       consumer = new SlowConsumer(20);
+    engine.attach("slow", consumer);
+    engine.start();
+
+    assertTrue(engine.stop(Long.MAX_VALUE));
+    assertEquals(0, consumer.stopped.getCount());
+  }
+}
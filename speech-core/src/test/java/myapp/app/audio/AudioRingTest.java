@@ -0,0 +1,150 @@
+package myapp.app.audio;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Lap detection of {@link AudioRing}: one producer, readers of different speeds. */
+public class AudioRingTest {
+
+  private static final int FRAME_BYTES = 64;
+
+  /** Frame {@code seq}: the sequence number in the first 8 bytes, {@code (byte) seq} after that. */
+  private static void fill(byte[] frame, long seq) {
+    for (int i = 0; i < 8; i++) frame[i] = (byte) (seq >>> (8 * i));
+    for (int i = 8; i < FRAME_BYTES; i++) frame[i] = (byte) seq;
+  }
+
+  private static long seqOf(byte[] frame) {
+    long seq = 0;
+    for (int i = 0; i < 8; i++) seq |= (frame[i] & 0xFFL) << (8 * i);
+    return seq;
+  }
+
+  /** Frames are {@code FRAME_BYTES - seq % 8} long, so a torn length shows too. */
+  private static int lengthOf(long seq) {
+    return FRAME_BYTES - (int) (seq % 8);
+  }
+
+  private static void publish(AudioRing ring, long seq) {
+    fill(ring.claim(), seq);
+    ring.publish(lengthOf(seq));
+  }
+
+  // ======== SINGLE THREAD ========
+
+  @Test
+  public void readerThatFellBehindIsResyncedToTheOldestSafeFrame() {
+    AudioRing        ring   = new AudioRing(16, FRAME_BYTES);
+    AudioRing.Reader reader = ring.newReader();
+    for (long seq = 0; seq < 100; seq++) publish(ring, seq);
+
+    byte[] dst = new byte[FRAME_BYTES];
+    assertEquals(lengthOf(86), reader.poll(dst));
+    assertEquals(86, seqOf(dst));                  // 100 - 16 + 2 guard frames
+    assertEquals(86, reader.overruns());
+    assertEquals(13, reader.lag());
+
+    for (long seq = 87; seq < 100; seq++) {
+      assertEquals(lengthOf(seq), reader.poll(dst));
+      assertEquals(seq, seqOf(dst));
+    }
+    assertEquals(0, reader.poll(dst));
+    assertEquals(86, reader.overruns());
+  }
+
+  @Test
+  public void readerWithinTheRingLosesNothing() {
+    AudioRing        ring   = new AudioRing(16, FRAME_BYTES);
+    AudioRing.Reader reader = ring.newReader();
+    for (long seq = 0; seq < 14; seq++) publish(ring, seq);
+
+    byte[] dst = new byte[FRAME_BYTES];
+    for (long seq = 0; seq < 14; seq++) {
+      reader.poll(dst);
+      assertEquals(seq, seqOf(dst));
+    }
+    assertEquals(0, reader.overruns());
+  }
+
+  // ======== CONCURRENT ========
+
+  /** Polls until told to stop and the ring is drained; checks every frame it gets. */
+  private static final class Checker extends Thread {
+    final AudioRing.Reader reader;
+    final long             pauseNanos;
+    final AtomicBoolean    done;
+    long   frames, lastSeq = -1;
+    String error;
+
+    Checker(AudioRing ring, long pauseNanos, AtomicBoolean done) {
+      this.reader     = ring.newReader();
+      this.pauseNanos = pauseNanos;
+      this.done       = done;
+    }
+
+    @Override
+    public void run() {
+      byte[] dst = new byte[FRAME_BYTES];
+      while (error == null) {
+        boolean last = done.get();
+        int     len  = reader.poll(dst);
+        if (len == 0) {
+          if (last) return;
+          Thread.yield();
+          continue;
+        }
+        error = check(dst, len);
+        frames++;
+        if (pauseNanos > 0) sleepNanos(pauseNanos);
+      }
+    }
+
+    private String check(byte[] frame, int len) {
+      long seq = seqOf(frame);
+      if (seq <= lastSeq)       return "seq " + seq + " after " + lastSeq;
+      if (len != lengthOf(seq)) return "seq " + seq + ": length " + len;
+      for (int i = 8; i < len; i++) {
+        if (frame[i] != (byte) seq) return "seq " + seq + ": torn at byte " + i;
+      }
+      lastSeq = seq;
+      return null;
+    }
+
+    private static void sleepNanos(long nanos) {
+      try { Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000)); } catch (InterruptedException ignored) {}
+    }
+  }
+
+  @Test
+  public void concurrentReadersNeverSeeATornFrameAndCountWhatTheySkip() throws InterruptedException {
+    final long    total = 200_000;
+    AudioRing     ring  = new AudioRing(32, FRAME_BYTES);
+    AtomicBoolean done  = new AtomicBoolean();
+
+    List<Checker> readers = new ArrayList<>();
+    readers.add(new Checker(ring, 0, done));            // keeps up
+    readers.add(new Checker(ring, 0, done));
+    readers.add(new Checker(ring, 50_000, done));       // laps constantly
+    for (Checker c : readers) c.start();
+
+    for (long seq = 0; seq < total; seq++) {
+      publish(ring, seq);
+      if ((seq & 63) == 0) Thread.yield();
+    }
+    done.set(true);
+    for (Checker c : readers) c.join(30_000);
+
+    for (Checker c : readers) {
+      assertEquals(null, c.error);
+      assertEquals(total - 1, c.lastSeq);
+      assertEquals(total, c.frames + c.reader.overruns());
+    }
+    assertTrue(readers.get(2).reader.overruns() > 0);
+  }
+}
@@ -0,0 +1,217 @@
+package myapp.app.audio;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/** {@link LosslessBlockCodec}, {@link RecordingWriter} and {@link RecordingReader} must be bit-exact. */
+public class RecordingRoundTripTest {
+
+  private static final int BLOCK = RecordingWriter.BLOCK_SAMPLES;
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("recording").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = dir.listFiles();
+    if (files != null) for (File f : files) f.delete();
+    dir.delete();
+  }
+
+  // ======== SIGNALS ========
+
+  private static short[] silence(int n) {
+    return new short[n];
+  }
+
+  /** Jumps between -32768 and 32767 at random, the worst case for every predictor order. */
+  private static short[] fullScale(int n) {
+    Random  r    = new Random(0);
+    short[] s    = new short[n];
+    boolean high = true;
+    for (int i = 0; i < n; i++) {
+      if (r.nextInt(3) == 0) high = !high;
+      s[i] = high ? Short.MAX_VALUE : Short.MIN_VALUE;
+    }
+    return s;
+  }
+
+  private static short[] noise(int n, long seed) {
+    Random  r = new Random(seed);
+    short[] s = new short[n];
+    for (int i = 0; i < n; i++) s[i] = (short) r.nextInt(1 << 16);
+    return s;
+  }
+
+  /** A quiet tone, the kind of block the predictor and Rice coding are there for. */
+  private static short[] tone(int n) {
+    short[] s = new short[n];
+    for (int i = 0; i < n; i++) s[i] = (short) (3000 * Math.sin(2 * Math.PI * 440 * i / 16000.0));
+    return s;
+  }
+
+  private static byte[] pcm(short[] s) {
+    byte[] b = new byte[s.length * 2];
+    for (int i = 0; i < s.length; i++) {
+      b[2 * i    ] = (byte)  s[i];
+      b[2 * i + 1] = (byte) (s[i] >> 8);
+    }
+    return b;
+  }
+
+  // ======== HELPERS ========
+
+  private static short[] codecRoundTrip(short[] s) {
+    byte[] out = new byte[LosslessBlockCodec.maxBlockBytes(s.length)];
+    int    len = LosslessBlockCodec.encode(s, s.length, out);
+    assertTrue(len <= out.length);
+
+    byte[] header  = new byte[LosslessBlockCodec.HEADER_BYTES];
+    byte[] payload = new byte[len - header.length];
+    System.arraycopy(out, 0,             header,  0, header .length);
+    System.arraycopy(out, header.length, payload, 0, payload.length);
+    assertTrue(LosslessBlockCodec.isValid(header, payload, payload.length));
+
+    short[] dst = new short[s.length];
+    assertEquals(s.length, LosslessBlockCodec.decode(header, payload, dst));
+    return dst;
+  }
+
+  /** Writes {@code pcm} in chunks of {@code chunk} bytes (odd sizes split samples) and reads it back. */
+  private byte[] fileRoundTrip(byte[] pcm, int chunk) throws IOException {
+    File file = new File(dir, "rec" + RecordingWriter.EXTENSION);
+    try (RecordingWriter w = new RecordingWriter(file, 16000)) {
+      for (int off = 0; off < pcm.length; off += chunk) w.write(pcm, off, Math.min(chunk, pcm.length - off));
+      assertEquals(pcm.length / 2, w.samples());
+    }
+    try (RecordingReader r = new RecordingReader(file)) {
+      assertEquals(16000, r.sampleRate());
+      assertEquals(pcm.length / 2, r.totalSamples());
+      return readAll(r, 1000);
+    }
+  }
+
+  private static byte[] readAll(RecordingReader r, int chunk) throws IOException {
+    ByteArrayOutputStream all = new ByteArrayOutputStream();
+    byte[] buf = new byte[chunk];
+    int    n;
+    while ((n = r.read(buf, 0, buf.length)) >= 0) all.write(buf, 0, n);
+    return all.toByteArray();
+  }
+
+  // ======== CODEC ========
+
+  @Test
+  public void codecIsBitExact() {
+    for (short[] s : new short[][] { silence(BLOCK), fullScale(BLOCK), noise(BLOCK, 1), tone(BLOCK), noise(1, 2), noise(2, 3), noise(3, 4) }) {
+      assertArrayEquals(s, codecRoundTrip(s));
+    }
+  }
+
+  @Test
+  public void incompressibleBlocksStayWithinMaxBlockBytes() {
+    short[] s   = fullScale(BLOCK);
+    byte[]  out = new byte[LosslessBlockCodec.maxBlockBytes(BLOCK)];
+    assertTrue(LosslessBlockCodec.encode(s, BLOCK, out) <= out.length);
+
+    short[] quiet = tone(BLOCK);
+    assertTrue(LosslessBlockCodec.encode(quiet, BLOCK, out) < BLOCK * 2);   // smaller than raw PCM16
+  }
+
+  // ======== FILE ========
+
+  @Test
+  public void silenceRoundTrips() throws IOException {
+    byte[] pcm = pcm(silence(3 * BLOCK));
+    assertArrayEquals(pcm, fileRoundTrip(pcm, 3200));
+  }
+
+  @Test
+  public void fullScaleRoundTrips() throws IOException {
+    byte[] pcm = pcm(fullScale(3 * BLOCK));
+    assertArrayEquals(pcm, fileRoundTrip(pcm, 3200));
+  }
+
+  @Test
+  public void noiseRoundTripsWithOddWriteSizes() throws IOException {
+    byte[] pcm = pcm(noise(3 * BLOCK, 5));
+    assertArrayEquals(pcm, fileRoundTrip(pcm, 777));
+  }
+
+  @Test
+  public void partialLastBlockRoundTrips() throws IOException {
+    byte[] pcm = pcm(noise(2 * BLOCK + 1234, 6));
+    assertArrayEquals(pcm, fileRoundTrip(pcm, 3200));
+  }
+
+  @Test
+  public void seekLandsOnTheRightSample() throws IOException {
+    short[] s    = noise(2 * BLOCK + 100, 7);
+    File    file = new File(dir, "rec" + RecordingWriter.EXTENSION);
+    try (RecordingWriter w = new RecordingWriter(file, 16000)) {
+      w.write(pcm(s), 0, s.length * 2);
+    }
+    try (RecordingReader r = new RecordingReader(file)) {
+      long at = BLOCK + 17;
+      r.seek(at);
+      byte[] got = readAll(r, 512);
+      byte[] all = pcm(s);
+      byte[] want = new byte[all.length - (int) at * 2];
+      System.arraycopy(all, (int) at * 2, want, 0, want.length);
+      assertArrayEquals(want, got);
+    }
+  }
+
+  @Test
+  public void readerFollowsAWriterThatIsStillRecording() throws IOException {
+    byte[] pcm  = pcm(noise(3 * BLOCK, 8));
+    File   file = new File(dir, "rec" + RecordingWriter.EXTENSION);
+    try (RecordingWriter w = new RecordingWriter(file, 16000)) {
+      w.write(pcm, 0, BLOCK * 2);
+      try (RecordingReader r = new RecordingReader(file)) {
+        assertEquals(BLOCK, r.totalSamples());
+        w.write(pcm, BLOCK * 2, pcm.length - BLOCK * 2);
+        r.refresh();
+        assertEquals(3 * BLOCK, r.totalSamples());
+        assertArrayEquals(pcm, readAll(r, 4096));
+      }
+    }
+  }
+
+  @Test
+  public void corruptedPayloadIsReported() throws IOException {
+    byte[] pcm  = pcm(noise(BLOCK, 9));
+    File   file = new File(dir, "rec" + RecordingWriter.EXTENSION);
+    try (RecordingWriter w = new RecordingWriter(file, 16000)) {
+      w.write(pcm, 0, pcm.length);
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long at = RecordingWriter.HEADER_BYTES + LosslessBlockCodec.HEADER_BYTES + 100;
+      raf.seek(at);
+      int b = raf.read();
+      raf.seek(at);
+      raf.write(b ^ 0x10);
+    }
+    try (RecordingReader r = new RecordingReader(file)) {
+      IOException e = assertThrows(IOException.class, () -> r.read(new byte[64], 0, 64));
+      assertTrue(e.getMessage(), e.getMessage().startsWith("CRC mismatch"));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package myapp.app.audio;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link TimeStretcher} at the TTS (24 kHz), playback (48 kHz) and recording (16 kHz) rates:
+ *   identity  tempo 1 reproduces the input to within float rounding
+ *   length    output length is input / tempo, within one 15 ms hop
+ *   pitch     a stretched 220 Hz / 1 kHz sine keeps its frequency (within 0.5%) and fits a
+ *             sine with SNR >= 25 dB
+ *   blocks    random block sizes give bit-identical output to a single call
+ */
+public class TimeStretcherTest {
+
+  private static final int[]   RATES  = { 24000, 48000, 16000 };
+  private static final float[] TEMPOS = { 0.5f, 0.75f, 1.25f, 1.5f, 2.0f };
+
+  private static final double MAX_FREQ_ERROR = 0.005;
+  private static final double MIN_SNR_DB     = 25;
+
+  // ======== SIGNALS ========
+
+  private static float[] sine(int rate, double f, int n) {
+    float[] x = new float[n];
+    for (int i = 0; i < n; i++) x[i] = (float) (0.5 * Math.sin(2 * Math.PI * f * i / rate));
+    return x;
+  }
+
+  private static float[] noise(int rate) {
+    Random  rnd = new Random(7);
+    float[] x   = new float[rate];   // one second
+    for (int i = 0; i < x.length; i++) x[i] = (float) rnd.nextGaussian() * 0.2f;
+    return x;
+  }
+
+  private static float[] stretch(int rate, float tempo, float[] x) {
+    TimeStretcher s = new TimeStretcher(rate).setTempo(tempo);
+    s.put(x, 0, x.length);
+    s.flush();
+    float[] y = new float[s.available()];
+    s.receive(y, 0, y.length);
+    return y;
+  }
+
+  /**
+   * Frequency (refined by a grid search around {@code f}) and SNR of the best least-squares sine fit
+   * to the middle of {@code y}, in 50 ms windows so a phase jump at a frame boundary counts as error
+   * only where it happens.
+   */
+  private static double[] fitSine(float[] y, int rate, double f) {
+    int    win = rate / 20;
+    double bestF = f, bestErr = Double.MAX_VALUE, bestSig = 0;
+    for (double g = f * 0.99; g <= f * 1.01; g += f * 0.0005) {
+      double sig = 0, err = 0;
+      for (int start = rate / 10; start + win <= y.length - rate / 10; start += win) {
+        double ss = 0, sc = 0, cc = 0, ys = 0, yc = 0;
+        for (int i = start; i < start + win; i++) {
+          double w = 2 * Math.PI * g * i / rate, s = Math.sin(w), c = Math.cos(w);
+          ss += s * s; cc += c * c; sc += s * c; ys += y[i] * s; yc += y[i] * c;
+        }
+        double det = ss * cc - sc * sc;
+        double a   = (ys * cc - yc * sc) / det;
+        double b   = (yc * ss - ys * sc) / det;
+        for (int i = start; i < start + win; i++) {
+          double w   = 2 * Math.PI * g * i / rate;
+          double fit = a * Math.sin(w) + b * Math.cos(w);
+          sig += fit * fit;
+          err += (y[i] - fit) * (y[i] - fit);
+        }
+      }
+      if (err < bestErr) { bestErr = err; bestF = g; bestSig = sig; }
+    }
+    return new double[] { bestF, 10 * Math.log10(bestSig / Math.max(bestErr, 1e-30)) };
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void tempoOneIsTheIdentity() {
+    for (int rate : RATES) {
+      float[] x = noise(rate);
+      assertArrayEquals("rate " + rate, x, stretch(rate, 1f, x), 1e-6f);
+    }
+  }
+
+  @Test
+  public void outputLengthFollowsTheTempo() {
+    for (int rate : RATES) {
+      float[] x = noise(rate);
+      for (float tempo : TEMPOS) {
+        int got  = stretch(rate, tempo, x).length;
+        int want = Math.round(x.length / tempo);
+        assertTrue("rate " + rate + " tempo " + tempo + ": " + got + " samples, want " + want,
+            Math.abs(got - want) <= rate * 15 / 1000);
+      }
+    }
+  }
+
+  @Test
+  public void pitchIsKept() {
+    for (int rate : RATES) {
+      for (float tempo : TEMPOS) {
+        for (double f : new double[] { 220, 1000 }) {
+          double[] fit = fitSine(stretch(rate, tempo, sine(rate, f, rate)), rate, f);
+          String   at  = "rate " + rate + " tempo " + tempo + " " + f + " Hz: ";
+          assertTrue(at + fit[0] + " Hz", Math.abs(fit[0] - f) / f <= MAX_FREQ_ERROR);
+          assertTrue(at + "SNR " + fit[1] + " dB", fit[1] >= MIN_SNR_DB);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void blockSizesDoNotChangeTheOutput() {
+    for (int rate : RATES) {
+      float[] x     = noise(rate);
+      float[] whole = stretch(rate, 1.25f, x);
+
+      Random        rnd = new Random(5);
+      TimeStretcher s   = new TimeStretcher(rate).setTempo(1.25f);
+      float[]       y   = new float[whole.length + rate];
+      int n = 0;
+      for (int i = 0; i < x.length; ) {
+        int len = Math.min(x.length - i, 1 + rnd.nextInt(2000));
+        s.put(x, i, len);
+        n += s.receive(y, n, y.length - n);
+        i += len;
+      }
+      s.flush();
+      n += s.receive(y, n, y.length - n);
+
+      assertEquals("rate " + rate, whole.length, n);
+      assertArrayEquals("rate " + rate, whole, Arrays.copyOf(y, n), 0f);
+    }
+  }
+}
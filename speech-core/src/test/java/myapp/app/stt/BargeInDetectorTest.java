@@ -0,0 +1,130 @@
+package myapp.app.stt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import myapp.app.audio.EchoReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link BargeInDetector} on synthetic 20 ms capture frames at 16 kHz: room noise, our own output
+ * coming back through the mic 15 dB below what was played, and the user talking over it.
+ * Output blocks are reported one frame before the mic hears them, as the device buffer delays them.
+ */
+public class BargeInDetectorTest {
+
+  private static final int   RATE     = 16000;
+  private static final int   FRAME    = RATE / 50;     // samples per 20 ms frame
+  private static final long  FRAME_NS = 20_000_000L;
+  private static final float OUTPUT   = 0.1f;          // mean square of what we play
+  private static final float ECHO_AMP = (float) Math.sqrt(2 * OUTPUT * Math.pow(10, -1.5));   // -15 dB
+
+  private final List<long[]> bargeIns = new CopyOnWriteArrayList<>();
+  private final Random       rnd      = new Random(11);
+
+  private EchoReference   ref;
+  private BargeInDetector detector;
+  private int             phase;   // sample clock for the sines
+
+  @Before
+  public void setUp() {
+    ref      = new EchoReference();
+    detector = new BargeInDetector(ref, RATE, (onset, detected) -> bargeIns.add(new long[] { onset, detected }));
+  }
+
+  // ======== SIGNALS ========
+
+  /** One frame of PCM16: low room noise plus a 500 Hz echo and a 220 Hz voice at the given amplitudes (full scale = 1). */
+  private byte[] frame(float echo, float voice) {
+    byte[] b = new byte[2 * FRAME];
+    for (int i = 0; i < FRAME; i++, phase++) {
+      double x = 0.001 * rnd.nextGaussian()
+               + echo  * Math.sin(2 * Math.PI * 500 * phase / RATE)
+               + voice * Math.sin(2 * Math.PI * 220 * phase / RATE);
+      int v = (int) Math.max(-32768, Math.min(32767, Math.round(x * 32768)));
+      b[2 * i]     = (byte) v;
+      b[2 * i + 1] = (byte) (v >> 8);
+    }
+    return b;
+  }
+
+  /** Feeds {@code ms} of frames, reporting output for each one first when {@code playing}; returns the last verdict. */
+  private int feed(int ms, boolean playing, float echo, float voice) {
+    int verdict = -1;
+    for (int t = 0; t < ms; t += 20) {
+      if (playing) ref.onPlayed(OUTPUT, System.nanoTime() - FRAME_NS);
+      byte[] f = frame(echo, voice);
+      verdict = detector.process(f, f.length);
+    }
+    return verdict;
+  }
+
+  private void learnNoiseFloor() {
+    assertEquals(BargeInDetector.CLEAR, feed(200, false, 0f, 0f));
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void nothingPlayingIsClear() {
+    assertEquals(BargeInDetector.CLEAR, feed(200, false, 0f, 0.5f));
+    assertTrue(bargeIns.isEmpty());
+  }
+
+  @Test
+  public void echoAloneNeverCounts() {
+    learnNoiseFloor();
+    ref.setPlaying(true);
+    for (int i = 0; i < 50; i++) {
+      assertEquals("frame " + i, BargeInDetector.ECHO, feed(20, true, ECHO_AMP, 0f));
+    }
+    assertTrue(bargeIns.isEmpty());
+  }
+
+  @Test
+  public void speechOverEchoIsDetectedOnce() {
+    learnNoiseFloor();
+    ref.setPlaying(true);
+    feed(400, true, ECHO_AMP, 0f);
+
+    int verdict = BargeInDetector.ECHO;
+    int ms      = 0;
+    while (verdict == BargeInDetector.ECHO && ms < 1000) {
+      verdict = feed(20, true, ECHO_AMP, 0.6f);
+      ms     += 20;
+    }
+    assertEquals(BargeInDetector.BARGE_IN, verdict);
+    assertTrue(ms + " ms", ms >= detector.minSpeechMs() && ms <= detector.minSpeechMs() + 40);
+    assertEquals(1, bargeIns.size());
+    assertTrue(bargeIns.get(0)[0] < bargeIns.get(0)[1]);
+
+    assertEquals(BargeInDetector.BARGE_IN, feed(200, true, ECHO_AMP, 0.6f));   // latched for this playback
+    assertEquals(1, bargeIns.size());
+  }
+
+  @Test
+  public void playbackWithoutReferenceYetIsEcho() {
+    learnNoiseFloor();
+    ref.setPlaying(true);
+    float coupling = detector.couplingDb();
+
+    // The device is already playing loudly into the mic but no block has been reported yet.
+    assertEquals(BargeInDetector.ECHO, feed(300, false, 0.5f, 0f));
+    assertTrue(bargeIns.isEmpty());
+    assertEquals(coupling, detector.couplingDb(), 0f);   // nothing learned from it either
+  }
+
+  @Test
+  public void noSpeechCountsBeforeTheNoiseFloorIsKnown() {
+    ref.setPlaying(true);   // playing from the very first frame: no quiet block yet
+
+    assertEquals(BargeInDetector.ECHO, feed(300, true, ECHO_AMP, 0.6f));
+    assertTrue(bargeIns.isEmpty());
+  }
+}
@@ -0,0 +1,53 @@
+package myapp.app.tts;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** {@link TextNormalizer} against corpus/normalize_golden.tsv; every difference is reported, not just the first. */
+public class TextNormalizerGoldenTest {
+
+    private static final String CORPUS = "/corpus/normalize_golden.tsv";
+
+    @Test
+    public void corpusMatches() throws IOException {
+        int           cases    = 0;
+        StringBuilder failures = new StringBuilder();
+        try (InputStream in = TextNormalizerGoldenTest.class.getResourceAsStream(CORPUS)) {
+            if (in == null) throw new FileNotFoundException(CORPUS);
+            BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                if (tab < 0) throw new IOException("No tab in golden line: " + line);
+                String input    = line.substring(0, tab).replace("\\n", "\n");
+                String expected = line.substring(tab + 1).replace("\\n", "\n");
+                String actual   = TextNormalizer.normalize(input);
+                cases++;
+                if (!actual.equals(expected)) {
+                    failures.append("\ninput:    ").append(input)
+                            .append("\nexpected: ").append(expected)
+                            .append("\nactual:   ").append(actual).append('\n');
+                }
+            }
+        }
+        assertTrue("empty corpus", cases > 0);
+        assertEquals("", failures.toString());
+    }
+
+    @Test
+    public void appendingKeepsWhatIsAlreadyInTheBuilder() {
+        StringBuilder out = new StringBuilder("Say: ");
+        TextNormalizer.normalize("  25:00 ", out);
+        assertEquals("Say: twenty five minutes", out.toString());
+    }
+}
@@ -0,0 +1,175 @@
+package myapp.app.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/** {@link ModelAssetManager} installing files from an in-process {@link HttpServer}. */
+public class ModelAssetManagerTest {
+
+  private static final int SIZE = 300_000;   // one segment
+
+  private final byte[]        data     = new byte[SIZE];
+  private final List<String>  ranges   = new CopyOnWriteArrayList<>();   // Range header of every GET, "-" if none
+  private final AtomicBoolean truncate = new AtomicBoolean();            // send half of the next segment
+
+  private HttpServer        server;
+  private File              dir;
+  private ModelAssetManager manager;
+  private String            sha;
+
+  @Before
+  public void setUp() throws IOException {
+    new Random(1).nextBytes(data);
+    sha     = hex(data);
+    dir     = Files.createTempDirectory("assets").toFile();
+    server  = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::serveFile);
+    server.start();
+    manager = new ModelAssetManager(2, null);
+  }
+
+  @After
+  public void tearDown() {
+    manager.shutdown();
+    server.stop(0);
+    ModelAssetManager.deleteRecursive(dir);
+  }
+
+  // ======== FIXTURE ========
+
+  private void serveFile(HttpExchange ex) throws IOException {
+    String range = ex.getRequestHeaders().getFirst("Range");
+    ranges.add(range != null ? range : "-");
+    long first = 0, last = SIZE - 1;
+    int  code  = HttpURLConnection.HTTP_OK;
+    if (range != null) {
+      String[] p = range.substring("bytes=".length()).split("-", -1);
+      first = Long.parseLong(p[0]);
+      last  = p[1].isEmpty() ? SIZE - 1 : Math.min(SIZE - 1, Long.parseLong(p[1]));
+      code  = HttpURLConnection.HTTP_PARTIAL;
+      ex.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + SIZE);
+    }
+    int length = (int) (last - first + 1);
+    if (length > 1 && truncate.compareAndSet(true, false)) length /= 2;   // ends early, headers unchanged
+    ex.sendResponseHeaders(code, length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(data, (int) first, length);
+    }
+  }
+
+  private ModelAsset asset(String name) {
+    return ModelAsset.file(name, "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name, new File(dir, name));
+  }
+
+  private static String hex(byte[] b) {
+    try {
+      StringBuilder sb = new StringBuilder();
+      for (byte x : MessageDigest.getInstance("SHA-256").digest(b)) sb.append(String.format("%02x", x));
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** The cause a failed readiness future completed with. */
+  private static Throwable failure(CompletableFuture<File> f) throws Exception {
+    ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(30, TimeUnit.SECONDS));
+    return e.getCause();
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void verifiedFileIsStampedAndNotFetchedAgain() throws Exception {
+    ModelAsset a = asset("model.onnx").withSize(SIZE).withSha256(sha.toUpperCase());
+    manager.submit(a);
+
+    File f = manager.await("model.onnx");
+    assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+    assertTrue(new File(dir, "model.onnx.asset").isFile());
+    assertFalse(new File(dir, "model.onnx.part").exists());
+
+    int requests = ranges.size();
+    ModelAssetManager again = new ModelAssetManager(1, null);
+    try {
+      again.submit(a);
+      assertEquals(f, again.await("model.onnx"));
+    } finally {
+      again.shutdown();
+    }
+    assertEquals(requests, ranges.size());
+  }
+
+  @Test
+  public void hashMismatchFailsOnlyThatAssetsFuture() throws Exception {
+    String wrong = sha.substring(1) + (sha.charAt(0) == '0' ? '1' : '0');
+    manager.submitAll(Arrays.asList(
+        asset("good.onnx").withSha256(sha),
+        asset("bad.onnx" ).withSha256(wrong)));
+
+    Throwable cause = failure(manager.future("bad.onnx"));
+    assertTrue(String.valueOf(cause), cause instanceof IOException);
+    assertTrue(cause.getMessage(), cause.getMessage().startsWith("SHA-256 mismatch for bad.onnx"));
+    IOException e = assertThrows(IOException.class, () -> manager.await("bad.onnx"));
+    assertTrue(e.getMessage(), e.getMessage().startsWith("SHA-256 mismatch"));
+    assertFalse(new File(dir, "bad.onnx").exists());
+    assertFalse(new File(dir, "bad.onnx.part").exists());
+    assertFalse(new File(dir, "bad.onnx.asset").exists());
+
+    assertArrayEquals(data, Files.readAllBytes(manager.await("good.onnx").toPath()));
+  }
+
+  @Test
+  public void declaredSizeMismatchFailsTheFuture() throws Exception {
+    manager.submit(asset("model.onnx").withSize(SIZE + 1));
+
+    Throwable cause = failure(manager.future("model.onnx"));
+    assertTrue(String.valueOf(cause), cause instanceof IOException);
+    assertEquals("model.onnx: size " + SIZE + " != declared " + (SIZE + 1), cause.getMessage());
+    assertFalse(new File(dir, "model.onnx").exists());
+    assertFalse(new File(dir, "model.onnx.asset").exists());
+  }
+
+  @Test
+  public void truncatedDownloadIsRetriedAndVerified() throws Exception {
+    truncate.set(true);
+    manager.submit(asset("model.onnx").withSize(SIZE).withSha256(sha));
+
+    assertArrayEquals(data, Files.readAllBytes(manager.await("model.onnx").toPath()));
+    // probe, the segment cut short, and a retry that starts where it stopped
+    assertEquals(ranges.toString(), 3, ranges.size());
+    assertEquals("bytes=" + SIZE / 2 + "-" + (SIZE - 1), ranges.get(2));
+  }
+
+  @Test
+  public void undeclaredAssetIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> manager.future("missing"));
+  }
+}
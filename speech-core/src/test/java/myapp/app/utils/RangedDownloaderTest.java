@@ -0,0 +1,163 @@
+package myapp.app.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/** {@link RangedDownloader} against an in-process {@link HttpServer}. */
+public class RangedDownloaderTest {
+
+  private static final int SIZE = 9 << 20;   // two segments (at least 4 MiB each)
+
+  private final byte[]        data     = new byte[SIZE];
+  private final List<String>  ranges   = new CopyOnWriteArrayList<>();   // Range header of every GET, "-" if none
+  private final AtomicBoolean truncate = new AtomicBoolean();            // send half of the next segment
+  private volatile boolean    rangesOk = true;
+
+  private HttpServer server;
+  private File       dir;
+
+  @Before
+  public void setUp() throws IOException {
+    new Random(1).nextBytes(data);
+    dir    = Files.createTempDirectory("ranged").toFile();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/file", this::serveFile);
+    server.createContext("/hop/", this::serveRedirect);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    File[] files = dir.listFiles();
+    if (files != null) for (File f : files) f.delete();
+    dir.delete();
+  }
+
+  // ======== FIXTURE ========
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  private void serveFile(HttpExchange ex) throws IOException {
+    String range = ex.getRequestHeaders().getFirst("Range");
+    ranges.add(range != null ? range : "-");
+    long first = 0, last = SIZE - 1;
+    int  code  = HttpURLConnection.HTTP_OK;
+    if (range != null && rangesOk) {
+      String[] p = range.substring("bytes=".length()).split("-", -1);
+      first = Long.parseLong(p[0]);
+      last  = p[1].isEmpty() ? SIZE - 1 : Math.min(SIZE - 1, Long.parseLong(p[1]));
+      code  = HttpURLConnection.HTTP_PARTIAL;
+      ex.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + SIZE);
+    }
+    int length = (int) (last - first + 1);
+    if (length > 1 && truncate.compareAndSet(true, false)) length /= 2;   // ends early, headers unchanged
+    ex.sendResponseHeaders(code, length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(data, (int) first, length);
+    }
+  }
+
+  /** /hop/N redirects to /hop/N-1, /hop/0 to /file. */
+  private void serveRedirect(HttpExchange ex) throws IOException {
+    int n = Integer.parseInt(ex.getRequestURI().getPath().substring("/hop/".length()));
+    ex.getResponseHeaders().set("Location", (n == 0) ? "/file" : "/hop/" + (n - 1));
+    ex.sendResponseHeaders(HttpURLConnection.HTTP_MOVED_TEMP, -1);
+    ex.close();
+  }
+
+  private byte[] download(RangedDownloader d) throws IOException {
+    d.download();
+    return Files.readAllBytes(new File(dir, "model.bin").toPath());
+  }
+
+  private RangedDownloader downloader(String path) {
+    return new RangedDownloader(url(path), new File(dir, "model.bin")).setSegments(4);
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void serverWithoutRangesIsFetchedInOnePiece() throws IOException {
+    rangesOk = false;
+    byte[] got = download(downloader("/file"));
+
+    assertArrayEquals(data, got);
+    assertEquals(2, ranges.size());   // the probe, then one plain GET
+    assertFalse(new File(dir, "model.bin.part").exists());
+    assertFalse(new File(dir, "model.bin.part.meta").exists());
+  }
+
+  @Test
+  public void rangedServerIsFetchedInSegments() throws IOException {
+    byte[] got = download(downloader("/file"));
+
+    assertArrayEquals(data, got);
+    assertEquals("bytes=0-0", ranges.get(0));
+    assertEquals(1 + 2, ranges.size());   // probe + two 4.5 MiB segments
+    for (String r : ranges) assertTrue(r, r.startsWith("bytes="));
+  }
+
+  @Test
+  public void redirectsAreFollowedUpToTheLimit() throws IOException {
+    HttpURLConnection conn = RangedDownloader.open(url("/hop/9"), "bytes=0-0");   // 10 redirects
+    try {
+      assertEquals(HttpURLConnection.HTTP_PARTIAL, conn.getResponseCode());
+    } finally {
+      conn.disconnect();
+    }
+    IOException e = assertThrows(IOException.class, () -> RangedDownloader.open(url("/hop/10"), "bytes=0-0"));
+    assertTrue(e.getMessage(), e.getMessage().startsWith("Too many redirects"));
+
+    assertArrayEquals(data, download(downloader("/hop/3")));
+  }
+
+  @Test
+  public void truncatedSegmentIsResumedWhereItStopped() throws IOException {
+    truncate.set(true);
+    byte[] got = download(downloader("/file"));
+
+    assertArrayEquals(data, got);
+    // probe, two segments (one cut short), and a retry that starts inside its segment
+    assertEquals(4, ranges.size());
+    boolean resumed = false;
+    for (String r : ranges.subList(1, ranges.size())) {
+      long start = Long.parseLong(r.substring("bytes=".length(), r.indexOf('-')));
+      if (start != 0 && start != SIZE / 2) resumed = true;
+    }
+    assertTrue(ranges.toString(), resumed);
+  }
+
+  @Test
+  public void contentRangeMustMatchTheRequest() {
+    assertTrue (RangedDownloader.contentRangeMatches("bytes 100-199/1000", 100, 199));
+    assertTrue (RangedDownloader.contentRangeMatches("bytes 100-999/1000", 100, -1));
+    assertFalse(RangedDownloader.contentRangeMatches("bytes 0-999/1000"  , 100, 199));
+    assertFalse(RangedDownloader.contentRangeMatches("bytes 100-150/1000", 100, 199));
+    assertFalse(RangedDownloader.contentRangeMatches("bytes */1000"      , 100, 199));
+    assertFalse(RangedDownloader.contentRangeMatches(null                , 0  , 0  ));
+  }
+}
@@ -0,0 +1,204 @@
+package myapp.app.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import myapp.app.log.Logger;
+import myapp.app.metrics.Metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/** {@link ResourceGovernor} tiers, order and budget with fake resources that record every trim. */
+public class ResourceGovernorTest {
+
+  private static final long MB = 1 << 20;
+
+  private final List<String> trims    = new CopyOnWriteArrayList<>();   // "name@tier" in call order
+  private final List<String> warnings = new CopyOnWriteArrayList<>();
+  private final Logger       log      = (level, msg) -> { if (level >= Logger.WARN) warnings.add(msg); };
+
+  @Before
+  public void setUp() {
+    Metrics.reset();
+  }
+
+  // ======== FIXTURE ========
+
+  /** Holds some memory per tier and gives back each tier's share when trimmed to it. */
+  private class Fake implements ResourceGovernor.Resource {
+    final String name;
+    final long[] bytes;   // indexed by tier; [0] is never released
+
+    Fake(String name, long caches, long pools, long sessions) {
+      this.name  = name;
+      this.bytes = new long[] { 0, caches, pools, sessions };
+    }
+
+    @Override public String name() { return name; }
+
+    @Override public synchronized long footprintBytes() {
+      long sum = 0;
+      for (long b : bytes) sum += b;
+      return sum;
+    }
+
+    @Override public synchronized void trim(int tier) {
+      trims.add(name + "@" + tier);
+      for (int t = 1; t <= tier; t++) bytes[t] = 0;
+    }
+  }
+
+  /** A model session that is not closed while a {@link Consumer} still holds it. */
+  private class Session extends Fake {
+    int users;
+
+    Session() { super("tts.model", 0, 0, 80 * MB); }
+
+    @Override public synchronized void trim(int tier) {
+      trims.add(name + "@" + tier);
+      if (tier >= ResourceGovernor.SESSIONS && users == 0) bytes[ResourceGovernor.SESSIONS] = 0;
+    }
+  }
+
+  /** Holds the session while it has prepared work, like the TTS prefetcher; lets go at CACHES. */
+  private class Consumer extends Fake {
+    final Session session;
+    boolean       holding;
+
+    Consumer(Session session) {
+      super("tts.prefetch", 2 * MB, 0, 0);
+      this.session = session;
+      synchronized (session) { session.users++; }
+      holding = true;
+    }
+
+    @Override public synchronized void trim(int tier) {
+      super.trim(tier);
+      if (holding) {
+        synchronized (session) { session.users--; }
+        holding = false;
+      }
+    }
+  }
+
+  private ResourceGovernor governor(ResourceGovernor.Resource... resources) {
+    ResourceGovernor g = new ResourceGovernor(log);
+    for (ResourceGovernor.Resource r : resources) g.register(r);
+    return g;
+  }
+
+  private static List<String> expected(String... trims) {
+    return new ArrayList<>(Arrays.asList(trims));
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void withinBudgetNothingIsTrimmed() {
+    ResourceGovernor g = governor(new Fake("a", MB, MB, MB)).setBudgetBytes(3 * MB);
+
+    assertEquals(ResourceGovernor.NONE, g.enforce());
+    assertTrue(trims.isEmpty());
+  }
+
+  @Test
+  public void enforceStopsAtTheCheapestTierThatFits() {
+    ResourceGovernor g = governor(
+        new Fake("tts.prefetch", 10 * MB, 0, 0),
+        new Fake("tts.model"   , 1 * MB, 0, 80 * MB),
+        new Fake("tts.styles"  , 1 * MB, 0, 0)).setBudgetBytes(85 * MB);
+
+    assertEquals(ResourceGovernor.CACHES, g.enforce());
+    assertEquals(expected("tts.prefetch@1", "tts.model@1", "tts.styles@1"), trims);
+    assertEquals(80 * MB, g.totalBytes());
+    assertEquals(1, Metrics.counter("governor.trim.caches").get());
+    assertEquals(0, Metrics.counter("governor.trim.sessions").get());
+  }
+
+  @Test
+  public void enforceEscalatesOneTierAtATimeInRegistrationOrder() {
+    ResourceGovernor g = governor(
+        new Fake("tts.prefetch", MB, 2 * MB, 0),
+        new Fake("tts.model"   , MB, 0, 80 * MB),
+        new Fake("stt.model"   , 0 , 0, 40 * MB)).setBudgetBytes(10 * MB);
+
+    assertEquals(ResourceGovernor.SESSIONS, g.enforce());
+    assertEquals(expected(
+        "tts.prefetch@1", "tts.model@1", "stt.model@1",
+        "tts.prefetch@2", "tts.model@2", "stt.model@2",
+        "tts.prefetch@3", "tts.model@3", "stt.model@3"), trims);
+    assertEquals(0, g.totalBytes());
+    assertTrue(warnings.toString(), warnings.isEmpty());
+  }
+
+  @Test
+  public void sessionIsReleasedWhenItsConsumerIsRegisteredFirst() {
+    Session  session  = new Session();
+    Consumer prefetch = new Consumer(session);
+    ResourceGovernor g = governor(prefetch, session);
+
+    g.trim(ResourceGovernor.SESSIONS);   // onTrimMemory(COMPLETE) goes straight to the top tier
+
+    assertEquals(expected("tts.prefetch@3", "tts.model@3"), trims);
+    assertEquals(0, session.footprintBytes());
+  }
+
+  @Test
+  public void sessionStaysOpenWhenItsConsumerIsTrimmedAfterIt() {
+    Session  session  = new Session();
+    Consumer prefetch = new Consumer(session);
+    ResourceGovernor g = governor(session, prefetch);
+
+    g.trim(ResourceGovernor.SESSIONS);
+    assertEquals(80 * MB, session.footprintBytes());   // was busy when its turn came
+
+    g.trim(ResourceGovernor.SESSIONS);
+    assertEquals(0, session.footprintBytes());          // only closed on the next call
+  }
+
+  @Test
+  public void enforceReleasesConsumersBeforeClosingTheSession() {
+    Session  session  = new Session();
+    Consumer prefetch = new Consumer(session);
+    ResourceGovernor g = governor(prefetch, session).setBudgetBytes(MB);
+
+    assertEquals(ResourceGovernor.SESSIONS, g.enforce());
+    assertEquals(expected(
+        "tts.prefetch@1", "tts.model@1",
+        "tts.prefetch@2", "tts.model@2",
+        "tts.prefetch@3", "tts.model@3"), trims);
+    assertEquals(0, g.totalBytes());
+    assertTrue(warnings.toString(), warnings.isEmpty());
+  }
+
+  @Test
+  public void failingResourceDoesNotStopTheOthers() {
+    ResourceGovernor.Resource broken = new Fake("broken", MB, 0, 0) {
+      @Override public synchronized void trim(int tier) {
+        trims.add(name + "@" + tier);
+        throw new IllegalStateException("boom");   // keeps what it has
+      }
+    };
+    ResourceGovernor g = governor(broken, new Fake("ok", MB, 0, 0));
+
+    g.trim(ResourceGovernor.CACHES);
+
+    assertEquals(expected("broken@1", "ok@1"), trims);
+    assertEquals(1, warnings.size());
+    assertEquals(MB, g.totalBytes());
+  }
+
+  @Test
+  public void badBudgetIsRejected() {
+    ResourceGovernor g = governor();
+    assertThrows(IllegalArgumentException.class, () -> g.setBudgetBytes(0));
+    assertEquals(ResourceGovernor.UNLIMITED, g.budgetBytes());
+  }
+}
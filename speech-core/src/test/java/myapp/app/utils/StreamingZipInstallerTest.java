@@ -0,0 +1,248 @@
+package myapp.app.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** {@link StreamingZipInstaller} against archives built byte by byte and served by an in-process {@link HttpServer}. */
+public class StreamingZipInstallerTest {
+
+  private final List<String>  ranges   = new CopyOnWriteArrayList<>();   // Range header of every GET, "-" if none
+  private final AtomicInteger truncate = new AtomicInteger(-1);          // serve only this many bytes once
+  private volatile byte[]     archive  ;
+
+  private HttpServer server;
+  private File       dir;
+  private File       finalDir;
+  private File       stagingDir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir        = Files.createTempDirectory("zip").toFile();
+    finalDir   = new File(dir, "vosk");
+    stagingDir = new File(dir, "vosk.staging");
+    server     = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/model.zip", this::serveArchive);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    ModelAssetManager.deleteRecursive(dir);
+  }
+
+  // ======== FIXTURE ========
+
+  private void serveArchive(HttpExchange ex) throws IOException {
+    String range = ex.getRequestHeaders().getFirst("Range");
+    ranges.add(range != null ? range : "-");
+    int first = 0;
+    int code  = HttpURLConnection.HTTP_OK;
+    if (range != null) {
+      first = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+      code  = HttpURLConnection.HTTP_PARTIAL;
+      ex.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + (archive.length - 1) + "/" + archive.length);
+    }
+    int length = archive.length - first;
+    int cut    = truncate.getAndSet(-1);
+    if (cut >= 0) length = Math.min(length, cut);   // an honest short body: the connection just ends early
+    ex.sendResponseHeaders(code, length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(archive, first, length);
+    }
+  }
+
+  private StreamingZipInstaller installer() {
+    return new StreamingZipInstaller("http://127.0.0.1:" + server.getAddress().getPort() + "/model.zip", stagingDir, finalDir, "model");
+  }
+
+  private static byte[] random(int n, long seed) {
+    byte[] b = new byte[n];
+    new Random(seed).nextBytes(b);
+    return b;
+  }
+
+  /** Compressible, so the deflated entry is really compressed. */
+  private static byte[] text(int lines) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) sb.append("line ").append(i).append(" of the model config\n");
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private byte[] read(String path) throws IOException {
+    return Files.readAllBytes(new File(finalDir, path).toPath());
+  }
+
+  /** Writes local file headers and entry data the way zip tools do; the central directory is just its end record. */
+  private static final class ZipBuilder {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    ZipBuilder directory(String name) {
+      return entry(name, 0, new byte[0], new byte[0], false);
+    }
+
+    ZipBuilder stored(String name, byte[] data) {
+      return entry(name, 0, data, data, false);
+    }
+
+    ZipBuilder deflated(String name, byte[] data, boolean descriptor) {
+      Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      d.setInput(data);
+      d.finish();
+      ByteArrayOutputStream packed = new ByteArrayOutputStream();
+      byte[] buf = new byte[4096];
+      while (!d.finished()) packed.write(buf, 0, d.deflate(buf));
+      d.end();
+      return entry(name, 8, data, packed.toByteArray(), descriptor);
+    }
+
+    private ZipBuilder entry(String name, int method, byte[] data, byte[] payload, boolean descriptor) {
+      CRC32 crc = new CRC32();
+      crc.update(data);
+      byte[] n = name.getBytes(StandardCharsets.UTF_8);
+      int32(0x04034b50);
+      int16(20);
+      int16(descriptor ? 0x08 : 0);
+      int16(method);
+      int32(0);
+      int32(descriptor ? 0 : (int) crc.getValue());
+      int32(descriptor ? 0 : payload.length);
+      int32(descriptor ? 0 : data.length);
+      int16(n.length);
+      int16(0);
+      out.write(n, 0, n.length);
+      out.write(payload, 0, payload.length);
+      if (descriptor) {
+        int32(0x08074b50);
+        int32((int) crc.getValue());
+        int32(payload.length);
+        int32(data.length);
+      }
+      return this;
+    }
+
+    byte[] finish() {
+      int32(0x06054b50);
+      for (int i = 0; i < 18; i++) out.write(0);
+      return out.toByteArray();
+    }
+
+    private void int16(int v) { out.write(v); out.write(v >>> 8); }
+    private void int32(int v) { int16(v); int16(v >>> 16); }
+  }
+
+  // ======== TESTS ========
+
+  @Test
+  public void storedAndDeflatedEntriesAreExtracted() throws IOException {
+    byte[] graph  = random(200_000, 1);
+    byte[] config = text(5_000);
+    archive = new ZipBuilder()
+        .directory("model/")
+        .stored   ("model/graph.bin", graph)
+        .deflated ("model/conf/model.conf", config, false)
+        .finish();
+
+    installer().install();
+
+    assertArrayEquals(graph , read("graph.bin"));
+    assertArrayEquals(config, read("conf/model.conf"));
+    assertFalse(stagingDir.exists());
+    assertFalse(new File(stagingDir.getPath() + ".progress").exists());
+  }
+
+  @Test
+  public void entriesWithADataDescriptorAreExtracted() throws IOException {
+    byte[] small = text(3);
+    byte[] large = text(20_000);
+    archive = new ZipBuilder()
+        .deflated("model/a.txt", small, true)
+        .deflated("model/b.txt", large, true)
+        .stored  ("model/c.bin", random(1000, 2))
+        .finish();
+
+    installer().install();
+
+    assertArrayEquals(small, read("a.txt"));
+    assertArrayEquals(large, read("b.txt"));
+    assertEquals(1000, read("c.bin").length);
+  }
+
+  @Test
+  public void truncatedStreamResumesAtTheLastCompleteEntry() throws IOException {
+    byte[] first  = random(100_000, 3);
+    byte[] second = random(100_000, 4);
+    archive = new ZipBuilder()
+        .stored("model/first.bin" , first)
+        .stored("model/second.bin", second)
+        .finish();
+    truncate.set(150_000);   // ends inside the second entry
+
+    installer().install();
+
+    assertArrayEquals(first , read("first.bin"));
+    assertArrayEquals(second, read("second.bin"));
+    assertEquals(2, ranges.size());
+    assertEquals("-", ranges.get(0));
+    long resumedAt = Long.parseLong(ranges.get(1).substring("bytes=".length(), ranges.get(1).indexOf('-')));
+    assertEquals(30 + "model/first.bin".length() + first.length, resumedAt);   // the second local header
+  }
+
+  @Test
+  public void interruptedSwapIsRolledBackOrCompleted() throws IOException {
+    File backup = new File(finalDir.getPath() + ".old");
+
+    // Cut short after "final -> final.old": the old model is put back.
+    assertTrue(new File(backup, "old-model").mkdirs());
+    StreamingZipInstaller.recover(finalDir);
+    assertTrue(new File(finalDir, "old-model").isDirectory());
+    assertFalse(backup.exists());
+
+    // Cut short after "staging -> final": the new model stays, the backup goes.
+    ModelAssetManager.deleteRecursive(finalDir);
+    assertTrue(new File(finalDir, "new-model").mkdirs());
+    assertTrue(new File(backup, "old-model").mkdirs());
+    StreamingZipInstaller.recover(finalDir);
+    assertTrue(new File(finalDir, "new-model").isDirectory());
+    assertFalse(new File(finalDir, "old-model").exists());
+    assertFalse(backup.exists());
+  }
+
+  @Test
+  public void installAfterAnInterruptedSwapReplacesTheRestoredModel() throws IOException {
+    File backup = new File(finalDir.getPath() + ".old");
+    assertTrue(new File(backup, "old-model").mkdirs());   // process died between the two renames
+    byte[] graph = random(5000, 6);
+    archive = new ZipBuilder().stored("model/graph.bin", graph).finish();
+
+    installer().install();
+
+    assertArrayEquals(graph, read("graph.bin"));
+    assertFalse(new File(finalDir, "old-model").exists());
+    assertFalse(backup.exists());
+  }
+}